@@ -29,7 +29,8 @@ import org.osgi.annotation.versioning.ProviderType;
  * {@link H2DbService#getConnection()} method to be closed, so applications must be prepared to reopen connections if
  * necessary.
  *
- * As an alternative, it is possible to use the {@link H2DbService#withConnection(ConnectionCallable)} method.
+ * As an alternative, it is possible to use the {@link H2DbService#withConnection(ConnectionCallable)} method, or a
+ * long lived {@link H2DbSession} obtained from {@link H2DbService#openSession()}.
  *
  *
  * @since 1.3
@@ -59,6 +60,15 @@ public interface H2DbService extends BaseDbService {
      */
     public <T> T withConnection(ConnectionCallable<T> task) throws SQLException;
 
+    /**
+     * Opens a new {@link H2DbSession} that keeps a connection and a cache of prepared statements across successive
+     * tasks. The returned session must be closed when no longer needed.
+     *
+     * @return the new session.
+     * @since 2.2
+     */
+    public H2DbSession openSession();
+
     /**
      * Represents a task that can be executed using the {@link H2DbService#withConnection(ConnectionCallable)} method.
      *
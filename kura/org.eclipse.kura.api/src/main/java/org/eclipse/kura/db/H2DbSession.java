@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *******************************************************************************/
+
+package org.eclipse.kura.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * A {@link H2DbSession} is a long lived session obtained from {@link H2DbService#openSession()} that keeps a database
+ * connection and a cache of prepared statements across successive calls to
+ * {@link H2DbSession#withConnection(SessionCallable)}, avoiding to check out a connection from the pool and to parse
+ * the same SQL statements on each call.
+ *
+ * The tasks executed by a session are subject to the same guarantees of
+ * {@link H2DbService#withConnection(H2DbService.ConnectionCallable)}: they will not be affected by the
+ * defragmentation process. If the underlying connection is invalidated, for example because the database has been
+ * defragmented or reconfigured, the session transparently opens a new connection and discards the cached statements.
+ *
+ * An open session keeps a connection of the pool of the {@link H2DbService} between its tasks, sessions must be
+ * closed when no longer needed. The number of connections kept by the sessions is limited by the service, so that
+ * they cannot exhaust the pool: when the limit is reached, new sessions return their connection to the pool after
+ * each task and their statements are prepared again at the next task. Concurrent calls to the same session are
+ * serialized.
+ *
+ * @since 2.2
+ * @noimplement This interface is not intended to be implemented by clients.
+ */
+@ProviderType
+public interface H2DbSession extends AutoCloseable {
+
+    /**
+     * Executes the provided {@link SessionCallable} task on the current thread using the connection of this session,
+     * and returns the result. If an exception is thrown by the task, the connection will be rolled back automatically.
+     *
+     * @param task
+     *            the task to be executed.
+     * @return the result of the executed task.
+     * @throws SQLException
+     *             if the provided task throws a {@link SQLException}, if a connection cannot be obtained or if the
+     *             session has been closed.
+     */
+    public <T> T withConnection(SessionCallable<T> task) throws SQLException;
+
+    /**
+     * Closes the cached statements and releases the connection held by this session. Closing an already closed
+     * session has no effect.
+     */
+    @Override
+    public void close();
+
+    /**
+     * Provides access to the connection and to the prepared statement cache of a {@link H2DbSession} during the
+     * execution of a {@link SessionCallable}. The returned objects must not be used after the task completes.
+     *
+     * @noimplement This interface is not intended to be implemented by clients.
+     */
+    @ProviderType
+    public interface SessionContext {
+
+        /**
+         * Returns the connection of the session. The connection must not be closed.
+         *
+         * @return the connection.
+         */
+        public Connection getConnection();
+
+        /**
+         * Returns a {@link PreparedStatement} for the provided SQL, reusing a statement previously prepared by this
+         * session if available. The parameters of the returned statement are cleared. The statement is owned by the
+         * session and must not be closed.
+         *
+         * @param sql
+         *            the SQL statement.
+         * @return the prepared statement.
+         * @throws SQLException
+         *             if the statement cannot be prepared.
+         */
+        public PreparedStatement prepareStatement(String sql) throws SQLException;
+    }
+
+    /**
+     * Represents a task that can be executed using the {@link H2DbSession#withConnection(SessionCallable)} method.
+     *
+     * @param <T>
+     *            The return type of the task.
+     */
+    @FunctionalInterface
+    public interface SessionCallable<T> {
+
+        public T call(SessionContext context) throws SQLException;
+    }
+}
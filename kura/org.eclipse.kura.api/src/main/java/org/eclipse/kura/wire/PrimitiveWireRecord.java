@@ -0,0 +1,515 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Eurotech
+ *
+ *******************************************************************************/
+package org.eclipse.kura.wire;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.eclipse.kura.annotation.Immutable;
+import org.eclipse.kura.annotation.ThreadSafe;
+import org.eclipse.kura.type.BooleanValue;
+import org.eclipse.kura.type.ByteArrayValue;
+import org.eclipse.kura.type.DataType;
+import org.eclipse.kura.type.DoubleValue;
+import org.eclipse.kura.type.FloatValue;
+import org.eclipse.kura.type.IntegerValue;
+import org.eclipse.kura.type.LongValue;
+import org.eclipse.kura.type.StringValue;
+import org.eclipse.kura.type.TypedValue;
+import org.eclipse.kura.type.TypedValues;
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * The Class PrimitiveWireRecord is a {@link WireRecord} that stores its values in primitive arrays indexed by the
+ * slots of a shared {@link WireRecordSchema}, instead of a map of {@link TypedValue} instances.
+ * <p>
+ * The record can be used through the {@link WireRecord} API: {@link #getProperties()} returns a read only view that
+ * creates the {@link TypedValue} instances on access. Receivers aware of this class can instead read the values by
+ * slot using the typed getters, without creating any wrapper object. A slot can be left unset, in this case the
+ * corresponding property is not present in the record.
+ * <p>
+ * Instances are created using a {@link Builder}.
+ *
+ * @noextend This class is not intended to be extended by clients.
+ * @since 2.2
+ */
+@Immutable
+@ThreadSafe
+@ProviderType
+public final class PrimitiveWireRecord extends WireRecord {
+
+    private final WireRecordSchema schema;
+    private final long[] values;
+    private final Object[] references;
+    private final long[] present;
+
+    private PrimitiveWireRecord(final SlotMap slotMap) {
+        super(slotMap);
+        this.schema = slotMap.schema;
+        this.values = slotMap.values;
+        this.references = slotMap.references;
+        this.present = slotMap.present;
+    }
+
+    /**
+     * Returns a new {@link Builder} for records with the provided schema
+     *
+     * @param schema
+     *            the schema
+     * @return the builder
+     * @throws NullPointerException
+     *             if the argument is null
+     */
+    public static Builder builder(final WireRecordSchema schema) {
+        return new Builder(schema);
+    }
+
+    /**
+     * Returns the schema of this record
+     *
+     * @return the schema
+     */
+    public WireRecordSchema getSchema() {
+        return this.schema;
+    }
+
+    /**
+     * Returns whether a value has been set for the provided slot
+     *
+     * @param slot
+     *            the slot index
+     * @return {@code true} if the slot is set
+     */
+    public boolean isSet(final int slot) {
+        return isSet(this.present, slot);
+    }
+
+    /**
+     * Returns whether this record has the same schema instance and the same set slots as the provided record, in
+     * this case the two records have the same property names and types.
+     *
+     * @param other
+     *            the other record
+     * @return {@code true} if the records have the same layout
+     */
+    public boolean hasSameLayout(final PrimitiveWireRecord other) {
+        if (this.schema != other.schema) {
+            return false;
+        }
+        for (int i = 0; i < this.present.length; i++) {
+            if (this.present[i] != other.present[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the value of a {@link DataType#BOOLEAN} slot
+     *
+     * @param slot
+     *            the slot index
+     * @return the value
+     * @throws IllegalArgumentException
+     *             if the slot has a different type
+     * @throws IllegalStateException
+     *             if the slot is not set
+     */
+    public boolean getBoolean(final int slot) {
+        checkSlot(slot, DataType.BOOLEAN);
+        return this.values[slot] != 0;
+    }
+
+    /**
+     * Returns the value of a {@link DataType#INTEGER} slot
+     *
+     * @param slot
+     *            the slot index
+     * @return the value
+     * @throws IllegalArgumentException
+     *             if the slot has a different type
+     * @throws IllegalStateException
+     *             if the slot is not set
+     */
+    public int getInteger(final int slot) {
+        checkSlot(slot, DataType.INTEGER);
+        return (int) this.values[slot];
+    }
+
+    /**
+     * Returns the value of a {@link DataType#LONG} or {@link DataType#INTEGER} slot
+     *
+     * @param slot
+     *            the slot index
+     * @return the value
+     * @throws IllegalArgumentException
+     *             if the slot has a different type
+     * @throws IllegalStateException
+     *             if the slot is not set
+     */
+    public long getLong(final int slot) {
+        checkSlot(slot, this.schema.getType(slot) == DataType.INTEGER ? DataType.INTEGER : DataType.LONG);
+        return this.values[slot];
+    }
+
+    /**
+     * Returns the value of a {@link DataType#FLOAT} slot
+     *
+     * @param slot
+     *            the slot index
+     * @return the value
+     * @throws IllegalArgumentException
+     *             if the slot has a different type
+     * @throws IllegalStateException
+     *             if the slot is not set
+     */
+    public float getFloat(final int slot) {
+        checkSlot(slot, DataType.FLOAT);
+        return Float.intBitsToFloat((int) this.values[slot]);
+    }
+
+    /**
+     * Returns the value of a {@link DataType#DOUBLE} or {@link DataType#FLOAT} slot
+     *
+     * @param slot
+     *            the slot index
+     * @return the value
+     * @throws IllegalArgumentException
+     *             if the slot has a different type
+     * @throws IllegalStateException
+     *             if the slot is not set
+     */
+    public double getDouble(final int slot) {
+        if (this.schema.getType(slot) == DataType.FLOAT) {
+            return getFloat(slot);
+        }
+        checkSlot(slot, DataType.DOUBLE);
+        return Double.longBitsToDouble(this.values[slot]);
+    }
+
+    /**
+     * Returns the value of a {@link DataType#STRING} slot
+     *
+     * @param slot
+     *            the slot index
+     * @return the value
+     * @throws IllegalArgumentException
+     *             if the slot has a different type
+     * @throws IllegalStateException
+     *             if the slot is not set
+     */
+    public String getString(final int slot) {
+        checkSlot(slot, DataType.STRING);
+        return (String) this.references[slot];
+    }
+
+    /**
+     * Returns the value of a {@link DataType#BYTE_ARRAY} slot
+     *
+     * @param slot
+     *            the slot index
+     * @return the value
+     * @throws IllegalArgumentException
+     *             if the slot has a different type
+     * @throws IllegalStateException
+     *             if the slot is not set
+     */
+    public byte[] getByteArray(final int slot) {
+        checkSlot(slot, DataType.BYTE_ARRAY);
+        return (byte[]) this.references[slot];
+    }
+
+    /**
+     * Returns the value of the provided slot as a {@link TypedValue}
+     *
+     * @param slot
+     *            the slot index
+     * @return the value, or {@code null} if the slot is not set
+     */
+    public TypedValue<?> getValue(final int slot) {
+        return toTypedValue(this.schema, this.values, this.references, this.present, slot);
+    }
+
+    private void checkSlot(final int slot, final DataType type) {
+        if (this.schema.getType(slot) != type) {
+            throw new IllegalArgumentException(
+                    "Slot " + slot + " has type " + this.schema.getType(slot) + ", not " + type);
+        }
+        if (!isSet(this.present, slot)) {
+            throw new IllegalStateException("Slot " + slot + " is not set");
+        }
+    }
+
+    private static boolean isSet(final long[] present, final int slot) {
+        return (present[slot >> 6] & 1L << slot) != 0;
+    }
+
+    private static TypedValue<?> toTypedValue(final WireRecordSchema schema, final long[] values,
+            final Object[] references, final long[] present, final int slot) {
+        if (!isSet(present, slot)) {
+            return null;
+        }
+        final long value = values[slot];
+        switch (schema.getType(slot)) {
+        case BOOLEAN:
+            return TypedValues.newBooleanValue(value != 0);
+        case INTEGER:
+            return TypedValues.newIntegerValue((int) value);
+        case LONG:
+            return TypedValues.newLongValue(value);
+        case FLOAT:
+            return TypedValues.newFloatValue(Float.intBitsToFloat((int) value));
+        case DOUBLE:
+            return TypedValues.newDoubleValue(Double.longBitsToDouble(value));
+        case STRING:
+            return TypedValues.newStringValue((String) references[slot]);
+        default:
+            return TypedValues.newByteArrayValue((byte[]) references[slot]);
+        }
+    }
+
+    /**
+     * Builds {@link PrimitiveWireRecord} instances. The typed setters set the value of a slot and throw an
+     * {@link IllegalArgumentException} if the slot has a different type. A builder can be reused, after
+     * {@link #build()} all slots are unset. Builders are not thread safe.
+     */
+    public static final class Builder {
+
+        private final WireRecordSchema schema;
+        private final boolean hasReferences;
+
+        private long[] values;
+        private Object[] references;
+        private long[] present;
+
+        private Builder(final WireRecordSchema schema) {
+            this.schema = requireNonNull(schema, "Schema cannot be null");
+
+            boolean references = false;
+            for (int i = 0; i < schema.size(); i++) {
+                final DataType type = schema.getType(i);
+                references |= type == DataType.STRING || type == DataType.BYTE_ARRAY;
+            }
+            this.hasReferences = references;
+            reset();
+        }
+
+        private void reset() {
+            this.values = new long[this.schema.size()];
+            this.references = this.hasReferences ? new Object[this.schema.size()] : null;
+            this.present = new long[this.schema.size() + 63 >> 6];
+        }
+
+        private Builder setRaw(final int slot, final DataType type, final long value) {
+            checkType(slot, type);
+            this.values[slot] = value;
+            this.present[slot >> 6] |= 1L << slot;
+            return this;
+        }
+
+        private Builder setReference(final int slot, final DataType type, final Object value) {
+            checkType(slot, type);
+            requireNonNull(value, "Value cannot be null");
+            this.references[slot] = value;
+            this.present[slot >> 6] |= 1L << slot;
+            return this;
+        }
+
+        private void checkType(final int slot, final DataType type) {
+            if (this.schema.getType(slot) != type) {
+                throw new IllegalArgumentException(
+                        "Slot " + slot + " has type " + this.schema.getType(slot) + ", not " + type);
+            }
+        }
+
+        public Builder setBoolean(final int slot, final boolean value) {
+            return setRaw(slot, DataType.BOOLEAN, value ? 1 : 0);
+        }
+
+        public Builder setInteger(final int slot, final int value) {
+            return setRaw(slot, DataType.INTEGER, value);
+        }
+
+        public Builder setLong(final int slot, final long value) {
+            return setRaw(slot, DataType.LONG, value);
+        }
+
+        public Builder setFloat(final int slot, final float value) {
+            return setRaw(slot, DataType.FLOAT, Float.floatToRawIntBits(value));
+        }
+
+        public Builder setDouble(final int slot, final double value) {
+            return setRaw(slot, DataType.DOUBLE, Double.doubleToRawLongBits(value));
+        }
+
+        public Builder setString(final int slot, final String value) {
+            return setReference(slot, DataType.STRING, value);
+        }
+
+        public Builder setByteArray(final int slot, final byte[] value) {
+            return setReference(slot, DataType.BYTE_ARRAY, value);
+        }
+
+        /**
+         * Sets the provided slot from a {@link TypedValue}
+         *
+         * @param slot
+         *            the slot index
+         * @param value
+         *            the value
+         * @return this builder
+         * @throws IllegalArgumentException
+         *             if the type of the value is different from the type of the slot
+         */
+        public Builder setValue(final int slot, final TypedValue<?> value) {
+            requireNonNull(value, "Value cannot be null");
+            switch (value.getType()) {
+            case BOOLEAN:
+                return setBoolean(slot, ((BooleanValue) value).getValue());
+            case INTEGER:
+                return setInteger(slot, ((IntegerValue) value).getValue());
+            case LONG:
+                return setLong(slot, ((LongValue) value).getValue());
+            case FLOAT:
+                return setFloat(slot, ((FloatValue) value).getValue());
+            case DOUBLE:
+                return setDouble(slot, ((DoubleValue) value).getValue());
+            case STRING:
+                return setString(slot, ((StringValue) value).getValue());
+            default:
+                return setByteArray(slot, ((ByteArrayValue) value).getValue());
+            }
+        }
+
+        /**
+         * Unsets the provided slot
+         *
+         * @param slot
+         *            the slot index
+         * @return this builder
+         */
+        public Builder clear(final int slot) {
+            this.present[slot >> 6] &= ~(1L << slot);
+            if (this.references != null) {
+                this.references[slot] = null;
+            }
+            return this;
+        }
+
+        /**
+         * Returns a new record containing the slots set so far, and unsets all slots of this builder
+         *
+         * @return the record
+         */
+        public PrimitiveWireRecord build() {
+            final PrimitiveWireRecord result = new PrimitiveWireRecord(
+                    new SlotMap(this.schema, this.values, this.references, this.present));
+            reset();
+            return result;
+        }
+    }
+
+    /**
+     * Read only {@link Map} view of the slots of a record.
+     */
+    private static final class SlotMap extends AbstractMap<String, TypedValue<?>> {
+
+        private final WireRecordSchema schema;
+        private final long[] values;
+        private final Object[] references;
+        private final long[] present;
+        private final int size;
+
+        SlotMap(final WireRecordSchema schema, final long[] values, final Object[] references, final long[] present) {
+            this.schema = schema;
+            this.values = values;
+            this.references = references;
+            this.present = present;
+
+            int count = 0;
+            for (final long word : present) {
+                count += Long.bitCount(word);
+            }
+            this.size = count;
+        }
+
+        @Override
+        public int size() {
+            return this.size;
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            final int slot = key instanceof String ? this.schema.indexOf((String) key) : -1;
+            return slot >= 0 && isSet(this.present, slot);
+        }
+
+        @Override
+        public TypedValue<?> get(final Object key) {
+            final int slot = key instanceof String ? this.schema.indexOf((String) key) : -1;
+            return slot >= 0 ? toTypedValue(this.schema, this.values, this.references, this.present, slot) : null;
+        }
+
+        @Override
+        public Set<Entry<String, TypedValue<?>>> entrySet() {
+            return new AbstractSet<Entry<String, TypedValue<?>>>() {
+
+                @Override
+                public int size() {
+                    return SlotMap.this.size;
+                }
+
+                @Override
+                public Iterator<Entry<String, TypedValue<?>>> iterator() {
+                    return new SlotIterator();
+                }
+            };
+        }
+
+        private final class SlotIterator implements Iterator<Entry<String, TypedValue<?>>> {
+
+            private int next = nextSetSlot(0);
+
+            private int nextSetSlot(final int from) {
+                for (int slot = from; slot < SlotMap.this.schema.size(); slot++) {
+                    if (isSet(SlotMap.this.present, slot)) {
+                        return slot;
+                    }
+                }
+                return -1;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return this.next >= 0;
+            }
+
+            @Override
+            public Entry<String, TypedValue<?>> next() {
+                if (this.next < 0) {
+                    throw new NoSuchElementException();
+                }
+                final int slot = this.next;
+                this.next = nextSetSlot(slot + 1);
+                return new SimpleImmutableEntry<>(SlotMap.this.schema.getName(slot), toTypedValue(SlotMap.this.schema,
+                        SlotMap.this.values, SlotMap.this.references, SlotMap.this.present, slot));
+            }
+        }
+    }
+}
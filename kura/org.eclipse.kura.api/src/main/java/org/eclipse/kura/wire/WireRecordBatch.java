@@ -0,0 +1,503 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Eurotech
+ *
+ *******************************************************************************/
+package org.eclipse.kura.wire;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.eclipse.kura.KuraInvalidMessageException;
+import org.eclipse.kura.annotation.Immutable;
+import org.eclipse.kura.annotation.ThreadSafe;
+import org.eclipse.kura.message.KuraPayload;
+import org.eclipse.kura.type.BooleanValue;
+import org.eclipse.kura.type.ByteArrayValue;
+import org.eclipse.kura.type.DataType;
+import org.eclipse.kura.type.DoubleValue;
+import org.eclipse.kura.type.FloatValue;
+import org.eclipse.kura.type.IntegerValue;
+import org.eclipse.kura.type.LongValue;
+import org.eclipse.kura.type.StringValue;
+import org.eclipse.kura.type.TypedValue;
+import org.eclipse.kura.type.TypedValues;
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * The Class WireRecordBatch represents a sequence of timestamped {@link WireRecord}s that can be serialized in a
+ * compact columnar binary format, used for example by the Wire Cloud Publisher to send multiple records in a single
+ * message.
+ * <p>
+ * In the serialized form each property name is stored only once, the values of a property are stored together,
+ * integer and long values and record timestamps are delta encoded. A {@link KuraPayload} carrying a batch in its body
+ * is marked with the {@link #FORMAT_METRIC_NAME} metric set to {@link #COLUMNAR_FORMAT}.
+ *
+ * @noextend This class is not intended to be extended by clients.
+ * @since 2.2
+ */
+@Immutable
+@ThreadSafe
+@ProviderType
+public final class WireRecordBatch {
+
+    /**
+     * The name of the metric that identifies the format of the payload body.
+     */
+    public static final String FORMAT_METRIC_NAME = "kura.payload.format";
+
+    /**
+     * The value of the {@link #FORMAT_METRIC_NAME} metric for payloads carrying a columnar {@link WireRecordBatch}.
+     */
+    public static final String COLUMNAR_FORMAT = "kura.wire.columnar.v1";
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int ALL_PRESENT = 0;
+    private static final int PRESENCE_BITMAP = 1;
+
+    private final List<WireRecord> records;
+    private final long[] timestamps;
+
+    /**
+     * Instantiates a new {@link WireRecordBatch}.
+     *
+     * @param records
+     *            the records
+     * @param timestamps
+     *            the timestamps of the records, in milliseconds since the epoch
+     * @throws NullPointerException
+     *             if any of the arguments is null
+     * @throws IllegalArgumentException
+     *             if the number of timestamps is different from the number of records
+     */
+    public WireRecordBatch(final List<WireRecord> records, final long[] timestamps) {
+        requireNonNull(records, "Wire Records cannot be null");
+        requireNonNull(timestamps, "Timestamps cannot be null");
+        if (records.size() != timestamps.length) {
+            throw new IllegalArgumentException("The number of timestamps must match the number of records");
+        }
+
+        this.records = Collections.unmodifiableList(new ArrayList<>(records));
+        this.timestamps = timestamps.clone();
+    }
+
+    /**
+     * Returns the records of this batch
+     *
+     * @return the records
+     */
+    public List<WireRecord> getRecords() {
+        return this.records;
+    }
+
+    /**
+     * Returns the timestamp of the record at the provided index
+     *
+     * @param index
+     *            the record index
+     * @return the timestamp in milliseconds since the epoch
+     */
+    public long getTimestamp(final int index) {
+        return this.timestamps[index];
+    }
+
+    /**
+     * Returns the number of records in this batch
+     *
+     * @return the number of records
+     */
+    public int size() {
+        return this.records.size();
+    }
+
+    /**
+     * Serializes this batch in the columnar binary format.
+     *
+     * @return the serialized batch
+     */
+    public byte[] toByteArray() {
+        final Map<ColumnKey, Column> columns = new LinkedHashMap<>();
+        final int recordCount = this.records.size();
+
+        for (int i = 0; i < recordCount; i++) {
+            for (final Entry<String, TypedValue<?>> entry : this.records.get(i).getProperties().entrySet()) {
+                final TypedValue<?> value = entry.getValue();
+                if (value == null) {
+                    continue;
+                }
+                final ColumnKey key = new ColumnKey(entry.getKey(), value.getType());
+                columns.computeIfAbsent(key, k -> new Column(k, recordCount)).add(i, value);
+            }
+        }
+
+        final Writer writer = new Writer();
+        writer.writeByte(FORMAT_VERSION);
+        writer.writeVarint(recordCount);
+        writer.writeVarint(columns.size());
+
+        long previousTimestamp = 0;
+        for (final long timestamp : this.timestamps) {
+            writer.writeSignedVarint(timestamp - previousTimestamp);
+            previousTimestamp = timestamp;
+        }
+
+        for (final Column column : columns.values()) {
+            column.writeTo(writer, recordCount);
+        }
+
+        return writer.toByteArray();
+    }
+
+    /**
+     * Builds a {@link WireRecordBatch} from its columnar binary representation.
+     *
+     * @param bytes
+     *            the serialized batch
+     * @return the batch
+     * @throws KuraInvalidMessageException
+     *             if the provided bytes are not a valid serialized batch
+     * @throws NullPointerException
+     *             if the argument is null
+     */
+    public static WireRecordBatch fromByteArray(final byte[] bytes) throws KuraInvalidMessageException {
+        requireNonNull(bytes, "Bytes cannot be null");
+
+        try {
+            return decode(ByteBuffer.wrap(bytes));
+        } catch (final BufferUnderflowException | IllegalArgumentException e) {
+            throw new KuraInvalidMessageException(e, "Invalid wire record batch");
+        }
+    }
+
+    /**
+     * Checks whether the provided payload carries a columnar {@link WireRecordBatch}.
+     *
+     * @param payload
+     *            the payload
+     * @return true if the payload body contains a columnar batch
+     */
+    public static boolean isWireRecordBatch(final KuraPayload payload) {
+        return payload != null && COLUMNAR_FORMAT.equals(payload.getMetric(FORMAT_METRIC_NAME))
+                && payload.getBody() != null;
+    }
+
+    /**
+     * Extracts the {@link WireRecordBatch} carried by the provided payload.
+     *
+     * @param payload
+     *            the payload
+     * @return the batch
+     * @throws KuraInvalidMessageException
+     *             if the payload does not carry a valid columnar batch
+     * @throws NullPointerException
+     *             if the argument is null
+     */
+    public static WireRecordBatch fromKuraPayload(final KuraPayload payload) throws KuraInvalidMessageException {
+        requireNonNull(payload, "Payload cannot be null");
+        if (!isWireRecordBatch(payload)) {
+            throw new KuraInvalidMessageException("The payload does not contain a wire record batch");
+        }
+        return fromByteArray(payload.getBody());
+    }
+
+    private static WireRecordBatch decode(final ByteBuffer buffer) {
+        final int version = buffer.get() & 0xff;
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported format version: " + version);
+        }
+
+        final int recordCount = readLength(buffer);
+        final int columnCount = readLength(buffer);
+
+        final long[] timestamps = new long[recordCount];
+        long previousTimestamp = 0;
+        for (int i = 0; i < recordCount; i++) {
+            previousTimestamp += readSignedVarint(buffer);
+            timestamps[i] = previousTimestamp;
+        }
+
+        final List<Map<String, TypedValue<?>>> properties = new ArrayList<>(recordCount);
+        for (int i = 0; i < recordCount; i++) {
+            properties.add(new HashMap<>());
+        }
+
+        for (int c = 0; c < columnCount; c++) {
+            readColumn(buffer, properties);
+        }
+
+        final List<WireRecord> records = new ArrayList<>(recordCount);
+        for (final Map<String, TypedValue<?>> recordProperties : properties) {
+            records.add(new WireRecord(recordProperties));
+        }
+
+        return new WireRecordBatch(records, timestamps);
+    }
+
+    private static void readColumn(final ByteBuffer buffer, final List<Map<String, TypedValue<?>>> properties) {
+        final int recordCount = properties.size();
+        final String name = new String(readBytes(buffer), StandardCharsets.UTF_8);
+        final DataType type = typeOf(buffer.get() & 0xff);
+
+        final int presence = buffer.get() & 0xff;
+        final BitSet present;
+        if (presence == ALL_PRESENT) {
+            present = new BitSet(recordCount);
+            present.set(0, recordCount);
+        } else if (presence == PRESENCE_BITMAP) {
+            final byte[] bitmap = new byte[(recordCount + 7) / 8];
+            buffer.get(bitmap);
+            present = BitSet.valueOf(bitmap);
+        } else {
+            throw new IllegalArgumentException("Invalid presence encoding: " + presence);
+        }
+
+        final int valueCount = present.cardinality();
+        byte[] booleans = null;
+        if (type == DataType.BOOLEAN) {
+            booleans = new byte[(valueCount + 7) / 8];
+            buffer.get(booleans);
+        }
+
+        long previous = 0;
+        int valueIndex = 0;
+        for (int i = present.nextSetBit(0); i >= 0 && i < recordCount; i = present.nextSetBit(i + 1)) {
+            final TypedValue<?> value;
+            switch (type) {
+            case BOOLEAN:
+                value = TypedValues.newBooleanValue((booleans[valueIndex >> 3] & 1 << (valueIndex & 7)) != 0);
+                break;
+            case INTEGER:
+                previous += readSignedVarint(buffer);
+                value = TypedValues.newIntegerValue((int) previous);
+                break;
+            case LONG:
+                previous += readSignedVarint(buffer);
+                value = TypedValues.newLongValue(previous);
+                break;
+            case FLOAT:
+                value = TypedValues.newFloatValue(buffer.getFloat());
+                break;
+            case DOUBLE:
+                value = TypedValues.newDoubleValue(buffer.getDouble());
+                break;
+            case STRING:
+                value = TypedValues.newStringValue(new String(readBytes(buffer), StandardCharsets.UTF_8));
+                break;
+            default:
+                value = TypedValues.newByteArrayValue(readBytes(buffer));
+                break;
+            }
+            properties.get(i).put(name, value);
+            valueIndex++;
+        }
+    }
+
+    private static int typeCode(final DataType type) {
+        return type.ordinal() + 1;
+    }
+
+    private static DataType typeOf(final int code) {
+        final DataType[] types = DataType.values();
+        if (code < 1 || code > types.length) {
+            throw new IllegalArgumentException("Invalid data type: " + code);
+        }
+        return types[code - 1];
+    }
+
+    private static byte[] readBytes(final ByteBuffer buffer) {
+        final byte[] result = new byte[readLength(buffer)];
+        buffer.get(result);
+        return result;
+    }
+
+    private static int readLength(final ByteBuffer buffer) {
+        final long length = readVarint(buffer);
+        if (length < 0 || length > buffer.capacity()) {
+            throw new IllegalArgumentException("Invalid length: " + length);
+        }
+        return (int) length;
+    }
+
+    private static long readVarint(final ByteBuffer buffer) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = buffer.get();
+            result |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static long readSignedVarint(final ByteBuffer buffer) {
+        final long value = readVarint(buffer);
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    private static final class ColumnKey {
+
+        private final String name;
+        private final DataType type;
+
+        ColumnKey(final String name, final DataType type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.name.hashCode() + this.type.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof ColumnKey)) {
+                return false;
+            }
+            final ColumnKey other = (ColumnKey) obj;
+            return this.type == other.type && this.name.equals(other.name);
+        }
+    }
+
+    private static final class Column {
+
+        private final ColumnKey key;
+        private final BitSet present;
+        private final List<TypedValue<?>> values = new ArrayList<>();
+
+        Column(final ColumnKey key, final int recordCount) {
+            this.key = key;
+            this.present = new BitSet(recordCount);
+        }
+
+        void add(final int recordIndex, final TypedValue<?> value) {
+            this.present.set(recordIndex);
+            this.values.add(value);
+        }
+
+        void writeTo(final Writer writer, final int recordCount) {
+            writer.writeBytes(this.key.name.getBytes(StandardCharsets.UTF_8));
+            writer.writeByte(typeCode(this.key.type));
+
+            if (this.values.size() == recordCount) {
+                writer.writeByte(ALL_PRESENT);
+            } else {
+                writer.writeByte(PRESENCE_BITMAP);
+                final byte[] bitmap = this.present.toByteArray();
+                writer.writeRaw(bitmap);
+                for (int i = bitmap.length; i < (recordCount + 7) / 8; i++) {
+                    writer.writeByte(0);
+                }
+            }
+
+            if (this.key.type == DataType.BOOLEAN) {
+                final BitSet booleans = new BitSet(this.values.size());
+                for (int i = 0; i < this.values.size(); i++) {
+                    booleans.set(i, ((BooleanValue) this.values.get(i)).getValue());
+                }
+                final byte[] packed = booleans.toByteArray();
+                writer.writeRaw(packed);
+                for (int i = packed.length; i < (this.values.size() + 7) / 8; i++) {
+                    writer.writeByte(0);
+                }
+                return;
+            }
+
+            long previous = 0;
+            for (final TypedValue<?> value : this.values) {
+                switch (this.key.type) {
+                case INTEGER:
+                    final int intValue = ((IntegerValue) value).getValue();
+                    writer.writeSignedVarint(intValue - previous);
+                    previous = intValue;
+                    break;
+                case LONG:
+                    final long longValue = ((LongValue) value).getValue();
+                    writer.writeSignedVarint(longValue - previous);
+                    previous = longValue;
+                    break;
+                case FLOAT:
+                    writer.writeInt(Float.floatToIntBits(((FloatValue) value).getValue()));
+                    break;
+                case DOUBLE:
+                    writer.writeLong(Double.doubleToLongBits(((DoubleValue) value).getValue()));
+                    break;
+                case STRING:
+                    writer.writeBytes(((StringValue) value).getValue().getBytes(StandardCharsets.UTF_8));
+                    break;
+                default:
+                    writer.writeBytes(((ByteArrayValue) value).getValue());
+                    break;
+                }
+            }
+        }
+    }
+
+    private static final class Writer {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        void writeByte(final int value) {
+            this.out.write(value);
+        }
+
+        void writeRaw(final byte[] value) {
+            this.out.write(value, 0, value.length);
+        }
+
+        void writeBytes(final byte[] value) {
+            writeVarint(value.length);
+            writeRaw(value);
+        }
+
+        void writeInt(final int value) {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                this.out.write(value >>> shift);
+            }
+        }
+
+        void writeLong(final long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                this.out.write((int) (value >>> shift));
+            }
+        }
+
+        void writeVarint(final long value) {
+            long remaining = value;
+            while ((remaining & ~0x7fL) != 0) {
+                this.out.write((int) (remaining & 0x7f | 0x80));
+                remaining >>>= 7;
+            }
+            this.out.write((int) remaining);
+        }
+
+        void writeSignedVarint(final long value) {
+            writeVarint(value << 1 ^ value >> 63);
+        }
+
+        byte[] toByteArray() {
+            return this.out.toByteArray();
+        }
+    }
+}
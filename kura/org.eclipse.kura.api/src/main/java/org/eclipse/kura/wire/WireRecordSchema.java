@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Eurotech
+ *
+ *******************************************************************************/
+package org.eclipse.kura.wire;
+
+import static java.util.Objects.requireNonNull;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.WeakHashMap;
+
+import org.eclipse.kura.annotation.Immutable;
+import org.eclipse.kura.annotation.ThreadSafe;
+import org.eclipse.kura.type.DataType;
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * The Class WireRecordSchema describes the properties of a {@link PrimitiveWireRecord}: each property is identified
+ * by a slot index and has a fixed name and {@link DataType}.
+ * <p>
+ * Schemas are interned: the {@link #of(Map)} method returns the same instance for the same sequence of names and
+ * types, so that the records produced by the same emitter share a single schema and the receivers can cache the
+ * information derived from it using the schema identity.
+ *
+ * @noextend This class is not intended to be extended by clients.
+ * @since 2.2
+ */
+@Immutable
+@ThreadSafe
+@ProviderType
+public final class WireRecordSchema {
+
+    private static final Map<WireRecordSchema, WeakReference<WireRecordSchema>> INTERNED = new WeakHashMap<>();
+
+    private final String[] names;
+    private final DataType[] types;
+    private final Map<String, Integer> slotByName;
+    private final int hashCode;
+
+    private WireRecordSchema(final String[] names, final DataType[] types) {
+        this.names = names;
+        this.types = types;
+        this.slotByName = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            if (this.slotByName.put(names[i], i) != null) {
+                throw new IllegalArgumentException("Duplicate property name: " + names[i]);
+            }
+        }
+        this.hashCode = 31 * Arrays.hashCode(names) + Arrays.hashCode(types);
+    }
+
+    /**
+     * Returns the schema having the provided property names and types, in iteration order.
+     *
+     * @param properties
+     *            the property names and types, the iteration order of the map defines the slot indexes
+     * @return the interned schema
+     * @throws NullPointerException
+     *             if the argument, or any of the names or types, is null
+     */
+    public static WireRecordSchema of(final Map<String, DataType> properties) {
+        requireNonNull(properties, "Properties cannot be null");
+
+        final String[] names = new String[properties.size()];
+        final DataType[] types = new DataType[properties.size()];
+
+        int i = 0;
+        for (final Entry<String, DataType> entry : properties.entrySet()) {
+            names[i] = requireNonNull(entry.getKey(), "Property name cannot be null");
+            types[i] = requireNonNull(entry.getValue(), "Property type cannot be null");
+            i++;
+        }
+
+        final WireRecordSchema schema = new WireRecordSchema(names, types);
+
+        synchronized (INTERNED) {
+            final WeakReference<WireRecordSchema> ref = INTERNED.get(schema);
+            final WireRecordSchema existing = ref != null ? ref.get() : null;
+            if (existing != null) {
+                return existing;
+            }
+            INTERNED.put(schema, new WeakReference<>(schema));
+            return schema;
+        }
+    }
+
+    /**
+     * Returns the number of slots of this schema
+     *
+     * @return the number of slots
+     */
+    public int size() {
+        return this.names.length;
+    }
+
+    /**
+     * Returns the name of the property stored in the provided slot
+     *
+     * @param slot
+     *            the slot index
+     * @return the property name
+     */
+    public String getName(final int slot) {
+        return this.names[slot];
+    }
+
+    /**
+     * Returns the type of the property stored in the provided slot
+     *
+     * @param slot
+     *            the slot index
+     * @return the property type
+     */
+    public DataType getType(final int slot) {
+        return this.types[slot];
+    }
+
+    /**
+     * Returns the slot of the property with the provided name
+     *
+     * @param name
+     *            the property name
+     * @return the slot index, or -1 if this schema does not contain the property
+     */
+    public int indexOf(final String name) {
+        final Integer slot = this.slotByName.get(name);
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * Returns the property names of this schema, in slot order
+     *
+     * @return the property names
+     */
+    public List<String> getNames() {
+        return Collections.unmodifiableList(Arrays.asList(this.names));
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hashCode;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof WireRecordSchema)) {
+            return false;
+        }
+        final WireRecordSchema other = (WireRecordSchema) obj;
+        return this.hashCode == other.hashCode && Arrays.equals(this.names, other.names)
+                && Arrays.equals(this.types, other.types);
+    }
+}
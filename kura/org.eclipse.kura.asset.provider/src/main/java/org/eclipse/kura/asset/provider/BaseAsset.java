@@ -54,8 +54,13 @@ import org.eclipse.kura.core.configuration.metatype.Tad;
 import org.eclipse.kura.core.configuration.metatype.Tocd;
 import org.eclipse.kura.driver.Driver;
 import org.eclipse.kura.driver.PreparedRead;
+import org.eclipse.kura.internal.asset.provider.AssetIoExecutor;
 import org.eclipse.kura.internal.asset.provider.BaseAssetConfiguration;
 import org.eclipse.kura.internal.asset.provider.DriverTrackerCustomizer;
+import org.eclipse.kura.internal.asset.provider.SharedAssetExecutorComponent;
+import org.eclipse.kura.internal.asset.provider.SharedIoExecutor;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
 import org.osgi.service.component.ComponentContext;
 import org.osgi.util.tracker.ServiceTracker;
 import org.slf4j.Logger;
@@ -126,6 +131,8 @@ public class BaseAsset implements Asset, SelfConfiguringComponent {
 
     private ServiceTracker<Driver, Driver> driverServiceTracker;
 
+    private ServiceTracker<SharedAssetExecutorComponent, SharedAssetExecutorComponent> sharedExecutorTracker;
+
     private BaseAssetExecutor executor;
 
     private final AtomicReference<DriverState> driverState = new AtomicReference<>();
@@ -141,6 +148,7 @@ public class BaseAsset implements Asset, SelfConfiguringComponent {
     protected void activate(final ComponentContext componentContext, final Map<String, Object> properties) {
         logger.info("activating...");
         this.context = componentContext;
+        openSharedExecutorTracker();
         this.executor = initBaseAssetExecutor();
         updated(properties);
         logger.info("activating...done");
@@ -181,6 +189,13 @@ public class BaseAsset implements Asset, SelfConfiguringComponent {
 
         this.executor.shutdown();
 
+        if (this.sharedExecutorTracker != null) {
+            this.sharedExecutorTracker.close();
+            this.sharedExecutorTracker = null;
+        }
+
+        logger.debug("IO queue wait time: {}", this.executor.getIoQueueWaitHistogram());
+        logger.debug("IO execution time: {}", this.executor.getIoExecutionTimeHistogram());
         logger.debug("deactivating...done");
     }
 
@@ -210,6 +225,24 @@ public class BaseAsset implements Asset, SelfConfiguringComponent {
         logger.debug("Attaching driver instance...Done");
     }
 
+    private void openSharedExecutorTracker() {
+        // the shared executor class is resolved by this bundle, also for the assets provided by other bundles
+        final Bundle bundle = FrameworkUtil.getBundle(BaseAsset.class);
+        if (bundle == null || bundle.getBundleContext() == null) {
+            return;
+        }
+        this.sharedExecutorTracker = new ServiceTracker<>(bundle.getBundleContext(),
+                SharedAssetExecutorComponent.class, null);
+        this.sharedExecutorTracker.open();
+    }
+
+    private SharedIoExecutor getSharedIoExecutor() {
+        final ServiceTracker<SharedAssetExecutorComponent, SharedAssetExecutorComponent> tracker;
+        tracker = this.sharedExecutorTracker;
+        final SharedAssetExecutorComponent component = tracker != null ? tracker.getService() : null;
+        return component != null ? component.getExecutor() : null;
+    }
+
     /** {@inheritDoc} */
     @Override
     public AssetConfiguration getAssetConfiguration() {
@@ -456,16 +489,24 @@ public class BaseAsset implements Asset, SelfConfiguringComponent {
 
     protected BaseAssetExecutor initBaseAssetExecutor() {
 
-        // TODO make this configurable and maybe allow using shared thread pools
-
-        final ExecutorService ioExecutor = new ThreadPoolExecutor(1, 5, 60L, TimeUnit.SECONDS,
-                new LinkedBlockingQueue<>());
+        final ExecutorService ioExecutor = new AssetIoExecutor(this::getDriverPid, this::getSharedIoExecutor,
+                new ThreadPoolExecutor(1, 5, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>()));
         final ExecutorService configExecutor = new ThreadPoolExecutor(0, 1, 60L, TimeUnit.SECONDS,
                 new LinkedBlockingQueue<>());
 
         return new BaseAssetExecutor(ioExecutor, configExecutor);
     }
 
+    private String getDriverPid() {
+        final BaseAssetConfiguration conf = this.config;
+
+        if (conf == null) {
+            return null;
+        }
+
+        return conf.getAssetConfiguration().getDriverPid();
+    }
+
     /** {@inheritDoc} */
     @Override
     public void write(final List<ChannelRecord> channelRecords) throws KuraException {
@@ -12,8 +12,10 @@ package org.eclipse.kura.asset.provider;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.eclipse.kura.util.statistics.LatencyHistogram;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,6 +29,9 @@ public class BaseAssetExecutor {
     private final ExecutorService configExecutor;
     private final boolean isConfigExecutorShared;
 
+    private final LatencyHistogram ioQueueWaitHistogram = new LatencyHistogram();
+    private final LatencyHistogram ioExecutionTimeHistogram = new LatencyHistogram();
+
     private final AtomicReference<CompletableFuture<Void>> queue = new AtomicReference<>(
             CompletableFuture.completedFuture(null));
 
@@ -44,14 +49,23 @@ public class BaseAssetExecutor {
 
     public <T> CompletableFuture<T> runIO(final Callable<T> task) {
         final CompletableFuture<T> result = new CompletableFuture<>();
-
-        this.ioExecutor.execute(() -> {
-            try {
-                result.complete(task.call());
-            } catch (Exception e) {
-                result.completeExceptionally(e);
-            }
-        });
+        final long submitted = System.nanoTime();
+
+        try {
+            this.ioExecutor.execute(() -> {
+                final long started = System.nanoTime();
+                this.ioQueueWaitHistogram.record(started - submitted);
+                try {
+                    result.complete(task.call());
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    this.ioExecutionTimeHistogram.record(System.nanoTime() - started);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
 
         return result;
     }
@@ -74,6 +88,26 @@ public class BaseAssetExecutor {
         return next;
     }
 
+    /**
+     * Returns the histogram of the time spent by the IO tasks waiting to be executed.
+     *
+     * @return the queue wait histogram
+     * @since 2.1
+     */
+    public LatencyHistogram getIoQueueWaitHistogram() {
+        return this.ioQueueWaitHistogram;
+    }
+
+    /**
+     * Returns the histogram of the execution time of the IO tasks.
+     *
+     * @return the execution time histogram
+     * @since 2.1
+     */
+    public LatencyHistogram getIoExecutionTimeHistogram() {
+        return this.ioExecutionTimeHistogram;
+    }
+
     public void shutdown() {
         if (!this.isIoExecutorShared) {
             this.ioExecutor.shutdown();
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.internal.asset.provider;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The IO executor of a single asset. Tasks are executed by the {@link SharedIoExecutor} if it is enabled, in the lane
+ * of the driver currently used by the asset, otherwise by a private executor. The private executor is also used if the
+ * shared executor is shut down because of a configuration change.
+ */
+public final class AssetIoExecutor extends AbstractExecutorService {
+
+    private final Supplier<String> driverPid;
+    private final Supplier<SharedIoExecutor> sharedExecutor;
+    private final ExecutorService privateExecutor;
+
+    public AssetIoExecutor(final Supplier<String> driverPid, final Supplier<SharedIoExecutor> sharedExecutor,
+            final ExecutorService privateExecutor) {
+        this.driverPid = driverPid;
+        this.sharedExecutor = sharedExecutor;
+        this.privateExecutor = privateExecutor;
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        final SharedIoExecutor currentSharedExecutor = this.sharedExecutor.get();
+
+        if (currentSharedExecutor != null && !this.privateExecutor.isShutdown()) {
+            try {
+                currentSharedExecutor.execute(this.driverPid.get(), command);
+                return;
+            } catch (RejectedExecutionException e) {
+                // the shared executor is being reconfigured
+            }
+        }
+        this.privateExecutor.execute(command);
+    }
+
+    @Override
+    public void shutdown() {
+        this.privateExecutor.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return this.privateExecutor.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return this.privateExecutor.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return this.privateExecutor.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return this.privateExecutor.awaitTermination(timeout, unit);
+    }
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.internal.asset.provider;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.kura.configuration.ConfigurableComponent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Owns and configures the {@link SharedIoExecutor} used by the assets. The assets track this component in the
+ * service registry.
+ * <p>
+ * When the configuration changes, the tasks submitted to the current executor are completed before the new one is
+ * published; in the meantime the assets use their private executor.
+ */
+public class SharedAssetExecutorComponent implements ConfigurableComponent {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedAssetExecutorComponent.class);
+
+    private static final String ENABLED_PROP_NAME = "enabled";
+    private static final String IO_THREADS_PROP_NAME = "io.threads";
+    private static final String DRIVER_MAX_CONCURRENCY_PROP_NAME = "driver.max.concurrency";
+
+    private static final long DRAIN_TIMEOUT_SECONDS = 5;
+
+    private volatile SharedIoExecutor executor;
+
+    protected void activate(final Map<String, Object> properties) {
+        logger.info("Activating Shared Asset Executor...");
+        updated(properties);
+        logger.info("Activating Shared Asset Executor... Done");
+    }
+
+    public synchronized void updated(final Map<String, Object> properties) {
+        logger.info("Updating Shared Asset Executor...");
+
+        final boolean enabled = (Boolean) properties.getOrDefault(ENABLED_PROP_NAME, false);
+        final int ioThreads = (Integer) properties.getOrDefault(IO_THREADS_PROP_NAME, 5);
+        final int driverMaxConcurrency = (Integer) properties.getOrDefault(DRIVER_MAX_CONCURRENCY_PROP_NAME, 1);
+
+        drainExecutor();
+
+        if (enabled) {
+            logger.info("Shared asset IO threads: {}, max concurrent tasks per driver: {}", ioThreads,
+                    driverMaxConcurrency);
+            this.executor = new SharedIoExecutor(Math.max(1, ioThreads), driverMaxConcurrency);
+        }
+
+        logger.info("Updating Shared Asset Executor... Done");
+    }
+
+    protected synchronized void deactivate() {
+        logger.info("Deactivating Shared Asset Executor...");
+        drainExecutor();
+        logger.info("Deactivating Shared Asset Executor... Done");
+    }
+
+    /**
+     * Returns the shared executor, if enabled.
+     *
+     * @return the shared executor or null if assets must use a private executor
+     */
+    public SharedIoExecutor getExecutor() {
+        return this.executor;
+    }
+
+    private void drainExecutor() {
+        final SharedIoExecutor oldExecutor = this.executor;
+        if (oldExecutor == null) {
+            return;
+        }
+
+        this.executor = null;
+        oldExecutor.shutdown();
+        try {
+            if (!oldExecutor.awaitTermination(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Shared asset IO tasks did not complete in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.internal.asset.provider;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An IO thread pool shared by all the assets, owned by the {@link SharedAssetExecutorComponent}.
+ * <p>
+ * Tasks are grouped in a FIFO lane for each driver. At most {@code maxConcurrencyPerDriver} tasks of a lane are
+ * executed concurrently, the remaining ones wait in the lane without occupying the pool queue, so that a slow driver
+ * cannot delay the tasks of the other drivers. When a task completes, its slot is handed off to the next task of the
+ * same lane.
+ * <p>
+ * Once shut down, the executor rejects new tasks but completes the ones already submitted, including the ones waiting
+ * in the lanes. The pool is shut down when the last lane has been drained.
+ */
+public final class SharedIoExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedIoExecutor.class);
+
+    private static final String NO_DRIVER = "";
+
+    private final ThreadPoolExecutor pool;
+    private final int maxConcurrencyPerDriver;
+
+    private final Map<String, DriverLane> lanes = new HashMap<>();
+    private boolean shutdown;
+
+    SharedIoExecutor(final int threads, final int maxConcurrencyPerDriver) {
+        final AtomicInteger threadCount = new AtomicInteger();
+
+        this.pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                r -> {
+                    final Thread thread = new Thread(r, "AssetIO-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.pool.allowCoreThreadTimeOut(true);
+        this.maxConcurrencyPerDriver = Math.max(1, maxConcurrencyPerDriver);
+    }
+
+    /**
+     * Executes a task in the lane of the given driver.
+     *
+     * @param driverPid
+     *            the pid of the driver used by the task, can be null
+     * @param task
+     *            the task
+     * @throws RejectedExecutionException
+     *             if the executor has been shut down
+     */
+    public void execute(final String driverPid, final Runnable task) {
+        final String key = driverPid != null ? driverPid : NO_DRIVER;
+        final DriverLane lane;
+
+        synchronized (this) {
+            if (this.shutdown) {
+                throw new RejectedExecutionException("Shared asset IO executor is shut down");
+            }
+
+            lane = this.lanes.computeIfAbsent(key, DriverLane::new);
+            if (lane.running >= this.maxConcurrencyPerDriver) {
+                lane.tasks.add(task);
+                return;
+            }
+            lane.running++;
+        }
+
+        try {
+            this.pool.execute(() -> runLaneTask(lane, task));
+        } catch (RejectedExecutionException e) {
+            onTaskCompleted(lane);
+            throw e;
+        }
+    }
+
+    /**
+     * Rejects new tasks, the tasks already submitted are completed.
+     */
+    void shutdown() {
+        synchronized (this) {
+            this.shutdown = true;
+            if (!this.lanes.isEmpty()) {
+                // the pool is shut down by the last running task
+                return;
+            }
+        }
+        this.pool.shutdown();
+    }
+
+    boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return this.pool.awaitTermination(timeout, unit);
+    }
+
+    private void runLaneTask(final DriverLane lane, final Runnable task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            logger.warn("Unexpected exception in asset IO task", e);
+        } finally {
+            onTaskCompleted(lane);
+        }
+    }
+
+    private void onTaskCompleted(final DriverLane lane) {
+        while (true) {
+            final Runnable next;
+
+            synchronized (this) {
+                next = lane.tasks.poll();
+                if (next == null) {
+                    lane.running--;
+                    if (lane.running > 0) {
+                        return;
+                    }
+                    this.lanes.remove(lane.key);
+                    if (!this.shutdown || !this.lanes.isEmpty()) {
+                        return;
+                    }
+                }
+            }
+
+            if (next == null) {
+                this.pool.shutdown();
+                return;
+            }
+
+            try {
+                this.pool.execute(() -> runLaneTask(lane, next));
+                return;
+            } catch (RejectedExecutionException e) {
+                // not expected, the pool is shut down only after all the lanes have been drained
+                logger.warn("Shared asset IO executor rejected a queued task, cancelling it", e);
+                if (next instanceof Future) {
+                    ((Future<?>) next).cancel(false);
+                }
+            }
+        }
+    }
+
+    private static final class DriverLane {
+
+        private final String key;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private int running;
+
+        DriverLane(final String key) {
+            this.key = key;
+        }
+    }
+}
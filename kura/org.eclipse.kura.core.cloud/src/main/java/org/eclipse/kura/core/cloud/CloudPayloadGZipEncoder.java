@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2018 Eurotech and/or its affiliates
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -11,7 +11,9 @@
  *******************************************************************************/
 package org.eclipse.kura.core.cloud;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
 
 import org.eclipse.kura.core.util.GZipUtil;
 
@@ -25,10 +27,27 @@ public class CloudPayloadGZipEncoder implements CloudPayloadEncoder {
 
     @Override
     public byte[] getBytes() throws IOException {
+        if (this.decorated instanceof CloudPayloadProtoBufStreamEncoder) {
+            return getStreamedBytes((CloudPayloadProtoBufStreamEncoder) this.decorated);
+        }
+
         byte[] source = this.decorated.getBytes();
         byte[] compressed = GZipUtil.compress(source);
 
         // Return gzip compressed data only if shorter than uncompressed one
         return compressed.length < source.length ? compressed : source;
     }
+
+    private static byte[] getStreamedBytes(CloudPayloadProtoBufStreamEncoder encoder) throws IOException {
+        final int size = encoder.getSerializedSize();
+
+        // the payload is encoded directly into the compressor, the uncompressed array is only built if needed
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream(Math.max(32, size / 2));
+        try (GZIPOutputStream gzipos = new GZIPOutputStream(baos)) {
+            encoder.writeTo(gzipos);
+        }
+
+        // Return gzip compressed data only if shorter than uncompressed one
+        return baos.size() < size ? baos.toByteArray() : encoder.getBytes();
+    }
 }
@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.core.cloud;
+
+import static org.eclipse.kura.core.cloud.CloudPayloadProtoBufStreamEncoder.*;
+
+import java.io.IOException;
+import java.util.Date;
+
+import org.eclipse.kura.KuraInvalidMessageException;
+import org.eclipse.kura.core.message.protobuf.KuraPayloadProto.KuraPayload.KuraMetric.ValueType;
+import org.eclipse.kura.core.util.GZipUtil;
+import org.eclipse.kura.message.KuraPayload;
+import org.eclipse.kura.message.KuraPosition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+
+/**
+ * Decodes a KuraPayload encoded using the Google ProtoBuf binary format defined in kurapayload.proto.
+ * <p>
+ * Unlike {@link CloudPayloadProtoBufDecoderImpl}, this decoder does not build the intermediate protobuf message
+ * objects, the fields are read from a {@link CodedInputStream} directly into the {@link KuraPayload}. Unknown fields
+ * and extensions are skipped.
+ */
+public class CloudPayloadProtoBufStreamDecoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(CloudPayloadProtoBufStreamDecoder.class);
+
+    private static final int TIMESTAMP_TAG = tag(PAYLOAD_TIMESTAMP_FIELD, WireFormat.WIRETYPE_VARINT);
+    private static final int POSITION_TAG = tag(PAYLOAD_POSITION_FIELD, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    private static final int METRIC_TAG = tag(PAYLOAD_METRIC_FIELD, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    private static final int BODY_TAG = tag(PAYLOAD_BODY_FIELD, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+
+    private static final int METRIC_NAME_TAG = tag(METRIC_NAME_FIELD, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    private static final int METRIC_TYPE_TAG = tag(METRIC_TYPE_FIELD, WireFormat.WIRETYPE_VARINT);
+    private static final int METRIC_DOUBLE_TAG = tag(METRIC_DOUBLE_VALUE_FIELD, WireFormat.WIRETYPE_FIXED64);
+    private static final int METRIC_FLOAT_TAG = tag(METRIC_FLOAT_VALUE_FIELD, WireFormat.WIRETYPE_FIXED32);
+    private static final int METRIC_LONG_TAG = tag(METRIC_LONG_VALUE_FIELD, WireFormat.WIRETYPE_VARINT);
+    private static final int METRIC_INT_TAG = tag(METRIC_INT_VALUE_FIELD, WireFormat.WIRETYPE_VARINT);
+    private static final int METRIC_BOOL_TAG = tag(METRIC_BOOL_VALUE_FIELD, WireFormat.WIRETYPE_VARINT);
+    private static final int METRIC_STRING_TAG = tag(METRIC_STRING_VALUE_FIELD, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+    private static final int METRIC_BYTES_TAG = tag(METRIC_BYTES_VALUE_FIELD, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+
+    private static final int POSITION_LATITUDE_TAG = tag(POSITION_LATITUDE_FIELD, WireFormat.WIRETYPE_FIXED64);
+    private static final int POSITION_LONGITUDE_TAG = tag(POSITION_LONGITUDE_FIELD, WireFormat.WIRETYPE_FIXED64);
+    private static final int POSITION_ALTITUDE_TAG = tag(POSITION_ALTITUDE_FIELD, WireFormat.WIRETYPE_FIXED64);
+    private static final int POSITION_PRECISION_TAG = tag(POSITION_PRECISION_FIELD, WireFormat.WIRETYPE_FIXED64);
+    private static final int POSITION_HEADING_TAG = tag(POSITION_HEADING_FIELD, WireFormat.WIRETYPE_FIXED64);
+    private static final int POSITION_SPEED_TAG = tag(POSITION_SPEED_FIELD, WireFormat.WIRETYPE_FIXED64);
+    private static final int POSITION_TIMESTAMP_TAG = tag(POSITION_TIMESTAMP_FIELD, WireFormat.WIRETYPE_VARINT);
+    private static final int POSITION_SATELLITES_TAG = tag(POSITION_SATELLITES_FIELD, WireFormat.WIRETYPE_VARINT);
+    private static final int POSITION_STATUS_TAG = tag(POSITION_STATUS_FIELD, WireFormat.WIRETYPE_VARINT);
+
+    private static final byte[] EMPTY_BYTES = new byte[0];
+
+    private byte[] bytes;
+
+    public CloudPayloadProtoBufStreamDecoder(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Builds a KuraPayload instance from the byte array provided to the constructor.
+     *
+     * @return the decoded payload
+     * @throws KuraInvalidMessageException
+     *             if the byte array is not a valid encoded payload
+     * @throws IOException
+     */
+    public KuraPayload buildFromByteArray() throws KuraInvalidMessageException, IOException {
+        // Check if a compressed payload and try to decompress it
+        if (GZipUtil.isCompressed(this.bytes)) {
+            try {
+                this.bytes = GZipUtil.decompress(this.bytes);
+            } catch (IOException e) {
+                logger.info("Decompression failed");
+                // do not rethrow the exception here as isCompressed may return some false positives
+            }
+        }
+
+        try {
+            return readPayload(CodedInputStream.newInstance(this.bytes));
+        } catch (InvalidProtocolBufferException e) {
+            throw new KuraInvalidMessageException(e);
+        }
+    }
+
+    private static int tag(final int fieldNumber, final int wireType) {
+        return fieldNumber << 3 | wireType;
+    }
+
+    private static KuraPayload readPayload(final CodedInputStream input) throws IOException {
+        final KuraPayload kuraPayload = new KuraPayload();
+
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            if (tag == TIMESTAMP_TAG) {
+                kuraPayload.setTimestamp(new Date(input.readInt64()));
+            } else if (tag == POSITION_TAG) {
+                final int limit = input.pushLimit(input.readRawVarint32());
+                final KuraPosition position = kuraPayload.getPosition() != null ? kuraPayload.getPosition()
+                        : new KuraPosition();
+                readPosition(input, position);
+                input.popLimit(limit);
+                kuraPayload.setPosition(position);
+            } else if (tag == METRIC_TAG) {
+                final int limit = input.pushLimit(input.readRawVarint32());
+                readMetric(input, kuraPayload);
+                input.popLimit(limit);
+            } else if (tag == BODY_TAG) {
+                kuraPayload.setBody(input.readByteArray());
+            } else if (!input.skipField(tag)) {
+                break;
+            }
+        }
+
+        return kuraPayload;
+    }
+
+    private static void readMetric(final CodedInputStream input, final KuraPayload kuraPayload) throws IOException {
+        String name = null;
+        int type = -1;
+        double doubleValue = 0;
+        float floatValue = 0;
+        long longValue = 0;
+        int intValue = 0;
+        boolean boolValue = false;
+        String stringValue = "";
+        byte[] bytesValue = EMPTY_BYTES;
+
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            if (tag == METRIC_NAME_TAG) {
+                name = input.readString();
+            } else if (tag == METRIC_TYPE_TAG) {
+                final int value = input.readEnum();
+                if (ValueType.valueOf(value) != null) {
+                    type = value;
+                }
+            } else if (tag == METRIC_DOUBLE_TAG) {
+                doubleValue = input.readDouble();
+            } else if (tag == METRIC_FLOAT_TAG) {
+                floatValue = input.readFloat();
+            } else if (tag == METRIC_LONG_TAG) {
+                longValue = input.readInt64();
+            } else if (tag == METRIC_INT_TAG) {
+                intValue = input.readInt32();
+            } else if (tag == METRIC_BOOL_TAG) {
+                boolValue = input.readBool();
+            } else if (tag == METRIC_STRING_TAG) {
+                stringValue = input.readString();
+            } else if (tag == METRIC_BYTES_TAG) {
+                bytesValue = input.readByteArray();
+            } else if (!input.skipField(tag)) {
+                break;
+            }
+        }
+
+        if (name == null || type < 0) {
+            throw new InvalidProtocolBufferException("Message missing required fields: name, type");
+        }
+
+        switch (type) {
+        case ValueType.DOUBLE_VALUE:
+            kuraPayload.addMetric(name, doubleValue);
+            break;
+        case ValueType.FLOAT_VALUE:
+            kuraPayload.addMetric(name, floatValue);
+            break;
+        case ValueType.INT64_VALUE:
+            kuraPayload.addMetric(name, longValue);
+            break;
+        case ValueType.INT32_VALUE:
+            kuraPayload.addMetric(name, intValue);
+            break;
+        case ValueType.BOOL_VALUE:
+            kuraPayload.addMetric(name, boolValue);
+            break;
+        case ValueType.STRING_VALUE:
+            kuraPayload.addMetric(name, stringValue);
+            break;
+        default:
+            kuraPayload.addMetric(name, bytesValue);
+            break;
+        }
+    }
+
+    private static void readPosition(final CodedInputStream input, final KuraPosition position) throws IOException {
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            if (tag == POSITION_LATITUDE_TAG) {
+                position.setLatitude(input.readDouble());
+            } else if (tag == POSITION_LONGITUDE_TAG) {
+                position.setLongitude(input.readDouble());
+            } else if (tag == POSITION_ALTITUDE_TAG) {
+                position.setAltitude(input.readDouble());
+            } else if (tag == POSITION_PRECISION_TAG) {
+                position.setPrecision(input.readDouble());
+            } else if (tag == POSITION_HEADING_TAG) {
+                position.setHeading(input.readDouble());
+            } else if (tag == POSITION_SPEED_TAG) {
+                position.setSpeed(input.readDouble());
+            } else if (tag == POSITION_TIMESTAMP_TAG) {
+                position.setTimestamp(new Date(input.readInt64()));
+            } else if (tag == POSITION_SATELLITES_TAG) {
+                position.setSatellites(input.readInt32());
+            } else if (tag == POSITION_STATUS_TAG) {
+                position.setStatus(input.readInt32());
+            } else if (!input.skipField(tag)) {
+                break;
+            }
+        }
+
+        if (position.getLatitude() == null || position.getLongitude() == null) {
+            throw new InvalidProtocolBufferException("Message missing required fields: latitude, longitude");
+        }
+    }
+}
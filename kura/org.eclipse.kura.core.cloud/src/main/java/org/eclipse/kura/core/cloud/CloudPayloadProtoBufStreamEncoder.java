@@ -0,0 +1,304 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.core.cloud;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+import org.eclipse.kura.KuraInvalidMetricTypeException;
+import org.eclipse.kura.core.message.protobuf.KuraPayloadProto.KuraPayload.KuraMetric.ValueType;
+import org.eclipse.kura.message.KuraPayload;
+import org.eclipse.kura.message.KuraPosition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+/**
+ * Encodes a KuraPayload using the Google ProtoBuf binary format defined in kurapayload.proto.
+ * <p>
+ * Unlike {@link CloudPayloadProtoBufEncoderImpl}, this encoder does not build the intermediate protobuf message
+ * objects: the size of the encoded payload is computed first and the metrics, body and byte array values are then
+ * written directly from the {@link KuraPayload} into an array of the exact size or into an {@link OutputStream}. The
+ * produced bytes are identical to the ones produced by {@link CloudPayloadProtoBufEncoderImpl}.
+ */
+public class CloudPayloadProtoBufStreamEncoder implements CloudPayloadEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(CloudPayloadProtoBufStreamEncoder.class);
+
+    static final int PAYLOAD_TIMESTAMP_FIELD = 1;
+    static final int PAYLOAD_POSITION_FIELD = 2;
+    static final int PAYLOAD_METRIC_FIELD = 5000;
+    static final int PAYLOAD_BODY_FIELD = 5001;
+
+    static final int METRIC_NAME_FIELD = 1;
+    static final int METRIC_TYPE_FIELD = 2;
+    static final int METRIC_DOUBLE_VALUE_FIELD = 3;
+    static final int METRIC_FLOAT_VALUE_FIELD = 4;
+    static final int METRIC_LONG_VALUE_FIELD = 5;
+    static final int METRIC_INT_VALUE_FIELD = 6;
+    static final int METRIC_BOOL_VALUE_FIELD = 7;
+    static final int METRIC_STRING_VALUE_FIELD = 8;
+    static final int METRIC_BYTES_VALUE_FIELD = 9;
+
+    static final int POSITION_LATITUDE_FIELD = 1;
+    static final int POSITION_LONGITUDE_FIELD = 2;
+    static final int POSITION_ALTITUDE_FIELD = 3;
+    static final int POSITION_PRECISION_FIELD = 4;
+    static final int POSITION_HEADING_FIELD = 5;
+    static final int POSITION_SPEED_FIELD = 6;
+    static final int POSITION_TIMESTAMP_FIELD = 7;
+    static final int POSITION_SATELLITES_FIELD = 8;
+    static final int POSITION_STATUS_FIELD = 9;
+
+    private static final int SKIPPED_METRIC = -1;
+
+    private final KuraPayload kuraPayload;
+
+    private int[] metricSizes;
+    private int positionSize;
+    private int serializedSize = -1;
+
+    public CloudPayloadProtoBufStreamEncoder(KuraPayload kuraPayload) {
+        this.kuraPayload = kuraPayload;
+    }
+
+    /**
+     * Returns the size of the encoded payload, in bytes.
+     *
+     * @return the encoded size
+     * @throws IOException
+     *             if the payload cannot be encoded
+     */
+    public int getSerializedSize() throws IOException {
+        if (this.serializedSize < 0) {
+            this.serializedSize = computePayloadSize();
+        }
+        return this.serializedSize;
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        final byte[] result = new byte[getSerializedSize()];
+        final CodedOutputStream output = CodedOutputStream.newInstance(result);
+
+        writePayload(output);
+        output.checkNoSpaceLeft();
+
+        return result;
+    }
+
+    /**
+     * Writes the encoded payload to the provided stream.
+     *
+     * @param outputStream
+     *            the destination stream, it is not closed by this method
+     * @throws IOException
+     *             if the payload cannot be encoded or written
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        final int size = getSerializedSize();
+        final CodedOutputStream output = CodedOutputStream.newInstance(outputStream,
+                Math.max(64, Math.min(size, CodedOutputStream.DEFAULT_BUFFER_SIZE)));
+
+        writePayload(output);
+        output.flush();
+    }
+
+    private int computePayloadSize() throws IOException {
+        int size = 0;
+
+        if (this.kuraPayload.getTimestamp() != null) {
+            size += CodedOutputStream.computeInt64Size(PAYLOAD_TIMESTAMP_FIELD,
+                    this.kuraPayload.getTimestamp().getTime());
+        }
+
+        final KuraPosition position = this.kuraPayload.getPosition();
+        if (position != null) {
+            this.positionSize = computePositionSize(position);
+            size += CodedOutputStream.computeTagSize(PAYLOAD_POSITION_FIELD)
+                    + CodedOutputStream.computeUInt32SizeNoTag(this.positionSize) + this.positionSize;
+        }
+
+        final Map<String, Object> metrics = this.kuraPayload.metrics();
+        this.metricSizes = new int[metrics.size()];
+
+        int i = 0;
+        for (final Map.Entry<String, Object> entry : metrics.entrySet()) {
+            final int metricSize = computeMetricSize(entry.getKey(), entry.getValue());
+            this.metricSizes[i++] = metricSize;
+
+            if (metricSize != SKIPPED_METRIC) {
+                size += CodedOutputStream.computeTagSize(PAYLOAD_METRIC_FIELD)
+                        + CodedOutputStream.computeUInt32SizeNoTag(metricSize) + metricSize;
+            }
+        }
+
+        if (this.kuraPayload.getBody() != null) {
+            size += CodedOutputStream.computeByteArraySize(PAYLOAD_BODY_FIELD, this.kuraPayload.getBody());
+        }
+
+        return size;
+    }
+
+    private void writePayload(CodedOutputStream output) throws IOException {
+        if (this.kuraPayload.getTimestamp() != null) {
+            output.writeInt64(PAYLOAD_TIMESTAMP_FIELD, this.kuraPayload.getTimestamp().getTime());
+        }
+
+        final KuraPosition position = this.kuraPayload.getPosition();
+        if (position != null) {
+            output.writeTag(PAYLOAD_POSITION_FIELD, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(this.positionSize);
+            writePosition(output, position);
+        }
+
+        int i = 0;
+        for (final Map.Entry<String, Object> entry : this.kuraPayload.metrics().entrySet()) {
+            final int metricSize = this.metricSizes[i++];
+
+            if (metricSize != SKIPPED_METRIC) {
+                output.writeTag(PAYLOAD_METRIC_FIELD, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                output.writeUInt32NoTag(metricSize);
+                writeMetric(output, entry.getKey(), entry.getValue());
+            }
+        }
+
+        if (this.kuraPayload.getBody() != null) {
+            output.writeByteArray(PAYLOAD_BODY_FIELD, this.kuraPayload.getBody());
+        }
+    }
+
+    private static int computeMetricSize(final String name, final Object value) {
+        int size = CodedOutputStream.computeStringSize(METRIC_NAME_FIELD, name);
+
+        if (value instanceof String) {
+            size += CodedOutputStream.computeEnumSize(METRIC_TYPE_FIELD, ValueType.STRING_VALUE);
+            size += CodedOutputStream.computeStringSize(METRIC_STRING_VALUE_FIELD, (String) value);
+        } else if (value instanceof Double) {
+            size += CodedOutputStream.computeEnumSize(METRIC_TYPE_FIELD, ValueType.DOUBLE_VALUE);
+            size += CodedOutputStream.computeDoubleSize(METRIC_DOUBLE_VALUE_FIELD, (Double) value);
+        } else if (value instanceof Integer) {
+            size += CodedOutputStream.computeEnumSize(METRIC_TYPE_FIELD, ValueType.INT32_VALUE);
+            size += CodedOutputStream.computeInt32Size(METRIC_INT_VALUE_FIELD, (Integer) value);
+        } else if (value instanceof Float) {
+            size += CodedOutputStream.computeEnumSize(METRIC_TYPE_FIELD, ValueType.FLOAT_VALUE);
+            size += CodedOutputStream.computeFloatSize(METRIC_FLOAT_VALUE_FIELD, (Float) value);
+        } else if (value instanceof Long) {
+            size += CodedOutputStream.computeEnumSize(METRIC_TYPE_FIELD, ValueType.INT64_VALUE);
+            size += CodedOutputStream.computeInt64Size(METRIC_LONG_VALUE_FIELD, (Long) value);
+        } else if (value instanceof Boolean) {
+            size += CodedOutputStream.computeEnumSize(METRIC_TYPE_FIELD, ValueType.BOOL_VALUE);
+            size += CodedOutputStream.computeBoolSize(METRIC_BOOL_VALUE_FIELD, (Boolean) value);
+        } else if (value instanceof byte[]) {
+            size += CodedOutputStream.computeEnumSize(METRIC_TYPE_FIELD, ValueType.BYTES_VALUE);
+            size += CodedOutputStream.computeByteArraySize(METRIC_BYTES_VALUE_FIELD, (byte[]) value);
+        } else if (value == null) {
+            logger.warn("Received a metric with a null value!");
+            return SKIPPED_METRIC;
+        } else {
+            logger.error("During serialization, ignoring metric named: {}. Unrecognized value type: {}.", name,
+                    value.getClass().getName());
+            throw new RuntimeException(new KuraInvalidMetricTypeException(value.getClass().getName()));
+        }
+
+        return size;
+    }
+
+    private static void writeMetric(final CodedOutputStream output, final String name, final Object value)
+            throws IOException {
+        output.writeString(METRIC_NAME_FIELD, name);
+
+        if (value instanceof String) {
+            output.writeEnum(METRIC_TYPE_FIELD, ValueType.STRING_VALUE);
+            output.writeString(METRIC_STRING_VALUE_FIELD, (String) value);
+        } else if (value instanceof Double) {
+            output.writeEnum(METRIC_TYPE_FIELD, ValueType.DOUBLE_VALUE);
+            output.writeDouble(METRIC_DOUBLE_VALUE_FIELD, (Double) value);
+        } else if (value instanceof Integer) {
+            output.writeEnum(METRIC_TYPE_FIELD, ValueType.INT32_VALUE);
+            output.writeInt32(METRIC_INT_VALUE_FIELD, (Integer) value);
+        } else if (value instanceof Float) {
+            output.writeEnum(METRIC_TYPE_FIELD, ValueType.FLOAT_VALUE);
+            output.writeFloat(METRIC_FLOAT_VALUE_FIELD, (Float) value);
+        } else if (value instanceof Long) {
+            output.writeEnum(METRIC_TYPE_FIELD, ValueType.INT64_VALUE);
+            output.writeInt64(METRIC_LONG_VALUE_FIELD, (Long) value);
+        } else if (value instanceof Boolean) {
+            output.writeEnum(METRIC_TYPE_FIELD, ValueType.BOOL_VALUE);
+            output.writeBool(METRIC_BOOL_VALUE_FIELD, (Boolean) value);
+        } else if (value instanceof byte[]) {
+            output.writeEnum(METRIC_TYPE_FIELD, ValueType.BYTES_VALUE);
+            output.writeByteArray(METRIC_BYTES_VALUE_FIELD, (byte[]) value);
+        }
+    }
+
+    private static int computePositionSize(final KuraPosition position) throws IOException {
+        if (position.getLatitude() == null || position.getLongitude() == null) {
+            throw new IOException("Position latitude and longitude are required");
+        }
+
+        int size = CodedOutputStream.computeDoubleSize(POSITION_LATITUDE_FIELD, position.getLatitude());
+        size += CodedOutputStream.computeDoubleSize(POSITION_LONGITUDE_FIELD, position.getLongitude());
+        if (position.getAltitude() != null) {
+            size += CodedOutputStream.computeDoubleSize(POSITION_ALTITUDE_FIELD, position.getAltitude());
+        }
+        if (position.getPrecision() != null) {
+            size += CodedOutputStream.computeDoubleSize(POSITION_PRECISION_FIELD, position.getPrecision());
+        }
+        if (position.getHeading() != null) {
+            size += CodedOutputStream.computeDoubleSize(POSITION_HEADING_FIELD, position.getHeading());
+        }
+        if (position.getSpeed() != null) {
+            size += CodedOutputStream.computeDoubleSize(POSITION_SPEED_FIELD, position.getSpeed());
+        }
+        if (position.getTimestamp() != null) {
+            size += CodedOutputStream.computeInt64Size(POSITION_TIMESTAMP_FIELD, position.getTimestamp().getTime());
+        }
+        if (position.getSatellites() != null) {
+            size += CodedOutputStream.computeInt32Size(POSITION_SATELLITES_FIELD, position.getSatellites());
+        }
+        if (position.getStatus() != null) {
+            size += CodedOutputStream.computeInt32Size(POSITION_STATUS_FIELD, position.getStatus());
+        }
+        return size;
+    }
+
+    private static void writePosition(final CodedOutputStream output, final KuraPosition position)
+            throws IOException {
+        output.writeDouble(POSITION_LATITUDE_FIELD, position.getLatitude());
+        output.writeDouble(POSITION_LONGITUDE_FIELD, position.getLongitude());
+        if (position.getAltitude() != null) {
+            output.writeDouble(POSITION_ALTITUDE_FIELD, position.getAltitude());
+        }
+        if (position.getPrecision() != null) {
+            output.writeDouble(POSITION_PRECISION_FIELD, position.getPrecision());
+        }
+        if (position.getHeading() != null) {
+            output.writeDouble(POSITION_HEADING_FIELD, position.getHeading());
+        }
+        if (position.getSpeed() != null) {
+            output.writeDouble(POSITION_SPEED_FIELD, position.getSpeed());
+        }
+        if (position.getTimestamp() != null) {
+            output.writeInt64(POSITION_TIMESTAMP_FIELD, position.getTimestamp().getTime());
+        }
+        if (position.getSatellites() != null) {
+            output.writeInt32(POSITION_SATELLITES_FIELD, position.getSatellites());
+        }
+        if (position.getStatus() != null) {
+            output.writeInt32(POSITION_STATUS_FIELD, position.getStatus());
+        }
+    }
+}
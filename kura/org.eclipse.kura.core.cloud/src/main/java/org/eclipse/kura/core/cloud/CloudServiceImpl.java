@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2018 Eurotech and/or its affiliates
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -694,7 +694,7 @@ public class CloudServiceImpl
 
     @Override
     public byte[] getBytes(KuraPayload kuraPayload, boolean gzipped) throws KuraException {
-        CloudPayloadEncoder encoder = new CloudPayloadProtoBufEncoderImpl(kuraPayload);
+        CloudPayloadEncoder encoder = new CloudPayloadProtoBufStreamEncoder(kuraPayload);
         if (gzipped) {
             encoder = new CloudPayloadGZipEncoder(encoder);
         }
@@ -716,7 +716,7 @@ public class CloudServiceImpl
 
     @Override
     public KuraPayload buildFromByteArray(byte[] payload) throws KuraException {
-        CloudPayloadProtoBufDecoderImpl encoder = new CloudPayloadProtoBufDecoderImpl(payload);
+        CloudPayloadProtoBufStreamDecoder encoder = new CloudPayloadProtoBufStreamDecoder(payload);
         KuraPayload kuraPayload;
 
         try {
@@ -853,7 +853,7 @@ public class CloudServiceImpl
             return bytes;
         }
 
-        CloudPayloadEncoder encoder = new CloudPayloadProtoBufEncoderImpl(payload);
+        CloudPayloadEncoder encoder = new CloudPayloadProtoBufStreamEncoder(payload);
         if (this.options.getEncodeGzip()) {
             encoder = new CloudPayloadGZipEncoder(encoder);
         }
@@ -878,7 +878,7 @@ public class CloudServiceImpl
         KuraPayload kuraPayload;
         try {
             // try to decode the message into an KuraPayload
-            kuraPayload = new CloudPayloadProtoBufDecoderImpl(payload).buildFromByteArray();
+            kuraPayload = new CloudPayloadProtoBufStreamDecoder(payload).buildFromByteArray();
         } catch (Exception e) {
             // Wrap the received bytes payload into an KuraPayload
             logger.debug("Received message on topic {} that could not be decoded. Wrapping it into an KuraPayload.",
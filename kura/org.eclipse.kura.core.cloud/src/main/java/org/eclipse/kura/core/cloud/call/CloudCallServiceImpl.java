@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2016 Eurotech and/or its affiliates
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -20,8 +20,8 @@ import org.eclipse.kura.KuraStoreException;
 import org.eclipse.kura.KuraTimeoutException;
 import org.eclipse.kura.cloud.CloudCallService;
 import org.eclipse.kura.cloud.app.RequestIdGenerator;
-import org.eclipse.kura.core.cloud.CloudPayloadProtoBufDecoderImpl;
-import org.eclipse.kura.core.cloud.CloudPayloadProtoBufEncoderImpl;
+import org.eclipse.kura.core.cloud.CloudPayloadProtoBufStreamDecoder;
+import org.eclipse.kura.core.cloud.CloudPayloadProtoBufStreamEncoder;
 import org.eclipse.kura.core.cloud.KuraTopicImpl;
 import org.eclipse.kura.data.DataService;
 import org.eclipse.kura.data.listener.DataServiceListener;
@@ -116,7 +116,7 @@ public class CloudCallServiceImpl implements CloudCallService, DataServiceListen
         req.setRequestId(requestId);
         req.setRequesterClientId(CLIENT_ID_VAR_NAME);
 
-        CloudPayloadProtoBufEncoderImpl encoder = new CloudPayloadProtoBufEncoderImpl(req);
+        CloudPayloadProtoBufStreamEncoder encoder = new CloudPayloadProtoBufStreamEncoder(req);
         byte[] rawPayload;
         try {
             rawPayload = encoder.getBytes();
@@ -197,7 +197,7 @@ public class CloudCallServiceImpl implements CloudCallService, DataServiceListen
 
                 s_logger.debug("Got response");
 
-                CloudPayloadProtoBufDecoderImpl decoder = new CloudPayloadProtoBufDecoderImpl(payload);
+                CloudPayloadProtoBufStreamDecoder decoder = new CloudPayloadProtoBufStreamDecoder(payload);
 
                 KuraResponsePayload resp = null;
                 try {
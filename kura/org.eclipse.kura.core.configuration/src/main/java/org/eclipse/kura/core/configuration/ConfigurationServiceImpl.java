@@ -25,18 +25,26 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -89,6 +97,24 @@ public class ConfigurationServiceImpl implements ConfigurationService, OCDServic
 
     private static final Logger logger = LoggerFactory.getLogger(ConfigurationServiceImpl.class);
 
+    // delay in milliseconds used to coalesce the snapshots requested by configuration changes, 0 (the default)
+    // disables debouncing. When enabled, the methods taking a snapshot return before the snapshot is written.
+    private static final String SNAPSHOT_DEBOUNCE_DELAY_PROP_NAME = "kura.snapshots.debounce.delay";
+
+    // maximum number of consecutive incremental snapshots written after a full one, 0 disables incremental snapshots
+    private static final String SNAPSHOT_FULL_INTERVAL_PROP_NAME = "kura.snapshots.full.interval";
+
+    private static final long DEFAULT_SNAPSHOT_DEBOUNCE_DELAY = 0;
+
+    private static final long DEFAULT_SNAPSHOT_FULL_INTERVAL = 10;
+
+    // a snapshot is not postponed by further changes for more than this number of debounce delays
+    private static final int MAX_SNAPSHOT_DEBOUNCE_DELAYS = 10;
+
+    // full snapshots are named snapshot_<id>.xml, incremental ones snapshot_<id>_delta_<base id>.xml
+    private static final Pattern SNAPSHOT_FILE_PATTERN = Pattern
+            .compile("snapshot_([0-9]+)(?:_delta_([0-9]+))?\\.xml");
+
     private ComponentContext ctx;
     private BundleContext bundleContext;
 
@@ -124,6 +150,22 @@ public class ConfigurationServiceImpl implements ConfigurationService, OCDServic
     // maps the kura.service.pid to the associated service.pid
     private final Map<String, String> servicePidByPid;
 
+    // runs the debounced snapshots, null if debouncing is disabled
+    private ScheduledExecutorService snapshotExecutor;
+    private ScheduledFuture<?> pendingSnapshot;
+    private long pendingSnapshotDeadline;
+    private long snapshotDebounceDelay;
+    private long snapshotFullInterval;
+
+    // maps the kura.service.pid to the configuration to be included in the pending snapshot, a null value means that
+    // the current configuration of the component will be used
+    private final Map<String, ComponentConfiguration> pendingSnapshotConfigs;
+
+    // the id of the last full snapshot written, and the configurations changed since then
+    private Long snapshotBaseId;
+    private final Map<String, ComponentConfiguration> deltaSnapshotConfigs;
+    private long deltaSnapshotCount;
+
     // ----------------------------------------------------------------
     //
     // Dependencies
@@ -194,6 +236,8 @@ public class ConfigurationServiceImpl implements ConfigurationService, OCDServic
         this.factoryPids = new HashSet<>();
         this.factoryPidByPid = new HashMap<>();
         this.servicePidByPid = new HashMap<>();
+        this.pendingSnapshotConfigs = new LinkedHashMap<>();
+        this.deltaSnapshotConfigs = new LinkedHashMap<>();
     }
 
     // ----------------------------------------------------------------
@@ -216,6 +260,8 @@ public class ConfigurationServiceImpl implements ConfigurationService, OCDServic
             throw new ComponentException("Error loading latest snapshot", e);
         }
 
+        activateSnapshotDebounce();
+
         this.bundleTracker = new ComponentMetaTypeBundleTracker(this.ctx.getBundleContext(), this);
         this.bundleTracker.open();
     }
@@ -281,6 +327,8 @@ public class ConfigurationServiceImpl implements ConfigurationService, OCDServic
             this.bundleTracker.close();
             this.bundleTracker = null;
         }
+
+        deactivateSnapshotDebounce();
     }
 
     // ----------------------------------------------------------------
@@ -437,7 +485,7 @@ public class ConfigurationServiceImpl implements ConfigurationService, OCDServic
             this.pendingDeletePids.remove(pid);
 
             if (takeSnapshot) {
-                snapshot();
+                requestSnapshot(Collections.singletonMap(pid, null));
             }
         } catch (IOException e) {
             throw new KuraException(KuraErrorCode.CONFIGURATION_ERROR, e,
@@ -480,7 +528,7 @@ public class ConfigurationServiceImpl implements ConfigurationService, OCDServic
             this.pendingDeletePids.add(pid);
 
             if (takeSnapshot) {
-                snapshot();
+                requestSnapshot(Collections.emptyMap());
             }
             logger.info("Deleting factory configuration for component with pid {}...done", pid);
         } catch (Exception e) {
@@ -495,16 +543,25 @@ public class ConfigurationServiceImpl implements ConfigurationService, OCDServic
     // ----------------------------------------------------------------
 
     @Override
-    public long snapshot() throws KuraException {
+    public synchronized long snapshot() throws KuraException {
         logger.info("Writing snapshot - Getting component configurations...");
 
-        List<ComponentConfiguration> configs = buildCurrentConfiguration(null);
+        // the configurations provided by the pending configuration updates are merged with the current ones
+        List<ComponentConfiguration> pendingConfigs = this.pendingSnapshotConfigs.values().stream()
+                .filter(Objects::nonNull).collect(Collectors.toList());
+        cancelPendingSnapshot();
+
+        List<ComponentConfiguration> configs = buildCurrentConfiguration(pendingConfigs);
 
         return saveSnapshot(configs);
     }
 
     @Override
     public long rollback() throws KuraException {
+        // write the pending snapshot, if any, so that the rollback restores the configuration preceding the last
+        // change
+        flushPendingSnapshot();
+
         // get the second-last most recent snapshot
         // and rollback to that one.
         Set<Long> ids = getSnapshots();
@@ -522,6 +579,8 @@ public class ConfigurationServiceImpl implements ConfigurationService, OCDServic
 
     @Override
     public synchronized void rollback(long id) throws KuraException {
+        flushPendingSnapshot();
+
         // load the snapshot we need to rollback to
         XmlComponentConfigurations xmlConfigs = loadEncryptedSnapshotFileContent(id);
 
@@ -793,20 +852,15 @@ public class ConfigurationServiceImpl implements ConfigurationService, OCDServic
         boolean snapshotOnConfirmation = false;
         List<Throwable> causes = new ArrayList<>();
 
-        List<ComponentConfiguration> configs = buildCurrentConfiguration(configsToUpdate);
+        Map<String, ComponentConfiguration> configs = buildUpdatedConfigurations(configsToUpdate);
 
-        for (ComponentConfiguration config : configs) {
-            for (ComponentConfiguration configToUpdate : configsToUpdate) {
-                if (config.getPid().equals(configToUpdate.getPid())) {
-                    try {
-                        updateConfigurationInternal(config.getPid(), config.getConfigurationProperties(),
-                                snapshotOnConfirmation);
-                    } catch (KuraException e) {
-                        logger.warn("Error during updateConfigurations for component " + config.getPid(), e);
-                        causes.add(e);
-                    }
-                    break;
-                }
+        for (ComponentConfiguration config : configs.values()) {
+            try {
+                updateConfigurationInternal(config.getPid(), config.getConfigurationProperties(),
+                        snapshotOnConfirmation);
+            } catch (KuraException e) {
+                logger.warn("Error during updateConfigurations for component " + config.getPid(), e);
+                causes.add(e);
             }
         }
 
@@ -823,15 +877,15 @@ public class ConfigurationServiceImpl implements ConfigurationService, OCDServic
                 logger.info("Creating configuration with pid: {} and factory pid: {}", pid, factoryPid);
                 try {
                     createFactoryConfiguration(factoryPid, pid, properties, false);
-                    configs.add(config);
+                    configs.put(pid, config);
                 } catch (KuraException e) {
                     logger.warn("Error creating configuration with pid: {} and factory pid: {}", pid, factoryPid, e);
                 }
             }
         }
 
-        if (takeSnapshot && configs != null && !configs.isEmpty()) {
-            saveSnapshot(configs);
+        if (takeSnapshot && !configs.isEmpty()) {
+            requestSnapshot(configs);
         }
 
         if (!causes.isEmpty()) {
@@ -839,6 +893,47 @@ public class ConfigurationServiceImpl implements ConfigurationService, OCDServic
         }
     }
 
+    // merges the provided configurations with the current configuration of the tracked components, the merged
+    // configurations are returned by kura.service.pid
+    private Map<String, ComponentConfiguration> buildUpdatedConfigurations(
+            List<ComponentConfiguration> configsToUpdate) throws KuraException {
+        Map<String, ComponentConfiguration> result = new LinkedHashMap<>();
+
+        for (ComponentConfiguration configToUpdate : configsToUpdate) {
+            String pid = configToUpdate.getPid();
+            if (result.containsKey(pid)) {
+                continue;
+            }
+            if (!this.allActivatedPids.contains(pid)) {
+                // not yet existing factory configurations are created by the caller
+                if (configToUpdate.getConfigurationProperties() == null || configToUpdate.getConfigurationProperties()
+                        .get(ConfigurationAdmin.SERVICE_FACTORYPID) == null) {
+                    logger.info("UpdatingConfiguration ignored as ConfigurableComponent {} is NOT tracked.", pid);
+                }
+                continue;
+            }
+
+            ComponentConfiguration currentConfig = getComponentConfigurationInternal(pid);
+            if (currentConfig == null) {
+                continue;
+            }
+
+            Map<String, Object> props = new HashMap<>();
+            if (currentConfig.getConfigurationProperties() != null) {
+                props.putAll(currentConfig.getConfigurationProperties());
+            }
+            if (configToUpdate.getConfigurationProperties() != null) {
+                props.putAll(configToUpdate.getConfigurationProperties());
+            }
+            ComponentConfiguration cc = new ComponentConfigurationImpl(pid, (Tocd) configToUpdate.getDefinition(),
+                    props);
+            ConfigurationUpgrade.upgrade(cc, this.bundleContext);
+            result.put(pid, cc);
+        }
+
+        return result;
+    }
+
     // returns configurations with encrypted passwords
     private List<ComponentConfiguration> getComponentConfigurationsInternal() throws KuraException {
         List<ComponentConfiguration> configs = new ArrayList<>();
@@ -1018,7 +1113,7 @@ public class ConfigurationServiceImpl implements ConfigurationService, OCDServic
         Long[] snapshots = snapshotIDs.toArray(new Long[] {});
 
         for (Long snapshot : snapshots) {
-            File fSnapshot = getSnapshotFile(snapshot);
+            File fSnapshot = resolveSnapshotFile(snapshot);
             if (fSnapshot == null || !fSnapshot.exists()) {
                 throw new KuraException(KuraErrorCode.CONFIGURATION_ERROR, snapshot);
             }
@@ -1029,7 +1124,116 @@ public class ConfigurationServiceImpl implements ConfigurationService, OCDServic
             encryptConfigs(xmlConfigs.getConfigurations());
 
             // Writes an encrypted snapshot with encrypted passwords.
-            writeSnapshot(snapshot, xmlConfigs);
+            writeSnapshotFile(fSnapshot, xmlConfigs);
+        }
+    }
+
+    private void activateSnapshotDebounce() {
+        Properties kuraProperties = this.systemService.getProperties();
+        this.snapshotDebounceDelay = getLongProperty(kuraProperties, SNAPSHOT_DEBOUNCE_DELAY_PROP_NAME,
+                DEFAULT_SNAPSHOT_DEBOUNCE_DELAY);
+        this.snapshotFullInterval = getLongProperty(kuraProperties, SNAPSHOT_FULL_INTERVAL_PROP_NAME,
+                DEFAULT_SNAPSHOT_FULL_INTERVAL);
+
+        if (this.snapshotDebounceDelay > 0) {
+            this.snapshotExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "ConfigurationServiceSnapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private synchronized void deactivateSnapshotDebounce() {
+        if (this.snapshotExecutor == null) {
+            return;
+        }
+
+        try {
+            flushPendingSnapshot();
+        } catch (KuraException e) {
+            logger.warn("Failed to write pending snapshot", e);
+        }
+
+        this.snapshotExecutor.shutdownNow();
+        this.snapshotExecutor = null;
+    }
+
+    private static long getLongProperty(Properties properties, String key, long defaultValue) {
+        String value = properties != null ? properties.getProperty(key) : null;
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid value for {}: {}, using {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    // Requests a snapshot including the provided configurations, a null configuration means that the current
+    // configuration of the component must be used. If debouncing is enabled the snapshot is written after the
+    // debounce delay, so that the changes performed in the meantime are written only once, otherwise it is written
+    // before returning.
+    private synchronized void requestSnapshot(Map<String, ComponentConfiguration> changedConfigs)
+            throws KuraException {
+        // the latest request always wins, an explicit configuration requested earlier may be stale
+        this.pendingSnapshotConfigs.putAll(changedConfigs);
+
+        if (this.snapshotExecutor == null) {
+            snapshot();
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (this.pendingSnapshot == null) {
+            this.pendingSnapshotDeadline = now + this.snapshotDebounceDelay * MAX_SNAPSHOT_DEBOUNCE_DELAYS;
+        } else {
+            this.pendingSnapshot.cancel(false);
+        }
+
+        long delay = Math.max(0, Math.min(this.snapshotDebounceDelay, this.pendingSnapshotDeadline - now));
+        this.pendingSnapshot = this.snapshotExecutor.schedule(this::onSnapshotTimeout, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void onSnapshotTimeout() {
+        try {
+            flushPendingSnapshot();
+        } catch (Exception e) {
+            logger.warn("Failed to write snapshot", e);
+            // the next snapshot will be a full one
+            this.snapshotBaseId = null;
+        }
+    }
+
+    private synchronized void flushPendingSnapshot() throws KuraException {
+        if (this.pendingSnapshot == null) {
+            return;
+        }
+
+        File baseSnapshot = this.snapshotBaseId != null ? getSnapshotFile(this.snapshotBaseId) : null;
+
+        // deleted components cannot be represented by incremental snapshots
+        if (baseSnapshot == null || !baseSnapshot.exists() || this.deltaSnapshotCount >= this.snapshotFullInterval
+                || !this.pendingDeletePids.isEmpty()) {
+            snapshot();
+        } else {
+            cancelPendingSnapshotTask();
+            logger.info("Writing incremental snapshot based on {}...", this.snapshotBaseId);
+            saveDeltaSnapshot();
+        }
+    }
+
+    private void cancelPendingSnapshot() {
+        cancelPendingSnapshotTask();
+        this.pendingSnapshotConfigs.clear();
+    }
+
+    private void cancelPendingSnapshotTask() {
+        if (this.pendingSnapshot != null) {
+            this.pendingSnapshot.cancel(false);
+            this.pendingSnapshot = null;
         }
     }
 
@@ -1039,6 +1243,57 @@ public class ConfigurationServiceImpl implements ConfigurationService, OCDServic
         conf.setConfigurations(configs);
 
         // Write it to disk: marshall
+        long sid = getNextSnapshotId();
+
+        // Write snapshot
+        writeSnapshot(sid, conf);
+
+        this.pendingDeletePids.clear();
+
+        // the following incremental snapshots will be based on this one
+        this.snapshotBaseId = sid;
+        this.deltaSnapshotConfigs.clear();
+        this.deltaSnapshotCount = 0;
+
+        // Garbage Collector for number of Snapshots Saved
+        garbageCollectionOldSnapshots();
+        return sid;
+    }
+
+    // writes the configurations changed since the last full snapshot, the full configuration is obtained by
+    // merging them with the full snapshot
+    private long saveDeltaSnapshot() throws KuraException {
+        for (Entry<String, ComponentConfiguration> entry : this.pendingSnapshotConfigs.entrySet()) {
+            ComponentConfiguration config = entry.getValue();
+            if (config == null) {
+                config = getComponentConfigurationInternal(entry.getKey());
+                if (config == null) {
+                    continue;
+                }
+                ConfigurationUpgrade.upgrade(config, this.bundleContext);
+            }
+            this.deltaSnapshotConfigs.put(entry.getKey(), config);
+        }
+        this.pendingSnapshotConfigs.clear();
+
+        XmlComponentConfigurations conf = new XmlComponentConfigurations();
+        conf.setConfigurations(new ArrayList<>(this.deltaSnapshotConfigs.values()));
+
+        long sid = getNextSnapshotId();
+
+        File fSnapshot = getDeltaSnapshotFile(sid, this.snapshotBaseId);
+        if (fSnapshot == null) {
+            throw new KuraException(KuraErrorCode.CONFIGURATION_SNAPSHOT_NOT_FOUND);
+        }
+        writeSnapshotFile(fSnapshot, conf);
+
+        this.deltaSnapshotCount++;
+
+        garbageCollectionOldSnapshots();
+        return sid;
+    }
+
+    private long getNextSnapshotId() throws KuraException {
         long sid = new Date().getTime();
 
         // Do not save the snapshot in the past
@@ -1052,14 +1307,6 @@ public class ConfigurationServiceImpl implements ConfigurationService, OCDServic
                 sid = lastestID + 1;
             }
         }
-
-        // Write snapshot
-        writeSnapshot(sid, conf);
-
-        this.pendingDeletePids.clear();
-
-        // Garbage Collector for number of Snapshots Saved
-        garbageCollectionOldSnapshots();
         return sid;
     }
 
@@ -1068,7 +1315,10 @@ public class ConfigurationServiceImpl implements ConfigurationService, OCDServic
         if (fSnapshot == null) {
             throw new KuraException(KuraErrorCode.CONFIGURATION_SNAPSHOT_NOT_FOUND);
         }
+        writeSnapshotFile(fSnapshot, conf);
+    }
 
+    private void writeSnapshotFile(File fSnapshot, XmlComponentConfigurations conf) throws KuraException {
         // Marshall the configuration into an XML
         String xmlResult;
         try {
@@ -1241,23 +1491,25 @@ public class ConfigurationServiceImpl implements ConfigurationService, OCDServic
 
     private TreeSet<Long> getSnapshotsInternal() {
         // keeps the list of snapshots ordered
-        TreeSet<Long> ids = new TreeSet<>();
+        return new TreeSet<>(getSnapshotFiles().keySet());
+    }
+
+    // returns both the full and the incremental snapshot files, ordered by snapshot id
+    private TreeMap<Long, File> getSnapshotFiles() {
+        TreeMap<Long, File> result = new TreeMap<>();
         String configDir = getSnapshotsDirectory();
         if (configDir != null) {
-            File fConfigDir = new File(configDir);
-            File[] files = fConfigDir.listFiles();
+            File[] files = new File(configDir).listFiles();
             if (files != null) {
-
-                Pattern p = Pattern.compile("snapshot_([0-9]+)\\.xml");
                 for (File file : files) {
-                    Matcher m = p.matcher(file.getName());
+                    Matcher m = SNAPSHOT_FILE_PATTERN.matcher(file.getName());
                     if (m.matches()) {
-                        ids.add(Long.parseLong(m.group(1)));
+                        result.put(Long.parseLong(m.group(1)), file);
                     }
                 }
             }
         }
-        return ids;
+        return result;
     }
 
     String getSnapshotsDirectory() {
@@ -1278,10 +1530,48 @@ public class ConfigurationServiceImpl implements ConfigurationService, OCDServic
         return new File(snapshot);
     }
 
+    private File getDeltaSnapshotFile(long id, long baseId) {
+        String configDir = getSnapshotsDirectory();
+
+        if (configDir == null) {
+            return null;
+        }
+
+        return new File(configDir, "snapshot_" + id + "_delta_" + baseId + ".xml");
+    }
+
+    // returns the full snapshot file with the provided id if it exists, or the incremental one
+    private File resolveSnapshotFile(long id) {
+        File fSnapshot = getSnapshotFile(id);
+        if (fSnapshot == null || fSnapshot.exists()) {
+            return fSnapshot;
+        }
+
+        File[] files = fSnapshot.getParentFile() != null ? fSnapshot.getParentFile().listFiles() : null;
+        if (files != null) {
+            for (File file : files) {
+                Matcher m = SNAPSHOT_FILE_PATTERN.matcher(file.getName());
+                if (m.matches() && m.group(2) != null && Long.parseLong(m.group(1)) == id) {
+                    return file;
+                }
+            }
+        }
+        return fSnapshot;
+    }
+
+    // returns the id of the full snapshot an incremental snapshot is based on, or null for full snapshots
+    private static Long getSnapshotBaseId(File file) {
+        Matcher m = SNAPSHOT_FILE_PATTERN.matcher(file.getName());
+        if (m.matches() && m.group(2) != null) {
+            return Long.parseLong(m.group(2));
+        }
+        return null;
+    }
+
     private void garbageCollectionOldSnapshots() {
         // get the current snapshots and compared with the maximum number we
         // need to keep
-        TreeSet<Long> sids = getSnapshotsInternal();
+        TreeMap<Long, File> sids = getSnapshotFiles();
 
         int currCount = sids.size();
         int maxCount = this.systemService.getKuraSnapshotsCount();
@@ -1289,12 +1579,18 @@ public class ConfigurationServiceImpl implements ConfigurationService, OCDServic
 
             // preserve snapshot ID 0 as this will be considered the seeding
             // one.
-            long sid = sids.pollFirst();
-            File fSnapshot = getSnapshotFile(sid);
+            Entry<Long, File> entry = sids.pollFirstEntry();
+            long sid = entry.getKey();
+            File fSnapshot = entry.getValue();
             if (sid == 0 || fSnapshot == null) {
                 continue;
             }
 
+            // preserve the full snapshots still needed by the remaining incremental ones
+            if (isSnapshotBase(sid, sids.values())) {
+                continue;
+            }
+
             Path fSnapshotPath = fSnapshot.toPath();
             try {
                 if (Files.deleteIfExists(fSnapshotPath)) {
@@ -1307,6 +1603,16 @@ public class ConfigurationServiceImpl implements ConfigurationService, OCDServic
         }
     }
 
+    private static boolean isSnapshotBase(long sid, Collection<File> snapshotFiles) {
+        for (File file : snapshotFiles) {
+            Long baseId = getSnapshotBaseId(file);
+            if (baseId != null && baseId == sid) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void loadLatestSnapshotInConfigAdmin() throws KuraException {
         //
         // save away initial configuration
@@ -1391,7 +1697,37 @@ public class ConfigurationServiceImpl implements ConfigurationService, OCDServic
     }
 
     XmlComponentConfigurations loadEncryptedSnapshotFileContent(long snapshotID) throws KuraException {
-        File fSnapshot = getSnapshotFile(snapshotID);
+        File fSnapshot = resolveSnapshotFile(snapshotID);
+
+        XmlComponentConfigurations xmlConfigs = loadEncryptedSnapshotFile(fSnapshot);
+
+        Long baseId = fSnapshot != null ? getSnapshotBaseId(fSnapshot) : null;
+        if (baseId == null || xmlConfigs == null) {
+            return xmlConfigs;
+        }
+
+        // incremental snapshot, merge it with the full snapshot it is based on
+        XmlComponentConfigurations baseConfigs = loadEncryptedSnapshotFile(
+                new File(fSnapshot.getParentFile(), "snapshot_" + baseId + ".xml"));
+        if (baseConfigs == null) {
+            return null;
+        }
+
+        Map<String, ComponentConfiguration> configs = new LinkedHashMap<>();
+        for (XmlComponentConfigurations snapshot : Arrays.asList(baseConfigs, xmlConfigs)) {
+            if (snapshot.getConfigurations() != null) {
+                for (ComponentConfiguration config : snapshot.getConfigurations()) {
+                    configs.put(config.getPid(), config);
+                }
+            }
+        }
+
+        XmlComponentConfigurations result = new XmlComponentConfigurations();
+        result.setConfigurations(new ArrayList<>(configs.values()));
+        return result;
+    }
+
+    private XmlComponentConfigurations loadEncryptedSnapshotFile(File fSnapshot) throws KuraException {
         if (fSnapshot == null || !fSnapshot.exists()) {
             throw new KuraException(KuraErrorCode.CONFIGURATION_SNAPSHOT_NOT_FOUND,
                     fSnapshot != null ? fSnapshot.getAbsolutePath() : "null");
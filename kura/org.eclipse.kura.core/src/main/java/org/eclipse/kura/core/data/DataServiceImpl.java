@@ -13,6 +13,7 @@ package org.eclipse.kura.core.data;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -37,6 +38,7 @@ import org.eclipse.kura.KuraTooManyInflightMessagesException;
 import org.eclipse.kura.configuration.ConfigurableComponent;
 import org.eclipse.kura.configuration.ConfigurationService;
 import org.eclipse.kura.core.data.store.DbDataStore;
+import org.eclipse.kura.core.data.store.MemoryBufferedDataStore;
 import org.eclipse.kura.core.internal.data.TokenBucket;
 import org.eclipse.kura.data.DataService;
 import org.eclipse.kura.data.DataTransportService;
@@ -68,6 +70,8 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
 
     private static final int TRANSPORT_TASK_TIMEOUT = 1; // In seconds
 
+    private static final long PUBLISHED_STATE_RETRY_DELAY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
     private DataServiceOptions dataServiceOptions;
 
     private DataTransportService dataTransportService;
@@ -80,10 +84,17 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
     // A dedicated executor for the publishing task
     private ExecutorService publisherExecutor;
 
-    private DataStore store;
+    private DbDataStore dbStore;
+
+    // either the database store or the memory buffer in front of it, once created the memory buffer is kept until
+    // deactivation, since it translates the ids of the messages it moved to the database
+    private volatile DataStore store;
 
     private Map<DataTransportToken, Integer> inFlightMsgIds;
 
+    // published messages whose state could not be written back to the store, accessed by the publisher thread only
+    private final Map<Integer, DataMessage> unsavedPublishedMessages = new LinkedHashMap<>();
+
     private ScheduledExecutorService congestionExecutor;
     private ScheduledFuture<?> congestionFuture;
 
@@ -126,7 +137,8 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
         createThrottle();
         submitPublishingWork();
 
-        this.store = new DbDataStore(pid);
+        this.dbStore = new DbDataStore(pid);
+        this.store = this.dbStore;
 
         restartDbServiceTracker(this.dataServiceOptions.getDbServiceInstancePid());
 
@@ -165,6 +177,7 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
                                         DataServiceImpl.this.dataServiceOptions.getStoreHousekeeperInterval(),
                                         DataServiceImpl.this.dataServiceOptions.getStorePurgeAge(),
                                         DataServiceImpl.this.dataServiceOptions.getStoreCapacity());
+                                updateStoreOptions();
                             }
                         }
 
@@ -192,6 +205,7 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
         try {
             this.store.start(this.dbService, this.dataServiceOptions.getStoreHousekeeperInterval(),
                     this.dataServiceOptions.getStorePurgeAge(), this.dataServiceOptions.getStoreCapacity());
+            updateStoreOptions();
 
             // The initial list of in-flight messages
             List<DataMessage> inFlightMsgs = this.store.allInFlightMessagesNoPayload();
@@ -215,6 +229,31 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
         }
     }
 
+    private void updateStoreOptions() {
+        this.dbStore.setGroupCommit(this.dataServiceOptions.getStoreGroupCommitWindow(),
+                this.dataServiceOptions.getStoreGroupCommitMaxBatchSize());
+        this.dbStore.setHousekeeperChunkSize(this.dataServiceOptions.getStoreHousekeeperChunkSize());
+
+        final int highWaterMark = this.dataServiceOptions.getStoreMemoryBufferHighWaterMark();
+
+        if (this.dataServiceOptions.isStoreMemoryBufferEnabled()) {
+            if (!(this.store instanceof MemoryBufferedDataStore)) {
+                this.store = new MemoryBufferedDataStore(this.dbStore,
+                        () -> this.dataTransportService != null && this.dataTransportService.isConnected());
+            }
+            ((MemoryBufferedDataStore) this.store)
+                    .setBufferCapacity(this.dataServiceOptions.getStoreMemoryBufferCapacity(), highWaterMark);
+        } else if (this.store instanceof MemoryBufferedDataStore) {
+            ((MemoryBufferedDataStore) this.store).setBufferCapacity(0, highWaterMark);
+        }
+    }
+
+    private void spillBufferedMessages() {
+        if (this.store instanceof MemoryBufferedDataStore) {
+            ((MemoryBufferedDataStore) this.store).spill();
+        }
+    }
+
     public synchronized void updated(Map<String, Object> properties) {
         logger.info("Updating {}...", properties.get(ConfigurationService.KURA_SERVICE_PID));
 
@@ -232,6 +271,7 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
             if (this.dbService != null) {
                 this.store.update(this.dataServiceOptions.getStoreHousekeeperInterval(),
                         this.dataServiceOptions.getStorePurgeAge(), this.dataServiceOptions.getStoreCapacity());
+                updateStoreOptions();
             }
         } else {
             restartDbServiceTracker(currentDbServicePid);
@@ -393,6 +433,8 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
         logger.info("Notified disconnected");
         this.cloudConnectionStatusService.updateStatus(this, CloudConnectionStatusEnum.OFF);
 
+        spillBufferedMessages();
+
         // Notify the listeners
         this.dataServiceListeners.onDisconnected();
     }
@@ -424,6 +466,8 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
         stopConnectionMonitorTask(); // Just in case...
         startConnectionMonitorTask();
 
+        spillBufferedMessages();
+
         // Notify the listeners
         this.dataServiceListeners.onConnectionLost(cause);
     }
@@ -722,6 +766,37 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
         }
     }
 
+    // Same as publishInternal, but the published state is returned instead of being written to the store
+    private synchronized DataMessage publishInternalDeferred(DataMessage message) throws KuraException {
+
+        String topic = message.getTopic();
+        int msgId = message.getId();
+
+        logger.debug("Publishing message with ID: {} on topic: {}, priority: {}", msgId, topic, message.getPriority());
+
+        DataTransportToken token = DataServiceImpl.this.dataTransportService.publish(topic, message.getPayload(),
+                message.getQos(), message.isRetain());
+
+        final DataMessage.Builder published = new DataMessage.Builder(msgId).withTopic(topic)
+                .withQos(message.getQos()).withPriority(message.getPriority());
+
+        if (token == null) {
+            logger.debug("Published message with ID: {}", msgId);
+        } else {
+
+            // Check if the token is already tracked in the map (in which case we are in trouble)
+            Integer trackedMsgId = DataServiceImpl.this.inFlightMsgIds.get(token);
+            if (trackedMsgId != null) {
+                logger.error("Token already tracked: {} - {}", token.getSessionId(), token.getMessageId());
+            }
+
+            DataServiceImpl.this.inFlightMsgIds.put(token, msgId);
+            published.withPublishedMessageId(token.getMessageId()).withSessionId(token.getSessionId());
+            logger.debug("Published message with ID: {} and MQTT message ID: {}", msgId, token.getMessageId());
+        }
+        return published.build();
+    }
+
     private List<Integer> buildMessageIds(List<DataMessage> messages, String topicRegex) {
         Pattern topicPattern = Pattern.compile(topicRegex);
         List<Integer> ids = new ArrayList<>();
@@ -759,6 +834,86 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
         this.notificationStatus = status;
     }
 
+    private void checkInFlightMessages(DataMessage message) throws KuraTooManyInflightMessagesException {
+        if (message.getQos() > 0
+                && this.inFlightMsgIds.size() >= this.dataServiceOptions.getMaxInFlightMessages()) {
+            logger.warn("The configured maximum number of in-flight messages has been reached");
+            throw new KuraTooManyInflightMessagesException("Too many in-flight messages");
+        }
+    }
+
+    /**
+     * Fetches a window of at most {@code pipelineDepth} unpublished messages with a single query and publishes them
+     * back to back, stopping at the first message that cannot be published because of the in-flight messages limit
+     * or of the rate limit. The published messages are added to the provided list, their state is written back to
+     * the store by {@link #storePublishedMessages(List)}.
+     *
+     * @return the time in nanoseconds to wait for a rate limit token, or -1
+     */
+    private long publishMessagesPipelined(int pipelineDepth, List<DataMessage> published) throws KuraException {
+        // the messages whose state could not be written back are still returned by the store
+        final List<DataMessage> messages = this.store
+                .getNextMessages(pipelineDepth + this.unsavedPublishedMessages.size());
+
+        for (final DataMessage message : messages) {
+            if (published.size() >= pipelineDepth) {
+                break;
+            }
+            if (isUnsavedPublishedMessage(message)) {
+                continue;
+            }
+
+            checkInFlightMessages(message);
+
+            if (this.dataServiceOptions.isRateLimitEnabled() && message.getPriority() >= 5
+                    && !this.throttle.getToken()) {
+                return this.throttle.getTokenWaitTime();
+            }
+
+            published.add(publishInternalDeferred(message));
+        }
+        return -1;
+    }
+
+    private void storePublishedMessages(List<DataMessage> published) {
+        if (published.isEmpty()) {
+            return;
+        }
+
+        try {
+            this.store.published(published);
+        } catch (KuraStoreException e) {
+            // keep track of the messages, so that they are not published again, the write back is retried later
+            logger.error("Cannot update the state of published messages, will retry", e);
+            for (final DataMessage message : published) {
+                this.unsavedPublishedMessages.put(message.getId(), message);
+            }
+        }
+
+        // Notify the listeners
+        for (final DataMessage message : published) {
+            this.dataServiceListeners.onMessagePublished(message.getId(), message.getTopic());
+        }
+    }
+
+    private void retryUnsavedPublishedMessages() {
+        if (this.unsavedPublishedMessages.isEmpty()) {
+            return;
+        }
+
+        try {
+            this.store.published(new ArrayList<>(this.unsavedPublishedMessages.values()));
+            logger.info("Updated the state of {} published messages", this.unsavedPublishedMessages.size());
+            this.unsavedPublishedMessages.clear();
+        } catch (KuraStoreException e) {
+            logger.warn("Cannot update the state of {} published messages", this.unsavedPublishedMessages.size(), e);
+        }
+    }
+
+    private boolean isUnsavedPublishedMessage(DataMessage message) {
+        return this.unsavedPublishedMessages.containsKey(message.getId());
+    }
+
     private final class PublishManager implements Runnable {
 
         @Override
@@ -769,19 +924,32 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
                 boolean messagePublished = false;
 
                 if (DataServiceImpl.this.dataTransportService.isConnected()) {
+                    final int pipelineDepth = DataServiceImpl.this.dataServiceOptions.getPublishPipelineDepth();
                     try {
-                        DataMessage message = DataServiceImpl.this.store.getNextMessage();
-
-                        if (message != null) {
-                            checkInFlightMessages(message);
-
-                            if (DataServiceImpl.this.dataServiceOptions.isRateLimitEnabled()
-                                    && message.getPriority() >= 5) {
-                                messagePublished = publishMessageTokenBucket(message);
-                                sleepingTime = DataServiceImpl.this.throttle.getTokenWaitTime();
-                            } else {
-                                publishMessageUnbound(message);
-                                messagePublished = true;
+                        retryUnsavedPublishedMessages();
+
+                        if (pipelineDepth > 1) {
+                            final List<DataMessage> published = new ArrayList<>(pipelineDepth);
+                            try {
+                                sleepingTime = publishMessagesPipelined(pipelineDepth, published);
+                            } finally {
+                                messagePublished = !published.isEmpty();
+                                storePublishedMessages(published);
+                            }
+                        } else {
+                            DataMessage message = DataServiceImpl.this.store.getNextMessage();
+
+                            if (message != null && !isUnsavedPublishedMessage(message)) {
+                                checkInFlightMessages(message);
+
+                                if (DataServiceImpl.this.dataServiceOptions.isRateLimitEnabled()
+                                        && message.getPriority() >= 5) {
+                                    messagePublished = publishMessageTokenBucket(message);
+                                    sleepingTime = DataServiceImpl.this.throttle.getTokenWaitTime();
+                                } else {
+                                    publishMessageUnbound(message);
+                                    messagePublished = true;
+                                }
                             }
                         }
                     } catch (KuraNotConnectedException e) {
@@ -797,20 +965,15 @@ public class DataServiceImpl implements DataService, DataTransportListener, Conf
                 }
 
                 if (!messagePublished) {
+                    if (sleepingTime == -1 && !DataServiceImpl.this.unsavedPublishedMessages.isEmpty()) {
+                        sleepingTime = PUBLISHED_STATE_RETRY_DELAY_NANOS;
+                    }
                     suspendPublisher(sleepingTime, TimeUnit.NANOSECONDS);
                 }
             }
             logger.debug("Exited publisher loop.");
         }
 
-        private void checkInFlightMessages(DataMessage message) throws KuraTooManyInflightMessagesException {
-            if (message.getQos() > 0 && DataServiceImpl.this.inFlightMsgIds
-                    .size() >= DataServiceImpl.this.dataServiceOptions.getMaxInFlightMessages()) {
-                logger.warn("The configured maximum number of in-flight messages has been reached");
-                throw new KuraTooManyInflightMessagesException("Too many in-flight messages");
-            }
-        }
-
         private void suspendPublisher(long timeout, TimeUnit timeUnit) {
             if (!DataServiceImpl.this.publisherEnabled.get()) {
                 return;
@@ -27,11 +27,18 @@ public class DataServiceOptions {
     private static final String DISCONNECT_DELAY_PROP_NAME = "disconnect.quiesce-timeout";
     private static final String STORE_DB_SERVICE_INSTANCE_PROP_NAME = "store.db.service.pid";
     private static final String STORE_HOUSEKEEPER_INTERVAL_PROP_NAME = "store.housekeeper-interval";
+    private static final String STORE_HOUSEKEEPER_CHUNK_SIZE_PROP_NAME = "store.housekeeper-chunk-size";
     private static final String STORE_PURGE_AGE_PROP_NAME = "store.purge-age";
     private static final String STORE_CAPACITY_PROP_NAME = "store.capacity";
+    private static final String STORE_GROUP_COMMIT_WINDOW_PROP_NAME = "store.group-commit.window";
+    private static final String STORE_GROUP_COMMIT_MAX_BATCH_SIZE_PROP_NAME = "store.group-commit.max-batch-size";
+    private static final String STORE_MEMORY_BUFFER_ENABLE_PROP_NAME = "store.memory-buffer.enable";
+    private static final String STORE_MEMORY_BUFFER_CAPACITY_PROP_NAME = "store.memory-buffer.capacity";
+    private static final String STORE_MEMORY_BUFFER_HIGH_WATER_MARK_PROP_NAME = "store.memory-buffer.high-water-mark";
     private static final String REPUBLISH_IN_FLIGHT_MSGS_PROP_NAME = "in-flight-messages.republish-on-new-session";
     private static final String MAX_IN_FLIGHT_MSGS_PROP_NAME = "in-flight-messages.max-number";
     private static final String IN_FLIGHT_MSGS_CONGESTION_TIMEOUT_PROP_NAME = "in-flight-messages.congestion-timeout";
+    private static final String PUBLISH_PIPELINE_DEPTH_PROP_NAME = "publish.pipeline-depth";
     private static final String RATE_LIMIT_ENABLE_PROP_NAME = "enable.rate.limit";
     private static final String RATE_LIMIT_AVERAGE_RATE_PROP_NAME = "rate.limit.average";
     private static final String RATE_LIMIT_TIME_UNIT_PROP_NAME = "rate.limit.time.unit";
@@ -44,11 +51,18 @@ public class DataServiceOptions {
     private static final int DISCONNECT_DELAY_DEFAULT = 10;
     private static final String DB_SERVICE_INSTANCE_DEFAULT = H2DbService.DEFAULT_INSTANCE_PID;
     private static final int STORE_HOUSEKEEPER_INTERVAL_DEFAULT = 900;
+    private static final int STORE_HOUSEKEEPER_CHUNK_SIZE_DEFAULT = 0;
     private static final int STORE_PURGE_AGE_DEFAULT = 60;
     private static final int STORE_CAPACITY_DEFAULT = 10000;
+    private static final int STORE_GROUP_COMMIT_WINDOW_DEFAULT = 0;
+    private static final int STORE_GROUP_COMMIT_MAX_BATCH_SIZE_DEFAULT = 100;
+    private static final boolean STORE_MEMORY_BUFFER_ENABLE_DEFAULT = false;
+    private static final int STORE_MEMORY_BUFFER_CAPACITY_DEFAULT = 1000;
+    private static final int STORE_MEMORY_BUFFER_HIGH_WATER_MARK_DEFAULT = 90;
     private static final boolean REPUBLISH_IN_FLIGHT_MSGS_DEFAULT = true;
     private static final int MAX_IN_FLIGHT_MSGS_DEFAULT = 9;
     private static final int IN_FLIGHT_MSGS_CONGESTION_TIMEOUT_DEFAULT = 0;
+    private static final int PUBLISH_PIPELINE_DEPTH_DEFAULT = 1;
     private static final boolean RATE_LIMIT_ENABLE_DEFAULT = true;
     private static final int RATE_LIMIT_AVERAGE_RATE_DEFAULT = 1;
     private static final String RATE_LIMIT_TIME_UNIT_DEFAULT = "SECONDS";
@@ -70,6 +84,11 @@ public class DataServiceOptions {
                 STORE_HOUSEKEEPER_INTERVAL_DEFAULT);
     }
 
+    int getStoreHousekeeperChunkSize() {
+        return (int) this.properties.getOrDefault(STORE_HOUSEKEEPER_CHUNK_SIZE_PROP_NAME,
+                STORE_HOUSEKEEPER_CHUNK_SIZE_DEFAULT);
+    }
+
     int getStorePurgeAge() {
         return (int) this.properties.getOrDefault(STORE_PURGE_AGE_PROP_NAME, STORE_PURGE_AGE_DEFAULT);
     }
@@ -78,6 +97,31 @@ public class DataServiceOptions {
         return (int) this.properties.getOrDefault(STORE_CAPACITY_PROP_NAME, STORE_CAPACITY_DEFAULT);
     }
 
+    int getStoreGroupCommitWindow() {
+        return (int) this.properties.getOrDefault(STORE_GROUP_COMMIT_WINDOW_PROP_NAME,
+                STORE_GROUP_COMMIT_WINDOW_DEFAULT);
+    }
+
+    int getStoreGroupCommitMaxBatchSize() {
+        return (int) this.properties.getOrDefault(STORE_GROUP_COMMIT_MAX_BATCH_SIZE_PROP_NAME,
+                STORE_GROUP_COMMIT_MAX_BATCH_SIZE_DEFAULT);
+    }
+
+    boolean isStoreMemoryBufferEnabled() {
+        return (boolean) this.properties.getOrDefault(STORE_MEMORY_BUFFER_ENABLE_PROP_NAME,
+                STORE_MEMORY_BUFFER_ENABLE_DEFAULT);
+    }
+
+    int getStoreMemoryBufferCapacity() {
+        return (int) this.properties.getOrDefault(STORE_MEMORY_BUFFER_CAPACITY_PROP_NAME,
+                STORE_MEMORY_BUFFER_CAPACITY_DEFAULT);
+    }
+
+    int getStoreMemoryBufferHighWaterMark() {
+        return (int) this.properties.getOrDefault(STORE_MEMORY_BUFFER_HIGH_WATER_MARK_PROP_NAME,
+                STORE_MEMORY_BUFFER_HIGH_WATER_MARK_DEFAULT);
+    }
+
     boolean isPublishInFlightMessages() {
         return (boolean) this.properties.getOrDefault(REPUBLISH_IN_FLIGHT_MSGS_PROP_NAME,
                 REPUBLISH_IN_FLIGHT_MSGS_DEFAULT);
@@ -92,6 +136,10 @@ public class DataServiceOptions {
                 IN_FLIGHT_MSGS_CONGESTION_TIMEOUT_DEFAULT);
     }
 
+    int getPublishPipelineDepth() {
+        return (int) this.properties.getOrDefault(PUBLISH_PIPELINE_DEPTH_PROP_NAME, PUBLISH_PIPELINE_DEPTH_DEFAULT);
+    }
+
     boolean isAutoConnect() {
         return (boolean) this.properties.getOrDefault(AUTOCONNECT_PROP_NAME, AUTOCONNECT_PROP_DEFAULT);
     }
@@ -71,6 +71,17 @@ public interface DataStore {
      */
     public void published(int msgId) throws KuraStoreException;
 
+    /**
+     * Acknowledges the publication of a set of DataMessages, using a single transaction if possible. Messages with a
+     * non null session ID are associated to their protocol (e.g. MQTT) message ID as in
+     * {@link #published(int, int, String)}, the others are handled as in {@link #published(int)}.
+     *
+     * @param messages
+     *            the published messages
+     * @throws KuraStoreException
+     */
+    public void published(List<DataMessage> messages) throws KuraStoreException;
+
     /**
      * Acknowledges the delivery of the DataMessage published with the given
      * protocol (e.g. MQTT) message ID. This method is only called for messages
@@ -91,6 +102,17 @@ public interface DataStore {
      */
     public DataMessage getNextMessage() throws KuraStoreException;
 
+    /**
+     * Gets at most {@code count} unpublished messages, in the same order in which they would be returned by
+     * subsequent calls to {@link #getNextMessage()} if each returned message was published.
+     *
+     * @param count
+     *            the maximum number of messages to be returned
+     * @return
+     * @throws KuraStoreException
+     */
+    public List<DataMessage> getNextMessages(int count) throws KuraStoreException;
+
     /**
      * Returns a message from the DataStore by its message id.
      *
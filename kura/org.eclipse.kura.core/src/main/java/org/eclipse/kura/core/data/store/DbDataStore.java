@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2018 Eurotech and/or its affiliates
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -25,11 +25,13 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.kura.KuraStoreCapacityReachedException;
 import org.eclipse.kura.KuraStoreException;
 import org.eclipse.kura.core.data.DataMessage;
 import org.eclipse.kura.core.data.DataStore;
+import org.eclipse.kura.core.data.store.GroupCommitter.PendingMessage;
 import org.eclipse.kura.db.H2DbService;
 import org.eclipse.kura.system.SystemService;
 import org.osgi.framework.BundleContext;
@@ -64,6 +66,11 @@ public class DbDataStore implements DataStore {
     private ScheduledFuture<?> houseKeeperTask;
     private int capacity;
 
+    private final AtomicInteger messageCount = new AtomicInteger();
+    private volatile GroupCommitter groupCommitter;
+    private volatile int housekeeperChunkSize;
+    private volatile HouseKeeperStatistics houseKeeperStatistics;
+
     private final String tableName;
     private final String sanitizedTableName;
 
@@ -74,6 +81,7 @@ public class DbDataStore implements DataStore {
     private final String sqlStore;
     private final String sqlGetMessage;
     private final String sqlGetNextMessage;
+    private final String sqlGetNextMessages;
     private final String sqlSetPublished;
     private final String sqlSetPublished2;
     private final String sqlSetConfirmed;
@@ -85,6 +93,9 @@ public class DbDataStore implements DataStore {
     private final String sqlDeleteDroppedMessages;
     private final String sqlDeleteConfirmedMessages;
     private final String sqlDeletePublishedMessages;
+    private final String sqlDeleteDroppedMessagesChunk;
+    private final String sqlDeleteConfirmedMessagesChunk;
+    private final String sqlDeletePublishedMessagesChunk;
     private final String sqlDuplicateCount;
     private final String sqlDropPrimaryKey;
     private final String sqlDeleteDuplicates;
@@ -116,6 +127,11 @@ public class DbDataStore implements DataStore {
                 + this.sanitizedTableName + " AS a JOIN (SELECT id, publishedOn FROM " + this.sanitizedTableName
                 + " ORDER BY publishedOn ASC NULLS FIRST, priority ASC, createdOn ASC LIMIT 1) AS b "
                 + "WHERE a.id = b.id AND b.publishedOn IS NULL;";
+        this.sqlGetNextMessages = "SELECT a.id, a.topic, a.qos, a.retain, a.createdOn, a.publishedOn, "
+                + "a.publishedMessageId, a.confirmedOn, a.payload, a.priority, a.sessionId, a.droppedOn FROM "
+                + this.sanitizedTableName + " AS a JOIN (SELECT id, publishedOn FROM " + this.sanitizedTableName
+                + " ORDER BY publishedOn ASC NULLS FIRST, priority ASC, createdOn ASC LIMIT ?) AS b "
+                + "WHERE a.id = b.id AND b.publishedOn IS NULL ORDER BY a.priority ASC, a.createdOn ASC;";
         this.sqlSetPublished = UPDATE + this.sanitizedTableName
                 + " SET publishedOn = ?, publishedMessageId = ?, sessionId = ? WHERE id = ?;";
         this.sqlSetPublished2 = UPDATE + this.sanitizedTableName + " SET publishedOn = ? WHERE id = ?;";
@@ -137,6 +153,12 @@ public class DbDataStore implements DataStore {
                 + " WHERE confirmedOn <= DATEADD('ss', -?, ?) AND confirmedOn IS NOT NULL;";
         this.sqlDeletePublishedMessages = DELETE_FROM + this.sanitizedTableName
                 + " WHERE qos = 0 AND publishedOn <= DATEADD('ss', -?, ?) AND publishedOn IS NOT NULL;";
+        this.sqlDeleteDroppedMessagesChunk = DELETE_FROM + this.sanitizedTableName
+                + " WHERE droppedOn <= DATEADD('ss', -?, ?) AND droppedOn IS NOT NULL LIMIT ?;";
+        this.sqlDeleteConfirmedMessagesChunk = DELETE_FROM + this.sanitizedTableName
+                + " WHERE confirmedOn <= DATEADD('ss', -?, ?) AND confirmedOn IS NOT NULL LIMIT ?;";
+        this.sqlDeletePublishedMessagesChunk = DELETE_FROM + this.sanitizedTableName
+                + " WHERE qos = 0 AND publishedOn <= DATEADD('ss', -?, ?) AND publishedOn IS NOT NULL LIMIT ?;";
         this.sqlDuplicateCount = "SELECT count(*) FROM (SELECT id, COUNT(id) FROM " + this.sanitizedTableName
                 + " GROUP BY id HAVING (COUNT(id) > 1)) dups;";
         this.sqlDropPrimaryKey = ALTER_TABLE + this.sanitizedTableName + " DROP PRIMARY KEY;";
@@ -212,6 +234,8 @@ public class DbDataStore implements DataStore {
             createIndex(sanitizeSql(this.tableName + "_CONFIRMEDON"), this.sanitizedTableName, "(CONFIRMEDON DESC)");
             createIndex(sanitizeSql(this.tableName + "_DROPPEDON"), this.sanitizedTableName, "(DROPPEDON DESC)");
 
+            this.messageCount.set(getMessageCount());
+
             // Start the Housekeeper task
             this.houseKeeperTask = this.houseKeeperExecutor.scheduleWithFixedDelay(
                     new HouseKeeperTask(this, purgeAge, isRepairEnabled()), 1,    // start in one second
@@ -223,6 +247,49 @@ public class DbDataStore implements DataStore {
 
     }
 
+    /**
+     * Enables or disables the group commit store mode. When enabled, concurrent {@link #store} calls are collected for
+     * at most {@code windowMillis} milliseconds, or until {@code maxBatchSize} messages are pending, and are then
+     * written using a single JDBC batch and a single commit.
+     *
+     * @param windowMillis
+     *            the group commit window in milliseconds, 0 disables group commit
+     * @param maxBatchSize
+     *            the maximum number of messages written in a single batch
+     */
+    public synchronized void setGroupCommit(int windowMillis, int maxBatchSize) {
+        final GroupCommitter current = this.groupCommitter;
+
+        if (windowMillis <= 0) {
+            this.groupCommitter = null;
+        } else if (current == null || current.getWindowMillis() != windowMillis
+                || current.getMaxBatchSize() != maxBatchSize) {
+            logger.info("Group commit enabled, window: {} ms, max batch size: {}", windowMillis, maxBatchSize);
+            this.groupCommitter = new GroupCommitter(windowMillis, maxBatchSize, this::storeBatch);
+        }
+    }
+
+    /**
+     * Sets the maximum number of messages deleted by each transaction of the housekeeper task. When greater than 0,
+     * stale messages are deleted in chunks and the store lock is released between chunks, so that concurrent store
+     * operations are not stalled for the whole duration of the purge.
+     *
+     * @param chunkSize
+     *            the chunk size, 0 to delete all the stale messages with a single statement
+     */
+    public void setHousekeeperChunkSize(int chunkSize) {
+        this.housekeeperChunkSize = chunkSize;
+    }
+
+    /**
+     * Returns the statistics of the last housekeeper run.
+     *
+     * @return the statistics, or null if the housekeeper did not run yet
+     */
+    public HouseKeeperStatistics getHouseKeeperStatistics() {
+        return this.houseKeeperStatistics;
+    }
+
     // ----------------------------------------------------------
     //
     // Message APIs
@@ -248,8 +315,40 @@ public class DbDataStore implements DataStore {
     }
 
     @Override
-    public synchronized DataMessage store(String topic, byte[] payload, int qos, boolean retain, int priority)
+    public DataMessage store(String topic, byte[] payload, int qos, boolean retain, int priority)
             throws KuraStoreException {
+        final GroupCommitter committer = this.groupCommitter;
+
+        if (committer == null) {
+            return storeSingle(topic, payload, qos, retain, priority);
+        }
+
+        if (this.dbService == null) {
+            throw new KuraStoreException("DbService instance not attached");
+        }
+        if (topic == null || topic.trim().length() == 0) {
+            throw new IllegalArgumentException(TOPIC_ELEMENT);
+        }
+
+        // The capacity is checked against the in-memory message counter, the slot is reserved here and released
+        // if the batch cannot be written.
+        final int count = this.messageCount.incrementAndGet();
+        if (priority != 0 && priority != 1 && count > this.capacity) {
+            this.messageCount.decrementAndGet();
+            logger.error("Store capacity exceeded");
+            throw new KuraStoreCapacityReachedException("Store capacity exceeded");
+        }
+
+        try {
+            return committer.submit(new PendingMessage(topic, payload, qos, retain, priority));
+        } catch (KuraStoreException e) {
+            this.messageCount.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private synchronized DataMessage storeSingle(String topic, byte[] payload, int qos, boolean retain,
+            int priority) throws KuraStoreException {
         if (this.dbService == null) {
             throw new KuraStoreException("DbService instance not attached");
         }
@@ -292,9 +391,76 @@ public class DbDataStore implements DataStore {
             }
         }
 
+        this.messageCount.incrementAndGet();
+
         return message;
     }
 
+    private synchronized List<DataMessage> storeBatch(List<PendingMessage> batch) throws KuraStoreException {
+        try {
+            return storeBatchInternal(batch);
+        } catch (KuraStoreException e) {
+            if (isIdentityOverflow(e)) {
+                logger.warn("Identity generator limit exceeded. Resetting it...");
+                resetIdentityGenerator();
+                return storeBatchInternal(batch);
+            }
+            throw e;
+        }
+    }
+
+    private synchronized List<DataMessage> storeBatchInternal(List<PendingMessage> batch)
+            throws KuraStoreException {
+        final Timestamp now = new Timestamp(new Date().getTime());
+
+        return withConnection(c -> {
+            final List<DataMessage> result = new ArrayList<>(batch.size());
+
+            try (PreparedStatement pstmt = c.prepareStatement(this.sqlStore, Statement.RETURN_GENERATED_KEYS)) {
+                for (final PendingMessage message : batch) {
+                    pstmt.setString(1, message.topic);
+                    pstmt.setInt(2, message.qos);
+                    pstmt.setBoolean(3, message.retain);
+                    pstmt.setTimestamp(4, now, this.utcCalendar);
+                    pstmt.setTimestamp(5, null);
+                    pstmt.setInt(6, -1);
+                    pstmt.setTimestamp(7, null);
+                    pstmt.setBytes(8, message.payload);
+                    pstmt.setInt(9, message.priority);
+                    pstmt.setString(10, null);
+                    pstmt.setTimestamp(11, null);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+
+                // build the stored messages from the generated keys, without reading them back
+                try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                    int i = 0;
+                    while (rs.next() && i < batch.size()) {
+                        final PendingMessage message = batch.get(i++);
+                        result.add(new DataMessage.Builder(rs.getInt(1)).withTopic(message.topic)
+                                .withQos(message.qos).withRetain(message.retain).withCreatedOn(now)
+                                .withPublishedMessageId(-1).withPayload(message.payload)
+                                .withPriority(message.priority).build());
+                    }
+                }
+            }
+
+            if (result.size() != batch.size()) {
+                throw new SQLException("Generated keys not available for all the stored messages");
+            }
+
+            c.commit();
+
+            return result;
+        }, "Cannot store messages");
+    }
+
+    private static boolean isIdentityOverflow(KuraStoreException e) {
+        final Throwable cause = e.getCause();
+        return cause instanceof SQLException && ((SQLException) cause).getErrorCode() == 22003;
+    }
+
     private synchronized DataMessage storeInternal(String topic, byte[] payload, int qos, boolean retain, int priority)
             throws KuraStoreException {
         if (topic == null || topic.trim().length() == 0) {
@@ -371,6 +537,23 @@ public class DbDataStore implements DataStore {
         }, "Cannot get message next message");
     }
 
+    @Override
+    public synchronized List<DataMessage> getNextMessages(int count) throws KuraStoreException {
+
+        return withConnection(c -> {
+            try (PreparedStatement stmt = c.prepareStatement(this.sqlGetNextMessages)) {
+                stmt.setInt(1, count);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    final List<DataMessage> messages = new ArrayList<>();
+                    while (rs.next()) {
+                        messages.add(buildDataMessage(rs));
+                    }
+                    return messages;
+                }
+            }
+        }, "Cannot get next messages");
+    }
+
     @Override
     public synchronized void published(int msgId, int publishedMsgId, String sessionId) throws KuraStoreException {
         final Timestamp now = new Timestamp(new Date().getTime());
@@ -395,6 +578,48 @@ public class DbDataStore implements DataStore {
         updateTimestamp(this.sqlSetPublished2, msgId);
     }
 
+    @Override
+    public synchronized void published(List<DataMessage> messages) throws KuraStoreException {
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        final Timestamp now = new Timestamp(new Date().getTime());
+
+        withConnection(c -> {
+            try (final PreparedStatement stmt = c.prepareStatement(this.sqlSetPublished);
+                    final PreparedStatement stmt2 = c.prepareStatement(this.sqlSetPublished2)) {
+                boolean hasTracked = false;
+                boolean hasUntracked = false;
+
+                for (final DataMessage message : messages) {
+                    if (message.getSessionId() != null) {
+                        stmt.setTimestamp(1, now, this.utcCalendar);
+                        stmt.setInt(2, message.getPublishedMessageId());
+                        stmt.setString(3, message.getSessionId());
+                        stmt.setInt(4, message.getId());
+                        stmt.addBatch();
+                        hasTracked = true;
+                    } else {
+                        stmt2.setTimestamp(1, now, this.utcCalendar);
+                        stmt2.setInt(2, message.getId());
+                        stmt2.addBatch();
+                        hasUntracked = true;
+                    }
+                }
+
+                if (hasTracked) {
+                    stmt.executeBatch();
+                }
+                if (hasUntracked) {
+                    stmt2.executeBatch();
+                }
+                c.commit();
+                return (Void) null;
+            }
+        }, "Cannot update timestamps");
+    }
+
     @Override
     public synchronized void confirmed(int msgId) throws KuraStoreException {
         updateTimestamp(this.sqlSetConfirmed, msgId);
@@ -429,16 +654,90 @@ public class DbDataStore implements DataStore {
     }
 
     @Override
-    public synchronized void deleteStaleMessages(int purgeAge) throws KuraStoreException {
+    public void deleteStaleMessages(int purgeAge) throws KuraStoreException {
+        final int chunkSize = this.housekeeperChunkSize;
+        final long start = System.nanoTime();
+        final HouseKeeperStatistics statistics;
+
+        if (chunkSize > 0) {
+            statistics = deleteStaleMessagesChunked(purgeAge, chunkSize, start);
+        } else {
+            final int deleted;
+            final long lockHoldTime;
+            synchronized (this) {
+                final long lockStart = System.nanoTime();
+                deleted = deleteStaleMessagesInternal(purgeAge);
+                lockHoldTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lockStart);
+            }
+            statistics = new HouseKeeperStatistics(deleted, 1,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), lockHoldTime, lockHoldTime);
+        }
+
+        this.houseKeeperStatistics = statistics;
+        logger.info("Stale messages deleted, {}", statistics);
+    }
+
+    private synchronized int deleteStaleMessagesInternal(int purgeAge) throws KuraStoreException {
         final Timestamp now = new Timestamp(System.currentTimeMillis());
+        int deleted = 0;
+
         // Delete dropped messages (published with QoS > 0)
-        executeDeleteMessagesQuery(this.sqlDeleteDroppedMessages, now, purgeAge);
+        deleted += executeDeleteMessagesQuery(this.sqlDeleteDroppedMessages, now, purgeAge);
 
         // Delete stale confirmed messages (published with QoS > 0)
-        executeDeleteMessagesQuery(this.sqlDeleteConfirmedMessages, now, purgeAge);
+        deleted += executeDeleteMessagesQuery(this.sqlDeleteConfirmedMessages, now, purgeAge);
 
         // Delete stale published messages with QoS == 0
-        executeDeleteMessagesQuery(this.sqlDeletePublishedMessages, now, purgeAge);
+        deleted += executeDeleteMessagesQuery(this.sqlDeletePublishedMessages, now, purgeAge);
+
+        this.messageCount.addAndGet(-deleted);
+        return deleted;
+    }
+
+    private HouseKeeperStatistics deleteStaleMessagesChunked(int purgeAge, int chunkSize, long start)
+            throws KuraStoreException {
+        final Timestamp now = new Timestamp(System.currentTimeMillis());
+        final String[] queries = { this.sqlDeleteDroppedMessagesChunk, this.sqlDeleteConfirmedMessagesChunk,
+                this.sqlDeletePublishedMessagesChunk };
+
+        int deleted = 0;
+        int chunks = 0;
+        long totalLockHoldTime = 0;
+        long maxLockHoldTime = 0;
+
+        for (final String query : queries) {
+            int chunkDeleted;
+            do {
+                final long lockHoldTime;
+                synchronized (this) {
+                    final long lockStart = System.nanoTime();
+                    chunkDeleted = executeDeleteMessagesQuery(query, now, purgeAge, chunkSize);
+                    this.messageCount.addAndGet(-chunkDeleted);
+                    lockHoldTime = System.nanoTime() - lockStart;
+                }
+                deleted += chunkDeleted;
+                chunks++;
+                totalLockHoldTime += lockHoldTime;
+                maxLockHoldTime = Math.max(maxLockHoldTime, lockHoldTime);
+
+                if (chunkDeleted >= chunkSize && !yieldToStoreOperations()) {
+                    logger.info("Interrupted while deleting stale messages");
+                    return new HouseKeeperStatistics(deleted, chunks,
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                            TimeUnit.NANOSECONDS.toMillis(totalLockHoldTime),
+                            TimeUnit.NANOSECONDS.toMillis(maxLockHoldTime));
+                }
+            } while (chunkDeleted >= chunkSize);
+        }
+
+        return new HouseKeeperStatistics(deleted, chunks, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                TimeUnit.NANOSECONDS.toMillis(totalLockHoldTime), TimeUnit.NANOSECONDS.toMillis(maxLockHoldTime));
+    }
+
+    // gives concurrent store operations the chance to acquire the store lock between chunks
+    private static boolean yieldToStoreOperations() {
+        Thread.yield();
+        return !Thread.currentThread().isInterrupted();
     }
 
     @Override
@@ -487,6 +786,8 @@ public class DbDataStore implements DataStore {
             return (Void) null;
         }, "Cannot repair database");
 
+        this.messageCount.set(getMessageCount());
+
     }
 
     // ------------------------------------------------------------------
@@ -541,16 +842,31 @@ public class DbDataStore implements DataStore {
         }, "Cannot execute query");
     }
 
-    private synchronized void executeDeleteMessagesQuery(String sql, Timestamp timestamp, int purgeAge)
+    private synchronized int executeDeleteMessagesQuery(String sql, Timestamp timestamp, int purgeAge)
             throws KuraStoreException {
-        withConnection(c -> {
+        return withConnection(c -> {
             try (final PreparedStatement stmt = c.prepareStatement(sql)) {
                 stmt.setInt(1, purgeAge);
                 stmt.setTimestamp(2, timestamp, this.utcCalendar);
 
-                stmt.execute();
+                final int deleted = stmt.executeUpdate();
                 c.commit();
-                return (Void) null;
+                return deleted;
+            }
+        }, "Cannot execute query");
+    }
+
+    private synchronized int executeDeleteMessagesQuery(String sql, Timestamp timestamp, int purgeAge, int limit)
+            throws KuraStoreException {
+        return withConnection(c -> {
+            try (final PreparedStatement stmt = c.prepareStatement(sql)) {
+                stmt.setInt(1, purgeAge);
+                stmt.setTimestamp(2, timestamp, this.utcCalendar);
+                stmt.setInt(3, limit);
+
+                final int deleted = stmt.executeUpdate();
+                c.commit();
+                return deleted;
             }
         }, "Cannot execute query");
     }
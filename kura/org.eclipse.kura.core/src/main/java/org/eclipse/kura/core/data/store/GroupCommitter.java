@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.core.data.store;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.eclipse.kura.KuraStoreException;
+import org.eclipse.kura.core.data.DataMessage;
+
+/**
+ * Collects concurrent store requests and writes them to the database in groups.
+ * <p>
+ * The first thread that submits a request when no group is being written becomes the leader: it waits for the
+ * configured window to elapse, or for the maximum batch size to be reached, then writes all the pending requests
+ * using the provided {@link BatchWriter} and wakes up the other submitters. Requests that do not fit in the
+ * current group are written by the next leader.
+ */
+class GroupCommitter {
+
+    interface BatchWriter {
+
+        public List<DataMessage> write(List<PendingMessage> batch) throws KuraStoreException;
+    }
+
+    static final class PendingMessage {
+
+        final String topic;
+        final byte[] payload;
+        final int qos;
+        final boolean retain;
+        final int priority;
+
+        private boolean done;
+        private DataMessage result;
+        private KuraStoreException error;
+
+        PendingMessage(String topic, byte[] payload, int qos, boolean retain, int priority) {
+            this.topic = topic;
+            this.payload = payload;
+            this.qos = qos;
+            this.retain = retain;
+            this.priority = priority;
+        }
+    }
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition batchFull = this.lock.newCondition();
+    private final Condition batchWritten = this.lock.newCondition();
+    private final ArrayDeque<PendingMessage> pending = new ArrayDeque<>();
+
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final BatchWriter writer;
+
+    private boolean leaderActive;
+
+    GroupCommitter(long windowMillis, int maxBatchSize, BatchWriter writer) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.writer = writer;
+    }
+
+    long getWindowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.windowNanos);
+    }
+
+    int getMaxBatchSize() {
+        return this.maxBatchSize;
+    }
+
+    DataMessage submit(PendingMessage message) throws KuraStoreException {
+        this.lock.lock();
+        try {
+            this.pending.add(message);
+            if (this.pending.size() >= this.maxBatchSize) {
+                this.batchFull.signal();
+            }
+
+            while (!message.done) {
+                if (this.leaderActive) {
+                    this.batchWritten.awaitUninterruptibly();
+                } else {
+                    lead();
+                }
+            }
+
+            if (message.error != null) {
+                throw message.error;
+            }
+            return message.result;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    // must be called holding the lock
+    private void lead() {
+        this.leaderActive = true;
+        try {
+            long remaining = this.windowNanos;
+            while (this.pending.size() < this.maxBatchSize && remaining > 0) {
+                try {
+                    remaining = this.batchFull.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            final List<PendingMessage> batch = new ArrayList<>(Math.min(this.pending.size(), this.maxBatchSize));
+            while (!this.pending.isEmpty() && batch.size() < this.maxBatchSize) {
+                batch.add(this.pending.poll());
+            }
+
+            this.lock.unlock();
+            try {
+                writeBatch(batch);
+            } finally {
+                this.lock.lock();
+            }
+        } finally {
+            this.leaderActive = false;
+            this.batchWritten.signalAll();
+        }
+    }
+
+    private void writeBatch(List<PendingMessage> batch) {
+        List<DataMessage> results = null;
+        KuraStoreException error = null;
+        try {
+            results = this.writer.write(batch);
+            if (results.size() != batch.size()) {
+                error = new KuraStoreException("Unexpected number of stored messages: " + results.size()
+                        + ", expected: " + batch.size());
+            }
+        } catch (KuraStoreException e) {
+            error = e;
+        } catch (RuntimeException e) {
+            error = new KuraStoreException(e, "Cannot store messages");
+        }
+
+        this.lock.lock();
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                final PendingMessage message = batch.get(i);
+                if (error != null) {
+                    message.error = error;
+                } else {
+                    message.result = results.get(i);
+                }
+                message.done = true;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.core.data.store;
+
+/**
+ * Statistics about a run of the stale messages deletion performed by the {@link HouseKeeperTask}.
+ */
+public class HouseKeeperStatistics {
+
+    private final int rowsPurged;
+    private final int chunks;
+    private final long durationMillis;
+    private final long totalLockHoldMillis;
+    private final long maxLockHoldMillis;
+
+    public HouseKeeperStatistics(int rowsPurged, int chunks, long durationMillis, long totalLockHoldMillis,
+            long maxLockHoldMillis) {
+        this.rowsPurged = rowsPurged;
+        this.chunks = chunks;
+        this.durationMillis = durationMillis;
+        this.totalLockHoldMillis = totalLockHoldMillis;
+        this.maxLockHoldMillis = maxLockHoldMillis;
+    }
+
+    public int getRowsPurged() {
+        return this.rowsPurged;
+    }
+
+    public int getChunks() {
+        return this.chunks;
+    }
+
+    public long getDurationMillis() {
+        return this.durationMillis;
+    }
+
+    public long getTotalLockHoldMillis() {
+        return this.totalLockHoldMillis;
+    }
+
+    public long getMaxLockHoldMillis() {
+        return this.maxLockHoldMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "rows purged: " + this.rowsPurged + ", chunks: " + this.chunks + ", duration: " + this.durationMillis
+                + " ms, total lock hold time: " + this.totalLockHoldMillis + " ms, max lock hold time: "
+                + this.maxLockHoldMillis + " ms";
+    }
+}
@@ -0,0 +1,446 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.core.data.store;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.kura.KuraStoreException;
+import org.eclipse.kura.core.data.DataMessage;
+import org.eclipse.kura.core.data.DataStore;
+import org.eclipse.kura.db.H2DbService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link DataStore} that keeps QoS 0 messages in bounded in-memory ring buffers, one for each priority level, in
+ * front of a {@link DbDataStore}.
+ * <p>
+ * QoS 0 messages are kept in memory only while the transport is connected and the number of buffered messages is
+ * below the configured high water mark, otherwise they are stored in the database. All the other messages are always
+ * stored in the database. Buffered and stored messages are returned by {@link #getNextMessage()} ordered by priority
+ * and creation time, buffered messages are moved to the database by {@link #spill()}, for example when the transport
+ * disconnects.
+ * <p>
+ * Buffered messages are identified by negative ids, so that they never collide with the ids generated by the
+ * database. A spilled message keeps the id returned by {@link #store(String, byte[], int, boolean, int)}: the messages
+ * returned by this store carry the buffered id, which is translated to the database id when the message is marked as
+ * published or confirmed. Buffered messages are lost if the framework is not shut down cleanly.
+ */
+public class MemoryBufferedDataStore implements DataStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemoryBufferedDataStore.class);
+
+    // same order used by the database: priority first, then creation time
+    private static final Comparator<DataMessage> PUBLISH_ORDER = Comparator.comparingInt(DataMessage::getPriority)
+            .thenComparing(DataMessage::getCreatedOn);
+
+    private final DbDataStore delegate;
+    private final BooleanSupplier isConnected;
+
+    private final TreeMap<Integer, MessageRingBuffer> buffers = new TreeMap<>();
+    private int bufferCapacity;
+    private int highWaterMark;
+    private int bufferedCount;
+    private int nextBufferedId = -1;
+
+    // buffered messages returned by the last getNextMessage(s) call, that may be being published
+    private final Set<Integer> inFlightIds = new HashSet<>();
+
+    // ids assigned by the database to the spilled messages that have not been published yet
+    private final Map<Integer, Integer> storedIdsByBufferedId = new HashMap<>();
+    private final Map<Integer, Integer> bufferedIdsByStoredId = new HashMap<>();
+
+    public MemoryBufferedDataStore(DbDataStore delegate, BooleanSupplier isConnected) {
+        this.delegate = delegate;
+        this.isConnected = isConnected;
+    }
+
+    /**
+     * Configures the in-memory buffer.
+     *
+     * @param capacity
+     *            the maximum number of QoS 0 messages kept in memory, 0 disables the buffer
+     * @param highWaterMarkPercent
+     *            the buffer fill percentage above which new QoS 0 messages are stored in the database
+     */
+    public void setBufferCapacity(int capacity, int highWaterMarkPercent) {
+        final List<DataMessage> spilled;
+
+        synchronized (this) {
+            if (capacity == this.bufferCapacity) {
+                this.highWaterMark = computeHighWaterMark(capacity, highWaterMarkPercent);
+                return;
+            }
+            this.bufferCapacity = Math.max(0, capacity);
+            this.highWaterMark = computeHighWaterMark(this.bufferCapacity, highWaterMarkPercent);
+            spilled = drainBuffers(true);
+            logger.info("QoS 0 memory buffer capacity: {}, high water mark: {}", this.bufferCapacity,
+                    this.highWaterMark);
+        }
+
+        storeInDelegate(spilled);
+    }
+
+    private static int computeHighWaterMark(int capacity, int highWaterMarkPercent) {
+        final int percent = Math.min(100, Math.max(1, highWaterMarkPercent));
+        return Math.max(1, (int) ((long) capacity * percent / 100));
+    }
+
+    /**
+     * Moves the buffered messages to the database. The messages returned by the last {@link #getNextMessage()} or
+     * {@link #getNextMessages(int)} call are kept in memory, they may be being published and storing them with a new
+     * id would cause them to be published again.
+     */
+    public void spill() {
+        spill(true);
+    }
+
+    private void spill(boolean keepInFlight) {
+        final List<DataMessage> spilled;
+
+        synchronized (this) {
+            spilled = drainBuffers(keepInFlight);
+        }
+
+        storeInDelegate(spilled);
+    }
+
+    @Override
+    public void start(H2DbService dbService, int houseKeeperInterval, int purgeAge, int capacity)
+            throws KuraStoreException {
+        this.delegate.start(dbService, houseKeeperInterval, purgeAge, capacity);
+    }
+
+    @Override
+    public void update(int houseKeeperInterval, int purgeAge, int capacity) {
+        this.delegate.update(houseKeeperInterval, purgeAge, capacity);
+    }
+
+    @Override
+    public void stop() {
+        spill(false);
+        this.delegate.stop();
+
+        synchronized (this) {
+            // the ids of the spilled messages do not survive a restart
+            this.storedIdsByBufferedId.clear();
+            this.bufferedIdsByStoredId.clear();
+        }
+    }
+
+    @Override
+    public DataMessage store(String topic, byte[] payload, int qos, boolean retain, int priority)
+            throws KuraStoreException {
+        if (qos == 0 && topic != null && !topic.trim().isEmpty() && this.isConnected.getAsBoolean()) {
+            synchronized (this) {
+                if (this.bufferCapacity > 0 && this.bufferedCount < this.highWaterMark) {
+                    final DataMessage message = new DataMessage.Builder(nextBufferedId()).withTopic(topic)
+                            .withQos(qos).withRetain(retain).withCreatedOn(new Date()).withPublishedMessageId(-1)
+                            .withPayload(payload).withPriority(priority).build();
+
+                    if (this.buffers.computeIfAbsent(priority, p -> new MessageRingBuffer(this.bufferCapacity))
+                            .offer(message)) {
+                        this.bufferedCount++;
+                        return message;
+                    }
+                }
+            }
+        }
+
+        return this.delegate.store(topic, payload, qos, retain, priority);
+    }
+
+    @Override
+    public void published(int msgId, int publishedMsgId, String sessionId) throws KuraStoreException {
+        final int storedId = msgId < 0 ? removeBuffered(msgId) : msgId;
+        if (storedId >= 0) {
+            this.delegate.published(storedId, publishedMsgId, sessionId);
+        }
+    }
+
+    @Override
+    public void published(int msgId) throws KuraStoreException {
+        final int storedId = msgId < 0 ? removeBuffered(msgId) : msgId;
+        if (storedId >= 0) {
+            this.delegate.published(storedId);
+        }
+    }
+
+    @Override
+    public void published(List<DataMessage> messages) throws KuraStoreException {
+        final List<DataMessage> persisted = new ArrayList<>(messages.size());
+
+        for (final DataMessage message : messages) {
+            if (message.getId() >= 0) {
+                persisted.add(message);
+                continue;
+            }
+            final int storedId = removeBuffered(message.getId());
+            if (storedId >= 0) {
+                persisted.add(withId(message, storedId));
+            }
+        }
+
+        this.delegate.published(persisted);
+    }
+
+    @Override
+    public void confirmed(int msgId) throws KuraStoreException {
+        final int storedId = msgId < 0 ? getStoredId(msgId) : msgId;
+        if (storedId >= 0) {
+            this.delegate.confirmed(storedId);
+        }
+    }
+
+    @Override
+    public DataMessage getNextMessage() throws KuraStoreException {
+        DataMessage buffered = null;
+
+        synchronized (this) {
+            this.inFlightIds.clear();
+            for (final MessageRingBuffer buffer : this.buffers.values()) {
+                buffered = buffer.peek();
+                if (buffered != null) {
+                    this.inFlightIds.add(buffered.getId());
+                    break;
+                }
+            }
+        }
+
+        final DataMessage stored = toBufferedId(this.delegate.getNextMessage());
+
+        if (buffered == null || stored != null && PUBLISH_ORDER.compare(stored, buffered) <= 0) {
+            return stored;
+        }
+        return buffered;
+    }
+
+    @Override
+    public List<DataMessage> getNextMessages(int count) throws KuraStoreException {
+        final List<DataMessage> buffered = new ArrayList<>(count);
+
+        synchronized (this) {
+            this.inFlightIds.clear();
+            for (final MessageRingBuffer buffer : this.buffers.values()) {
+                buffer.copyTo(buffered, count - buffered.size());
+            }
+            for (final DataMessage message : buffered) {
+                this.inFlightIds.add(message.getId());
+            }
+        }
+
+        final List<DataMessage> stored = toBufferedIds(this.delegate.getNextMessages(count));
+
+        // both lists are sorted in publish order
+        final List<DataMessage> result = new ArrayList<>(count);
+        int i = 0;
+        int j = 0;
+        while (result.size() < count && (i < buffered.size() || j < stored.size())) {
+            if (i == buffered.size()
+                    || j < stored.size() && PUBLISH_ORDER.compare(stored.get(j), buffered.get(i)) <= 0) {
+                result.add(stored.get(j++));
+            } else {
+                result.add(buffered.get(i++));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public DataMessage get(int msgId) throws KuraStoreException {
+        if (msgId >= 0) {
+            return toBufferedId(this.delegate.get(msgId));
+        }
+
+        final int storedId;
+        synchronized (this) {
+            for (final MessageRingBuffer buffer : this.buffers.values()) {
+                final DataMessage message = buffer.find(msgId);
+                if (message != null) {
+                    return message;
+                }
+            }
+            storedId = getStoredId(msgId);
+        }
+        return storedId >= 0 ? toBufferedId(this.delegate.get(storedId)) : null;
+    }
+
+    @Override
+    public List<DataMessage> allUnpublishedMessagesNoPayload() throws KuraStoreException {
+        final List<DataMessage> result = new ArrayList<>();
+
+        synchronized (this) {
+            final List<DataMessage> buffered = new ArrayList<>(this.bufferedCount);
+            for (final MessageRingBuffer buffer : this.buffers.values()) {
+                buffer.copyTo(buffered);
+            }
+            for (final DataMessage message : buffered) {
+                result.add(new DataMessage.Builder(message.getId()).withTopic(message.getTopic())
+                        .withQos(message.getQos()).withRetain(message.isRetain())
+                        .withCreatedOn(message.getCreatedOn()).withPublishedMessageId(-1)
+                        .withPriority(message.getPriority()).build());
+            }
+        }
+
+        result.addAll(toBufferedIds(this.delegate.allUnpublishedMessagesNoPayload()));
+        return result;
+    }
+
+    @Override
+    public List<DataMessage> allInFlightMessagesNoPayload() throws KuraStoreException {
+        return this.delegate.allInFlightMessagesNoPayload();
+    }
+
+    @Override
+    public List<DataMessage> allDroppedInFlightMessagesNoPayload() throws KuraStoreException {
+        return this.delegate.allDroppedInFlightMessagesNoPayload();
+    }
+
+    @Override
+    public void unpublishAllInFlighMessages() throws KuraStoreException {
+        this.delegate.unpublishAllInFlighMessages();
+    }
+
+    @Override
+    public void dropAllInFlightMessages() throws KuraStoreException {
+        this.delegate.dropAllInFlightMessages();
+    }
+
+    @Override
+    public void deleteStaleMessages(int purgeAge) throws KuraStoreException {
+        this.delegate.deleteStaleMessages(purgeAge);
+    }
+
+    @Override
+    public void repair() throws KuraStoreException {
+        this.delegate.repair();
+    }
+
+    // must be called holding the monitor
+    private int nextBufferedId() {
+        final int result = this.nextBufferedId;
+        this.nextBufferedId = result == Integer.MIN_VALUE ? -1 : result - 1;
+        return result;
+    }
+
+    // removes the buffered message with the given id, returns the database id if the message has been spilled or -1
+    private synchronized int removeBuffered(int msgId) {
+        this.inFlightIds.remove(msgId);
+        for (final MessageRingBuffer buffer : this.buffers.values()) {
+            if (buffer.remove(msgId)) {
+                this.bufferedCount--;
+                return -1;
+            }
+        }
+
+        final Integer storedId = this.storedIdsByBufferedId.remove(msgId);
+        if (storedId == null) {
+            logger.debug("Buffered message with ID: {} not found", msgId);
+            return -1;
+        }
+        this.bufferedIdsByStoredId.remove(storedId);
+        return storedId;
+    }
+
+    private synchronized int getStoredId(int bufferedId) {
+        return this.storedIdsByBufferedId.getOrDefault(bufferedId, -1);
+    }
+
+    private synchronized DataMessage toBufferedId(DataMessage stored) {
+        if (stored == null || this.bufferedIdsByStoredId.isEmpty()) {
+            return stored;
+        }
+        final Integer bufferedId = this.bufferedIdsByStoredId.get(stored.getId());
+        return bufferedId != null ? withId(stored, bufferedId) : stored;
+    }
+
+    private synchronized List<DataMessage> toBufferedIds(List<DataMessage> stored) {
+        if (stored == null || this.bufferedIdsByStoredId.isEmpty()) {
+            return stored;
+        }
+        final List<DataMessage> result = new ArrayList<>(stored.size());
+        for (final DataMessage message : stored) {
+            result.add(toBufferedId(message));
+        }
+        return result;
+    }
+
+    private static DataMessage withId(DataMessage message, int id) {
+        return new DataMessage.Builder(id).withTopic(message.getTopic()).withQos(message.getQos())
+                .withRetain(message.isRetain()).withCreatedOn(message.getCreatedOn())
+                .withPublishedOn(message.getPublishedOn()).withPublishedMessageId(message.getPublishedMessageId())
+                .withConfirmedOn(message.getConfirmedOn()).withPayload(message.getPayload())
+                .withPriority(message.getPriority()).withSessionId(message.getSessionId())
+                .withDroppedOn(message.droppedOn()).build();
+    }
+
+    // must be called holding the monitor, returns the drained messages that must be stored in the database
+    private List<DataMessage> drainBuffers(boolean keepInFlight) {
+        final List<DataMessage> result = new ArrayList<>(this.bufferedCount);
+        final List<DataMessage> inFlight = new ArrayList<>(this.inFlightIds.size());
+
+        for (final MessageRingBuffer buffer : this.buffers.values()) {
+            for (final DataMessage message : buffer.drain()) {
+                if (keepInFlight && this.inFlightIds.contains(message.getId())) {
+                    inFlight.add(message);
+                } else {
+                    result.add(message);
+                }
+            }
+        }
+        this.buffers.clear();
+        this.bufferedCount = 0;
+
+        for (final DataMessage message : inFlight) {
+            if (this.bufferCapacity > 0 && this.buffers
+                    .computeIfAbsent(message.getPriority(), p -> new MessageRingBuffer(this.bufferCapacity))
+                    .offer(message)) {
+                this.bufferedCount++;
+            } else {
+                result.add(message);
+            }
+        }
+        return result;
+    }
+
+    private void storeInDelegate(List<DataMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        logger.info("Moving {} buffered QoS 0 messages to the store", messages.size());
+        for (final DataMessage message : messages) {
+            try {
+                final DataMessage stored = this.delegate.store(message.getTopic(), message.getPayload(),
+                        message.getQos(), message.isRetain(), message.getPriority());
+                if (stored != null) {
+                    synchronized (this) {
+                        this.storedIdsByBufferedId.put(message.getId(), stored.getId());
+                        this.bufferedIdsByStoredId.put(stored.getId(), message.getId());
+                    }
+                }
+            } catch (KuraStoreException e) {
+                logger.warn("Cannot move buffered message on topic: {} to the store, dropping it",
+                        message.getTopic(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.core.data.store;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.kura.core.data.DataMessage;
+
+/**
+ * A bounded FIFO of {@link DataMessage}s backed by a circular array. The array is grown on demand up to the maximum
+ * capacity, so that an unused priority level does not allocate the full capacity. This class is not thread safe.
+ */
+class MessageRingBuffer {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int capacity;
+    private DataMessage[] messages;
+    private int head;
+    private int size;
+
+    MessageRingBuffer(int capacity) {
+        this.capacity = capacity;
+        this.messages = new DataMessage[Math.min(capacity, INITIAL_CAPACITY)];
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    boolean offer(DataMessage message) {
+        if (this.size == this.messages.length) {
+            if (this.size >= this.capacity) {
+                return false;
+            }
+            grow();
+        }
+        this.messages[(this.head + this.size) % this.messages.length] = message;
+        this.size++;
+        return true;
+    }
+
+    DataMessage peek() {
+        return this.size == 0 ? null : this.messages[this.head];
+    }
+
+    DataMessage poll() {
+        if (this.size == 0) {
+            return null;
+        }
+        final DataMessage result = this.messages[this.head];
+        this.messages[this.head] = null;
+        this.head = (this.head + 1) % this.messages.length;
+        this.size--;
+        return result;
+    }
+
+    DataMessage find(int msgId) {
+        for (int i = 0; i < this.size; i++) {
+            final DataMessage message = this.messages[(this.head + i) % this.messages.length];
+            if (message.getId() == msgId) {
+                return message;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes the message with the given id. Messages are normally removed from the head of the buffer, in this case
+     * the removal is O(1).
+     */
+    boolean remove(int msgId) {
+        if (this.size == 0) {
+            return false;
+        }
+        if (this.messages[this.head].getId() == msgId) {
+            poll();
+            return true;
+        }
+        for (int i = 1; i < this.size; i++) {
+            final int index = (this.head + i) % this.messages.length;
+            if (this.messages[index].getId() == msgId) {
+                for (int j = i; j < this.size - 1; j++) {
+                    this.messages[(this.head + j) % this.messages.length] = this.messages[(this.head + j + 1)
+                            % this.messages.length];
+                }
+                this.messages[(this.head + this.size - 1) % this.messages.length] = null;
+                this.size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void grow() {
+        final DataMessage[] grown = new DataMessage[(int) Math.min(this.capacity, 2L * this.messages.length)];
+        for (int i = 0; i < this.size; i++) {
+            grown[i] = this.messages[(this.head + i) % this.messages.length];
+        }
+        this.messages = grown;
+        this.head = 0;
+    }
+
+    List<DataMessage> drain() {
+        final List<DataMessage> result = new ArrayList<>(this.size);
+        while (this.size > 0) {
+            result.add(poll());
+        }
+        return result;
+    }
+
+    void copyTo(List<DataMessage> target) {
+        copyTo(target, this.size);
+    }
+
+    void copyTo(List<DataMessage> target, int max) {
+        final int count = Math.min(max, this.size);
+        for (int i = 0; i < count; i++) {
+            target.add(this.messages[(this.head + i) % this.messages.length]);
+        }
+    }
+}
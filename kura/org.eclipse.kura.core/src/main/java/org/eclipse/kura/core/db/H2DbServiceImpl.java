@@ -20,6 +20,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -32,9 +34,17 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.eclipse.kura.KuraException;
 import org.eclipse.kura.configuration.ConfigurableComponent;
 import org.eclipse.kura.crypto.CryptoService;
+import org.eclipse.kura.core.db.H2DbServiceOptions.DefragMode;
 import org.eclipse.kura.db.H2DbService;
+import org.eclipse.kura.db.H2DbSession;
+import org.h2.engine.Session;
+import org.h2.engine.SessionInterface;
+import org.h2.jdbc.JdbcConnection;
 import org.h2.jdbcx.JdbcConnectionPool;
 import org.h2.jdbcx.JdbcDataSource;
+import org.h2.mvstore.FileStore;
+import org.h2.mvstore.MVStore;
+import org.h2.mvstore.db.MVTableEngine;
 import org.h2.tools.DeleteDbFiles;
 import org.osgi.service.component.ComponentException;
 import org.slf4j.Logger;
@@ -76,6 +86,11 @@ public class H2DbServiceImpl implements H2DbService, ConfigurableComponent {
     private final ReadWriteLock rwLock = new ReentrantReadWriteLock(true);
     private final AtomicInteger pendingUpdates = new AtomicInteger();
 
+    private final Set<H2DbSessionImpl> openSessions = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final AtomicInteger heldSessionConnections = new AtomicInteger();
+    private volatile int maxSessionConnections;
+    private volatile long poolGeneration;
+
     // ----------------------------------------------------------------
     //
     // Dependencies
@@ -119,6 +134,9 @@ public class H2DbServiceImpl implements H2DbService, ConfigurableComponent {
             logger.warn("Interrupted while waiting for db shutdown");
             Thread.currentThread().interrupt();
         }
+        for (final H2DbSessionImpl session : this.openSessions) {
+            session.close();
+        }
         try {
             shutdownDb();
         } catch (SQLException e) {
@@ -135,12 +153,7 @@ public class H2DbServiceImpl implements H2DbService, ConfigurableComponent {
 
     @Override
     public Connection getConnection() throws SQLException {
-        if (this.pendingUpdates.get() > 0) {
-            syncWithExecutor();
-        }
-
-        final Lock lock = this.rwLock.readLock();
-        lock.lock();
+        final Lock lock = lockForUse();
         try {
             return getConnectionInternal();
         } finally {
@@ -150,12 +163,7 @@ public class H2DbServiceImpl implements H2DbService, ConfigurableComponent {
 
     @Override
     public <T> T withConnection(ConnectionCallable<T> callable) throws SQLException {
-        if (this.pendingUpdates.get() > 0) {
-            syncWithExecutor();
-        }
-
-        final Lock lock = this.rwLock.readLock();
-        lock.lock();
+        final Lock lock = lockForUse();
         Connection connection = null;
         try {
             connection = getConnectionInternal();
@@ -170,6 +178,13 @@ public class H2DbServiceImpl implements H2DbService, ConfigurableComponent {
         }
     }
 
+    @Override
+    public H2DbSession openSession() {
+        final H2DbSessionImpl session = new H2DbSessionImpl(this);
+        this.openSessions.add(session);
+        return session;
+    }
+
     @Override
     public void rollback(Connection conn) {
         try {
@@ -299,6 +314,7 @@ public class H2DbServiceImpl implements H2DbService, ConfigurableComponent {
         }
 
         this.connectionPool.setMaxConnections(configuration.getConnectionPoolMaxSize());
+        this.maxSessionConnections = configuration.getSessionMaxConnections();
     }
 
     private void syncWithExecutor() {
@@ -310,7 +326,57 @@ public class H2DbServiceImpl implements H2DbService, ConfigurableComponent {
         }
     }
 
-    private Connection getConnectionInternal() throws SQLException {
+    /**
+     * Waits for the pending configuration updates to be applied and acquires the read lock, that must be held while
+     * using a connection.
+     *
+     * @return the acquired lock
+     */
+    Lock lockForUse() {
+        if (this.pendingUpdates.get() > 0) {
+            syncWithExecutor();
+        }
+
+        final Lock lock = this.rwLock.readLock();
+        lock.lock();
+        return lock;
+    }
+
+    /**
+     * Returns a counter that is incremented each time the connection pool is disposed, connections obtained with a
+     * different value must not be used anymore.
+     *
+     * @return the pool generation
+     */
+    long getPoolGeneration() {
+        return this.poolGeneration;
+    }
+
+    void sessionClosed(final H2DbSessionImpl session) {
+        this.openSessions.remove(session);
+    }
+
+    /**
+     * Reserves one of the pool connections that can be kept by the sessions between their tasks.
+     *
+     * @return true if the session can keep its connection, false if it must return it to the pool after each task
+     */
+    boolean tryAcquireSessionConnection() {
+        int held;
+        do {
+            held = this.heldSessionConnections.get();
+            if (held >= this.maxSessionConnections) {
+                return false;
+            }
+        } while (!this.heldSessionConnections.compareAndSet(held, held + 1));
+        return true;
+    }
+
+    void releaseSessionConnection() {
+        this.heldSessionConnections.decrementAndGet();
+    }
+
+    Connection getConnectionInternal() throws SQLException {
         if (this.connectionPool == null) {
             throw new SQLException("Database instance not initialized");
         }
@@ -418,6 +484,7 @@ public class H2DbServiceImpl implements H2DbService, ConfigurableComponent {
         if (this.connectionPool != null) {
             this.connectionPool.dispose();
             this.connectionPool = null;
+            this.poolGeneration++;
         }
     }
 
@@ -454,12 +521,21 @@ public class H2DbServiceImpl implements H2DbService, ConfigurableComponent {
 
     private void restartDefragTask(final H2DbServiceOptions config) {
         stopDefragTask();
-        final long delayMinutes = config.getDefragIntervalMinutes();
-        if (delayMinutes <= 0) {
-            return;
+        if (config.getDefragMode() == DefragMode.ONLINE) {
+            final long delaySeconds = config.getDefragCheckIntervalSeconds();
+            if (delaySeconds <= 0) {
+                return;
+            }
+            this.defragTask = this.executor.scheduleWithFixedDelay(new OnlineDefragTask(config), delaySeconds,
+                    delaySeconds, TimeUnit.SECONDS);
+        } else {
+            final long delayMinutes = config.getDefragIntervalMinutes();
+            if (delayMinutes <= 0) {
+                return;
+            }
+            this.defragTask = this.executor.scheduleWithFixedDelay(new DefragTask(config), delayMinutes,
+                    delayMinutes, TimeUnit.MINUTES);
         }
-        this.checkpointTask = this.executor.scheduleWithFixedDelay(new DefragTask(config), delayMinutes, delayMinutes,
-                TimeUnit.MINUTES);
     }
 
     private void stopDefragTask() {
@@ -522,4 +598,85 @@ public class H2DbServiceImpl implements H2DbService, ConfigurableComponent {
             }
         }
     }
+
+    /**
+     * Reclaims the space wasted by the MVStore without closing the database. If the fill rate of the database file is
+     * below the configured threshold, the chunks whose fill rate is below the threshold are rewritten in small steps
+     * until no more chunks need to be compacted or the configured time budget is exhausted. The space freed by the
+     * rewritten chunks is reused by subsequent writes, the file is not truncated.
+     */
+    private class OnlineDefragTask implements Runnable {
+
+        private static final int COMPACT_STEP_BYTES = 1024 * 1024;
+
+        private final int fillRateThreshold;
+        private final long timeBudgetNanos;
+
+        public OnlineDefragTask(final H2DbServiceOptions configuration) {
+            this.fillRateThreshold = configuration.getDefragFillRateThreshold();
+            this.timeBudgetNanos = TimeUnit.MILLISECONDS.toNanos(configuration.getDefragTimeBudgetMillis());
+        }
+
+        private MVStore getStore(final Connection conn) throws SQLException {
+            final SessionInterface session = conn.unwrap(JdbcConnection.class).getSession();
+            if (!(session instanceof Session)) {
+                return null;
+            }
+            final MVTableEngine.Store store = ((Session) session).getDatabase().getMvStore();
+            return store != null ? store.getStore() : null;
+        }
+
+        private void compact(final MVStore store) {
+            final FileStore fileStore = store.getFileStore();
+            final int initialFillRate = fileStore.getFillRate();
+
+            if (initialFillRate >= this.fillRateThreshold) {
+                logger.debug("db fill rate is {}%, compaction not needed", initialFillRate);
+                return;
+            }
+
+            logger.info("compacting db, fill rate: {}%, file size: {} bytes...", initialFillRate, fileStore.size());
+
+            final long start = System.nanoTime();
+            long longestStep = 0;
+            int steps = 0;
+            boolean hasMore = true;
+
+            while (hasMore && System.nanoTime() - start < this.timeBudgetNanos) {
+                final long stepStart = System.nanoTime();
+                hasMore = store.compact(this.fillRateThreshold, COMPACT_STEP_BYTES);
+                longestStep = Math.max(longestStep, System.nanoTime() - stepStart);
+                steps++;
+            }
+
+            logger.info(
+                    "compacting db...done, fill rate: {}%, file size: {} bytes, steps: {}, total time: {} ms, "
+                            + "longest step: {} ms, {}",
+                    fileStore.getFillRate(), fileStore.size(), steps,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                    TimeUnit.NANOSECONDS.toMillis(longestStep),
+                    hasMore ? "time budget exhausted, will continue at next check" : "completed");
+        }
+
+        @Override
+        public void run() {
+            final Lock lock = H2DbServiceImpl.this.rwLock.readLock();
+            lock.lock();
+            Connection conn = null;
+            try {
+                conn = getConnectionInternal();
+                final MVStore store = getStore(conn);
+                if (store == null || store.getFileStore() == null) {
+                    logger.debug("database is not backed by an MVStore file, online compaction not supported");
+                    return;
+                }
+                compact(store);
+            } catch (final Exception e) {
+                logger.error("failed to compact db", e);
+            } finally {
+                close(conn);
+                lock.unlock();
+            }
+        }
+    }
 }
@@ -26,6 +26,16 @@ class H2DbServiceOptions {
     private static final Property<Integer> DEFRAG_INTERVAL_MINUTES_PROP = new Property<>("db.defrag.interval.minutes",
             20);
     private static final Property<Integer> CONNECTION_POOL_MAX_SIZE = new Property<>("db.connection.pool.max.size", 10);
+    private static final Property<Integer> SESSION_MAX_CONNECTIONS = new Property<>(
+            "db.connection.pool.max.session.connections", 5);
+    private static final Property<String> DEFRAG_MODE_PROP = new Property<>("db.defrag.mode",
+            DefragMode.OFFLINE.name());
+    private static final Property<Integer> DEFRAG_FILL_RATE_THRESHOLD_PROP = new Property<>(
+            "db.defrag.online.fill.rate.threshold", 60);
+    private static final Property<Integer> DEFRAG_TIME_BUDGET_MILLIS_PROP = new Property<>(
+            "db.defrag.online.time.budget.millis", 500);
+    private static final Property<Integer> DEFRAG_CHECK_INTERVAL_SECONDS_PROP = new Property<>(
+            "db.defrag.online.check.interval.seconds", 60);
 
     private static final Pattern FILE_LOG_LEVEL_PATTERN = generatePatternForProperty("trace_level_file");
     private static final Pattern USER_PATTERN = generatePatternForProperty("user");
@@ -39,6 +49,11 @@ class H2DbServiceOptions {
     private final long checkpointIntervalSeconds;
     private final long defragIntervalMinutes;
     private final int maxConnectionPoolSize;
+    private final int maxSessionConnections;
+    private final DefragMode defragMode;
+    private final int defragFillRateThreshold;
+    private final long defragTimeBudgetMillis;
+    private final long defragCheckIntervalSeconds;
 
     private boolean isInMemory;
     private boolean isFileBased;
@@ -56,6 +71,13 @@ class H2DbServiceOptions {
         this.checkpointIntervalSeconds = CHECKPOINT_INTERVAL_SECONDS_PROP.get(properties);
         this.defragIntervalMinutes = DEFRAG_INTERVAL_MINUTES_PROP.get(properties);
         this.maxConnectionPoolSize = CONNECTION_POOL_MAX_SIZE.get(properties);
+        // at least one connection of the pool is always left for the tasks that do not use a session
+        this.maxSessionConnections = Math.max(0,
+                Math.min(SESSION_MAX_CONNECTIONS.get(properties), this.maxConnectionPoolSize - 1));
+        this.defragMode = parseDefragMode(DEFRAG_MODE_PROP.get(properties));
+        this.defragFillRateThreshold = Math.max(0, Math.min(100, DEFRAG_FILL_RATE_THRESHOLD_PROP.get(properties)));
+        this.defragTimeBudgetMillis = DEFRAG_TIME_BUDGET_MILLIS_PROP.get(properties);
+        this.defragCheckIntervalSeconds = DEFRAG_CHECK_INTERVAL_SECONDS_PROP.get(properties);
 
         String dbUrlProp = CONNECTOR_URL_PROP.get(properties);
 
@@ -78,6 +100,14 @@ class H2DbServiceOptions {
         return Pattern.compile(patternStringBuilder.toString());
     }
 
+    private static DefragMode parseDefragMode(String mode) {
+        try {
+            return DefragMode.valueOf(mode);
+        } catch (IllegalArgumentException e) {
+            return DefragMode.OFFLINE;
+        }
+    }
+
     private void computeUrlParts() {
         final Matcher jdbcUrlMatcher = JDBC_URL_PARSE_PATTERN.matcher(this.dbUrl);
 
@@ -165,6 +195,22 @@ class H2DbServiceOptions {
         return this.defragIntervalMinutes;
     }
 
+    public DefragMode getDefragMode() {
+        return this.defragMode;
+    }
+
+    public int getDefragFillRateThreshold() {
+        return this.defragFillRateThreshold;
+    }
+
+    public long getDefragTimeBudgetMillis() {
+        return this.defragTimeBudgetMillis;
+    }
+
+    public long getDefragCheckIntervalSeconds() {
+        return this.defragCheckIntervalSeconds;
+    }
+
     public String getBaseUrl() {
         return this.baseUrl;
     }
@@ -181,10 +227,25 @@ class H2DbServiceOptions {
         return this.maxConnectionPoolSize;
     }
 
+    public int getSessionMaxConnections() {
+        return this.maxSessionConnections;
+    }
+
     public boolean isFileBasedLogLevelSpecified() {
         return this.isFileBasedLogLevelSpecified;
     }
 
+    enum DefragMode {
+        /**
+         * The database is periodically closed and defragmented with SHUTDOWN DEFRAG.
+         */
+        OFFLINE,
+        /**
+         * The MVStore chunks are incrementally compacted while the database is in use.
+         */
+        ONLINE
+    }
+
     private static class Property<T> {
 
         private final String key;
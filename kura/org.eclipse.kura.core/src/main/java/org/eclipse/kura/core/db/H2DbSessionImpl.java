@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *******************************************************************************/
+package org.eclipse.kura.core.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.locks.Lock;
+
+import org.eclipse.kura.db.H2DbSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link H2DbSession} that keeps a connection of the {@link H2DbServiceImpl} pool and a LRU cache of prepared
+ * statements.
+ * <p>
+ * The number of connections kept by the sessions between their tasks is limited by the service, so that the sessions
+ * cannot exhaust the pool. A session that cannot keep its connection returns it to the pool, together with the cached
+ * statements, at the end of each task, and tries again to keep it at the next task.
+ * <p>
+ * Tasks are executed holding the read lock of the service, as done by
+ * {@link H2DbServiceImpl#withConnection(org.eclipse.kura.db.H2DbService.ConnectionCallable)}, so they never overlap
+ * with the operations that require exclusive access to the database. The connection is reopened if the connection
+ * pool has been recreated since it was obtained, or if a task fails.
+ */
+final class H2DbSessionImpl implements H2DbSession {
+
+    private static final Logger logger = LoggerFactory.getLogger(H2DbSessionImpl.class);
+
+    private static final int MAX_CACHED_STATEMENTS = 64;
+
+    private final H2DbServiceImpl service;
+    private final Map<String, PreparedStatement> statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f,
+            true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Entry<String, PreparedStatement> eldest) {
+            if (size() > MAX_CACHED_STATEMENTS) {
+                H2DbSessionImpl.this.service.close(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+    private final SessionContext context = new Context();
+
+    private Connection connection;
+    private boolean holdsConnection;
+    private long poolGeneration;
+    private boolean isClosed;
+
+    H2DbSessionImpl(final H2DbServiceImpl service) {
+        this.service = service;
+    }
+
+    @Override
+    public synchronized <T> T withConnection(final SessionCallable<T> task) throws SQLException {
+        if (this.isClosed) {
+            throw new SQLException("Session closed");
+        }
+
+        final Lock lock = this.service.lockForUse();
+        try {
+            ensureConnection();
+            return task.call(this.context);
+        } catch (final SQLException e) {
+            logger.warn("Db operation failed", e);
+            this.service.rollback(this.connection);
+            releaseConnection();
+            throw e;
+        } finally {
+            if (!this.holdsConnection) {
+                releaseConnection();
+            }
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (this.isClosed) {
+            return;
+        }
+        this.isClosed = true;
+        releaseConnection();
+        this.service.sessionClosed(this);
+    }
+
+    private void ensureConnection() throws SQLException {
+        final long currentGeneration = this.service.getPoolGeneration();
+
+        if (this.connection != null && (this.poolGeneration != currentGeneration || this.connection.isClosed())) {
+            logger.debug("Session connection invalidated, reopening");
+            releaseConnection();
+        }
+
+        if (this.connection == null) {
+            final boolean canHoldConnection = this.service.tryAcquireSessionConnection();
+            try {
+                this.connection = this.service.getConnectionInternal();
+            } catch (final SQLException e) {
+                if (canHoldConnection) {
+                    this.service.releaseSessionConnection();
+                }
+                throw e;
+            }
+            this.holdsConnection = canHoldConnection;
+            this.poolGeneration = currentGeneration;
+        }
+    }
+
+    private void releaseConnection() {
+        for (final PreparedStatement statement : this.statements.values()) {
+            this.service.close(statement);
+        }
+        this.statements.clear();
+
+        this.service.close(this.connection);
+        this.connection = null;
+
+        if (this.holdsConnection) {
+            this.holdsConnection = false;
+            this.service.releaseSessionConnection();
+        }
+    }
+
+    private class Context implements SessionContext {
+
+        @Override
+        public Connection getConnection() {
+            return H2DbSessionImpl.this.connection;
+        }
+
+        @Override
+        public PreparedStatement prepareStatement(final String sql) throws SQLException {
+            PreparedStatement statement = H2DbSessionImpl.this.statements.get(sql);
+
+            if (statement == null) {
+                statement = H2DbSessionImpl.this.connection.prepareStatement(sql);
+                H2DbSessionImpl.this.statements.put(sql, statement);
+            } else {
+                statement.clearParameters();
+                statement.clearBatch();
+            }
+            return statement;
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -44,5 +44,92 @@ public interface Buffer {
         return result;
     }
 
+    /**
+     * Returns the 16 bit value stored at the specified offset with the specified endianness. Implementations backed
+     * by a memory region should override this method with a more efficient implementation.
+     *
+     * @since 1.2
+     */
+    public default short getShort(int offset, Endianness endianness) {
+        if (endianness == Endianness.BIG_ENDIAN) {
+            return (short) ((get(offset) & 0xff) << 8 | get(offset + 1) & 0xff);
+        }
+        return (short) (get(offset) & 0xff | (get(offset + 1) & 0xff) << 8);
+    }
+
+    /**
+     * Returns the 32 bit value stored at the specified offset with the specified endianness. Implementations backed
+     * by a memory region should override this method with a more efficient implementation.
+     *
+     * @since 1.2
+     */
+    public default int getInt(int offset, Endianness endianness) {
+        if (endianness == Endianness.BIG_ENDIAN) {
+            return getShort(offset, endianness) << 16 | getShort(offset + 2, endianness) & 0xffff;
+        }
+        return getShort(offset, endianness) & 0xffff | getShort(offset + 2, endianness) << 16;
+    }
+
+    /**
+     * Returns the 64 bit value stored at the specified offset with the specified endianness. Implementations backed
+     * by a memory region should override this method with a more efficient implementation.
+     *
+     * @since 1.2
+     */
+    public default long getLong(int offset, Endianness endianness) {
+        if (endianness == Endianness.BIG_ENDIAN) {
+            return (long) getInt(offset, endianness) << 32 | getInt(offset + 4, endianness) & 0xffffffffL;
+        }
+        return getInt(offset, endianness) & 0xffffffffL | (long) getInt(offset + 4, endianness) << 32;
+    }
+
+    /**
+     * Stores a 16 bit value at the specified offset with the specified endianness. Implementations backed by a
+     * memory region should override this method with a more efficient implementation.
+     *
+     * @since 1.2
+     */
+    public default void putShort(int offset, short value, Endianness endianness) {
+        if (endianness == Endianness.BIG_ENDIAN) {
+            put(offset, (byte) (value >> 8));
+            put(offset + 1, (byte) value);
+        } else {
+            put(offset, (byte) value);
+            put(offset + 1, (byte) (value >> 8));
+        }
+    }
+
+    /**
+     * Stores a 32 bit value at the specified offset with the specified endianness. Implementations backed by a
+     * memory region should override this method with a more efficient implementation.
+     *
+     * @since 1.2
+     */
+    public default void putInt(int offset, int value, Endianness endianness) {
+        if (endianness == Endianness.BIG_ENDIAN) {
+            putShort(offset, (short) (value >> 16), endianness);
+            putShort(offset + 2, (short) value, endianness);
+        } else {
+            putShort(offset, (short) value, endianness);
+            putShort(offset + 2, (short) (value >> 16), endianness);
+        }
+    }
+
+    /**
+     * Stores a 64 bit value at the specified offset with the specified endianness. Implementations backed by a
+     * memory region should override this method with a more efficient implementation.
+     *
+     * @since 1.2
+     */
+    public default void putLong(int offset, long value, Endianness endianness) {
+        if (endianness == Endianness.BIG_ENDIAN) {
+            putInt(offset, (int) (value >> 32), endianness);
+            putInt(offset + 4, (int) value, endianness);
+        } else {
+            putInt(offset, (int) value, endianness);
+            putInt(offset + 4, (int) (value >> 32), endianness);
+        }
+    }
+
     public int getLength();
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -12,11 +12,14 @@
 
 package org.eclipse.kura.driver.binary;
 
-public class ByteArrayBuffer implements Buffer {
+import java.nio.ByteBuffer;
+
+public class ByteArrayBuffer extends ByteBufferBuffer {
 
     private final byte[] data;
 
     public ByteArrayBuffer(byte[] data) {
+        super(ByteBuffer.wrap(data));
         this.data = data;
     }
 
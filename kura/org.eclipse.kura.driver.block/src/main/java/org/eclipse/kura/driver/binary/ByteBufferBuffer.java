@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+
+package org.eclipse.kura.driver.binary;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A {@link Buffer} backed by a heap or direct {@link ByteBuffer}. The offsets accepted by the methods of this class
+ * are relative to the position of the {@link ByteBuffer} at construction time, the size of the buffer is the number
+ * of remaining bytes at construction time.
+ * <p>
+ * Multi byte values are transferred using the absolute getters and setters of {@link ByteBuffer}, without assembling
+ * them one byte at a time.
+ *
+ * @since 1.2
+ */
+public class ByteBufferBuffer implements Buffer {
+
+    private final ByteBuffer bigEndian;
+    private final ByteBuffer littleEndian;
+
+    public ByteBufferBuffer(ByteBuffer buffer) {
+        requireNonNull(buffer, "Buffer cannot be null");
+        this.bigEndian = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+        this.littleEndian = this.bigEndian.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Creates a new {@link ByteBufferBuffer} backed by a new heap {@link ByteBuffer}.
+     *
+     * @param size
+     *            the buffer size
+     * @return the new buffer
+     */
+    public static ByteBufferBuffer allocate(int size) {
+        return new ByteBufferBuffer(ByteBuffer.allocate(size));
+    }
+
+    /**
+     * Creates a new {@link ByteBufferBuffer} backed by a new direct {@link ByteBuffer}.
+     *
+     * @param size
+     *            the buffer size
+     * @return the new buffer
+     */
+    public static ByteBufferBuffer allocateDirect(int size) {
+        return new ByteBufferBuffer(ByteBuffer.allocateDirect(size));
+    }
+
+    private ByteBuffer view(Endianness endianness) {
+        return endianness == Endianness.BIG_ENDIAN ? this.bigEndian : this.littleEndian;
+    }
+
+    @Override
+    public void put(int offset, byte value) {
+        this.bigEndian.put(offset, value);
+    }
+
+    @Override
+    public byte get(int offset) {
+        return this.bigEndian.get(offset);
+    }
+
+    @Override
+    public int getLength() {
+        return this.bigEndian.capacity();
+    }
+
+    @Override
+    public void write(int offset, int length, byte[] data) {
+        if (this.bigEndian.hasArray()) {
+            System.arraycopy(data, 0, this.bigEndian.array(), this.bigEndian.arrayOffset() + offset, length);
+        } else {
+            final ByteBuffer target = this.bigEndian.duplicate();
+            target.position(offset);
+            target.put(data, 0, length);
+        }
+    }
+
+    @Override
+    public void read(int offset, int length, byte[] data) {
+        if (this.bigEndian.hasArray()) {
+            System.arraycopy(this.bigEndian.array(), this.bigEndian.arrayOffset() + offset, data, 0, length);
+        } else {
+            final ByteBuffer source = this.bigEndian.duplicate();
+            source.position(offset);
+            source.get(data, 0, length);
+        }
+    }
+
+    @Override
+    public short getShort(int offset, Endianness endianness) {
+        return view(endianness).getShort(offset);
+    }
+
+    @Override
+    public int getInt(int offset, Endianness endianness) {
+        return view(endianness).getInt(offset);
+    }
+
+    @Override
+    public long getLong(int offset, Endianness endianness) {
+        return view(endianness).getLong(offset);
+    }
+
+    @Override
+    public void putShort(int offset, short value, Endianness endianness) {
+        view(endianness).putShort(offset, value);
+    }
+
+    @Override
+    public void putInt(int offset, int value, Endianness endianness) {
+        view(endianness).putInt(offset, value);
+    }
+
+    @Override
+    public void putLong(int offset, long value, Endianness endianness) {
+        view(endianness).putLong(offset, value);
+    }
+
+    /**
+     * Returns a new {@link ByteBuffer} that shares its content with this buffer, with position 0 and limit equal to
+     * {@link #getLength()}. The returned instance can be used for performing I/O operations directly on the buffer.
+     *
+     * @return a new {@link ByteBuffer} sharing its content with this buffer
+     */
+    public ByteBuffer getByteBuffer() {
+        return this.bigEndian.duplicate();
+    }
+}
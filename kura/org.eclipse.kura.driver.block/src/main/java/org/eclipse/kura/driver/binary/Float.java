@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -12,7 +12,7 @@
 
 package org.eclipse.kura.driver.binary;
 
-class Float extends AbstractBinaryData<java.lang.Float> {
+class Float extends AbstractBinaryData<java.lang.Float> implements NumericBinaryData<java.lang.Float> {
 
     public Float(Endianness endianness) {
         super(endianness, 4);
@@ -20,35 +20,32 @@ class Float extends AbstractBinaryData<java.lang.Float> {
 
     @Override
     public void write(Buffer buf, int offset, java.lang.Float f) {
-        int tmp = java.lang.Float.floatToRawIntBits(f);
-        if (this.endianness == Endianness.BIG_ENDIAN) {
-            buf.put(offset, (byte) (tmp >> 24 & 0xff));
-            buf.put(offset + 1, (byte) (tmp >> 16 & 0xff));
-            buf.put(offset + 2, (byte) (tmp >> 8 & 0xff));
-            buf.put(offset + 3, (byte) (tmp & 0xff));
-        } else {
-            buf.put(offset, (byte) (tmp & 0xff));
-            buf.put(offset + 1, (byte) (tmp >> 8 & 0xff));
-            buf.put(offset + 2, (byte) (tmp >> 16 & 0xff));
-            buf.put(offset + 3, (byte) (tmp >> 24 & 0xff));
-        }
+        buf.putInt(offset, java.lang.Float.floatToRawIntBits(f), this.endianness);
     }
 
     @Override
     public java.lang.Float read(Buffer buf, int offset) {
-        int tmp;
-        if (this.endianness == Endianness.BIG_ENDIAN) {
-            tmp = buf.get(offset + 3) & 0xff;
-            tmp |= (buf.get(offset + 2) & 0xff) << 8;
-            tmp |= (buf.get(offset + 1) & 0xff) << 16;
-            tmp |= (buf.get(offset) & 0xff) << 24;
-        } else {
-            tmp = buf.get(offset) & 0xff;
-            tmp |= (buf.get(offset + 1) & 0xff) << 8;
-            tmp |= (buf.get(offset + 2) & 0xff) << 16;
-            tmp |= (buf.get(offset + 3) & 0xff) << 24;
-        }
-        return java.lang.Float.intBitsToFloat(tmp);
+        return readFloat(buf, offset);
+    }
+
+    @Override
+    public int readInt(Buffer buf, int offset) {
+        return (int) readFloat(buf, offset);
+    }
+
+    @Override
+    public long readLong(Buffer buf, int offset) {
+        return (long) readFloat(buf, offset);
+    }
+
+    @Override
+    public float readFloat(Buffer buf, int offset) {
+        return java.lang.Float.intBitsToFloat(buf.getInt(offset, this.endianness));
+    }
+
+    @Override
+    public double readDouble(Buffer buf, int offset) {
+        return readFloat(buf, offset);
     }
 
     @Override
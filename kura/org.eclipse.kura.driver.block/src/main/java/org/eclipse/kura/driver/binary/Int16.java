@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -12,7 +12,7 @@
 
 package org.eclipse.kura.driver.binary;
 
-class Int16 extends AbstractBinaryData<Integer> {
+class Int16 extends AbstractBinaryData<Integer> implements NumericBinaryData<Integer> {
 
     public Int16(Endianness endianness) {
         super(endianness, 2);
@@ -20,27 +20,32 @@ class Int16 extends AbstractBinaryData<Integer> {
 
     @Override
     public void write(Buffer buf, int offset, Integer value) {
-        final short val = (short) (int) value;
-        if (this.endianness == Endianness.BIG_ENDIAN) {
-            buf.put(offset, (byte) (val >> 8 & 0xff));
-            buf.put(offset + 1, (byte) (val & 0xff));
-        } else {
-            buf.put(offset, (byte) (val & 0xff));
-            buf.put(offset + 1, (byte) (val >> 8 & 0xff));
-        }
+        buf.putShort(offset, (short) (int) value, this.endianness);
     }
 
     @Override
     public Integer read(Buffer buf, int offset) {
-        short result;
-        if (this.endianness == Endianness.BIG_ENDIAN) {
-            result = (short) (buf.get(offset + 1) & 0xff);
-            result |= (buf.get(offset) & 0xff) << 8;
-        } else {
-            result = (short) (buf.get(offset) & 0xff);
-            result |= (buf.get(offset + 1) & 0xff) << 8;
-        }
-        return (int) result;
+        return readInt(buf, offset);
+    }
+
+    @Override
+    public int readInt(Buffer buf, int offset) {
+        return buf.getShort(offset, this.endianness);
+    }
+
+    @Override
+    public long readLong(Buffer buf, int offset) {
+        return readInt(buf, offset);
+    }
+
+    @Override
+    public float readFloat(Buffer buf, int offset) {
+        return readInt(buf, offset);
+    }
+
+    @Override
+    public double readDouble(Buffer buf, int offset) {
+        return readInt(buf, offset);
     }
 
     @Override
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+
+package org.eclipse.kura.driver.binary;
+
+/**
+ * A {@link BinaryData} representing a numeric value that can be read as a primitive, without allocating a boxed
+ * instance of type T.
+ * <p>
+ * The result of each primitive read method must be equal to the result of invoking the corresponding
+ * {@link Number} conversion method on the value returned by {@link BinaryData#read(Buffer, int)}.
+ *
+ * @param <T>
+ *            the type to be used for reading or writing.
+ * @since 1.2
+ */
+public interface NumericBinaryData<T extends Number> extends BinaryData<T> {
+
+    /**
+     * @return the same value as {@code read(buf, offset).intValue()}
+     */
+    public int readInt(Buffer buf, int offset);
+
+    /**
+     * @return the same value as {@code read(buf, offset).longValue()}
+     */
+    public long readLong(Buffer buf, int offset);
+
+    /**
+     * @return the same value as {@code read(buf, offset).floatValue()}
+     */
+    public float readFloat(Buffer buf, int offset);
+
+    /**
+     * @return the same value as {@code read(buf, offset).doubleValue()}
+     */
+    public double readDouble(Buffer buf, int offset);
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -44,6 +44,11 @@ import java.util.stream.StreamSupport;
  * is lesser than {@code minimumGapSize}</li>
  * </ul>
  *
+ * This class also accepts an optional {@code maximumSize} parameter: non overlapping input blocks are not aggregated
+ * if the size of the resulting block would exceed {@code maximumSize}. In this case, the third property listed above
+ * does not hold, the resulting set can contain consecutive blocks. Overlapping input blocks are always aggregated,
+ * the size of the resulting block can exceed {@code maximumSize} only if this is the case.
+ *
  * <p>
  * The input block list must not contain conflicting blocks (two overlapping blocks such as one is prohibited and the
  * other is not). If this requirement is not satisfied the aggregation process will fail (see
@@ -72,6 +77,7 @@ public class BlockAggregator<T extends Block> {
     protected List<Block> blocks;
     private final BlockFactory<T> factory;
     private int minimumGapSize;
+    private int maximumSize = Integer.MAX_VALUE;
 
     /**
      * Creates a new {@link BlockAggregator} instance that operates on the given list of blocks.
@@ -132,6 +138,21 @@ public class BlockAggregator<T extends Block> {
         this.minimumGapSize = minimumGapSize;
     }
 
+    /**
+     * Specifies the {@code maximumSize} parameter. The default for this parameter is {@link Integer#MAX_VALUE}.
+     *
+     * @param maximumSize
+     * @throws IllegalArgumentException
+     *             If the provided argument is not positive
+     * @since 1.1
+     */
+    public void setMaximumSize(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size paramenter must be positive");
+        }
+        this.maximumSize = maximumSize;
+    }
+
     /**
      * Inserts a new {@link Block} into the input blocks list.
      *
@@ -156,6 +177,11 @@ public class BlockAggregator<T extends Block> {
             block.setEnd(Math.max(block.getEnd(), end));
         }
 
+        private boolean exceedsMaximumSize(Block block, Block next) {
+            return !(block instanceof ProhibitedBlock) && next.getStart() >= block.getEnd()
+                    && Math.max(block.getEnd(), next.getEnd()) - block.getStart() > BlockAggregator.this.maximumSize;
+        }
+
         private void getNext() {
             if (!this.source.hasNext()) {
                 return;
@@ -168,6 +194,11 @@ public class BlockAggregator<T extends Block> {
                 final Block next = this.source.next();
                 final boolean isTypeDifferent = this.last instanceof ProhibitedBlock ^ next instanceof ProhibitedBlock;
 
+                if (!isTypeDifferent && exceedsMaximumSize(this.last, next)) {
+                    this.source.previous();
+                    break;
+                }
+
                 if (this.last.getEnd() < next.getStart()) {
                     if (BlockAggregator.this.minimumGapSize > 0
                             && next.getStart() - this.last.getEnd() < BlockAggregator.this.minimumGapSize
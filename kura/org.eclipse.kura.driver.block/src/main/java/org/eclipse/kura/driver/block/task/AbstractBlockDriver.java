@@ -19,6 +19,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -63,6 +64,17 @@ import org.slf4j.LoggerFactory;
  * This class provides a default implementation for the {@link #read(List)}, {@link #write(List)} and
  * {@link #prepareRead(List)} methods of the {@link Driver} interface.
  * </p>
+ * <p>
+ * If {@link #isAdaptiveReadPlanningEnabled(Object)} returns {@code true} for a domain, the duration of the read
+ * requests performed on that domain is measured and used to estimate the fixed cost of a request and the cost of
+ * transferring a single byte using a {@link LinkCostEstimator}. The {@code minimumGapSize} used for aggregating the
+ * read tasks of the domain is then computed as the gap size for which transferring the gap costs as much as
+ * performing an additional request, the value returned by {@link #getReadMinimumGapSizeForDomain(Object)} is used
+ * until an estimate is available. {@link PreparedRead} instances returned by {@link #prepareRead(List)} are
+ * re-planned if the estimated optimal gap size changes significantly. The size of the resulting
+ * {@link ToplevelBlockTask} instances in {@link Mode#READ} is limited to the value returned by
+ * {@link #getReadMaximumBlockSizeForDomain(Object)}.
+ * </p>
  *
  * @param <T>
  *            the type of the domain, can be any type suitable for being used as an {@link java.util.HashMap} key
@@ -71,6 +83,12 @@ public abstract class AbstractBlockDriver<T> implements Driver {
 
     private static final Logger logger = LoggerFactory.getLogger(AbstractBlockDriver.class);
 
+    private static final double REPLAN_THRESHOLD = 0.25;
+    private static final int REPLAN_MINIMUM_GAP_DIFFERENCE = 2;
+
+    private final Map<T, LinkCostEstimator> costEstimators = new ConcurrentHashMap<>();
+    private ReadPlannerStatistics lastPlannerStatistics;
+
     /**
      * This method must provide a {@link BlockFactory} that can be used for creating {@link ToplevelBlockTask} instances
      * responsible of implementing the I/O operations for the specified domain.
@@ -121,6 +139,69 @@ public abstract class AbstractBlockDriver<T> implements Driver {
         return 0;
     }
 
+    /**
+     * Returns the maximum size of the {@link ToplevelBlockTask} instances in {@link Mode#READ} for the specified
+     * domain, for example the maximum amount of data that can be transferred by a single request of the protocol.
+     * Tasks that overlap are always aggregated, therefore the size of the resulting {@link ToplevelBlockTask} can
+     * exceed the returned value only in this case. The default is {@link Integer#MAX_VALUE}.
+     *
+     * @param domain
+     *            the domain
+     * @return the maximum block size for the provided domain
+     * @since 1.1
+     */
+    protected int getReadMaximumBlockSizeForDomain(T domain) {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns whether the minimum gap size used to aggregate tasks in {@link Mode#READ} for the specified domain should
+     * be computed from the observed cost of the read requests. See the class description for more details. The
+     * default is {@code false}.
+     *
+     * @param domain
+     *            the domain
+     * @return {@code true} if adaptive read planning is enabled for the provided domain, {@code false} otherwise
+     * @since 1.1
+     */
+    protected boolean isAdaptiveReadPlanningEnabled(T domain) {
+        return false;
+    }
+
+    /**
+     * Returns the {@link LinkCostEstimator} that collects the duration of the read requests performed on the provided
+     * domain.
+     *
+     * @param domain
+     *            the domain
+     * @return the {@link LinkCostEstimator} instance, or null if adaptive read planning is not enabled for the
+     *         domain
+     * @since 1.1
+     */
+    protected LinkCostEstimator getLinkCostEstimator(T domain) {
+        if (!isAdaptiveReadPlanningEnabled(domain)) {
+            return null;
+        }
+        return this.costEstimators.computeIfAbsent(domain, d -> new LinkCostEstimator());
+    }
+
+    /**
+     * Discards the {@link LinkCostEstimator} instances collected so far, implementors should call this method if the
+     * link conditions change, for example after a reconnection to a different device.
+     *
+     * @since 1.1
+     */
+    protected void resetLinkCostEstimators() {
+        this.costEstimators.clear();
+    }
+
+    private int getEffectiveReadMinimumGapSize(T domain, LinkCostEstimator estimator) {
+        if (estimator != null && estimator.hasEstimate()) {
+            return estimator.getOptimalGapSize(getReadMaximumBlockSizeForDomain(domain));
+        }
+        return getReadMinimumGapSizeForDomain(domain);
+    }
+
     /**
      * This method is called immediately before an aggregation is performed for the specific domain and mode. This
      * method can be overridden by implementors in order to customize the {@link BlockTaskAggregator} provided as
@@ -148,6 +229,9 @@ public abstract class AbstractBlockDriver<T> implements Driver {
      * The {@link BlockFactory} instances used for the aggregation will be obtained using the
      * {@link #getTaskFactoryForDomain(Object, Mode)} method.</li>
      * <li>The {@link ToplevelBlockTask} instances for all domains will be returned in the result list.</li>
+     * <li>If the provided mode is {@link Mode#READ}, the decisions taken for each domain are collected in a
+     * {@link ReadPlannerStatistics} instance that will be attached to the {@link PreparedRead} returned by
+     * {@link #prepareRead(List)}.</li>
      * </ol>
      *
      * @param records
@@ -178,23 +262,55 @@ public abstract class AbstractBlockDriver<T> implements Driver {
             final Map<T, ArrayList<Block>> groupedTasks = toTasks(records, mode).collect(Collectors.groupingBy(
                     classifier, Collectors.mapping(pair -> pair.second, Collectors.toCollection(ArrayList::new))));
 
+            final List<ReadPlannerStatistics.DomainPlan> plans = new ArrayList<>();
+
             groupedTasks.entrySet().forEach(entry -> {
                 final T domain = entry.getKey();
+                final LinkCostEstimator estimator = getLinkCostEstimator(domain);
+                final int minimumGapSize = getEffectiveReadMinimumGapSize(domain, estimator);
+                final int maximumBlockSize = getReadMaximumBlockSizeForDomain(domain);
+                final int taskCount = entry.getValue().size();
+
                 final BlockTaskAggregator aggregator;
                 if (domainsWithUpdateTasks.contains(domain)) {
                     aggregator = new UpdateBlockTaskAggregator(entry.getValue(),
                             getTaskFactoryForDomain(domain, Mode.READ), getTaskFactoryForDomain(domain, Mode.WRITE));
-                    aggregator.setMinimumGapSize(getReadMinimumGapSizeForDomain(domain));
+                    aggregator.setMinimumGapSize(minimumGapSize);
+                    aggregator.setMaximumSize(maximumBlockSize);
                 } else {
                     aggregator = new BlockTaskAggregator(entry.getValue(), getTaskFactoryForDomain(domain, mode));
                     if (mode == Mode.READ) {
-                        aggregator.setMinimumGapSize(getReadMinimumGapSizeForDomain(domain));
+                        aggregator.setMinimumGapSize(minimumGapSize);
+                        aggregator.setMaximumSize(maximumBlockSize);
                     }
                 }
                 beforeAggregation(domain, mode, aggregator);
-                aggregator.stream().forEach(resultTasks::add);
+
+                int blockCount = 0;
+                int totalSize = 0;
+                for (final ToplevelBlockTask task : aggregator.stream().collect(Collectors.toList())) {
+                    if (task.getMode() == Mode.READ) {
+                        task.setCostEstimator(estimator);
+                        blockCount++;
+                        totalSize += task.getEnd() - task.getStart();
+                    }
+                    resultTasks.add(task);
+                }
+
+                if (mode == Mode.READ) {
+                    final boolean isAdaptive = estimator != null && estimator.hasEstimate();
+                    plans.add(new ReadPlannerStatistics.DomainPlan(domain, isAdaptive, minimumGapSize,
+                            maximumBlockSize, taskCount, blockCount, totalSize,
+                            isAdaptive ? estimator.getOverheadNanos() : Double.NaN,
+                            isAdaptive ? estimator.getPerByteNanos() : Double.NaN));
+                }
             });
 
+            if (mode == Mode.READ) {
+                this.lastPlannerStatistics = new ReadPlannerStatistics(plans);
+                logger.debug("Read plan: {}", this.lastPlannerStatistics);
+            }
+
             return resultTasks;
         } catch (Exception e) {
             throw new KuraException(KuraErrorCode.INVALID_PARAMETER, e);
@@ -216,6 +332,19 @@ public abstract class AbstractBlockDriver<T> implements Driver {
         }
     }
 
+    /**
+     * Executes the provided list of {@link BlockTask} instances. The default implementation calls
+     * {@link #runTask(BlockTask)} for each task, in order. Implementors can override this method, for example for
+     * executing independent tasks concurrently.
+     *
+     * @param tasks
+     *            the tasks to be run
+     * @since 1.1
+     */
+    protected void runTasks(List<BlockTask> tasks) {
+        tasks.forEach(this::runTask);
+    }
+
     @Override
     public void registerChannelListener(final Map<String, Object> channelConfig, final ChannelListener listener)
             throws ConnectionException {
@@ -231,7 +360,7 @@ public abstract class AbstractBlockDriver<T> implements Driver {
     public synchronized void read(final List<ChannelRecord> records) throws ConnectionException {
         connect();
         try {
-            optimize(records, Mode.READ).forEach(this::runTask);
+            runTasks(optimize(records, Mode.READ));
         } catch (Exception e) {
             logger.warn("Unexpected exception during read", e);
             for (ChannelRecord record : records) {
@@ -245,7 +374,7 @@ public abstract class AbstractBlockDriver<T> implements Driver {
     public synchronized void write(final List<ChannelRecord> records) throws ConnectionException {
         connect();
         try {
-            optimize(records, Mode.WRITE).forEach(this::runTask);
+            runTasks(optimize(records, Mode.WRITE));
         } catch (Exception e) {
             logger.warn("Unexpected exception during write", e);
             for (ChannelRecord record : records) {
@@ -262,7 +391,12 @@ public abstract class AbstractBlockDriver<T> implements Driver {
     @Override
     public synchronized PreparedRead prepareRead(List<ChannelRecord> records) {
         try {
-            return createPreparedRead(records, optimize(records, Mode.READ));
+            this.lastPlannerStatistics = null;
+            final PreparedRead result = createPreparedRead(records, optimize(records, Mode.READ));
+            if (result instanceof AbstractBlockDriver.BlockPreparedRead) {
+                ((AbstractBlockDriver<?>.BlockPreparedRead) result).plannerStatistics = this.lastPlannerStatistics;
+            }
+            return result;
         } catch (KuraException e) {
             for (ChannelRecord record : records) {
                 record.setChannelStatus(new ChannelStatus(ChannelFlag.FAILURE, e.getMessage(), e));
@@ -275,7 +409,8 @@ public abstract class AbstractBlockDriver<T> implements Driver {
     public class BlockPreparedRead implements PreparedRead {
 
         private final List<ChannelRecord> records;
-        private final List<BlockTask> tasks;
+        private List<BlockTask> tasks;
+        private ReadPlannerStatistics plannerStatistics;
 
         public BlockPreparedRead(List<ChannelRecord> records, List<BlockTask> tasks) {
             this.records = records;
@@ -286,13 +421,61 @@ public abstract class AbstractBlockDriver<T> implements Driver {
         public void close() throws Exception {
         }
 
+        /**
+         * Returns the statistics collected while planning the tasks performed by this {@link PreparedRead}.
+         *
+         * @return the {@link ReadPlannerStatistics} instance, or null if not available
+         * @since 1.1
+         */
+        public ReadPlannerStatistics getPlannerStatistics() {
+            synchronized (AbstractBlockDriver.this) {
+                return this.plannerStatistics;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private boolean isReplanNeeded() {
+            if (this.plannerStatistics == null) {
+                return false;
+            }
+            for (ReadPlannerStatistics.DomainPlan plan : this.plannerStatistics.getDomainPlans()) {
+                final T domain = (T) plan.getDomain();
+                final LinkCostEstimator estimator = AbstractBlockDriver.this.costEstimators.get(domain);
+                if (estimator == null || !estimator.hasEstimate()) {
+                    continue;
+                }
+                final int currentGapSize = plan.getMinimumGapSize();
+                final int optimalGapSize = estimator.getOptimalGapSize(plan.getMaximumBlockSize());
+                final int difference = Math.abs(optimalGapSize - currentGapSize);
+                if (difference >= REPLAN_MINIMUM_GAP_DIFFERENCE
+                        && difference > REPLAN_THRESHOLD * Math.max(currentGapSize, 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void replanIfNeeded() {
+            if (!isReplanNeeded()) {
+                return;
+            }
+            try {
+                final List<BlockTask> newTasks = optimize(this.records, Mode.READ);
+                logger.debug("Read re-planned, previous: {}, current: {}", this.plannerStatistics,
+                        AbstractBlockDriver.this.lastPlannerStatistics);
+                this.tasks = newTasks;
+                this.plannerStatistics = AbstractBlockDriver.this.lastPlannerStatistics;
+            } catch (KuraException e) {
+                logger.warn("Failed to re-plan read, keeping previous plan", e);
+            }
+        }
+
         @Override
         public List<ChannelRecord> execute() throws ConnectionException, KuraException {
             synchronized (AbstractBlockDriver.this) {
                 connect();
-                for (BlockTask task : this.tasks) {
-                    runTask(task);
-                }
+                replanIfNeeded();
+                runTasks(this.tasks);
                 return this.records;
             }
         }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -18,8 +18,13 @@ import java.util.function.Function;
 import org.eclipse.kura.channel.ChannelRecord;
 import org.eclipse.kura.driver.binary.BinaryData;
 import org.eclipse.kura.driver.binary.Buffer;
+import org.eclipse.kura.driver.binary.NumericBinaryData;
 import org.eclipse.kura.driver.binary.TypeUtil;
 import org.eclipse.kura.type.DataType;
+import org.eclipse.kura.type.DoubleValue;
+import org.eclipse.kura.type.FloatValue;
+import org.eclipse.kura.type.IntegerValue;
+import org.eclipse.kura.type.LongValue;
 import org.eclipse.kura.type.TypedValue;
 import org.eclipse.kura.type.TypedValues;
 import org.slf4j.Logger;
@@ -34,15 +39,19 @@ public class BinaryDataTask<T> extends ChannelBlockTask {
     private Function<T, TypedValue<?>> toTypedValue;
     private Function<TypedValue<?>, T> fromTypedValue;
 
+    private TypedValueReader reader;
+
     @SuppressWarnings("unchecked")
     public BinaryDataTask(ChannelRecord record, int offset, BinaryData<T> dataType, Mode mode) {
         this(record, offset, dataType, TypedValues::newTypedValue, typedValue -> (T) typedValue.getValue(), mode);
+        this.reader = createReader(dataType, toDataType(dataType.getValueType()));
     }
 
     public BinaryDataTask(ChannelRecord record, int offset, BinaryData<T> binaryDataType, DataType dataType,
             Mode mode) {
         this(record, offset, binaryDataType, TypeUtil.toTypedValue(binaryDataType.getValueType(), dataType),
                 TypeUtil.fromTypedValue(binaryDataType.getValueType(), dataType), mode);
+        this.reader = createReader(binaryDataType, dataType);
     }
 
     public BinaryDataTask(ChannelRecord record, int offset, BinaryData<T> dataType,
@@ -59,11 +68,17 @@ public class BinaryDataTask<T> extends ChannelBlockTask {
         Buffer buffer = parent.getBuffer();
 
         if (getMode() == Mode.READ) {
-            logger.debug("Read {}: offset: {}", this.dataType.getClass().getSimpleName(), getStart());
+            if (logger.isDebugEnabled()) {
+                logger.debug("Read {}: offset: {}", this.dataType.getClass().getSimpleName(), getStart());
+            }
 
-            final T result = this.dataType.read(buffer, getStart() - parent.getStart());
+            if (this.reader != null) {
+                this.record.setValue(this.reader.read(buffer, getStart() - parent.getStart()));
+            } else {
+                final T result = this.dataType.read(buffer, getStart() - parent.getStart());
 
-            this.record.setValue(this.toTypedValue.apply(result));
+                this.record.setValue(this.toTypedValue.apply(result));
+            }
             onSuccess();
         } else {
             logger.debug("Write {}: offset: {}", this.dataType.getClass().getSimpleName(), getStart());
@@ -74,4 +89,45 @@ public class BinaryDataTask<T> extends ChannelBlockTask {
         }
     }
 
+    private static DataType toDataType(final Class<?> valueType) {
+        if (valueType == Integer.class) {
+            return DataType.INTEGER;
+        } else if (valueType == Long.class) {
+            return DataType.LONG;
+        } else if (valueType == java.lang.Float.class) {
+            return DataType.FLOAT;
+        } else if (valueType == java.lang.Double.class) {
+            return DataType.DOUBLE;
+        }
+        return null;
+    }
+
+    /**
+     * Returns a reader that converts numeric values to the target type without boxing them, or null if the
+     * {@link BinaryData} does not support it.
+     */
+    private static TypedValueReader createReader(final BinaryData<?> binaryData, final DataType targetType) {
+        if (!(binaryData instanceof NumericBinaryData) || targetType == null) {
+            return null;
+        }
+
+        final NumericBinaryData<?> numericData = (NumericBinaryData<?>) binaryData;
+
+        if (targetType == DataType.INTEGER) {
+            return (buffer, offset) -> new IntegerValue(numericData.readInt(buffer, offset));
+        } else if (targetType == DataType.LONG) {
+            return (buffer, offset) -> new LongValue(numericData.readLong(buffer, offset));
+        } else if (targetType == DataType.FLOAT) {
+            return (buffer, offset) -> new FloatValue(numericData.readFloat(buffer, offset));
+        } else if (targetType == DataType.DOUBLE) {
+            return (buffer, offset) -> new DoubleValue(numericData.readDouble(buffer, offset));
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface TypedValueReader {
+
+        TypedValue<?> read(Buffer buffer, int offset);
+    }
 }
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+
+package org.eclipse.kura.driver.block.task;
+
+/**
+ * <p>
+ * Estimates the cost of a read request on a link as {@code overhead + perByteCost * size}, where {@code overhead} is
+ * the fixed cost of a request (for example the round trip time) and {@code perByteCost} is the cost of transferring a
+ * single byte.
+ * </p>
+ * <p>
+ * The two parameters are computed using a least squares fit over the (size, duration) samples provided by the
+ * {@link #addSample(int, long)} method. Older samples are exponentially discounted, so that the estimate follows
+ * changes in the link conditions. An estimate is available only after at least {@link #MINIMUM_SAMPLE_COUNT} samples
+ * with different sizes have been collected, if the collected samples do not allow to compute a meaningful estimate, the
+ * last valid estimate is retained.
+ * </p>
+ * <p>
+ * This class is thread safe.
+ * </p>
+ *
+ * @since 1.1
+ */
+public final class LinkCostEstimator {
+
+    public static final int MINIMUM_SAMPLE_COUNT = 4;
+
+    private static final double DEFAULT_DECAY = 0.95;
+    private static final double GAP_SIZE_TOLERANCE = 1e-6;
+
+    private final double decay;
+
+    private double weight;
+    private double sumSize;
+    private double sumDuration;
+    private double sumSizeSquared;
+    private double sumSizeDuration;
+    private long sampleCount;
+
+    private double overheadNanos = Double.NaN;
+    private double perByteNanos = Double.NaN;
+
+    /**
+     * Creates a new {@link LinkCostEstimator} using the default decay factor.
+     */
+    public LinkCostEstimator() {
+        this(DEFAULT_DECAY);
+    }
+
+    /**
+     * Creates a new {@link LinkCostEstimator}.
+     *
+     * @param decay
+     *            the factor applied to the weight of the existing samples each time a new sample is added, must be in
+     *            the (0, 1] interval
+     * @throws IllegalArgumentException
+     *             if the decay factor is not in the (0, 1] interval
+     */
+    public LinkCostEstimator(double decay) {
+        if (!(decay > 0 && decay <= 1)) {
+            throw new IllegalArgumentException("Decay must be in the (0, 1] interval");
+        }
+        this.decay = decay;
+    }
+
+    /**
+     * Adds a new sample.
+     *
+     * @param size
+     *            the size in bytes of the request
+     * @param durationNanos
+     *            the duration of the request in nanoseconds
+     */
+    public synchronized void addSample(int size, long durationNanos) {
+        if (size <= 0 || durationNanos < 0) {
+            return;
+        }
+
+        this.weight = this.weight * this.decay + 1;
+        this.sumSize = this.sumSize * this.decay + size;
+        this.sumDuration = this.sumDuration * this.decay + durationNanos;
+        this.sumSizeSquared = this.sumSizeSquared * this.decay + (double) size * size;
+        this.sumSizeDuration = this.sumSizeDuration * this.decay + (double) size * durationNanos;
+        this.sampleCount++;
+
+        if (this.sampleCount < MINIMUM_SAMPLE_COUNT) {
+            return;
+        }
+
+        final double meanSize = this.sumSize / this.weight;
+        final double meanDuration = this.sumDuration / this.weight;
+        final double sizeVariance = this.sumSizeSquared / this.weight - meanSize * meanSize;
+
+        if (sizeVariance < 1) {
+            return;
+        }
+
+        final double covariance = this.sumSizeDuration / this.weight - meanSize * meanDuration;
+        final double slope = covariance / sizeVariance;
+        final double intercept = meanDuration - slope * meanSize;
+
+        if (slope <= 0 || intercept < 0) {
+            return;
+        }
+
+        this.perByteNanos = slope;
+        this.overheadNanos = intercept;
+    }
+
+    /**
+     * Returns whether an estimate is available.
+     *
+     * @return {@code true} if an estimate is available, {@code false} otherwise
+     */
+    public synchronized boolean hasEstimate() {
+        return !Double.isNaN(this.perByteNanos);
+    }
+
+    /**
+     * Returns the estimated fixed cost of a request in nanoseconds.
+     *
+     * @return the estimated overhead, or {@link Double#NaN} if no estimate is available
+     */
+    public synchronized double getOverheadNanos() {
+        return this.overheadNanos;
+    }
+
+    /**
+     * Returns the estimated cost of transferring a single byte in nanoseconds.
+     *
+     * @return the estimated per byte cost, or {@link Double#NaN} if no estimate is available
+     */
+    public synchronized double getPerByteNanos() {
+        return this.perByteNanos;
+    }
+
+    /**
+     * Returns the number of samples collected so far.
+     *
+     * @return the sample count
+     */
+    public synchronized long getSampleCount() {
+        return this.sampleCount;
+    }
+
+    /**
+     * Returns the estimated cost of a request with the given size.
+     *
+     * @param size
+     *            the request size in bytes
+     * @return the estimated cost in nanoseconds, or {@link Double#NaN} if no estimate is available
+     */
+    public synchronized double estimateNanos(int size) {
+        return this.overheadNanos + this.perByteNanos * size;
+    }
+
+    /**
+     * Returns the gap size for which reading the gap costs as much as performing an additional request. Two ranges
+     * separated by a gap smaller than the returned value are cheaper to read with a single request.
+     *
+     * @param maximumBlockSize
+     *            the upper bound for the returned value
+     * @return the optimal minimum gap size, or -1 if no estimate is available
+     */
+    public synchronized int getOptimalGapSize(int maximumBlockSize) {
+        if (!hasEstimate()) {
+            return -1;
+        }
+        // the tolerance avoids rounding up values that are integers apart from the error of the fit
+        final double gapSize = Math.ceil(this.overheadNanos / this.perByteNanos - GAP_SIZE_TOLERANCE);
+        return (int) Math.max(0, Math.min(maximumBlockSize, gapSize));
+    }
+}
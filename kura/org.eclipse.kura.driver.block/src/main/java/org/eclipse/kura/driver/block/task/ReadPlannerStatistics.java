@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+
+package org.eclipse.kura.driver.block.task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes the decisions taken by {@link AbstractBlockDriver} while planning the {@link ToplevelBlockTask} layout of
+ * a read operation, one {@link DomainPlan} is provided for each domain.
+ *
+ * @since 1.1
+ */
+public final class ReadPlannerStatistics {
+
+    private final List<DomainPlan> plans;
+
+    ReadPlannerStatistics(List<DomainPlan> plans) {
+        this.plans = Collections.unmodifiableList(new ArrayList<>(plans));
+    }
+
+    /**
+     * Returns the plans computed for each domain.
+     *
+     * @return the list of plans
+     */
+    public List<DomainPlan> getDomainPlans() {
+        return this.plans;
+    }
+
+    /**
+     * Returns the total estimated cost of the read operation.
+     *
+     * @return the estimated cost in nanoseconds, or {@link Double#NaN} if the estimate is not available for some domain
+     */
+    public double getEstimatedCostNanos() {
+        double result = 0;
+        for (DomainPlan plan : this.plans) {
+            result += plan.getEstimatedCostNanos();
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return this.plans.toString();
+    }
+
+    /**
+     * Describes the plan computed for a single domain.
+     */
+    public static final class DomainPlan {
+
+        private final Object domain;
+        private final boolean adaptive;
+        private final int minimumGapSize;
+        private final int maximumBlockSize;
+        private final int taskCount;
+        private final int blockCount;
+        private final int totalSize;
+        private final double overheadNanos;
+        private final double perByteNanos;
+
+        DomainPlan(Object domain, boolean adaptive, int minimumGapSize, int maximumBlockSize, int taskCount,
+                int blockCount, int totalSize, double overheadNanos, double perByteNanos) {
+            this.domain = domain;
+            this.adaptive = adaptive;
+            this.minimumGapSize = minimumGapSize;
+            this.maximumBlockSize = maximumBlockSize;
+            this.taskCount = taskCount;
+            this.blockCount = blockCount;
+            this.totalSize = totalSize;
+            this.overheadNanos = overheadNanos;
+            this.perByteNanos = perByteNanos;
+        }
+
+        public Object getDomain() {
+            return this.domain;
+        }
+
+        /**
+         * Returns whether the minimum gap size has been computed from the observed link cost.
+         *
+         * @return {@code true} if the minimum gap size is adaptive, {@code false} if the static value has been used
+         */
+        public boolean isAdaptive() {
+            return this.adaptive;
+        }
+
+        public int getMinimumGapSize() {
+            return this.minimumGapSize;
+        }
+
+        public int getMaximumBlockSize() {
+            return this.maximumBlockSize;
+        }
+
+        /**
+         * Returns the number of tasks that have been aggregated.
+         *
+         * @return the task count
+         */
+        public int getTaskCount() {
+            return this.taskCount;
+        }
+
+        /**
+         * Returns the number of {@link ToplevelBlockTask} instances, and therefore of requests, in the plan.
+         *
+         * @return the block count
+         */
+        public int getBlockCount() {
+            return this.blockCount;
+        }
+
+        /**
+         * Returns the total number of bytes that will be transferred.
+         *
+         * @return the total size
+         */
+        public int getTotalSize() {
+            return this.totalSize;
+        }
+
+        public double getOverheadNanos() {
+            return this.overheadNanos;
+        }
+
+        public double getPerByteNanos() {
+            return this.perByteNanos;
+        }
+
+        /**
+         * Returns the estimated cost of the plan.
+         *
+         * @return the estimated cost in nanoseconds, or {@link Double#NaN} if no estimate is available
+         */
+        public double getEstimatedCostNanos() {
+            return this.blockCount * this.overheadNanos + this.totalSize * this.perByteNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "DomainPlan [domain=" + this.domain + ", adaptive=" + this.adaptive + ", minimumGapSize="
+                    + this.minimumGapSize + ", maximumBlockSize=" + this.maximumBlockSize + ", taskCount="
+                    + this.taskCount + ", blockCount=" + this.blockCount + ", totalSize=" + this.totalSize
+                    + ", overheadNanos=" + this.overheadNanos + ", perByteNanos=" + this.perByteNanos + "]";
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -71,6 +71,7 @@ public abstract class ToplevelBlockTask extends BlockTask {
 
     private final ArrayList<BlockTask> children = new ArrayList<>();
     private boolean isAborted;
+    private LinkCostEstimator costEstimator;
 
     public ToplevelBlockTask(int start, int end, Mode mode) {
         super(start, end, mode);
@@ -93,6 +94,17 @@ public abstract class ToplevelBlockTask extends BlockTask {
      */
     public abstract void processBuffer() throws IOException;
 
+    /**
+     * Sets the {@link LinkCostEstimator} that will be updated with the duration of the
+     * {@link ToplevelBlockTask#processBuffer()} calls performed in {@link Mode#READ} mode.
+     *
+     * @param costEstimator
+     *            the estimator, can be null
+     */
+    void setCostEstimator(LinkCostEstimator costEstimator) {
+        this.costEstimator = costEstimator;
+    }
+
     /**
      * Clears the list of children of this {@link ToplevelBlockTask}
      */
@@ -162,7 +174,14 @@ public abstract class ToplevelBlockTask extends BlockTask {
     public void run() throws IOException {
         try {
             if (getMode() == Mode.READ) {
-                processBuffer();
+                final LinkCostEstimator estimator = this.costEstimator;
+                if (estimator != null) {
+                    final long start = System.nanoTime();
+                    processBuffer();
+                    estimator.addSample(getEnd() - getStart(), System.nanoTime() - start);
+                } else {
+                    processBuffer();
+                }
                 runChildren();
             } else {
                 runChildren();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -105,6 +105,18 @@ public class UpdateBlockTaskAggregator extends BlockTaskAggregator {
         this.readTaskAggregator.setMinimumGapSize(minimumGapSize);
     }
 
+    /**
+     * Sets the {@code maximumSize} that will be used for aggregating the {@link ToplevelBlockTask} tasks
+     * in {@link Mode#READ} mode, the size of the {@link ToplevelBlockTask} instances in {@link Mode#WRITE} is not
+     * limited.
+     *
+     * @since 1.1
+     */
+    @Override
+    public void setMaximumSize(int maximumSize) {
+        this.readTaskAggregator.setMaximumSize(maximumSize);
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -14,6 +14,7 @@ import static org.eclipse.kura.internal.driver.opcua.Utils.fillRecord;
 import static org.eclipse.kura.internal.driver.opcua.Utils.fillStatus;
 import static org.eclipse.kura.internal.driver.opcua.Utils.runSafe;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -28,6 +29,7 @@ import org.eclipse.kura.internal.driver.opcua.auth.CertificateManager;
 import org.eclipse.kura.internal.driver.opcua.request.ReadParams;
 import org.eclipse.kura.internal.driver.opcua.request.Request;
 import org.eclipse.kura.internal.driver.opcua.request.WriteParams;
+import org.eclipse.kura.util.statistics.LatencyHistogram;
 import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
 import org.eclipse.milo.opcua.sdk.client.api.UaClient;
 import org.eclipse.milo.opcua.sdk.client.api.config.OpcUaClientConfig;
@@ -60,6 +62,8 @@ public class ConnectionManager {
     private final SubtreeSubscriptionManager subtreeSubscriptionManager;
     private final OpcUaOptions options;
 
+    private final LatencyHistogram readStatistics = new LatencyHistogram();
+
     public ConnectionManager(final OpcUaClient client, final OpcUaOptions options,
             final BiConsumer<ConnectionManager, Throwable> failureHandler,
             final ListenerRegistrationRegistry registrations,
@@ -105,13 +109,29 @@ public class ConnectionManager {
     public void read(final List<Request<ReadParams>> requests) throws Exception {
 
         final int maxItemsPerRequest = this.options.getMaxItemCountPerRequest();
-        final ArrayList<ReadValueId> tempList = new ArrayList<>(maxItemsPerRequest);
+        final int pipelineDepth = this.options.getReadPipelineDepth();
+        final long start = System.nanoTime();
 
-        for (int i = 0; i < requests.size(); i += maxItemsPerRequest) {
-            this.read(requests.subList(i, Math.min(i + maxItemsPerRequest, requests.size())), tempList);
+        if (pipelineDepth > 1 && requests.size() > maxItemsPerRequest) {
+            this.readPipelined(requests, maxItemsPerRequest, pipelineDepth);
+        } else {
+            final ArrayList<ReadValueId> tempList = new ArrayList<>(maxItemsPerRequest);
+
+            for (int i = 0; i < requests.size(); i += maxItemsPerRequest) {
+                this.read(requests.subList(i, Math.min(i + maxItemsPerRequest, requests.size())), tempList);
+            }
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Read of {} items completed in {} ms, chunk statistics: {}", requests.size(),
+                    (System.nanoTime() - start) / 1000000, this.readStatistics);
         }
     }
 
+    public LatencyHistogram getReadStatistics() {
+        return this.readStatistics;
+    }
+
     public void write(final List<Request<WriteParams>> requests) throws Exception {
 
         final int maxItemsPerRequest = this.options.getMaxItemCountPerRequest();
@@ -129,15 +149,63 @@ public class ConnectionManager {
             tempList.add(request.getParameters().getReadValueId());
         }
 
+        final long start = System.nanoTime();
         final ReadResponse response = runSafe(this.client.read(0.0, TimestampsToReturn.Both, tempList),
                 this.options.getRequestTimeout(), ex -> this.failureHandler.accept(this, ex));
+        this.readStatistics.record(System.nanoTime() - start);
+
+        fillRecords(requests, response);
+
+        logger.debug("Read Successful");
+    }
+
+    /**
+     * Reads the provided requests in chunks of at most {@code maxItemsPerRequest} items, keeping up to
+     * {@code pipelineDepth} read requests in flight at the same time. The responses are processed in the same order in
+     * which the requests have been sent.
+     */
+    private void readPipelined(final List<Request<ReadParams>> requests, final int maxItemsPerRequest,
+            final int pipelineDepth) throws Exception {
+
+        final ArrayDeque<PendingRead> inFlight = new ArrayDeque<>(pipelineDepth);
+
+        for (int i = 0; i < requests.size(); i += maxItemsPerRequest) {
+            if (inFlight.size() >= pipelineDepth) {
+                completeRead(inFlight.poll());
+            }
+
+            final List<Request<ReadParams>> chunk = requests.subList(i,
+                    Math.min(i + maxItemsPerRequest, requests.size()));
+            final List<ReadValueId> readValueIds = new ArrayList<>(chunk.size());
+
+            for (final Request<ReadParams> request : chunk) {
+                readValueIds.add(request.getParameters().getReadValueId());
+            }
+
+            inFlight.add(new PendingRead(chunk, System.nanoTime(),
+                    this.client.read(0.0, TimestampsToReturn.Both, readValueIds)));
+        }
+
+        while (!inFlight.isEmpty()) {
+            completeRead(inFlight.poll());
+        }
+    }
 
+    private void completeRead(final PendingRead pendingRead) throws Exception {
+        final ReadResponse response = runSafe(pendingRead.response, this.options.getRequestTimeout(),
+                ex -> this.failureHandler.accept(this, ex));
+        this.readStatistics.record(System.nanoTime() - pendingRead.sendTime);
+
+        fillRecords(pendingRead.requests, response);
+
+        logger.debug("Read Successful");
+    }
+
+    private static void fillRecords(final List<Request<ReadParams>> requests, final ReadResponse response) {
         final DataValue[] results = response.getResults();
         for (int i = 0; i < requests.size(); i++) {
             fillRecord(results[i], requests.get(i).getRecord());
         }
-
-        logger.debug("Read Successful");
     }
 
     private void write(final List<Request<WriteParams>> requests, final List<WriteValue> tempList) throws Exception {
@@ -164,6 +232,10 @@ public class ConnectionManager {
 
         logger.info("Disconnecting from OPC-UA...");
 
+        if (this.readStatistics.getCount() > 0) {
+            logger.info("Read chunk statistics: {}", this.readStatistics);
+        }
+
         this.queue.close(
                 () -> CompletableFuture.allOf(this.subscriptionManager.close(), this.subtreeSubscriptionManager.close()) //
                         .whenComplete((ok, ex) -> this.client.disconnect() //
@@ -253,6 +325,20 @@ public class ConnectionManager {
                 original.getTransportProfileUri(), original.getSecurityLevel());
     }
 
+    private static final class PendingRead {
+
+        private final List<Request<ReadParams>> requests;
+        private final long sendTime;
+        private final CompletableFuture<ReadResponse> response;
+
+        PendingRead(final List<Request<ReadParams>> requests, final long sendTime,
+                final CompletableFuture<ReadResponse> response) {
+            this.requests = requests;
+            this.sendTime = sendTime;
+            this.response = response;
+        }
+    }
+
     private static final class ConnectionAttempt {
 
         private final Iterator<EndpointDescription> endpoints;
@@ -57,6 +57,8 @@ import org.slf4j.LoggerFactory;
  * <li>password</li>
  * <li>request.timeout</li>
  * <li>session.timeout</li>
+ * <li>max.request.items</li>
+ * <li>read.pipeline.depth</li>
  * </ul>
  */
 final class OpcUaOptions {
@@ -139,6 +141,8 @@ final class OpcUaOptions {
 
     private static final String MAX_REQUEST_ITEMS = "max.request.items";
 
+    private static final String READ_PIPELINE_DEPTH = "read.pipeline.depth";
+
     private static final String FORCE_ENDPOINT_URL = "force.endpoint.url";
 
     private static final String SUBTREE_SUBSCRIPTION_CHANNEL_NAME_FORMAT = "subtree.subscription.name.format";
@@ -430,6 +434,20 @@ final class OpcUaOptions {
         return 10;
     }
 
+    /**
+     * Returns the maximum number of read requests that can be in flight at the same time when a read operation is
+     * split in multiple requests
+     *
+     * @return the read pipeline depth
+     */
+    int getReadPipelineDepth() {
+        final Object readPipelineDepth = this.properties.get(READ_PIPELINE_DEPTH);
+        if (readPipelineDepth instanceof Integer) {
+            return Math.max(1, (Integer) readPipelineDepth);
+        }
+        return 1;
+    }
+
     boolean shouldForceEndpointUrl() {
         final Object raw = this.properties.get(FORCE_ENDPOINT_URL);
         if (raw instanceof Boolean) {
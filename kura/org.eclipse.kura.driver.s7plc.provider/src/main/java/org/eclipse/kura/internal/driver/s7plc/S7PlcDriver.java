@@ -13,9 +13,18 @@
 package org.eclipse.kura.internal.driver.s7plc;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 
@@ -49,7 +58,13 @@ import Moka7.S7Client;
  *
  * The required properties are enlisted in {@link S7PlcChannelDescriptor} and
  * the driver connection specific properties are enlisted in
- * {@link S7PlcOptions}
+ * {@link S7PlcOptions}<br/>
+ * <br/>
+ *
+ * If the connection pool size is greater than 1, the driver opens additional
+ * connections to the PLC and the independent read requests of a read
+ * operation are distributed across them and executed concurrently. Write
+ * operations are always performed on the primary connection.
  *
  * @see S7PlcChannelDescriptor
  * @see S7PlcOptions
@@ -58,9 +73,17 @@ public class S7PlcDriver extends AbstractBlockDriver<S7PlcDomain> implements Con
 
     private static final Logger logger = LoggerFactory.getLogger(S7PlcDriver.class);
 
+    // header size of a read response PDU, the remaining space is available for data
+    private static final int READ_PDU_HEADER_SIZE = 18;
+
     private S7ClientState state = new S7ClientState(new S7PlcOptions(Collections.emptyMap()));
     private final AtomicReference<S7PlcOptions> options = new AtomicReference<>();
 
+    // additional connections, used only by the runTasks() method
+    private List<S7ClientState> connectionPool = Collections.emptyList();
+    private ExecutorService poolExecutor;
+    private final ThreadLocal<S7ClientState> pooledState = new ThreadLocal<>();
+
     private CryptoService cryptoService;
 
     public void setCryptoService(CryptoService cryptoService) {
@@ -84,6 +107,7 @@ public class S7PlcDriver extends AbstractBlockDriver<S7PlcDomain> implements Con
         } catch (final ConnectionException e) {
             logger.error("Error while disconnecting...", e);
         }
+        shutdownPoolExecutor();
         logger.debug("Deactivating S7 PLC Driver.....Done");
     }
 
@@ -119,42 +143,96 @@ public class S7PlcDriver extends AbstractBlockDriver<S7PlcDomain> implements Con
             if (this.state.options != currentOptions) {
                 logger.info("configuration changed, disconnecting...");
                 disconnect();
+                shutdownPoolExecutor();
                 this.state = createClientState(currentOptions);
+                this.connectionPool = createConnectionPool(currentOptions);
+                resetLinkCostEstimators();
                 logger.info("configuration changed, disconnecting...Done");
             }
 
             if (!this.state.client.Connected) {
-                logger.debug("Connecting to S7 PLC...");
-                this.state.client.SetConnectionType(S7.OP);
-                int code = this.state.client.ConnectTo(currentOptions.getIp(), currentOptions.getRack(),
-                        currentOptions.getSlot());
-                if (code != 0) {
-                    throw new ConnectionException("Failed to connect to PLC, ConnectTo() failed with code: " + code);
-                }
-                if (currentOptions.shouldAuthenticate()) {
-                    authenticate(this.state);
-                }
-                logger.debug("Connecting to S7 PLC... Done");
+                connect(this.state);
             }
         } catch (Exception e) {
             throw new ConnectionException("Connection failed, unexpected exception", e);
         }
     }
 
+    private void connect(final S7ClientState state) throws ConnectionException {
+        logger.debug("Connecting to S7 PLC...");
+        state.client.SetConnectionType(S7.OP);
+        int code = state.client.ConnectTo(state.options.getIp(), state.options.getRack(), state.options.getSlot());
+        if (code != 0) {
+            throw new ConnectionException("Failed to connect to PLC, ConnectTo() failed with code: " + code);
+        }
+        if (state.options.shouldAuthenticate()) {
+            authenticate(state);
+        }
+        logger.debug("Connecting to S7 PLC... Done");
+    }
+
     @Override
     public synchronized void disconnect() throws ConnectionException {
-        if (this.state.client.Connected) {
+        disconnect(this.state);
+        for (final S7ClientState pooled : this.connectionPool) {
+            disconnect(pooled);
+        }
+    }
+
+    private static void disconnect(final S7ClientState state) {
+        if (state.client.Connected) {
             logger.debug("Disconnecting from S7 PLC...");
-            this.state.client.Disconnect();
+            state.client.Disconnect();
             logger.debug("Disconnecting from S7 PLC... Done");
         }
     }
 
+    private List<S7ClientState> createConnectionPool(final S7PlcOptions options) {
+        final List<S7ClientState> result = new ArrayList<>();
+        for (int i = 1; i < options.getConnectionPoolSize(); i++) {
+            result.add(createClientState(options));
+        }
+        return result;
+    }
+
+    private ExecutorService getPoolExecutor() {
+        if (this.poolExecutor == null) {
+            final AtomicInteger threadCount = new AtomicInteger();
+            this.poolExecutor = Executors.newFixedThreadPool(this.connectionPool.size(), r -> {
+                final Thread thread = new Thread(r, "S7PlcDriver-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return this.poolExecutor;
+    }
+
+    private synchronized void shutdownPoolExecutor() {
+        if (this.poolExecutor != null) {
+            this.poolExecutor.shutdown();
+            this.poolExecutor = null;
+        }
+    }
+
     @Override
     protected int getReadMinimumGapSizeForDomain(S7PlcDomain domain) {
         return this.options.get().getMinimumGapSize();
     }
 
+    @Override
+    protected int getReadMaximumBlockSizeForDomain(S7PlcDomain domain) {
+        final S7Client client = this.state.client;
+        if (!client.Connected || client.PDULength() <= READ_PDU_HEADER_SIZE) {
+            return Integer.MAX_VALUE;
+        }
+        return client.PDULength() - READ_PDU_HEADER_SIZE;
+    }
+
+    @Override
+    protected boolean isAdaptiveReadPlanningEnabled(S7PlcDomain domain) {
+        return this.options.get().isAdaptivePlanningEnabled();
+    }
+
     @Override
     protected BlockFactory<ToplevelBlockTask> getTaskFactoryForDomain(final S7PlcDomain domain, final Mode mode) {
         return (start, end) -> new S7PlcToplevelBlockTask(S7PlcDriver.this, mode, domain.getDB(), start, end);
@@ -174,6 +252,82 @@ public class S7PlcDriver extends AbstractBlockDriver<S7PlcDomain> implements Con
         return new S7ClientState(options);
     }
 
+    /**
+     * Distributes the provided tasks across the primary connection and the additional connections of the pool, if the
+     * pool is enabled and all tasks are independent read operations. The calling thread performs the tasks on the
+     * primary connection, each additional connection is used by a separate thread. The tasks are taken from a shared
+     * queue, so that a connection that completes its requests earlier picks up the remaining ones.
+     */
+    @Override
+    protected void runTasks(List<BlockTask> tasks) {
+        if (this.connectionPool.isEmpty() || tasks.size() < 2 || !areReadTasks(tasks)) {
+            super.runTasks(tasks);
+            return;
+        }
+
+        final Queue<BlockTask> queue = new ConcurrentLinkedQueue<>(tasks);
+        final List<Future<?>> futures = new ArrayList<>();
+
+        for (final S7ClientState pooled : this.connectionPool) {
+            if (!ensureConnected(pooled)) {
+                continue;
+            }
+            try {
+                futures.add(getPoolExecutor().submit(() -> runQueuedTasks(pooled, queue)));
+            } catch (RejectedExecutionException e) {
+                logger.warn("Connection pool executor is shut down", e);
+                break;
+            }
+        }
+
+        runQueuedTasks(null, queue);
+
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                logger.warn("Unexpected exception", e.getCause());
+            }
+        }
+    }
+
+    private static boolean areReadTasks(final List<BlockTask> tasks) {
+        for (final BlockTask task : tasks) {
+            if (!(task instanceof ToplevelBlockTask) || task.getMode() != Mode.READ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean ensureConnected(final S7ClientState pooled) {
+        if (pooled.client.Connected) {
+            return true;
+        }
+        try {
+            connect(pooled);
+            return true;
+        } catch (ConnectionException e) {
+            logger.warn("Failed to open pooled connection, continuing with the available connections", e);
+            return false;
+        }
+    }
+
+    private void runQueuedTasks(final S7ClientState pooled, final Queue<BlockTask> queue) {
+        this.pooledState.set(pooled);
+        try {
+            BlockTask task;
+            while ((task = queue.poll()) != null) {
+                runTask(task);
+            }
+        } finally {
+            this.pooledState.remove();
+        }
+    }
+
     @Override
     protected void runTask(BlockTask task) {
         try {
@@ -189,10 +343,13 @@ public class S7PlcDriver extends AbstractBlockDriver<S7PlcDomain> implements Con
         logger.warn("Operation failed due to IO error", e);
         if (e.getStatusCode() <= S7Client.errTCPConnectionReset) {
             logger.warn("Connection problems detected, disconnecting, will attempt to reconnect at next read/write");
-            try {
-                disconnect();
-            } catch (ConnectionException e1) {
-                logger.warn("Unable to Disconnect...", e1);
+            final S7ClientState pooled = this.pooledState.get();
+            if (pooled != null) {
+                disconnect(pooled);
+            } else {
+                synchronized (this) {
+                    disconnect(this.state);
+                }
             }
         }
     }
@@ -205,8 +362,20 @@ public class S7PlcDriver extends AbstractBlockDriver<S7PlcDomain> implements Con
         }
     }
 
-    public synchronized void read(int db, int offset, byte[] data) throws IOException {
-        int result = this.state.client.ReadArea(S7.S7AreaDB, db, offset, data.length, data);
+    public void read(int db, int offset, byte[] data) throws IOException {
+        final S7ClientState pooled = this.pooledState.get();
+        if (pooled != null) {
+            // a pooled connection is used by a single thread at a time
+            read(pooled.client, db, offset, data);
+        } else {
+            synchronized (this) {
+                read(this.state.client, db, offset, data);
+            }
+        }
+    }
+
+    private static void read(S7Client client, int db, int offset, byte[] data) throws IOException {
+        int result = client.ReadArea(S7.S7AreaDB, db, offset, data.length, data);
         if (result != 0) {
             throw new Moka7Exception("DB: " + db + " off: " + offset + " len: " + data.length + " status: " + result,
                     result);
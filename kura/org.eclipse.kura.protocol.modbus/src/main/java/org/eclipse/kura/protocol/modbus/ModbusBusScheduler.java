@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.protocol.modbus;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Grants exclusive access to a half duplex bus to the threads performing transactions.
+ * <p>
+ * Waiting threads are grouped by the unit identifier they are addressing, and the bus is granted to the units in round
+ * robin order. This prevents a caller that continuously polls a unit from starving the callers addressing the other
+ * units on the same bus. Threads addressing the same unit are served in FIFO order.
+ */
+final class ModbusBusScheduler {
+
+    private final Map<Integer, Deque<Thread>> waiters = new HashMap<>();
+    private final Deque<Integer> rotation = new ArrayDeque<>();
+
+    private Thread owner;
+
+    /**
+     * Waits until the bus is granted to the calling thread.
+     *
+     * @param unitId
+     *            the unit identifier that will be addressed
+     * @throws InterruptedException
+     *             if the thread is interrupted while waiting
+     */
+    synchronized void acquire(int unitId) throws InterruptedException {
+        final Thread current = Thread.currentThread();
+        if (this.owner == null) {
+            this.owner = current;
+            return;
+        }
+
+        final Deque<Thread> queue = this.waiters.computeIfAbsent(unitId, id -> new ArrayDeque<>());
+        if (queue.isEmpty()) {
+            this.rotation.addLast(unitId);
+        }
+        queue.addLast(current);
+
+        try {
+            while (this.owner != current) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            if (this.owner == current) {
+                release();
+            } else {
+                queue.remove(current);
+                if (queue.isEmpty()) {
+                    this.waiters.remove(unitId);
+                    this.rotation.remove(unitId);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Releases the bus, granting it to the first waiting thread of the next unit.
+     */
+    synchronized void release() {
+        final Integer next = this.rotation.pollFirst();
+        if (next == null) {
+            this.owner = null;
+            return;
+        }
+
+        final Deque<Thread> queue = this.waiters.get(next);
+        this.owner = queue.pollFirst();
+        if (queue.isEmpty()) {
+            this.waiters.remove(next);
+        } else {
+            this.rotation.addLast(next);
+        }
+        notifyAll();
+    }
+
+    synchronized int getWaitingCount() {
+        int result = 0;
+        for (Deque<Thread> queue : this.waiters.values()) {
+            result += queue.size();
+        }
+        return result;
+    }
+}
@@ -19,8 +19,10 @@ import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.kura.KuraConnectionStatus;
 import org.eclipse.kura.comm.CommConnection;
@@ -58,7 +60,7 @@ public class ModbusProtocolDevice implements ModbusProtocolDeviceService {
     private String connType = null;
     private Communicate comm;
     private Properties modbusProperties = null;
-    private static int transactionIndex = 0;
+    private static final AtomicInteger transactionIndex = new AtomicInteger();
 
     public void setConnectionFactory(ConnectionFactory connectionFactory) {
         this.connectionFactory = connectionFactory;
@@ -188,6 +190,12 @@ public class ModbusProtocolDevice implements ModbusProtocolDeviceService {
      * <td>port</td>
      * <td>port on the field device to connect to</td>
      * </tr>
+     * <tr>
+     * <td>maxInFlight</td>
+     * <td>optional, only for "TCP/IP". The maximum number of transactions that can be outstanding at the same time,
+     * defaults to 1. If greater than 1 the requests issued by concurrent callers are pipelined on the connection and
+     * the responses are matched using the MBAP transaction identifier.</td>
+     * </tr>
      * </table>
      */
     @Override
@@ -223,11 +231,14 @@ public class ModbusProtocolDevice implements ModbusProtocolDeviceService {
             this.connConfigd = false;
         }
 
+        int maxInFlight = getMaxInFlight(connectionConfig);
         if (PROTOCOL_CONNECTION_TYPE_SERIAL.equals(this.connType)) {
             if (!serialPortExists()) {
                 throw new ModbusProtocolException(ModbusProtocolErrorCode.NOT_AVAILABLE);
             }
             this.comm = new SerialCommunicate(this.connectionFactory, connectionConfig);
+        } else if (PROTOCOL_CONNECTION_TYPE_ETHER_TCP.equals(this.connType) && maxInFlight > 1) {
+            this.comm = new PipelinedEthernetCommunicate(connectionConfig, maxInFlight);
         } else if (PROTOCOL_CONNECTION_TYPE_ETHER_TCP.equals(this.connType)
                 || PROTOCOL_CONNECTION_TYPE_ETHER_RTU.equals(this.connType)) {
             this.comm = new EthernetCommunicate(this.connectionFactory, connectionConfig);
@@ -238,6 +249,22 @@ public class ModbusProtocolDevice implements ModbusProtocolDeviceService {
         this.connConfigd = true;
     }
 
+    private static int getMaxInFlight(Properties connectionConfig) throws ModbusProtocolException {
+        String sMaxInFlight = connectionConfig.getProperty("maxInFlight");
+        if (sMaxInFlight == null) {
+            return 1;
+        }
+        try {
+            int maxInFlight = Integer.parseInt(sMaxInFlight.trim());
+            if (maxInFlight >= 1) {
+                return maxInFlight;
+            }
+        } catch (NumberFormatException e) {
+            // handled below
+        }
+        throw new ModbusProtocolException(ModbusProtocolErrorCode.INVALID_CONFIGURATION);
+    }
+
     /**
      * get the name "modbus" for this protocol
      *
@@ -329,6 +356,8 @@ public class ModbusProtocolDevice implements ModbusProtocolDeviceService {
         InputStream in;
         OutputStream out;
         CommConnection conn = null;
+        private final ModbusSerialFramer framer;
+        private final ModbusBusScheduler scheduler = new ModbusBusScheduler();
 
         public SerialCommunicate(ConnectionFactory connFactory, Properties connectionConfig)
                 throws ModbusProtocolException {
@@ -354,7 +383,8 @@ public class ModbusProtocolDevice implements ModbusProtocolDeviceService {
             int bits = Integer.valueOf(sBits).intValue();
 
             String uri = new CommURI.Builder(sPort).withBaudRate(baud).withDataBits(bits).withStopBits(stop)
-                    .withParity(parity).withTimeout(2000).build().toString();
+                    .withParity(parity).withTimeout(2000).withReceiveTimeout(ModbusProtocolDevice.this.respTout).build()
+                    .toString();
 
             try {
                 this.conn = (CommConnection) connFactory.createConnection(uri, 1, false);
@@ -369,6 +399,8 @@ public class ModbusProtocolDevice implements ModbusProtocolDeviceService {
             } catch (Exception e) {
                 throw new ModbusProtocolException(ModbusProtocolErrorCode.CONNECTION_FAILURE, e);
             }
+            this.framer = new ModbusSerialFramer(this.in, this.out, ModbusProtocolDevice.this.txMode, baud,
+                    ModbusProtocolDevice.this.respTout);
             logger.info("Serial connection connected");
         }
 
@@ -397,241 +429,23 @@ public class ModbusProtocolDevice implements ModbusProtocolDeviceService {
             return KuraConnectionStatus.CONNECTED;
         }
 
-        private byte asciiLrcCalc(byte[] msg, int len) {
-            char[] ac = new char[2];
-            ac[0] = (char) msg[len - 4];
-            ac[1] = (char) msg[len - 3];
-            String s = new String(ac);
-            byte lrc = (byte) Integer.parseInt(s, 16);
-            return lrc;
-        }
-
-        private int binLrcCalc(byte[] msg) {
-            int llrc = 0;
-            for (byte element : msg) {
-                llrc += element & 0xff;
-            }
-            llrc = (llrc ^ 0xff) + 1;
-            // byte lrc=(byte)(llrc & 0x0ff);
-            return llrc;
-        }
-
         /**
-         * convertCommandToAscii: convert a binary command into a standard Modbus
-         * ASCII frame
-         */
-        private byte[] convertCommandToAscii(byte[] msg) {
-            int lrc = binLrcCalc(msg);
-
-            char[] hexArray = "0123456789ABCDEF".toCharArray();
-            byte[] ab = new byte[msg.length * 2 + 5];
-            ab[0] = ':';
-            int v;
-            for (int i = 0; i < msg.length; i++) {
-                v = msg[i] & 0xff;
-                ab[i * 2 + 1] = (byte) hexArray[v >>> 4];
-                ab[i * 2 + 2] = (byte) hexArray[v & 0x0f];
-            }
-            v = lrc & 0x0ff;
-            ab[ab.length - 4] = (byte) hexArray[v >>> 4];
-            ab[ab.length - 3] = (byte) hexArray[v & 0x0f];
-            ab[ab.length - 2] = 13;
-            ab[ab.length - 1] = 10;
-            return ab;
-        }
-
-        /**
-         * convertAsciiResponseToBin: convert a standard Modbus frame to
-         * byte array
-         */
-        private byte[] convertAsciiResponseToBin(byte[] msg, int len) {
-            int l = (len - 5) / 2;
-            byte[] ab = new byte[l];
-            char[] ac = new char[2];
-            // String s=new String(msg);
-            for (int i = 0; i < l; i++) {
-                ac[0] = (char) msg[i * 2 + 1];
-                ac[1] = (char) msg[i * 2 + 2];
-                // String s=new String(ac);
-                ab[i] = (byte) Integer.parseInt(new String(ac), 16);
-            }
-            return ab;
-        }
-
-        /**
-         * msgTransaction must be called with a byte array having two extra
-         * bytes for the CRC. It will return a byte array of the response to the
-         * message. Validation will include checking the CRC and verifying the
-         * command matches.
+         * msgTransaction must be called with a byte array without the CRC. It will return a byte array of the response
+         * to the message. Validation will include checking the CRC and verifying the address.
          */
         @Override
         public byte[] msgTransaction(byte[] msg) throws ModbusProtocolException {
-
-            byte[] cmd = null;
-
-            if (ModbusProtocolDevice.this.txMode == ModbusTransmissionMode.RTU_MODE) {
-                cmd = new byte[msg.length + 2];
-                for (int i = 0; i < msg.length; i++) {
-                    cmd[i] = msg[i];
-                }
-                // Add crc calculation to end of message
-                int crc = Crc16.getCrc16(msg, msg.length, 0x0ffff);
-                cmd[msg.length] = (byte) crc;
-                cmd[msg.length + 1] = (byte) (crc >> 8);
-            } else if (ModbusProtocolDevice.this.txMode == ModbusTransmissionMode.ASCII_MODE) {
-                cmd = convertCommandToAscii(msg);
+            try {
+                this.scheduler.acquire(msg[0] & 0xff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE, "Thread interrupted");
             }
-
-            // Send the message
             try {
-                synchronized (this.out) {
-                    synchronized (this.in) {
-                        // flush input
-                        while (this.in.available() > 0) {
-                            this.in.read();
-                        }
-                        // send all data
-                        this.out.write(cmd, 0, cmd.length);
-                        this.out.flush();
-                        // outputStream.waitAllSent(respTout);
-
-                        // wait for and process response
-                        byte[] response = new byte[262]; // response buffer
-                        int respIndex = 0;
-                        int minimumLength = 5; // default minimum message length
-                        if (ModbusProtocolDevice.this.txMode == ModbusTransmissionMode.ASCII_MODE) {
-                            minimumLength = 11;
-                        }
-                        int timeOut = ModbusProtocolDevice.this.respTout;
-                        for (int maxLoop = 0; maxLoop < 1000; maxLoop++) {
-                            boolean endFrame = false;
-                            // while (respIndex < minimumLength) {
-                            while (!endFrame) {
-                                long start = System.currentTimeMillis();
-                                while (this.in.available() == 0) {
-                                    try {
-                                        Thread.sleep(5);	// avoid a high cpu load
-                                    } catch (InterruptedException e) {
-                                        throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE,
-                                                "Thread interrupted");
-                                    }
-
-                                    long elapsed = System.currentTimeMillis() - start;
-                                    if (elapsed > timeOut) {
-                                        String failMsg = "Recv timeout";
-                                        logger.warn(failMsg + " : " + elapsed + " minimumLength=" + minimumLength
-                                                + " respIndex=" + respIndex);
-                                        throw new ModbusProtocolException(ModbusProtocolErrorCode.RESPONSE_TIMEOUT,
-                                                failMsg);
-                                    }
-                                }
-                                // address byte must match first
-                                if (respIndex == 0) {
-                                    if (ModbusProtocolDevice.this.txMode == ModbusTransmissionMode.ASCII_MODE) {
-                                        if ((response[0] = (byte) this.in.read()) == ':') {
-                                            respIndex++;
-                                        }
-                                    } else {
-                                        if ((response[0] = (byte) this.in.read()) == msg[0]) {
-                                            respIndex++;
-                                        }
-                                    }
-                                } else {
-                                    response[respIndex++] = (byte) this.in.read();
-                                }
-
-                                if (ModbusProtocolDevice.this.txMode == ModbusTransmissionMode.RTU_MODE) {
-                                    timeOut = 100; // move to character timeout
-                                    if (respIndex >= minimumLength) {
-                                        endFrame = true;
-                                    }
-                                } else {
-                                    if (response[respIndex - 1] == 10 && response[respIndex - 2] == 13) {
-                                        endFrame = true;
-                                    }
-                                }
-                            }
-                            // if ASCII mode convert response
-                            if (ModbusProtocolDevice.this.txMode == ModbusTransmissionMode.ASCII_MODE) {
-                                byte lrcRec = asciiLrcCalc(response, respIndex);
-                                response = convertAsciiResponseToBin(response, respIndex);
-                                byte lrcCalc = (byte) binLrcCalc(response);
-                                if (lrcRec != lrcCalc) {
-                                    throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE,
-                                            "Bad LRC");
-                                }
-                            }
-
-                            // Check first for an Exception response
-                            if ((response[1] & 0x80) == 0x80) {
-                                if (ModbusProtocolDevice.this.txMode == ModbusTransmissionMode.ASCII_MODE
-                                        || Crc16.getCrc16(response, 5, 0xffff) == 0) {
-                                    throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE,
-                                            "Exception response = " + Byte.toString(response[2]));
-                                }
-                            } else {
-                                // then check for a valid message
-                                switch (response[1]) {
-                                case ModbusFunctionCodes.FORCE_SINGLE_COIL:
-                                case ModbusFunctionCodes.PRESET_SINGLE_REG:
-                                case ModbusFunctionCodes.FORCE_MULTIPLE_COILS:
-                                case ModbusFunctionCodes.PRESET_MULTIPLE_REGS:
-                                    if (respIndex < 8) {
-                                        // wait for more data
-                                        minimumLength = 8;
-                                    } else if (ModbusProtocolDevice.this.txMode == ModbusTransmissionMode.ASCII_MODE
-                                            || Crc16.getCrc16(response, 8, 0xffff) == 0) {
-                                        byte[] ret = new byte[6];
-                                        for (int i = 0; i < 6; i++) {
-                                            ret[i] = response[i];
-                                        }
-                                        return ret;
-                                    }
-                                    break;
-                                case ModbusFunctionCodes.READ_COIL_STATUS:
-                                case ModbusFunctionCodes.READ_INPUT_STATUS:
-                                case ModbusFunctionCodes.READ_INPUT_REGS:
-                                case ModbusFunctionCodes.READ_HOLDING_REGS:
-                                    int byteCnt;
-                                    if (ModbusProtocolDevice.this.txMode == ModbusTransmissionMode.ASCII_MODE) {
-                                        byteCnt = (response[2] & 0xff) + 3;
-                                    } else {
-                                        byteCnt = (response[2] & 0xff) + 5;
-                                    }
-                                    if (respIndex < byteCnt) {
-                                        // wait for more data
-                                        minimumLength = byteCnt;
-                                    } else if (ModbusProtocolDevice.this.txMode == ModbusTransmissionMode.ASCII_MODE
-                                            || Crc16.getCrc16(response, byteCnt, 0xffff) == 0) {
-                                        byte[] ret = new byte[byteCnt];
-                                        for (int i = 0; i < byteCnt; i++) {
-                                            ret[i] = response[i];
-                                        }
-                                        return ret;
-                                    }
-                                }
-                            }
-
-                            /*
-                             * if required length then must have failed, drop
-                             * first byte and try again
-                             */
-                            if (respIndex >= minimumLength) {
-                                respIndex--;
-                                for (int i = 0; i < respIndex; i++) {
-                                    response[i] = response[i + 1];
-                                }
-                                minimumLength = 5; // reset minimum length
-                            }
-                        }
-                    }
-                }
-            } catch (IOException e) {
-                // e.printStackTrace();
-                throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE, e.getMessage());
+                return this.framer.transact(msg);
+            } finally {
+                this.scheduler.release();
             }
-            throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE,
-                    "Too much activity on recv line");
         }
     }
 
@@ -728,7 +542,7 @@ public class ModbusProtocolDevice implements ModbusProtocolDeviceService {
         }
 
         @Override
-        public byte[] msgTransaction(byte[] msg) throws ModbusProtocolException {
+        public synchronized byte[] msgTransaction(byte[] msg) throws ModbusProtocolException {
             byte[] cmd = null;
 
             // ---------------------------------------------- Send Message
@@ -775,8 +589,9 @@ public class ModbusProtocolDevice implements ModbusProtocolDeviceService {
             // Send the message
             try {
                 // flush input
-                while (this.inputStream.available() > 0) {
-                    this.inputStream.read();
+                int available;
+                while ((available = this.inputStream.available()) > 0) {
+                    this.inputStream.skip(available);
                 }
                 // send all data
                 this.outputStream.write(cmd, 0, cmd.length);
@@ -792,93 +607,149 @@ public class ModbusProtocolDevice implements ModbusProtocolDeviceService {
             // ---------------------------------------------- Receive response
             // ---------------------------------------------------
             // wait for and process response
+            return receiveResponse(msg);
+        }
 
-            boolean endFrame = false;
-            byte[] response = new byte[262]; // response buffer
-            int respIndex = 0;
-            int minimumLength = 5; // default minimum message length
-            if (PROTOCOL_CONNECTION_TYPE_ETHER_TCP.equals(this.connType)) {
-                minimumLength += 6;
+        /**
+         * Receives a response reading the socket in chunks: the header together with the first bytes of the PDU, and
+         * then the rest of the frame, whose length is computed from the function code and byte count. Modbus TCP
+         * frames start with the MBAP header, RTU over TCP/IP frames end with the CRC.
+         */
+        private byte[] receiveResponse(byte[] msg) throws ModbusProtocolException {
+            boolean tcp = PROTOCOL_CONNECTION_TYPE_ETHER_TCP.equals(this.connType);
+            int headerLength = tcp ? ModbusTcpPipeline.MBAP_HEADER_LENGTH : 0;
+            int crcLength = tcp ? 0 : 2;
+            byte[] response = new byte[headerLength + 260];
+            int frameLength;
+            try {
+                this.socket.setSoTimeout(ModbusProtocolDevice.this.respTout);
+                // unit identifier, function code and exception code or byte count
+                readFully(response, 0, headerLength + 3);
+                checkResponse(msg, response, headerLength);
+                byte function = response[headerLength + 1];
+                if (function == ModbusFunctionCodes.FORCE_SINGLE_COIL
+                        || function == ModbusFunctionCodes.PRESET_SINGLE_REG
+                        || function == ModbusFunctionCodes.FORCE_MULTIPLE_COILS
+                        || function == ModbusFunctionCodes.PRESET_MULTIPLE_REGS
+                        || function == ModbusFunctionCodes.GET_COMM_EVENT_COUNTER) {
+                    frameLength = headerLength + 6;
+                } else if (function == ModbusFunctionCodes.READ_EXCEPTION_STATUS) {
+                    frameLength = headerLength + 3;
+                } else {
+                    // bytes count
+                    frameLength = headerLength + (response[headerLength + 2] & 0xff) + 3;
+                }
+                readFully(response, headerLength + 3, frameLength + crcLength - headerLength - 3);
+            } catch (SocketTimeoutException e) {
+                String failMsg = "Recv timeout";
+                logger.warn(failMsg);
+                throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE, failMsg);
+            } catch (IOException e) {
+                logger.error("Socket disconnect in recv: " + e);
+                throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE, "Recv failure");
             }
-            while (!endFrame) {
-                try {
-                    this.socket.setSoTimeout(ModbusProtocolDevice.this.respTout);
-                    int resp = this.inputStream.read(response, respIndex, 1);
-                    if (resp > 0) {
-                        respIndex += resp;
-                        if (PROTOCOL_CONNECTION_TYPE_ETHER_TCP.equals(this.connType)) {
-                            if (respIndex == 7) {
-                                // test modbus id
-                                if (response[6] != msg[0]) {
-                                    throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE,
-                                            "incorrect modbus id " + String.format("%02X", response[6]));
-                                }
-                            } else if (respIndex == 8) {
-                                // test function number
-                                if ((response[7] & 0x7f) != msg[1]) {
-                                    throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE,
-                                            "incorrect function number " + String.format("%02X", response[7]));
-                                }
-                            } else if (respIndex == 9) {
-                                // Check first for an Exception response
-                                if ((response[7] & 0x80) == 0x80) {
-                                    throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE,
-                                            "Modbus responds an error = " + String.format("%02X", response[8]));
-                                } else {
-                                    if (response[7] == ModbusFunctionCodes.FORCE_SINGLE_COIL
-                                            || response[7] == ModbusFunctionCodes.PRESET_SINGLE_REG
-                                            || response[7] == ModbusFunctionCodes.FORCE_MULTIPLE_COILS
-                                            || response[7] == ModbusFunctionCodes.PRESET_MULTIPLE_REGS) {
-                                        minimumLength = 12;
-                                    } else {
-                                        // bytes count
-                                        minimumLength = (response[8] & 0xff) + 9;
-                                    }
-                                }
-                            } else if (respIndex == minimumLength) {
-                                endFrame = true;
-                            }
-                        } else {
+            if (!tcp && Crc16.getCrc16(response, frameLength + crcLength, 0xffff) != 0) {
+                throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE, "Invalid CRC");
+            }
+            return Arrays.copyOfRange(response, headerLength, frameLength);
+        }
 
-                        }
-                    } else {
-                        logger.error("Socket disconnect in recv");
-                        throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE, "Recv failure");
-                    }
-                } catch (SocketTimeoutException e) {
-                    String failMsg = "Recv timeout";
-                    logger.warn(failMsg);
-                    throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE, failMsg);
-                } catch (IOException e) {
-                    logger.error("Socket disconnect in recv: " + e);
-                    throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE, "Recv failure");
+        private void readFully(byte[] buffer, int offset, int length) throws IOException {
+            int count = 0;
+            while (count < length) {
+                int read = this.inputStream.read(buffer, offset + count, length - count);
+                if (read < 0) {
+                    throw new IOException("End of stream");
                 }
+                count += read;
+            }
+        }
+    }
+
+    /**
+     * Modbus TCP connection that allows concurrent callers to have several transactions outstanding at the same time,
+     * see {@link ModbusTcpPipeline}.
+     */
+    private final class PipelinedEthernetCommunicate extends Communicate {
+
+        private final ModbusTcpPipeline pipeline;
 
+        public PipelinedEthernetCommunicate(Properties connectionConfig, int maxInFlight)
+                throws ModbusProtocolException {
+            logger.debug("Configure pipelined TCP connection, maximum in flight transactions: {}", maxInFlight);
+            String sPort;
+            String ipAddress;
+
+            if ((sPort = connectionConfig.getProperty("ethport")) == null
+                    || (ipAddress = connectionConfig.getProperty("ipAddress")) == null) {
+                throw new ModbusProtocolException(ModbusProtocolErrorCode.INVALID_CONFIGURATION);
             }
+            int port = Integer.valueOf(sPort).intValue();
+            this.pipeline = new ModbusTcpPipeline(new InetSocketAddress(ipAddress, port),
+                    ModbusProtocolDevice.this.respTout, maxInFlight);
+        }
 
-            // then check for a valid message
-            switch (response[7]) {
-            case ModbusFunctionCodes.FORCE_SINGLE_COIL:
-            case ModbusFunctionCodes.PRESET_SINGLE_REG:
-            case ModbusFunctionCodes.FORCE_MULTIPLE_COILS:
-            case ModbusFunctionCodes.PRESET_MULTIPLE_REGS:
-                byte[] ret = new byte[8];
-                for (int i = 6; i < 12; i++) {
-                    ret[i - 6] = response[i];
-                }
-                return ret;
-            case ModbusFunctionCodes.READ_COIL_STATUS:
-            case ModbusFunctionCodes.READ_INPUT_STATUS:
-            case ModbusFunctionCodes.READ_INPUT_REGS:
-            case ModbusFunctionCodes.READ_HOLDING_REGS:
-                int byteCnt = (response[8] & 0xff) + 3 + 6;
-                ret = new byte[byteCnt - 6];
-                for (int i = 6; i < byteCnt; i++) {
-                    ret[i - 6] = response[i];
+        @Override
+        public void connect() {
+            if (!this.pipeline.isConnected()) {
+                try {
+                    this.pipeline.connect();
+                } catch (IOException e) {
+                    logger.error("Failed to connect to remote: " + e);
                 }
-                return ret;
             }
-            return null;
+        }
+
+        @Override
+        public void disconnect() {
+            this.pipeline.close();
+        }
+
+        @Override
+        public int getConnectStatus() {
+            if (this.pipeline.isConnected()) {
+                return KuraConnectionStatus.CONNECTED;
+            } else {
+                return KuraConnectionStatus.DISCONNECTED;
+            }
+        }
+
+        @Override
+        public byte[] msgTransaction(byte[] msg) throws ModbusProtocolException {
+            if (ModbusProtocolDevice.this.txMode != ModbusTransmissionMode.RTU_MODE) {
+                throw new ModbusProtocolException(ModbusProtocolErrorCode.METHOD_NOT_SUPPORTED,
+                        "Only RTU over TCP/IP supported");
+            }
+
+            connect();
+            byte[] response = this.pipeline.transact(msg);
+            if (response.length < 3) {
+                throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE,
+                        "Response too short");
+            }
+            checkResponse(msg, response, 0);
+            return response;
+        }
+    }
+
+    /**
+     * Checks the unit identifier and function code of a Modbus TCP response, and whether it is an exception response.
+     */
+    private static void checkResponse(byte[] msg, byte[] response, int offset) throws ModbusProtocolException {
+        // test modbus id
+        if (response[offset] != msg[0]) {
+            throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE,
+                    "incorrect modbus id " + String.format("%02X", response[offset]));
+        }
+        // test function number
+        if ((response[offset + 1] & 0x7f) != msg[1]) {
+            throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE,
+                    "incorrect function number " + String.format("%02X", response[offset + 1]));
+        }
+        // Check for an Exception response
+        if ((response[offset + 1] & 0x80) == 0x80) {
+            throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE,
+                    "Modbus responds an error = " + String.format("%02X", response[offset + 2]));
         }
     }
 
@@ -1408,12 +1279,8 @@ public class ModbusProtocolDevice implements ModbusProtocolDeviceService {
      *
      * @return the next transaction index.
      */
-    private int getNextTransactionIndex() {
-        transactionIndex++;
-        if (transactionIndex > 0xffff) {
-            transactionIndex = 0;
-        }
-        return transactionIndex;
+    private static int getNextTransactionIndex() {
+        return transactionIndex.updateAndGet(i -> (i + 1) & 0xffff);
     }
 
 }
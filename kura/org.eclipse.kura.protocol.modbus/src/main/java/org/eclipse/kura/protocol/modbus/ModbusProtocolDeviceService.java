@@ -110,6 +110,9 @@ public interface ModbusProtocolDeviceService {
      *            <ul>
      *            <li>port : TCP port to be used
      *            <li>ipAddress : the 4 bytes IP address of the field device (xxx.xxx.xxx.xxx)
+     *            <li>maxInFlight : optional, "TCP/IP" only, the maximum number of transactions outstanding at the
+     *            same time (default 1). With values greater than 1 concurrent requests are pipelined on the connection
+     *            and the responses are matched using the transaction identifier
      *            </ul>
      *            <br>
      *            Modbus properties :
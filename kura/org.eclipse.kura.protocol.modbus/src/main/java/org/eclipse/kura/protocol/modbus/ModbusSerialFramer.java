@@ -0,0 +1,355 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.protocol.modbus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Frames Modbus RTU and ASCII transactions on a serial line.
+ * <p>
+ * The response is read in chunks into a reusable buffer, each read blocks until some data is available or the receive
+ * timeout of the port expires. The end of a RTU frame is detected from the function code and byte count, or by the
+ * 3.5 character inter-frame silence for the function codes whose response length is not known in advance. The same
+ * silence is enforced between the end of a transaction and the transmission of the next request. The end of an ASCII
+ * frame is detected by the CR LF sequence.
+ * <p>
+ * This class is not thread safe, access to the line must be serialized by the caller.
+ */
+final class ModbusSerialFramer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModbusSerialFramer.class);
+
+    private static final int MAX_RTU_FRAME_LENGTH = 256;
+    private static final int MAX_ASCII_FRAME_LENGTH = 513;
+
+    // start bit, 8 data bits, parity or second stop bit and stop bit
+    private static final int BITS_PER_CHARACTER = 11;
+    // fixed inter-frame silence recommended by the specification for baud rates greater than 19200
+    private static final long MIN_INTER_FRAME_SILENCE_NANOS = 1750000L;
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private final InputStream in;
+    private final OutputStream out;
+    private final int txMode;
+    private final int respTout;
+    private final long charTimeNanos;
+    private final long interFrameSilenceNanos;
+
+    private final byte[] buffer = new byte[MAX_ASCII_FRAME_LENGTH];
+    private int length;
+    private long lastActivityNanos = System.nanoTime();
+
+    /**
+     * Creates a new framer.
+     *
+     * @param in
+     *            the stream from which responses are read
+     * @param out
+     *            the stream on which requests are written
+     * @param txMode
+     *            {@link ModbusTransmissionMode#RTU_MODE} or {@link ModbusTransmissionMode#ASCII_MODE}
+     * @param baudRate
+     *            the baud rate of the line, used to compute the character time
+     * @param respTout
+     *            the response timeout in milliseconds
+     */
+    ModbusSerialFramer(InputStream in, OutputStream out, int txMode, int baudRate, int respTout) {
+        if (baudRate <= 0) {
+            throw new IllegalArgumentException("baudRate must be positive");
+        }
+        this.in = in;
+        this.out = out;
+        this.txMode = txMode;
+        this.respTout = respTout;
+        this.charTimeNanos = TimeUnit.SECONDS.toNanos(BITS_PER_CHARACTER) / baudRate;
+        if (baudRate > 19200) {
+            this.interFrameSilenceNanos = MIN_INTER_FRAME_SILENCE_NANOS;
+        } else {
+            this.interFrameSilenceNanos = this.charTimeNanos * 7 / 2;
+        }
+    }
+
+    long getInterFrameSilenceNanos() {
+        return this.interFrameSilenceNanos;
+    }
+
+    /**
+     * Sends a request and waits for the response.
+     *
+     * @param msg
+     *            the request, starting with the unit identifier and without CRC or LRC
+     * @return the response, starting with the unit identifier and without CRC or LRC
+     * @throws ModbusProtocolException
+     *             if no valid response is received within the timeout or if the device returns an exception
+     *             response
+     */
+    byte[] transact(byte[] msg) throws ModbusProtocolException {
+        final byte[] cmd;
+        if (this.txMode == ModbusTransmissionMode.RTU_MODE) {
+            cmd = Arrays.copyOf(msg, msg.length + 2);
+            // Add crc calculation to end of message
+            int crc = Crc16.getCrc16(msg, msg.length, 0x0ffff);
+            cmd[msg.length] = (byte) crc;
+            cmd[msg.length + 1] = (byte) (crc >> 8);
+        } else if (this.txMode == ModbusTransmissionMode.ASCII_MODE) {
+            cmd = convertCommandToAscii(msg);
+        } else {
+            throw new ModbusProtocolException(ModbusProtocolErrorCode.METHOD_NOT_SUPPORTED);
+        }
+
+        final byte[] response;
+        try {
+            discardInput();
+            waitInterFrameSilence();
+            this.out.write(cmd, 0, cmd.length);
+            this.out.flush();
+            // the last characters may still be in the transmit buffer of the port
+            this.lastActivityNanos = System.nanoTime() + cmd.length * this.charTimeNanos;
+
+            if (this.txMode == ModbusTransmissionMode.RTU_MODE) {
+                response = receiveRtuFrame(msg);
+            } else {
+                response = receiveAsciiFrame(msg);
+            }
+        } catch (IOException e) {
+            throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE, e.getMessage());
+        }
+
+        // Check for an Exception response
+        if ((response[1] & 0x80) == 0x80) {
+            throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE,
+                    "Exception response = " + Byte.toString(response[2]));
+        }
+        return response;
+    }
+
+    private void discardInput() throws IOException {
+        this.length = 0;
+        int available;
+        while ((available = this.in.available()) > 0) {
+            int read = this.in.read(this.buffer, 0, Math.min(available, this.buffer.length));
+            if (read <= 0) {
+                break;
+            }
+            this.lastActivityNanos = System.nanoTime();
+        }
+    }
+
+    private void waitInterFrameSilence() {
+        long remaining;
+        while ((remaining = this.lastActivityNanos + this.interFrameSilenceNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private byte[] receiveRtuFrame(byte[] msg) throws IOException, ModbusProtocolException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.respTout);
+
+        while (true) {
+            // address byte must match first
+            int start = 0;
+            while (start < this.length && this.buffer[start] != msg[0]) {
+                start++;
+            }
+            discard(start);
+
+            int frameLength = getExpectedRtuLength();
+            if (frameLength == 0 && this.length >= 4 && isSilent()) {
+                // the frame ends with the inter-frame silence
+                frameLength = this.length;
+            }
+            if (frameLength > 0 && this.length >= frameLength) {
+                if (Crc16.getCrc16(this.buffer, frameLength, 0xffff) == 0) {
+                    return Arrays.copyOf(this.buffer, frameLength - 2);
+                }
+                // not a valid frame, drop first byte and try again
+                logger.debug("Bad CRC, resynchronizing");
+                discard(1);
+                continue;
+            }
+
+            receive(deadline, MAX_RTU_FRAME_LENGTH);
+        }
+    }
+
+    /**
+     * Returns the length of the RTU frame in the buffer, including the CRC.
+     *
+     * @return the frame length, -1 if more data is needed to compute it or 0 if the length is not known in advance
+     */
+    private int getExpectedRtuLength() {
+        if (this.length < 2) {
+            return -1;
+        }
+
+        final int function = this.buffer[1] & 0xff;
+        if ((function & 0x80) == 0x80 || function == ModbusFunctionCodes.READ_EXCEPTION_STATUS) {
+            return 5;
+        } else if (function == ModbusFunctionCodes.FORCE_SINGLE_COIL
+                || function == ModbusFunctionCodes.PRESET_SINGLE_REG
+                || function == ModbusFunctionCodes.FORCE_MULTIPLE_COILS
+                || function == ModbusFunctionCodes.PRESET_MULTIPLE_REGS
+                || function == ModbusFunctionCodes.GET_COMM_EVENT_COUNTER) {
+            return 8;
+        } else if (function == ModbusFunctionCodes.READ_COIL_STATUS
+                || function == ModbusFunctionCodes.READ_INPUT_STATUS
+                || function == ModbusFunctionCodes.READ_HOLDING_REGS
+                || function == ModbusFunctionCodes.READ_INPUT_REGS
+                || function == ModbusFunctionCodes.GET_COMM_EVENT_LOG) {
+            if (this.length < 3) {
+                return -1;
+            }
+            // bytes count
+            return (this.buffer[2] & 0xff) + 5;
+        }
+        return 0;
+    }
+
+    private boolean isSilent() throws IOException {
+        waitInterFrameSilence();
+        return this.in.available() == 0;
+    }
+
+    private byte[] receiveAsciiFrame(byte[] msg) throws IOException, ModbusProtocolException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.respTout);
+        int scanned = 0;
+
+        while (true) {
+            int start = 0;
+            while (start < this.length && this.buffer[start] != ':') {
+                start++;
+            }
+            discard(start);
+            scanned = Math.max(1, scanned - start);
+
+            for (; scanned < this.length; scanned++) {
+                if (this.buffer[scanned] == 10 && this.buffer[scanned - 1] == 13) {
+                    break;
+                }
+            }
+
+            if (scanned < this.length) {
+                final int frameLength = scanned + 1;
+                final byte[] response = convertAsciiResponseToBin(frameLength);
+                discard(frameLength);
+                scanned = 1;
+                if (response != null && response.length >= 2 && response[0] == msg[0]) {
+                    return response;
+                }
+                logger.debug("Invalid ASCII frame, waiting for the next one");
+                continue;
+            }
+
+            receive(deadline, MAX_ASCII_FRAME_LENGTH);
+        }
+    }
+
+    private void receive(long deadline, int maxFrameLength) throws IOException, ModbusProtocolException {
+        if (this.length >= maxFrameLength) {
+            throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE,
+                    "Too much activity on recv line");
+        }
+
+        while (true) {
+            if (System.nanoTime() - deadline >= 0) {
+                String failMsg = "Recv timeout";
+                logger.warn("{} : respIndex={}", failMsg, this.length);
+                throw new ModbusProtocolException(ModbusProtocolErrorCode.RESPONSE_TIMEOUT, failMsg);
+            }
+
+            // blocks until some data is available or the receive timeout of the port expires
+            final int read = this.in.read(this.buffer, this.length, maxFrameLength - this.length);
+            if (read > 0) {
+                this.length += read;
+                this.lastActivityNanos = System.nanoTime();
+                return;
+            } else if (read < 0 && System.nanoTime() - deadline < 0) {
+                throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE, "Recv failure");
+            }
+        }
+    }
+
+    private void discard(int count) {
+        if (count > 0) {
+            this.length -= count;
+            System.arraycopy(this.buffer, count, this.buffer, 0, this.length);
+        }
+    }
+
+    /**
+     * convertCommandToAscii: convert a binary command into a standard Modbus
+     * ASCII frame
+     */
+    private static byte[] convertCommandToAscii(byte[] msg) {
+        int lrc = binLrcCalc(msg, msg.length);
+
+        byte[] ab = new byte[msg.length * 2 + 5];
+        ab[0] = ':';
+        int v;
+        for (int i = 0; i < msg.length; i++) {
+            v = msg[i] & 0xff;
+            ab[i * 2 + 1] = (byte) HEX_DIGITS[v >>> 4];
+            ab[i * 2 + 2] = (byte) HEX_DIGITS[v & 0x0f];
+        }
+        v = lrc & 0x0ff;
+        ab[ab.length - 4] = (byte) HEX_DIGITS[v >>> 4];
+        ab[ab.length - 3] = (byte) HEX_DIGITS[v & 0x0f];
+        ab[ab.length - 2] = 13;
+        ab[ab.length - 1] = 10;
+        return ab;
+    }
+
+    /**
+     * convertAsciiResponseToBin: convert the standard Modbus frame at the beginning of the buffer to a byte array,
+     * checking the LRC
+     *
+     * @return the converted frame without the LRC, or null if the frame is not valid
+     */
+    private byte[] convertAsciiResponseToBin(int len) {
+        if (len < 9 || (len - 3) % 2 != 0) {
+            return null;
+        }
+        byte[] ab = new byte[(len - 3) / 2];
+        for (int i = 0; i < ab.length; i++) {
+            int hi = Character.digit(this.buffer[i * 2 + 1], 16);
+            int lo = Character.digit(this.buffer[i * 2 + 2], 16);
+            if (hi < 0 || lo < 0) {
+                return null;
+            }
+            ab[i] = (byte) (hi << 4 | lo);
+        }
+        byte lrcRec = ab[ab.length - 1];
+        byte lrcCalc = (byte) binLrcCalc(ab, ab.length - 1);
+        if (lrcRec != lrcCalc) {
+            logger.debug("Bad LRC");
+            return null;
+        }
+        return Arrays.copyOf(ab, ab.length - 1);
+    }
+
+    private static int binLrcCalc(byte[] msg, int len) {
+        int llrc = 0;
+        for (int i = 0; i < len; i++) {
+            llrc += msg[i] & 0xff;
+        }
+        return (llrc ^ 0xff) + 1;
+    }
+}
@@ -0,0 +1,286 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.protocol.modbus;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A Modbus TCP connection that allows several transactions to be outstanding at the same time.
+ * <p>
+ * Requests are written on a {@link SocketChannel} as soon as a slot in the in-flight window is available, responses are
+ * framed using the MBAP length field by a dedicated receiver thread and are matched with the pending requests using the
+ * transaction identifier, so that they can arrive in any order. This allows a gateway to serve requests addressed to
+ * different units concurrently.
+ */
+final class ModbusTcpPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModbusTcpPipeline.class);
+
+    static final int MBAP_HEADER_LENGTH = 6;
+
+    private static final int MAX_ADU_LENGTH = 260;
+    private static final int RECEIVE_BUFFER_SIZE = 4096;
+
+    private final InetSocketAddress address;
+    private final int timeout;
+    private final Semaphore window;
+
+    private final AtomicInteger transactionIndex = new AtomicInteger();
+    private final Map<Integer, CompletableFuture<byte[]>> pendingTransactions = new ConcurrentHashMap<>();
+    private final Object sendLock = new Object();
+
+    private volatile SocketChannel channel;
+
+    /**
+     * Creates a new pipeline, the connection is not opened until {@link #connect()} is called.
+     *
+     * @param address
+     *            the address of the Modbus TCP server
+     * @param timeout
+     *            the connection and response timeout in milliseconds, 0 means no timeout
+     * @param maxInFlight
+     *            the maximum number of transactions that can be outstanding at the same time
+     */
+    ModbusTcpPipeline(InetSocketAddress address, int timeout, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1");
+        }
+        this.address = address;
+        this.timeout = timeout;
+        this.window = new Semaphore(maxInFlight, true);
+    }
+
+    synchronized void connect() throws IOException {
+        if (this.channel != null) {
+            return;
+        }
+
+        final SocketChannel newChannel = SocketChannel.open();
+        try {
+            newChannel.socket().connect(this.address, this.timeout);
+            newChannel.socket().setTcpNoDelay(true);
+        } catch (IOException e) {
+            newChannel.close();
+            throw e;
+        }
+
+        this.channel = newChannel;
+
+        final Thread receiver = new Thread(() -> receive(newChannel), "ModbusTcpPipeline-" + this.address);
+        receiver.setDaemon(true);
+        receiver.start();
+        logger.info("TCP pipeline connected to {}", this.address);
+    }
+
+    boolean isConnected() {
+        return this.channel != null;
+    }
+
+    void close() {
+        final SocketChannel currentChannel;
+        synchronized (this) {
+            currentChannel = this.channel;
+            this.channel = null;
+        }
+        if (currentChannel != null) {
+            closeChannel(currentChannel);
+            failPendingTransactions("Connection closed");
+        }
+    }
+
+    int getInFlightCount() {
+        return this.pendingTransactions.size();
+    }
+
+    /**
+     * Performs a transaction.
+     *
+     * @param msg
+     *            the request, starting with the unit identifier and followed by the PDU
+     * @return the response, starting with the unit identifier and followed by the PDU
+     * @throws ModbusProtocolException
+     *             if the request cannot be sent, if the connection is closed or if no response is received within the
+     *             timeout
+     */
+    byte[] transact(byte[] msg) throws ModbusProtocolException {
+        final SocketChannel currentChannel = this.channel;
+        if (currentChannel == null) {
+            throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE,
+                    "Cannot transact on closed socket");
+        }
+
+        acquireWindowSlot();
+        try {
+            final int index = getNextTransactionIndex();
+            final CompletableFuture<byte[]> response = new CompletableFuture<>();
+            this.pendingTransactions.put(index, response);
+            try {
+                if (this.channel != currentChannel) {
+                    throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE,
+                            "Cannot transact on closed socket");
+                }
+                send(currentChannel, index, msg);
+                return awaitResponse(response);
+            } finally {
+                this.pendingTransactions.remove(index);
+            }
+        } finally {
+            this.window.release();
+        }
+    }
+
+    private void acquireWindowSlot() throws ModbusProtocolException {
+        try {
+            if (this.timeout == 0) {
+                this.window.acquire();
+            } else if (!this.window.tryAcquire(this.timeout, TimeUnit.MILLISECONDS)) {
+                throw new ModbusProtocolException(ModbusProtocolErrorCode.RESPONSE_TIMEOUT,
+                        "Timeout waiting for a free transaction slot");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE, "Interrupted");
+        }
+    }
+
+    private void send(SocketChannel currentChannel, int index, byte[] msg) throws ModbusProtocolException {
+        final ByteBuffer frame = ByteBuffer.allocate(MBAP_HEADER_LENGTH + msg.length);
+        frame.putShort((short) index);
+        frame.putShort((short) 0);
+        frame.putShort((short) msg.length);
+        frame.put(msg);
+        frame.flip();
+
+        try {
+            synchronized (this.sendLock) {
+                while (frame.hasRemaining()) {
+                    currentChannel.write(frame);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Socket disconnect in send: {}", e.getMessage());
+            close();
+            throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE,
+                    "Send failure: " + e.getMessage());
+        }
+    }
+
+    private byte[] awaitResponse(CompletableFuture<byte[]> response) throws ModbusProtocolException {
+        try {
+            if (this.timeout == 0) {
+                return response.get();
+            }
+            return response.get(this.timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            String failMsg = "Recv timeout";
+            logger.warn(failMsg);
+            throw new ModbusProtocolException(ModbusProtocolErrorCode.RESPONSE_TIMEOUT, failMsg);
+        } catch (ExecutionException e) {
+            throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE,
+                    "Recv failure: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ModbusProtocolException(ModbusProtocolErrorCode.TRANSACTION_FAILURE, "Interrupted");
+        }
+    }
+
+    private void receive(SocketChannel receiveChannel) {
+        final ByteBuffer buffer = ByteBuffer.allocate(RECEIVE_BUFFER_SIZE);
+        String failMsg = "Connection closed by remote";
+        try {
+            while (receiveChannel.read(buffer) >= 0) {
+                buffer.flip();
+                while (dispatchFrame(buffer)) {
+                    // dispatch all complete frames
+                }
+                buffer.compact();
+            }
+        } catch (IOException e) {
+            failMsg = e.getMessage();
+        }
+
+        synchronized (this) {
+            if (this.channel != receiveChannel) {
+                // closed locally
+                return;
+            }
+            this.channel = null;
+        }
+        logger.error("Socket disconnect in recv: {}", failMsg);
+        closeChannel(receiveChannel);
+        failPendingTransactions(failMsg);
+    }
+
+    private boolean dispatchFrame(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < MBAP_HEADER_LENGTH) {
+            return false;
+        }
+
+        final int start = buffer.position();
+        final int index = buffer.getShort(start) & 0xffff;
+        final int length = buffer.getShort(start + 4) & 0xffff;
+
+        if (length < 2 || length > MAX_ADU_LENGTH - MBAP_HEADER_LENGTH) {
+            throw new IOException("Invalid MBAP length " + length);
+        }
+        if (buffer.remaining() < MBAP_HEADER_LENGTH + length) {
+            return false;
+        }
+
+        final byte[] response = new byte[length];
+        buffer.position(start + MBAP_HEADER_LENGTH);
+        buffer.get(response);
+
+        final CompletableFuture<byte[]> pending = this.pendingTransactions.remove(index);
+        if (pending != null) {
+            pending.complete(response);
+        } else {
+            logger.debug("Discarding response for unknown transaction {}", index);
+        }
+        return true;
+    }
+
+    private void failPendingTransactions(String failMsg) {
+        final Iterator<CompletableFuture<byte[]>> iterator = this.pendingTransactions.values().iterator();
+        while (iterator.hasNext()) {
+            iterator.next().completeExceptionally(new IOException(failMsg));
+            iterator.remove();
+        }
+    }
+
+    private int getNextTransactionIndex() {
+        return this.transactionIndex.updateAndGet(i -> (i + 1) & 0xffff);
+    }
+
+    private static void closeChannel(SocketChannel channelToClose) {
+        try {
+            channelToClose.close();
+        } catch (IOException e) {
+            logger.error("Error closing TCP: {}", e.getMessage());
+        }
+    }
+}
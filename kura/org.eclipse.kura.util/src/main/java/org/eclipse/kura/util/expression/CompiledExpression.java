@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *******************************************************************************/
+package org.eclipse.kura.util.expression;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+
+import org.eclipse.kura.wire.WireEnvelope;
+import org.eclipse.kura.wire.WireRecord;
+
+/**
+ * An expression over the records of a {@link WireEnvelope}, compiled once into a tree of nodes that can be evaluated
+ * concurrently by multiple threads without synchronization.
+ * <p>
+ * The expression language supports:
+ * <ul>
+ * <li>literals: numbers ({@code 1}, {@code 1L}, {@code 1.5f}, {@code 1.5}, {@code 0xff}), strings in single or double
+ * quotes, {@code true}, {@code false} and {@code null}</li>
+ * <li>arithmetic: {@code + - * / %}, with Java numeric promotion; {@code +} concatenates strings</li>
+ * <li>comparisons: {@code == != < <= > >=}, {@code ===} and {@code !==} are accepted as aliases of {@code ==} and
+ * {@code !=}</li>
+ * <li>boolean logic: {@code && || !}, with short circuit evaluation</li>
+ * <li>property access: {@code name} refers to a property of the current record, {@code record.name} or
+ * {@code record['name']} do the same, {@code records[N].name} refers to a property of the N-th record of the envelope.
+ * A property evaluates to the value of its {@link org.eclipse.kura.type.TypedValue}, or to {@code null} if the property
+ * or the record do not exist</li>
+ * <li>{@code emitterPid}: the emitter pid of the envelope</li>
+ * </ul>
+ */
+public final class CompiledExpression {
+
+    private final String source;
+    private final Node root;
+
+    private CompiledExpression(final String source, final Node root) {
+        this.source = source;
+        this.root = root;
+    }
+
+    /**
+     * Compiles an expression.
+     *
+     * @param source
+     *            the expression source
+     * @return the compiled expression
+     * @throws IllegalArgumentException
+     *             if the source is not a valid expression
+     */
+    public static CompiledExpression compile(final String source) {
+        requireNonNull(source, "Expression source cannot be null");
+        return new CompiledExpression(source, Parser.parseExpression(source));
+    }
+
+    /**
+     * Evaluates the expression on an envelope, property names not qualified by a record refer to the first record of
+     * the envelope.
+     *
+     * @param wireEnvelope
+     *            the envelope
+     * @return the result, one of {@link Boolean}, {@link Integer}, {@link Long}, {@link Float}, {@link Double},
+     *         {@link String}, {@code byte[]} or {@code null}
+     * @throws IllegalArgumentException
+     *             if the expression cannot be evaluated on the provided envelope, for example because of an operand
+     *             type mismatch
+     */
+    public Object evaluate(final WireEnvelope wireEnvelope) {
+        final List<WireRecord> records = wireEnvelope.getRecords();
+        return evaluate(records.isEmpty() ? null : records.get(0), records, wireEnvelope.getEmitterPid());
+    }
+
+    /**
+     * Evaluates the expression.
+     *
+     * @param record
+     *            the record that property names not qualified by a record refer to, can be null
+     * @param records
+     *            the records of the envelope
+     * @param emitterPid
+     *            the emitter pid of the envelope
+     * @return the result, one of {@link Boolean}, {@link Integer}, {@link Long}, {@link Float}, {@link Double},
+     *         {@link String}, {@code byte[]} or {@code null}
+     * @throws IllegalArgumentException
+     *             if the expression cannot be evaluated on the provided records
+     */
+    public Object evaluate(final WireRecord record, final List<WireRecord> records, final String emitterPid) {
+        return this.root.evaluate(record, records, emitterPid);
+    }
+
+    @Override
+    public String toString() {
+        return this.source;
+    }
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *******************************************************************************/
+package org.eclipse.kura.util.expression;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.kura.type.TypedValue;
+import org.eclipse.kura.type.TypedValues;
+import org.eclipse.kura.wire.WireEnvelope;
+import org.eclipse.kura.wire.WireRecord;
+
+/**
+ * A filter and projection over the records of a {@link WireEnvelope}, compiled once and applied concurrently by
+ * multiple threads without synchronization.
+ * <p>
+ * A projection is a sequence of statements separated by semicolons or line breaks, each input record is processed
+ * independently:
+ * <ul>
+ * <li>{@code where <expression>} drops the records for which the expression is not true</li>
+ * <li>{@code *} copies all properties of the input record</li>
+ * <li>{@code -name} does not copy the given property</li>
+ * <li>{@code name = <expression>} sets a property to the result of the expression, the property is omitted if the
+ * result is {@code null}</li>
+ * </ul>
+ * If there are no assignments, all properties are copied. Expressions are evaluated on the input record and use the
+ * syntax described in {@link CompiledExpression}. For example the following projection renames the {@code TIMER}
+ * property and adds a derived property, only for the records where {@code TIMER} is positive:
+ *
+ * <pre>
+ * where TIMER &gt; 0
+ * *
+ * -TIMER
+ * timer = TIMER
+ * timerHalf = TIMER / 2
+ * </pre>
+ */
+public final class CompiledProjection {
+
+    private final String source;
+    private final Node condition;
+    private final boolean copyAll;
+    private final String[] excluded;
+    private final String[] assignedNames;
+    private final Node[] assignedValues;
+
+    private CompiledProjection(final String source, final Parser.Program program) {
+        this.source = source;
+        this.condition = program.condition;
+        this.copyAll = program.copyAll || program.assignedNames.isEmpty();
+        this.excluded = program.excluded.toArray(new String[0]);
+        this.assignedNames = program.assignedNames.toArray(new String[0]);
+        this.assignedValues = program.assignedValues.toArray(new Node[0]);
+    }
+
+    /**
+     * Compiles a projection.
+     *
+     * @param source
+     *            the projection source
+     * @return the compiled projection
+     * @throws IllegalArgumentException
+     *             if the source is not a valid projection
+     */
+    public static CompiledProjection compile(final String source) {
+        requireNonNull(source, "Projection source cannot be null");
+        return new CompiledProjection(source, Parser.parseProgram(source));
+    }
+
+    /**
+     * Applies the projection to the records of an envelope.
+     *
+     * @param wireEnvelope
+     *            the envelope
+     * @return the resulting records, can be empty. Input records that are not modified by the projection are returned
+     *         as is.
+     * @throws IllegalArgumentException
+     *             if an expression cannot be evaluated on the provided records
+     */
+    public List<WireRecord> apply(final WireEnvelope wireEnvelope) {
+        final List<WireRecord> records = wireEnvelope.getRecords();
+        final String emitterPid = wireEnvelope.getEmitterPid();
+        final List<WireRecord> result = new ArrayList<>(records.size());
+
+        for (final WireRecord record : records) {
+            if (this.condition != null && !Operators.isTrue(this.condition.evaluate(record, records, emitterPid))) {
+                continue;
+            }
+            result.add(project(record, records, emitterPid));
+        }
+        return result;
+    }
+
+    private WireRecord project(final WireRecord record, final List<WireRecord> records, final String emitterPid) {
+        if (this.copyAll && this.excluded.length == 0 && this.assignedNames.length == 0) {
+            return record;
+        }
+
+        final Map<String, TypedValue<?>> properties;
+        if (this.copyAll) {
+            properties = new HashMap<>(record.getProperties());
+            for (final String name : this.excluded) {
+                properties.remove(name);
+            }
+        } else {
+            properties = new HashMap<>();
+        }
+
+        for (int i = 0; i < this.assignedNames.length; i++) {
+            final Object value = this.assignedValues[i].evaluate(record, records, emitterPid);
+            if (value == null) {
+                properties.remove(this.assignedNames[i]);
+            } else {
+                properties.put(this.assignedNames[i], TypedValues.newTypedValue(value));
+            }
+        }
+        return new WireRecord(properties);
+    }
+
+    @Override
+    public String toString() {
+        return this.source;
+    }
+}
@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *******************************************************************************/
+package org.eclipse.kura.util.expression;
+
+import java.util.List;
+
+import org.eclipse.kura.wire.WireRecord;
+
+/**
+ * A node of a compiled expression tree. Nodes are immutable, or only cache information that can be safely shared,
+ * so that a tree can be evaluated concurrently by multiple threads.
+ */
+@FunctionalInterface
+interface Node {
+
+    /**
+     * Evaluates this node.
+     *
+     * @param record
+     *            the record that bare property names refer to, can be null
+     * @param records
+     *            the records of the envelope
+     * @param emitterPid
+     *            the emitter pid of the envelope
+     * @return the value, one of {@link Boolean}, {@link Integer}, {@link Long}, {@link Float}, {@link Double},
+     *         {@link String}, {@code byte[]} or {@code null}
+     */
+    Object evaluate(WireRecord record, List<WireRecord> records, String emitterPid);
+
+    /**
+     * Returns whether this node always evaluates to the same value, allowing the parent nodes to be folded at
+     * compile time.
+     */
+    default boolean isConstant() {
+        return false;
+    }
+}
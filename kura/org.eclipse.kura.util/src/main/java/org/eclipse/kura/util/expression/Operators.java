@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *******************************************************************************/
+package org.eclipse.kura.util.expression;
+
+import java.util.Arrays;
+
+/**
+ * Implements the semantics of the expression operators.
+ * <p>
+ * Arithmetic follows the Java numeric promotion rules: if any operand is a {@link Double} the result is a
+ * {@link Double}, otherwise if any operand is a {@link Float} the result is a {@link Float}, otherwise if any operand
+ * is a {@link Long} the result is a {@link Long}, otherwise it is an {@link Integer}. Arithmetic on {@code null}
+ * evaluates to {@code null}, {@code +} concatenates if one of the operands is a {@link String}.
+ */
+final class Operators {
+
+    static final int LESS = 0;
+    static final int LESS_OR_EQUAL = 1;
+    static final int GREATER = 2;
+    static final int GREATER_OR_EQUAL = 3;
+
+    private Operators() {
+    }
+
+    static boolean isNumber(final Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Float || value instanceof Double;
+    }
+
+    static boolean isTrue(final Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        throw new IllegalArgumentException("Not a boolean: " + value);
+    }
+
+    static Object negate(final Object value) {
+        if (value == null) {
+            return null;
+        } else if (value instanceof Integer) {
+            return -(Integer) value;
+        } else if (value instanceof Long) {
+            return -(Long) value;
+        } else if (value instanceof Float) {
+            return -(Float) value;
+        } else if (value instanceof Double) {
+            return -(Double) value;
+        }
+        throw new IllegalArgumentException("Not a number: " + value);
+    }
+
+    static Object arithmetic(final char operator, final Object left, final Object right) {
+        if (left == null || right == null) {
+            return null;
+        }
+        if (operator == '+' && (left instanceof String || right instanceof String)) {
+            return String.valueOf(left) + right;
+        }
+        if (!isNumber(left) || !isNumber(right)) {
+            throw new IllegalArgumentException("Invalid operands for " + operator + ": " + left + ", " + right);
+        }
+
+        if (left instanceof Double || right instanceof Double) {
+            return applyDouble(operator, ((Number) left).doubleValue(), ((Number) right).doubleValue());
+        } else if (left instanceof Float || right instanceof Float) {
+            return (float) applyDouble(operator, ((Number) left).floatValue(), ((Number) right).floatValue());
+        } else if (left instanceof Long || right instanceof Long) {
+            return applyLong(operator, ((Number) left).longValue(), ((Number) right).longValue());
+        } else {
+            return (int) applyLong(operator, (Integer) left, (Integer) right);
+        }
+    }
+
+    private static double applyDouble(final char operator, final double left, final double right) {
+        if (operator == '+') {
+            return left + right;
+        } else if (operator == '-') {
+            return left - right;
+        } else if (operator == '*') {
+            return left * right;
+        } else if (operator == '/') {
+            return left / right;
+        } else {
+            return left % right;
+        }
+    }
+
+    private static long applyLong(final char operator, final long left, final long right) {
+        if (operator == '+') {
+            return left + right;
+        } else if (operator == '-') {
+            return left - right;
+        } else if (operator == '*') {
+            return left * right;
+        } else if (right == 0) {
+            throw new IllegalArgumentException("Integer division by zero: " + left + " " + operator + " " + right);
+        } else if (operator == '/') {
+            return left / right;
+        } else {
+            return left % right;
+        }
+    }
+
+    static boolean isEqual(final Object left, final Object right) {
+        if (left == null || right == null) {
+            return left == right;
+        }
+        if (isNumber(left) && isNumber(right)) {
+            return compareNumbers(left, right) == 0;
+        }
+        if (left instanceof byte[] && right instanceof byte[]) {
+            return Arrays.equals((byte[]) left, (byte[]) right);
+        }
+        return left.equals(right);
+    }
+
+    /**
+     * Returns the result of an ordering comparison, comparisons involving {@code null} are false.
+     *
+     * @param operator
+     *            one of {@link #LESS}, {@link #LESS_OR_EQUAL}, {@link #GREATER}, {@link #GREATER_OR_EQUAL}
+     */
+    static boolean compare(final int operator, final Object left, final Object right) {
+        if (left == null || right == null) {
+            return false;
+        }
+
+        final int result;
+        if (isNumber(left) && isNumber(right)) {
+            result = compareNumbers(left, right);
+        } else if (left instanceof String && right instanceof String) {
+            result = ((String) left).compareTo((String) right);
+        } else {
+            throw new IllegalArgumentException("Cannot compare " + left + " and " + right);
+        }
+
+        if (operator == LESS) {
+            return result < 0;
+        } else if (operator == LESS_OR_EQUAL) {
+            return result <= 0;
+        } else if (operator == GREATER) {
+            return result > 0;
+        } else {
+            return result >= 0;
+        }
+    }
+
+    private static int compareNumbers(final Object left, final Object right) {
+        if (left instanceof Double || right instanceof Double || left instanceof Float || right instanceof Float) {
+            return Double.compare(((Number) left).doubleValue(), ((Number) right).doubleValue());
+        }
+        return Long.compare(((Number) left).longValue(), ((Number) right).longValue());
+    }
+}
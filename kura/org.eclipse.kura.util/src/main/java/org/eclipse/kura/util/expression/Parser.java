@@ -0,0 +1,362 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *******************************************************************************/
+package org.eclipse.kura.util.expression;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.kura.util.expression.Tokenizer.Kind;
+import org.eclipse.kura.util.expression.Tokenizer.Token;
+import org.eclipse.kura.wire.WireRecord;
+
+/**
+ * Recursive descent parser that compiles the source of an expression directly into a tree of {@link Node}s.
+ * Subexpressions whose operands are all constant are evaluated at compile time.
+ */
+final class Parser {
+
+    /**
+     * The statements of a projection program.
+     */
+    static final class Program {
+
+        Node condition;
+        boolean copyAll;
+        final Set<String> excluded = new LinkedHashSet<>();
+        final List<String> assignedNames = new ArrayList<>();
+        final List<Node> assignedValues = new ArrayList<>();
+    }
+
+    private final List<Token> tokens;
+    private final boolean newlineTerminates;
+    private int index;
+
+    private Parser(final String source, final boolean newlineTerminates) {
+        this.tokens = Tokenizer.tokenize(source);
+        this.newlineTerminates = newlineTerminates;
+    }
+
+    static Node parseExpression(final String source) {
+        final Parser parser = new Parser(source, false);
+        final Node result = parser.parseOr();
+        parser.accept(";");
+        parser.expectEnd();
+        return result;
+    }
+
+    static Program parseProgram(final String source) {
+        final Parser parser = new Parser(source, true);
+        final Program program = new Program();
+
+        while (parser.peek().kind != Kind.END) {
+            if (parser.accept(";")) {
+                continue;
+            }
+            parser.parseStatement(program);
+            if (!parser.accept(";") && !parser.peek().newlineBefore) {
+                throw parser.unexpected();
+            }
+        }
+        return program;
+    }
+
+    private void parseStatement(final Program program) {
+        final Token token = peek();
+
+        if (token.kind == Kind.IDENTIFIER && token.is("where")) {
+            next();
+            if (program.condition != null) {
+                throw new IllegalArgumentException("Duplicate where clause at position " + token.position);
+            }
+            program.condition = parseOr();
+        } else if (accept("*")) {
+            program.copyAll = true;
+        } else if (accept("-")) {
+            program.excluded.add(parsePropertyName());
+        } else {
+            final String name = parsePropertyName();
+            expect("=");
+            program.assignedNames.add(name);
+            program.assignedValues.add(parseOr());
+        }
+    }
+
+    private String parsePropertyName() {
+        final Token token = next();
+        if (token.kind == Kind.IDENTIFIER || token.kind == Kind.STRING) {
+            return (String) token.value;
+        }
+        throw unexpected(token);
+    }
+
+    private Node parseOr() {
+        Node result = parseAnd();
+        while (acceptOperator("||")) {
+            final Node left = result;
+            final Node right = parseAnd();
+            result = fold(left, right, (r, rs, p) -> Operators.isTrue(left.evaluate(r, rs, p))
+                    || Operators.isTrue(right.evaluate(r, rs, p)));
+        }
+        return result;
+    }
+
+    private Node parseAnd() {
+        Node result = parseEquality();
+        while (acceptOperator("&&")) {
+            final Node left = result;
+            final Node right = parseEquality();
+            result = fold(left, right, (r, rs, p) -> Operators.isTrue(left.evaluate(r, rs, p))
+                    && Operators.isTrue(right.evaluate(r, rs, p)));
+        }
+        return result;
+    }
+
+    private Node parseEquality() {
+        Node result = parseComparison();
+        while (true) {
+            final boolean equal;
+            if (acceptOperator("==") || acceptOperator("===")) {
+                equal = true;
+            } else if (acceptOperator("!=") || acceptOperator("!==")) {
+                equal = false;
+            } else {
+                return result;
+            }
+            final Node left = result;
+            final Node right = parseComparison();
+            result = fold(left, right,
+                    (r, rs, p) -> Operators.isEqual(left.evaluate(r, rs, p), right.evaluate(r, rs, p)) == equal);
+        }
+    }
+
+    private Node parseComparison() {
+        Node result = parseAdditive();
+        while (true) {
+            final int operator;
+            if (acceptOperator("<")) {
+                operator = Operators.LESS;
+            } else if (acceptOperator("<=")) {
+                operator = Operators.LESS_OR_EQUAL;
+            } else if (acceptOperator(">")) {
+                operator = Operators.GREATER;
+            } else if (acceptOperator(">=")) {
+                operator = Operators.GREATER_OR_EQUAL;
+            } else {
+                return result;
+            }
+            final Node left = result;
+            final Node right = parseAdditive();
+            result = fold(left, right,
+                    (r, rs, p) -> Operators.compare(operator, left.evaluate(r, rs, p), right.evaluate(r, rs, p)));
+        }
+    }
+
+    private Node parseAdditive() {
+        Node result = parseMultiplicative();
+        while (true) {
+            final char operator;
+            if (acceptOperator("+")) {
+                operator = '+';
+            } else if (acceptOperator("-")) {
+                operator = '-';
+            } else {
+                return result;
+            }
+            result = arithmetic(operator, result, parseMultiplicative());
+        }
+    }
+
+    private Node parseMultiplicative() {
+        Node result = parseUnary();
+        while (true) {
+            final char operator;
+            if (acceptOperator("*")) {
+                operator = '*';
+            } else if (acceptOperator("/")) {
+                operator = '/';
+            } else if (acceptOperator("%")) {
+                operator = '%';
+            } else {
+                return result;
+            }
+            result = arithmetic(operator, result, parseUnary());
+        }
+    }
+
+    private Node arithmetic(final char operator, final Node left, final Node right) {
+        return fold(left, right,
+                (r, rs, p) -> Operators.arithmetic(operator, left.evaluate(r, rs, p), right.evaluate(r, rs, p)));
+    }
+
+    private Node parseUnary() {
+        if (accept("!")) {
+            final Node operand = parseUnary();
+            return fold(operand, operand, (r, rs, p) -> !Operators.isTrue(operand.evaluate(r, rs, p)));
+        }
+        if (accept("-")) {
+            final Node operand = parseUnary();
+            return fold(operand, operand, (r, rs, p) -> Operators.negate(operand.evaluate(r, rs, p)));
+        }
+        return parsePrimary();
+    }
+
+    private Node parsePrimary() {
+        final Token token = next();
+
+        if (token.kind == Kind.NUMBER || token.kind == Kind.STRING) {
+            return new Literal(token.value);
+        }
+        if (token.is("(")) {
+            final Node result = parseOr();
+            expect(")");
+            return result;
+        }
+        if (token.kind != Kind.IDENTIFIER) {
+            throw unexpected(token);
+        }
+
+        if (token.is("true")) {
+            return new Literal(Boolean.TRUE);
+        } else if (token.is("false")) {
+            return new Literal(Boolean.FALSE);
+        } else if (token.is("null")) {
+            return new Literal(null);
+        } else if (token.is("emitterPid")) {
+            return (r, rs, p) -> p;
+        } else if (token.is("record")) {
+            return parsePropertyAccess(PropertyNode.CURRENT_RECORD);
+        } else if (token.is("records")) {
+            expect("[");
+            final Token indexToken = next();
+            if (!(indexToken.value instanceof Integer) || (Integer) indexToken.value < 0) {
+                throw new IllegalArgumentException("Invalid record index at position " + indexToken.position);
+            }
+            expect("]");
+            return parsePropertyAccess((Integer) indexToken.value);
+        }
+        return skipGetValue(new PropertyNode(token.text, PropertyNode.CURRENT_RECORD));
+    }
+
+    private Node parsePropertyAccess(final int recordIndex) {
+        if (accept(".")) {
+            final Token name = next();
+            if (name.kind != Kind.IDENTIFIER) {
+                throw unexpected(name);
+            }
+            return skipGetValue(new PropertyNode(name.text, recordIndex));
+        }
+        expect("[");
+        final Token name = next();
+        if (name.kind != Kind.STRING) {
+            throw unexpected(name);
+        }
+        expect("]");
+        return skipGetValue(new PropertyNode((String) name.value, recordIndex));
+    }
+
+    /**
+     * Properties already evaluate to the value of the TypedValue, a trailing {@code .getValue()} is accepted and
+     * ignored so that simple JavaScript conditions keep working without changes.
+     */
+    private Node skipGetValue(final Node property) {
+        if (this.index + 4 < this.tokens.size() && peek().is(".") && this.tokens.get(this.index + 1).is("getValue")
+                && this.tokens.get(this.index + 2).is("(") && this.tokens.get(this.index + 3).is(")")) {
+            this.index += 4;
+        }
+        return property;
+    }
+
+    /**
+     * Replaces an operation on constant operands with its result. An operation that fails is not folded, so that the
+     * error is reported when the operation is evaluated, it may be in a branch that is never evaluated.
+     */
+    private static Node fold(final Node left, final Node right, final Node node) {
+        if (left.isConstant() && right.isConstant()) {
+            try {
+                return new Literal(node.evaluate(null, null, null));
+            } catch (final IllegalArgumentException e) {
+                return node;
+            }
+        }
+        return node;
+    }
+
+    private Token peek() {
+        return this.tokens.get(this.index);
+    }
+
+    private Token next() {
+        final Token token = this.tokens.get(this.index);
+        if (token.kind != Kind.END) {
+            this.index++;
+        }
+        return token;
+    }
+
+    private boolean accept(final String symbol) {
+        if (peek().kind == Kind.SYMBOL && peek().is(symbol)) {
+            this.index++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Accepts a binary operator. In programs a line break terminates a statement, so an operator at the beginning
+     * of a line is not accepted as the continuation of the previous expression.
+     */
+    private boolean acceptOperator(final String symbol) {
+        if (this.newlineTerminates && peek().newlineBefore) {
+            return false;
+        }
+        return accept(symbol);
+    }
+
+    private void expect(final String symbol) {
+        if (!accept(symbol)) {
+            throw unexpected();
+        }
+    }
+
+    private void expectEnd() {
+        if (peek().kind != Kind.END) {
+            throw unexpected();
+        }
+    }
+
+    private IllegalArgumentException unexpected() {
+        return unexpected(peek());
+    }
+
+    private static IllegalArgumentException unexpected(final Token token) {
+        return new IllegalArgumentException("Unexpected " + token + " at position " + token.position);
+    }
+
+    private static final class Literal implements Node {
+
+        private final Object value;
+
+        Literal(final Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public Object evaluate(final WireRecord record, final List<WireRecord> records, final String emitterPid) {
+            return this.value;
+        }
+
+        @Override
+        public boolean isConstant() {
+            return true;
+        }
+    }
+}
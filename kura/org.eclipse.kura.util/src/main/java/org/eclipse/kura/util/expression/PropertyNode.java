@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *******************************************************************************/
+package org.eclipse.kura.util.expression;
+
+import java.util.List;
+
+import org.eclipse.kura.type.DataType;
+import org.eclipse.kura.type.TypedValue;
+import org.eclipse.kura.wire.PrimitiveWireRecord;
+import org.eclipse.kura.wire.WireRecord;
+import org.eclipse.kura.wire.WireRecordSchema;
+
+/**
+ * Reads a property of a record. For {@link PrimitiveWireRecord}s the slot of the property is cached per schema, so
+ * that the value is read without looking up the property name and without creating a {@link TypedValue}.
+ */
+final class PropertyNode implements Node {
+
+    static final int CURRENT_RECORD = -1;
+
+    private final String name;
+    private final int recordIndex;
+
+    private volatile SlotCache slotCache;
+
+    PropertyNode(final String name, final int recordIndex) {
+        this.name = name;
+        this.recordIndex = recordIndex;
+    }
+
+    String getName() {
+        return this.name;
+    }
+
+    @Override
+    public Object evaluate(final WireRecord record, final List<WireRecord> records, final String emitterPid) {
+        final WireRecord target;
+        if (this.recordIndex == CURRENT_RECORD) {
+            target = record;
+        } else {
+            target = this.recordIndex < records.size() ? records.get(this.recordIndex) : null;
+        }
+
+        if (target == null) {
+            return null;
+        }
+        if (target instanceof PrimitiveWireRecord) {
+            return readSlot((PrimitiveWireRecord) target);
+        }
+
+        final TypedValue<?> value = target.getProperties().get(this.name);
+        return value != null ? value.getValue() : null;
+    }
+
+    private Object readSlot(final PrimitiveWireRecord record) {
+        final WireRecordSchema schema = record.getSchema();
+        SlotCache cache = this.slotCache;
+        if (cache == null || cache.schema != schema) {
+            cache = new SlotCache(schema, schema.indexOf(this.name));
+            this.slotCache = cache;
+        }
+
+        final int slot = cache.slot;
+        if (slot < 0 || !record.isSet(slot)) {
+            return null;
+        }
+
+        final DataType type = schema.getType(slot);
+        if (type == DataType.BOOLEAN) {
+            return record.getBoolean(slot);
+        } else if (type == DataType.INTEGER) {
+            return record.getInteger(slot);
+        } else if (type == DataType.LONG) {
+            return record.getLong(slot);
+        } else if (type == DataType.FLOAT) {
+            return record.getFloat(slot);
+        } else if (type == DataType.DOUBLE) {
+            return record.getDouble(slot);
+        } else if (type == DataType.STRING) {
+            return record.getString(slot);
+        } else {
+            return record.getByteArray(slot);
+        }
+    }
+
+    private static final class SlotCache {
+
+        final WireRecordSchema schema;
+        final int slot;
+
+        SlotCache(final WireRecordSchema schema, final int slot) {
+            this.schema = schema;
+            this.slot = slot;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *******************************************************************************/
+package org.eclipse.kura.util.expression;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits the source of an expression into tokens.
+ */
+final class Tokenizer {
+
+    enum Kind {
+        NUMBER,
+        STRING,
+        IDENTIFIER,
+        SYMBOL,
+        END
+    }
+
+    static final class Token {
+
+        final Kind kind;
+        final String text;
+        final Object value;
+        final int position;
+        final boolean newlineBefore;
+
+        Token(final Kind kind, final String text, final Object value, final int position,
+                final boolean newlineBefore) {
+            this.kind = kind;
+            this.text = text;
+            this.value = value;
+            this.position = position;
+            this.newlineBefore = newlineBefore;
+        }
+
+        boolean is(final String symbol) {
+            return (this.kind == Kind.SYMBOL || this.kind == Kind.IDENTIFIER) && this.text.equals(symbol);
+        }
+
+        @Override
+        public String toString() {
+            return this.kind == Kind.END ? "end of input" : "'" + this.text + "'";
+        }
+    }
+
+    private static final String[] SYMBOLS = { "===", "!==", "==", "!=", "<=", ">=", "&&", "||", "<", ">", "+", "-",
+            "*", "/", "%", "!", "(", ")", "[", "]", ".", "=", ";", "," };
+
+    private final String source;
+    private int position;
+
+    private Tokenizer(final String source) {
+        this.source = source;
+    }
+
+    static List<Token> tokenize(final String source) {
+        return new Tokenizer(source).tokenize();
+    }
+
+    private List<Token> tokenize() {
+        final List<Token> tokens = new ArrayList<>();
+        while (true) {
+            final boolean newline = skipWhitespaceAndComments();
+            if (this.position >= this.source.length()) {
+                tokens.add(new Token(Kind.END, "", null, this.position, true));
+                return tokens;
+            }
+            tokens.add(nextToken(newline));
+        }
+    }
+
+    private boolean skipWhitespaceAndComments() {
+        boolean newline = false;
+        while (this.position < this.source.length()) {
+            final char c = this.source.charAt(this.position);
+            if (c == '\n' || c == '\r') {
+                newline = true;
+                this.position++;
+            } else if (Character.isWhitespace(c)) {
+                this.position++;
+            } else if (this.source.startsWith("//", this.position)) {
+                while (this.position < this.source.length() && this.source.charAt(this.position) != '\n') {
+                    this.position++;
+                }
+            } else {
+                break;
+            }
+        }
+        return newline;
+    }
+
+    private Token nextToken(final boolean newline) {
+        final int start = this.position;
+        final char c = this.source.charAt(start);
+
+        if (Character.isDigit(c)) {
+            return readNumber(start, newline);
+        }
+        if (c == '\'' || c == '"') {
+            return readString(start, c, newline);
+        }
+        if (Character.isJavaIdentifierStart(c)) {
+            while (this.position < this.source.length()
+                    && Character.isJavaIdentifierPart(this.source.charAt(this.position))) {
+                this.position++;
+            }
+            final String text = this.source.substring(start, this.position);
+            return new Token(Kind.IDENTIFIER, text, text, start, newline);
+        }
+        for (final String symbol : SYMBOLS) {
+            if (this.source.startsWith(symbol, start)) {
+                this.position += symbol.length();
+                return new Token(Kind.SYMBOL, symbol, null, start, newline);
+            }
+        }
+        throw new IllegalArgumentException("Unexpected character '" + c + "' at position " + start);
+    }
+
+    private Token readNumber(final int start, final boolean newline) {
+        if (this.source.startsWith("0x", start) || this.source.startsWith("0X", start)) {
+            this.position += 2;
+            while (this.position < this.source.length()
+                    && Character.digit(this.source.charAt(this.position), 16) >= 0) {
+                this.position++;
+            }
+            final long value = Long.parseLong(this.source.substring(start + 2, this.position), 16);
+            return numberToken(start, newline, readLongSuffix() || value != (int) value ? (Object) value
+                    : (Object) (int) value);
+        }
+
+        boolean decimal = false;
+        while (this.position < this.source.length()) {
+            final char c = this.source.charAt(this.position);
+            if (Character.isDigit(c)) {
+                this.position++;
+            } else if (c == '.' && !decimal && this.position + 1 < this.source.length()
+                    && Character.isDigit(this.source.charAt(this.position + 1))) {
+                decimal = true;
+                this.position++;
+            } else if ((c == 'e' || c == 'E') && this.position + 1 < this.source.length()) {
+                decimal = true;
+                this.position++;
+                if (this.source.charAt(this.position) == '-' || this.source.charAt(this.position) == '+') {
+                    this.position++;
+                }
+            } else {
+                break;
+            }
+        }
+
+        final String text = this.source.substring(start, this.position);
+        try {
+            if (this.position < this.source.length()
+                    && Character.toLowerCase(this.source.charAt(this.position)) == 'f') {
+                this.position++;
+                return numberToken(start, newline, Float.parseFloat(text));
+            }
+            if (decimal) {
+                return numberToken(start, newline, Double.parseDouble(text));
+            }
+            final long value = Long.parseLong(text);
+            return numberToken(start, newline, readLongSuffix() || value != (int) value ? (Object) value
+                    : (Object) (int) value);
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number '" + text + "' at position " + start, e);
+        }
+    }
+
+    private boolean readLongSuffix() {
+        if (this.position < this.source.length() && Character.toLowerCase(this.source.charAt(this.position)) == 'l') {
+            this.position++;
+            return true;
+        }
+        return false;
+    }
+
+    private Token numberToken(final int start, final boolean newline, final Object value) {
+        return new Token(Kind.NUMBER, this.source.substring(start, this.position), value, start, newline);
+    }
+
+    private Token readString(final int start, final char quote, final boolean newline) {
+        final StringBuilder value = new StringBuilder();
+        this.position++;
+        while (true) {
+            if (this.position >= this.source.length()) {
+                throw new IllegalArgumentException("Unterminated string at position " + start);
+            }
+            final char c = this.source.charAt(this.position++);
+            if (c == quote) {
+                break;
+            }
+            if (c == '\\' && this.position < this.source.length()) {
+                final char escaped = this.source.charAt(this.position++);
+                if (escaped == 'n') {
+                    value.append('\n');
+                } else if (escaped == 't') {
+                    value.append('\t');
+                } else if (escaped == 'r') {
+                    value.append('\r');
+                } else {
+                    value.append(escaped);
+                }
+            } else {
+                value.append(c);
+            }
+        }
+        return new Token(Kind.STRING, this.source.substring(start, this.position), value.toString(), start, newline);
+    }
+}
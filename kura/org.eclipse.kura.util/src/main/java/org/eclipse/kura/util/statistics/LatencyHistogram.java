@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *******************************************************************************/
+package org.eclipse.kura.util.statistics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations with power of two buckets expressed in microseconds. Bucket {@code i} counts
+ * the durations lower than {@code 2^i} microseconds and greater or equal than {@code 2^(i-1)} microseconds, the last
+ * bucket counts all the longer durations.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKET_COUNT = 32;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void record(final long durationNanos) {
+        final long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(durationNanos));
+        final int bucket = Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(micros));
+
+        this.buckets.incrementAndGet(bucket);
+        this.count.incrementAndGet();
+        this.totalMicros.addAndGet(micros);
+
+        long currentMax = this.maxMicros.get();
+        while (micros > currentMax && !this.maxMicros.compareAndSet(currentMax, micros)) {
+            currentMax = this.maxMicros.get();
+        }
+    }
+
+    public long getCount() {
+        return this.count.get();
+    }
+
+    public long getMaxMicros() {
+        return this.maxMicros.get();
+    }
+
+    public long getMeanMicros() {
+        final long currentCount = this.count.get();
+        return currentCount == 0 ? 0 : this.totalMicros.get() / currentCount;
+    }
+
+    /**
+     * Returns an estimate of the given percentile, as the upper bound of the bucket that contains it, capped to the
+     * maximum recorded duration.
+     *
+     * @param percentile
+     *            the percentile, between 0 and 100
+     * @return the estimated percentile in microseconds
+     */
+    public long getPercentileMicros(final double percentile) {
+        final long[] snapshot = getBuckets();
+        long total = 0;
+        for (final long bucketCount : snapshot) {
+            total += bucketCount;
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        final long rank = (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100);
+        long cumulative = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            cumulative += snapshot[i];
+            if (cumulative >= rank && snapshot[i] > 0) {
+                return i == snapshot.length - 1 ? getMaxMicros() : Math.min(1L << i, getMaxMicros());
+            }
+        }
+        return getMaxMicros();
+    }
+
+    public long[] getBuckets() {
+        final long[] result = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            result[i] = this.buckets.get(i);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "count: " + getCount() + ", mean: " + getMeanMicros() + " us, p50: " + getPercentileMicros(50)
+                + " us, p99: " + getPercentileMicros(99) + " us, max: " + getMaxMicros() + " us";
+    }
+}
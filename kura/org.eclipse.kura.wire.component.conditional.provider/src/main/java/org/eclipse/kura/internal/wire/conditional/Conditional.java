@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -27,6 +27,7 @@ import javax.script.ScriptEngine;
 import javax.script.ScriptException;
 
 import org.eclipse.kura.configuration.ConfigurableComponent;
+import org.eclipse.kura.util.expression.CompiledExpression;
 import org.eclipse.kura.wire.WireComponent;
 import org.eclipse.kura.wire.WireEmitter;
 import org.eclipse.kura.wire.WireEnvelope;
@@ -37,7 +38,6 @@ import org.eclipse.kura.wire.graph.EmitterPort;
 import org.eclipse.kura.wire.graph.MultiportWireSupport;
 import org.osgi.framework.ServiceReference;
 import org.osgi.service.component.ComponentContext;
-import org.osgi.service.component.ComponentException;
 import org.osgi.service.wireadmin.Wire;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,7 +46,9 @@ import jdk.nashorn.api.scripting.NashornScriptEngineFactory;
 
 /**
  * The Class Conditional is a specific Wire Component to apply a condition
- * on the received {@link WireEnvelope}
+ * on the received {@link WireEnvelope}. The condition is either a JavaScript
+ * snippet evaluated by Nashorn, or an expression compiled with
+ * {@link CompiledExpression} that is evaluated without holding the component lock.
  */
 public final class Conditional implements WireReceiver, WireEmitter, ConfigurableComponent {
 
@@ -64,6 +66,7 @@ public final class Conditional implements WireReceiver, WireEmitter, Configurabl
 
     private ConditionalOptions conditionalOptions;
     private Optional<CompiledScript> script = Optional.empty();
+    private volatile CompiledExpression expression;
 
     public void bindWireHelperService(final WireHelperService wireHelperService) {
         if (isNull(this.wireHelperService)) {
@@ -87,13 +90,6 @@ public final class Conditional implements WireReceiver, WireEmitter, Configurabl
         this.thenPort = emitterPorts.get(0);
         this.elsePort = emitterPorts.get(1);
 
-        this.scriptEngine = createEngine();
-        this.bindings = createBindings();
-
-        if (this.scriptEngine == null) {
-            throw new ComponentException("Error Getting Conditional Script Engine");
-        }
-
         updated(properties);
         logger.info("Activating Conditional component...done");
     }
@@ -101,11 +97,16 @@ public final class Conditional implements WireReceiver, WireEmitter, Configurabl
     public synchronized void updated(final Map<String, Object> properties) {
         logger.info("Updating Conditional component...");
         this.conditionalOptions = new ConditionalOptions(properties);
+        this.expression = null;
+        this.script = Optional.empty();
         try {
-            this.script = Optional.of(tryCompileScript(this.conditionalOptions.getBooleanExpression()));
+            if (this.conditionalOptions.isExpressionLanguage()) {
+                this.expression = CompiledExpression.compile(this.conditionalOptions.getBooleanExpression());
+            } else {
+                this.script = Optional.of(tryCompileScript(this.conditionalOptions.getBooleanExpression()));
+            }
         } catch (Exception e) {
             logger.warn("Failed to compile boolean expression", e);
-            this.script = Optional.empty();
         }
         logger.info("Updating Conditional component...done");
     }
@@ -118,9 +119,24 @@ public final class Conditional implements WireReceiver, WireEmitter, Configurabl
 
     /** {@inheritDoc} */
     @Override
-    public synchronized void onWireReceive(final WireEnvelope wireEnvelope) {
+    public void onWireReceive(final WireEnvelope wireEnvelope) {
         requireNonNull(wireEnvelope, "Wire Envelope cannot be null");
 
+        final CompiledExpression currentExpression = this.expression;
+
+        if (currentExpression == null) {
+            evaluateScript(wireEnvelope);
+            return;
+        }
+
+        try {
+            forward(wireEnvelope, currentExpression.evaluate(wireEnvelope));
+        } catch (Exception e) {
+            logger.warn("Exception while performing decision.", e);
+        }
+    }
+
+    private synchronized void evaluateScript(final WireEnvelope wireEnvelope) {
         try {
 
             if (!this.script.isPresent()) {
@@ -138,26 +154,32 @@ public final class Conditional implements WireReceiver, WireEmitter, Configurabl
             this.bindings.put("records", wireRecordList);
             this.bindings.put("emitterPid", emitterPid);
 
-            final Object decision = this.script.get().eval(this.bindings);
+            forward(wireEnvelope, this.script.get().eval(this.bindings));
+        } catch (Exception e) {
+            logger.warn("Exception while performing decision.", e);
+        }
+    }
 
-            if (!(decision instanceof Boolean)) {
-                logger.warn("Expression result is not a boolean: {}", decision);
-                return;
-            }
+    private void forward(final WireEnvelope wireEnvelope, final Object decision) {
+        if (!(decision instanceof Boolean)) {
+            logger.warn("Expression result is not a boolean: {}", decision);
+            return;
+        }
 
-            final WireEnvelope outputEnvelope = this.wireSupport.createWireEnvelope(inputRecords);
+        final WireEnvelope outputEnvelope = this.wireSupport.createWireEnvelope(wireEnvelope.getRecords());
 
-            if ((Boolean) decision) {
-                this.thenPort.emit(outputEnvelope);
-            } else {
-                this.elsePort.emit(outputEnvelope);
-            }
-        } catch (Exception e) {
-            logger.warn("Exception while performing decision.", e);
+        if ((Boolean) decision) {
+            this.thenPort.emit(outputEnvelope);
+        } else {
+            this.elsePort.emit(outputEnvelope);
         }
     }
 
     private CompiledScript tryCompileScript(final String script) throws ScriptException {
+        if (this.scriptEngine == null) {
+            this.scriptEngine = createEngine();
+            this.bindings = createBindings();
+        }
         final Compilable engine = ((Compilable) this.scriptEngine);
         return engine.compile(script);
     }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -21,6 +21,10 @@ import javax.script.ScriptException;
 public class ConditionalOptions {
 
     private static final String CONDITION_PROPERTY_KEY = "condition";
+    private static final String CONDITION_LANGUAGE_PROPERTY_KEY = "condition.language";
+
+    static final String LANGUAGE_JAVASCRIPT = "JAVASCRIPT";
+    static final String LANGUAGE_EXPRESSION = "EXPRESSION";
 
     private static final String DEFAULT_CONDITION = "records[0].TIMER !== null && "
             + "records[0].TIMER.getValue() > 10 && records[0]['TIMER'].getValue() < 30;";
@@ -42,4 +46,8 @@ public class ConditionalOptions {
         return (String) booleanExpression;
     }
 
+    boolean isExpressionLanguage() {
+        return LANGUAGE_EXPRESSION.equals(this.properties.get(CONDITION_LANGUAGE_PROPERTY_KEY));
+    }
+
 }
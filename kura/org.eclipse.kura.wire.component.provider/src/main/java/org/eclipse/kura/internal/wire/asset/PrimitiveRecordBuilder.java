@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *******************************************************************************/
+package org.eclipse.kura.internal.wire.asset;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.kura.channel.ChannelFlag;
+import org.eclipse.kura.channel.ChannelRecord;
+import org.eclipse.kura.type.DataType;
+import org.eclipse.kura.type.TypedValue;
+import org.eclipse.kura.wire.PrimitiveWireRecord;
+import org.eclipse.kura.wire.WireRecord;
+import org.eclipse.kura.wire.WireRecordSchema;
+
+/**
+ * Builds {@link PrimitiveWireRecord}s for a fixed list of channel records, producing the same properties as
+ * {@link Utils#toWireRecordProperties(List, WireAssetOptions)}. The schema is computed once from the channel names and
+ * value types, and each emit only fills the slots.
+ */
+final class PrimitiveRecordBuilder {
+
+    private static final int NO_SLOT = -1;
+
+    private final DataType[] valueTypes;
+    private final int[] valueSlots;
+    private final int[] timestampSlots;
+    private final int[] errorSlots;
+    private final int singleTimestampSlot;
+    private final int assetNameSlot;
+    private final TimestampMode timestampMode;
+    private final PrimitiveWireRecord.Builder builder;
+
+    private PrimitiveRecordBuilder(final List<ChannelRecord> records, final WireAssetOptions options) {
+        final Map<String, DataType> properties = new LinkedHashMap<>();
+        final int count = records.size();
+
+        this.timestampMode = options.getTimestampMode();
+        this.valueTypes = new DataType[count];
+        this.valueSlots = new int[count];
+        this.timestampSlots = new int[count];
+        this.errorSlots = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            final ChannelRecord record = records.get(i);
+            this.valueTypes[i] = record.getValueType();
+            this.valueSlots[i] = putUnique(properties, record.getChannelName(), record.getValueType());
+            this.timestampSlots[i] = this.timestampMode == TimestampMode.PER_CHANNEL ? putUnique(properties,
+                    record.getChannelName() + WireAssetConstants.PROP_SUFFIX_TIMESTAMP.value(), DataType.LONG)
+                    : NO_SLOT;
+            this.errorSlots[i] = options.emitErrors() ? putUnique(properties,
+                    record.getChannelName() + WireAssetConstants.PROP_SUFFIX_ERROR.value(), DataType.STRING) : NO_SLOT;
+        }
+
+        if (this.timestampMode == TimestampMode.SINGLE_ASSET_GENERATED
+                || this.timestampMode == TimestampMode.SINGLE_DRIVER_GENERATED_MAX
+                || this.timestampMode == TimestampMode.SINGLE_DRIVER_GENERATED_MIN) {
+            this.singleTimestampSlot = putUnique(properties, WireAssetConstants.PROP_SINGLE_TIMESTAMP_NAME.value(),
+                    DataType.LONG);
+        } else {
+            this.singleTimestampSlot = NO_SLOT;
+        }
+        this.assetNameSlot = putUnique(properties, WireAssetConstants.PROP_ASSET_NAME.value(), DataType.STRING);
+
+        this.builder = PrimitiveWireRecord.builder(WireRecordSchema.of(properties));
+    }
+
+    /**
+     * Creates a builder for the provided channel records.
+     *
+     * @return the builder, or {@code null} if the properties of the records cannot be represented with a fixed schema,
+     *         for example because of a property name generated by two different channels
+     */
+    static PrimitiveRecordBuilder create(final List<ChannelRecord> records, final WireAssetOptions options) {
+        try {
+            return new PrimitiveRecordBuilder(records, options);
+        } catch (final IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static int putUnique(final Map<String, DataType> properties, final String name, final DataType type) {
+        if (properties.putIfAbsent(name, type) != null) {
+            throw new IllegalArgumentException("Duplicate property name: " + name);
+        }
+        return properties.size() - 1;
+    }
+
+    /**
+     * Builds the record for the provided channel records, that must be the ones this builder has been created for.
+     *
+     * @return the record, or {@code null} if the value of a channel does not match the expected type
+     */
+    synchronized WireRecord build(final List<ChannelRecord> records, final String assetName) {
+        long minTimestamp = Long.MAX_VALUE;
+        long maxTimestamp = 0;
+
+        for (int i = 0; i < this.valueTypes.length; i++) {
+            final ChannelRecord record = records.get(i);
+            final boolean success = record.getChannelStatus().getChannelFlag() == ChannelFlag.SUCCESS;
+
+            if (success) {
+                final TypedValue<?> value = record.getValue();
+                if (value == null || value.getType() != this.valueTypes[i]) {
+                    // discard the slots filled so far
+                    this.builder.build();
+                    return null;
+                }
+                this.builder.setValue(this.valueSlots[i], value);
+            }
+            if (this.timestampSlots[i] != NO_SLOT) {
+                this.builder.setLong(this.timestampSlots[i], record.getTimestamp());
+            }
+            if (this.errorSlots[i] != NO_SLOT) {
+                this.builder.setString(this.errorSlots[i], success ? WireAssetConstants.PROP_VALUE_NO_ERROR.value()
+                        : RecordFillers.getErrorMessage(record.getChannelStatus()));
+            }
+            minTimestamp = Math.min(minTimestamp, record.getTimestamp());
+            maxTimestamp = Math.max(maxTimestamp, record.getTimestamp());
+        }
+
+        if (this.singleTimestampSlot != NO_SLOT) {
+            final long timestamp;
+            if (this.timestampMode == TimestampMode.SINGLE_DRIVER_GENERATED_MAX) {
+                timestamp = maxTimestamp;
+            } else if (this.timestampMode == TimestampMode.SINGLE_DRIVER_GENERATED_MIN) {
+                timestamp = minTimestamp;
+            } else {
+                timestamp = System.currentTimeMillis();
+            }
+            this.builder.setLong(this.singleTimestampSlot, timestamp);
+        }
+        if (assetName != null) {
+            this.builder.setString(this.assetNameSlot, assetName);
+        }
+
+        return this.builder.build();
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2018, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -74,6 +74,23 @@ public final class RecordFillers {
         }
     }
 
+    static String getErrorMessage(final ChannelStatus channelStatus) {
+        if (channelStatus.getChannelFlag() == ChannelFlag.SUCCESS) {
+            return WireAssetConstants.PROP_VALUE_NO_ERROR.value();
+        }
+        String errorMessage = WireAssetConstants.ERROR_NOT_SPECIFIED_MESSAGE.value();
+        final Exception exception = channelStatus.getException();
+        final String exceptionMsg = channelStatus.getExceptionMessage();
+        if (nonNull(exception) && nonNull(exceptionMsg)) {
+            errorMessage = exceptionMsg + " " + exception.toString();
+        } else if (isNull(exception) && nonNull(exceptionMsg)) {
+            errorMessage = exceptionMsg;
+        } else if (nonNull(exception)) {
+            errorMessage = exception.toString();
+        }
+        return errorMessage;
+    }
+
     private static class ValueFiller implements RecordFiller {
 
         private final String valueKey;
@@ -104,23 +121,6 @@ public final class RecordFillers {
             envelopeProperties.put(this.errorKey,
                     TypedValues.newStringValue(getErrorMessage(record.getChannelStatus())));
         }
-
-        private String getErrorMessage(final ChannelStatus channelStatus) {
-            if (channelStatus.getChannelFlag() == ChannelFlag.SUCCESS) {
-                return WireAssetConstants.PROP_VALUE_NO_ERROR.value();
-            }
-            String errorMessage = WireAssetConstants.ERROR_NOT_SPECIFIED_MESSAGE.value();
-            final Exception exception = channelStatus.getException();
-            final String exceptionMsg = channelStatus.getExceptionMessage();
-            if (nonNull(exception) && nonNull(exceptionMsg)) {
-                errorMessage = exceptionMsg + " " + exception.toString();
-            } else if (isNull(exception) && nonNull(exceptionMsg)) {
-                errorMessage = exceptionMsg;
-            } else if (nonNull(exception)) {
-                errorMessage = exception.toString();
-            }
-            return errorMessage;
-        }
     }
 
     private static class TimestampFiller implements RecordFiller {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2016, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -290,22 +290,37 @@ public final class WireAsset extends BaseAsset implements WireEmitter, WireRecei
             throw new IllegalArgumentException("Channel Records cannot be empty");
         }
 
-        final Map<String, TypedValue<?>> wireRecordProperties;
-
-        if (this.preparedEmit != null) {
-            wireRecordProperties = this.preparedEmit.execute(channelRecords);
-        } else {
-            wireRecordProperties = Utils.toWireRecordProperties(channelRecords, this.options);
-        }
-
+        String assetName = null;
         try {
-            wireRecordProperties.put(WireAssetConstants.PROP_ASSET_NAME.value(),
-                    TypedValues.newStringValue(getKuraServicePid()));
+            assetName = getKuraServicePid();
         } catch (KuraException e) {
             logger.error("Configurations cannot be null", e);
         }
 
-        this.wireSupport.emit(Collections.singletonList(new WireRecord(wireRecordProperties)));
+        final PreparedEmit currentPreparedEmit = this.preparedEmit;
+        WireRecord wireRecord = null;
+
+        if (currentPreparedEmit != null) {
+            wireRecord = currentPreparedEmit.executePrimitive(channelRecords, assetName);
+        }
+
+        if (wireRecord == null) {
+            final Map<String, TypedValue<?>> wireRecordProperties;
+
+            if (currentPreparedEmit != null) {
+                wireRecordProperties = currentPreparedEmit.execute(channelRecords);
+            } else {
+                wireRecordProperties = Utils.toWireRecordProperties(channelRecords, this.options);
+            }
+
+            if (assetName != null) {
+                wireRecordProperties.put(WireAssetConstants.PROP_ASSET_NAME.value(),
+                        TypedValues.newStringValue(assetName));
+            }
+            wireRecord = new WireRecord(wireRecordProperties);
+        }
+
+        this.wireSupport.emit(Collections.singletonList(wireRecord));
     }
 
     /**
@@ -414,10 +429,25 @@ public final class WireAsset extends BaseAsset implements WireEmitter, WireRecei
 
         private final List<ChannelRecord> preparedRecords;
         private final List<RecordFiller> recordFillers;
+        private final PrimitiveRecordBuilder primitiveRecordBuilder;
 
         PreparedEmit(final List<ChannelRecord> records) {
             this.preparedRecords = records;
             this.recordFillers = RecordFillers.create(this.preparedRecords, WireAsset.this.options);
+            this.primitiveRecordBuilder = PrimitiveRecordBuilder.create(this.preparedRecords, WireAsset.this.options);
+        }
+
+        /**
+         * Builds a {@link org.eclipse.kura.wire.PrimitiveWireRecord} whose schema is shared by all the records
+         * emitted using the same prepared read.
+         *
+         * @return the record, or {@code null} if the caller must fall back to {@link #execute(List)}
+         */
+        WireRecord executePrimitive(final List<ChannelRecord> channelRecords, final String assetName) {
+            if (channelRecords != this.preparedRecords || this.primitiveRecordBuilder == null) {
+                return null;
+            }
+            return this.primitiveRecordBuilder.build(channelRecords, assetName);
         }
 
         Map<String, TypedValue<?>> execute(final List<ChannelRecord> channelRecords) {
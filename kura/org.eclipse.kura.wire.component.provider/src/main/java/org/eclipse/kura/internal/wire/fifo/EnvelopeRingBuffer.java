@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Eurotech
+ *
+ *******************************************************************************/
+package org.eclipse.kura.internal.wire.fifo;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.eclipse.kura.wire.WireEnvelope;
+
+/**
+ * A bounded, lock-free, multiple producers single consumer queue of {@link WireEnvelope}s backed by a ring buffer.
+ * <p>
+ * Each slot of the ring has a sequence number that tells producers whether the slot is free for the current lap and
+ * tells the consumer whether the slot has been published. Producers only contend on the tail counter, the consumer
+ * never writes shared counters other than the slot sequences.
+ */
+final class EnvelopeRingBuffer {
+
+    private final int capacity;
+    private final AtomicReferenceArray<WireEnvelope> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+
+    // only written by the consumer
+    private volatile long head;
+
+    EnvelopeRingBuffer(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than zero");
+        }
+        this.capacity = capacity;
+        this.elements = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            this.sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an envelope to the queue, can be called by multiple threads concurrently.
+     *
+     * @param envelope
+     *            the envelope
+     * @return true if the envelope has been added, false if the queue is full
+     */
+    boolean offer(final WireEnvelope envelope) {
+        long position = this.tail.get();
+        for (;;) {
+            final int index = (int) (position % this.capacity);
+            final long difference = this.sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    this.elements.lazySet(index, envelope);
+                    this.sequences.set(index, position + 1);
+                    return true;
+                }
+                position = this.tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = this.tail.get();
+            }
+        }
+    }
+
+    /**
+     * Moves up to {@code maxElements} envelopes to the provided list, must be called by a single consumer thread.
+     *
+     * @param target
+     *            the target list
+     * @param maxElements
+     *            the maximum number of envelopes to move
+     * @return the number of moved envelopes
+     */
+    int drainTo(final List<WireEnvelope> target, final int maxElements) {
+        long position = this.head;
+        int count = 0;
+
+        while (count < maxElements) {
+            final int index = (int) (position % this.capacity);
+            if (this.sequences.get(index) != position + 1) {
+                break;
+            }
+            target.add(this.elements.get(index));
+            this.elements.lazySet(index, null);
+            this.sequences.set(index, position + this.capacity);
+            position++;
+            count++;
+        }
+
+        this.head = position;
+        return count;
+    }
+
+    boolean isEmpty() {
+        return this.sequences.get((int) (this.head % this.capacity)) != this.head + 1;
+    }
+
+    /**
+     * Returns an estimate of the number of envelopes in the queue.
+     *
+     * @return the number of envelopes
+     */
+    int size() {
+        final long size = this.tail.get() - this.head;
+        return (int) Math.max(0, Math.min(this.capacity, size));
+    }
+
+    int capacity() {
+        return this.capacity;
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -16,11 +16,15 @@ import static java.util.Objects.isNull;
 import static java.util.Objects.requireNonNull;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.function.Consumer;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -41,12 +45,14 @@ public class Fifo implements WireEmitter, WireReceiver, ConfigurableComponent {
     private static final String DISCARD_ENVELOPES_PROP_NAME = "discard.envelopes";
     private static final String QUEUE_CAPACITY_PROP_NAME = "queue.capacity";
 
+    private static final int MAX_ENVELOPES_PER_WAKEUP = 32;
+
     private static final Logger logger = LogManager.getLogger(Fifo.class);
 
     private volatile WireHelperService wireHelperService;
     private WireSupport wireSupport;
 
-    private FifoEmitterThread emitterThread;
+    private volatile FifoEmitterThread emitterThread;
 
     public void bindWireHelperService(final WireHelperService wireHelperService) {
         if (isNull(this.wireHelperService)) {
@@ -87,9 +93,31 @@ public class Fifo implements WireEmitter, WireReceiver, ConfigurableComponent {
         logger.info("Updating Fifo... Done");
     }
 
+    /**
+     * Returns the number of envelopes currently waiting in the queue.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        final FifoEmitterThread thread = this.emitterThread;
+        return thread != null ? thread.queue.size() : 0;
+    }
+
+    /**
+     * Returns the number of envelopes discarded because the queue was full, since the last configuration update.
+     *
+     * @return the number of discarded envelopes
+     */
+    public long getDroppedEnvelopeCount() {
+        final FifoEmitterThread thread = this.emitterThread;
+        return thread != null ? thread.droppedCount.get() : 0;
+    }
+
     private synchronized void stopEmitterThread() {
         if (this.emitterThread != null) {
             this.emitterThread.shutdown();
+            logger.info("Fifo {} stopped, dropped envelopes: {}", this.emitterThread.getName(),
+                    this.emitterThread.droppedCount.get());
             this.emitterThread = null;
         }
     }
@@ -106,8 +134,9 @@ public class Fifo implements WireEmitter, WireReceiver, ConfigurableComponent {
     @Override
     public void onWireReceive(WireEnvelope wireEnvelope) {
         requireNonNull(wireEnvelope, "Wire Envelope cannot be null");
-        if (this.emitterThread != null) {
-            this.emitterThread.submit(wireEnvelope);
+        final FifoEmitterThread thread = this.emitterThread;
+        if (thread != null) {
+            thread.submit(wireEnvelope);
         }
     }
 
@@ -131,106 +160,131 @@ public class Fifo implements WireEmitter, WireReceiver, ConfigurableComponent {
         this.wireSupport.producersConnected(wires);
     }
 
+    /**
+     * Delivers the envelopes enqueued in a lock-free {@link EnvelopeRingBuffer}. The emitter thread drains several
+     * envelopes per wakeup and parks only if the queue is empty. Producers take a lock only if the queue is full and
+     * envelopes must not be discarded.
+     */
     private class FifoEmitterThread extends Thread {
 
-        private final Lock lock = new ReentrantLock();
+        private final EnvelopeRingBuffer queue;
+        private final boolean discardEnvelopes;
 
-        private final Condition producer = this.lock.newCondition();
-        private final Condition consumer = this.lock.newCondition();
+        private final Lock lock = new ReentrantLock();
+        private final Condition notFull = this.lock.newCondition();
+        private final AtomicInteger waitingProducers = new AtomicInteger();
 
-        private boolean run = true;
-        private final ArrayList<WireEnvelope> queue;
-        private final int queueCapacity;
+        private final AtomicLong droppedCount = new AtomicLong();
 
-        private Consumer<WireEnvelope> submitter;
+        private volatile boolean run = true;
+        private volatile boolean consumerWaiting;
 
         public FifoEmitterThread(String threadName, int queueCapacity, boolean discardEnvelopes) {
-            this.queue = new ArrayList<>();
-            this.queueCapacity = queueCapacity;
+            this.queue = new EnvelopeRingBuffer(Math.max(1, queueCapacity));
+            this.discardEnvelopes = discardEnvelopes;
             setName(threadName);
-            if (discardEnvelopes) {
-                this.submitter = getEnvelopeDiscardingSubmitter();
+        }
+
+        public void shutdown() {
+            this.run = false;
+            LockSupport.unpark(this);
+            try {
+                this.lock.lock();
+                this.notFull.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        public void submit(WireEnvelope envelope) {
+            if (!this.run) {
+                return;
+            }
+            if (this.queue.offer(envelope)) {
+                logger.debug("envelope submitted");
+                wakeUpConsumer();
+            } else if (this.discardEnvelopes) {
+                this.droppedCount.incrementAndGet();
+                logger.debug("envelope discarded");
             } else {
-                this.submitter = getEmitterBlockingSubmitter();
+                submitBlocking(envelope);
             }
         }
 
-        private Consumer<WireEnvelope> getEnvelopeDiscardingSubmitter() {
-            return (envelope) -> {
+        private void submitBlocking(WireEnvelope envelope) {
+            try {
+                this.lock.lock();
+                this.waitingProducers.incrementAndGet();
                 try {
-                    this.lock.lock();
-                    if (!this.run || this.queue.size() >= this.queueCapacity) {
-                        logger.debug("envelope discarded");
-                        return;
-                    } else {
-                        this.queue.add(envelope);
-                        this.producer.signal();
-                        logger.debug("envelope submitted");
+                    while (this.run && !this.queue.offer(envelope)) {
+                        this.notFull.await();
                     }
                 } finally {
-                    this.lock.unlock();
+                    this.waitingProducers.decrementAndGet();
                 }
-            };
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted while adding new envelope to queue", e);
+                return;
+            } finally {
+                this.lock.unlock();
+            }
+            if (this.run) {
+                logger.debug("envelope submitted");
+                wakeUpConsumer();
+            }
+        }
+
+        private void wakeUpConsumer() {
+            if (this.consumerWaiting) {
+                LockSupport.unpark(this);
+            }
         }
 
-        private Consumer<WireEnvelope> getEmitterBlockingSubmitter() {
-            return (envelope) -> {
+        private void wakeUpProducers() {
+            if (this.waitingProducers.get() > 0) {
                 try {
                     this.lock.lock();
-                    while (this.run && this.queue.size() >= this.queueCapacity) {
-                        this.consumer.await();
-                    }
-                    if (!this.run) {
-                        return;
-                    }
-                    this.queue.add(envelope);
-                    this.producer.signal();
-                    logger.debug("envelope submitted");
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    logger.warn("Interrupted while adding new envelope to queue", e);
+                    this.notFull.signalAll();
                 } finally {
                     this.lock.unlock();
                 }
-            };
+            }
         }
 
-        public void shutdown() {
+        private void awaitEnvelopes() {
+            this.consumerWaiting = true;
             try {
-                this.lock.lock();
-                this.run = false;
-                this.producer.signalAll();
-                this.consumer.signalAll();
+                while (this.run && this.queue.isEmpty()) {
+                    LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+                }
             } finally {
-                this.lock.unlock();
+                this.consumerWaiting = false;
             }
         }
 
-        public void submit(WireEnvelope envelope) {
-            this.submitter.accept(envelope);
-        }
-
         @Override
         public void run() {
+            final List<WireEnvelope> batch = new ArrayList<>(MAX_ENVELOPES_PER_WAKEUP);
+
             while (this.run) {
                 try {
-                    WireEnvelope next = null;
-                    try {
-                        this.lock.lock();
-                        while (this.run && this.queue.isEmpty()) {
-                            this.producer.await();
-                        }
+                    if (this.queue.drainTo(batch, MAX_ENVELOPES_PER_WAKEUP) == 0) {
+                        awaitEnvelopes();
+                        continue;
+                    }
+                    wakeUpProducers();
+
+                    for (final WireEnvelope next : batch) {
                         if (!this.run) {
                             break;
                         }
-                        next = this.queue.remove(0);
-                        this.consumer.signal();
-                    } finally {
-                        this.lock.unlock();
+                        Fifo.this.wireSupport.emit(next.getRecords());
                     }
-                    Fifo.this.wireSupport.emit(next.getRecords());
                 } catch (Exception e) {
                     logger.warn("Unexpected exception while dispatching envelope", e);
+                } finally {
+                    batch.clear();
                 }
             }
             logger.debug("exiting");
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2016, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -19,12 +19,19 @@ import static java.util.Objects.requireNonNull;
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -35,13 +42,17 @@ import org.eclipse.kura.message.KuraPosition;
 import org.eclipse.kura.position.NmeaPosition;
 import org.eclipse.kura.position.PositionService;
 import org.eclipse.kura.type.ByteArrayValue;
+import org.eclipse.kura.type.DataType;
 import org.eclipse.kura.type.StringValue;
 import org.eclipse.kura.type.TypedValue;
+import org.eclipse.kura.wire.PrimitiveWireRecord;
 import org.eclipse.kura.wire.WireComponent;
 import org.eclipse.kura.wire.WireEnvelope;
 import org.eclipse.kura.wire.WireHelperService;
 import org.eclipse.kura.wire.WireReceiver;
 import org.eclipse.kura.wire.WireRecord;
+import org.eclipse.kura.wire.WireRecordBatch;
+import org.eclipse.kura.wire.WireRecordSchema;
 import org.eclipse.kura.wire.WireSupport;
 import org.osgi.framework.ServiceReference;
 import org.osgi.service.component.ComponentContext;
@@ -54,7 +65,11 @@ import org.osgi.service.wireadmin.Wire;
  * <br/>
  *
  * For every {@link WireRecord} as found in {@link WireEnvelope} will be wrapped inside a Kura
- * Payload and will be sent to the Cloud Platform.
+ * Payload and will be sent to the Cloud Platform.<br/>
+ * <br/>
+ *
+ * If batched publishing is enabled, the records of an envelope, or of all the envelopes received in the configured
+ * time window, are published in a single Kura Payload encoded as a {@link WireRecordBatch}.
  */
 public final class CloudPublisher implements WireReceiver, ConfigurableComponent {
 
@@ -71,6 +86,12 @@ public final class CloudPublisher implements WireReceiver, ConfigurableComponent
 
     private org.eclipse.kura.cloudconnection.publisher.CloudPublisher cloudConnectionPublisher;
 
+    private final List<WireRecord> pendingRecords = new ArrayList<>();
+    private final List<Long> pendingTimestamps = new ArrayList<>();
+
+    private ScheduledExecutorService batchExecutor;
+    private ScheduledFuture<?> batchFlushTask;
+
     // ----------------------------------------------------------------
     //
     // Dependencies
@@ -139,6 +160,9 @@ public final class CloudPublisher implements WireReceiver, ConfigurableComponent
         // Update properties
         this.cloudPublisherOptions = new CloudPublisherOptions(properties);
 
+        // publish the records collected with the previous configuration
+        flushPendingRecords();
+
         logger.debug("Updating Cloud Publisher Wire Component... Done");
     }
 
@@ -151,6 +175,14 @@ public final class CloudPublisher implements WireReceiver, ConfigurableComponent
     protected void deactivate(final ComponentContext componentContext) {
         logger.debug("Deactivating Cloud Publisher Wire Component...");
 
+        flushPendingRecords();
+        synchronized (this) {
+            if (this.batchExecutor != null) {
+                this.batchExecutor.shutdown();
+                this.batchExecutor = null;
+            }
+        }
+
         logger.debug("Deactivating Cloud Publisher Wire Component... Done");
     }
 
@@ -161,7 +193,11 @@ public final class CloudPublisher implements WireReceiver, ConfigurableComponent
 
         if (nonNull(this.cloudConnectionPublisher)) {
             final List<WireRecord> records = wireEnvelope.getRecords();
-            publish(records);
+            if (this.cloudPublisherOptions.isBatchEnabled()) {
+                enqueueBatch(records);
+            } else {
+                publish(records);
+            }
         }
     }
 
@@ -205,8 +241,18 @@ public final class CloudPublisher implements WireReceiver, ConfigurableComponent
 
         final Map<String, TypedValue<?>> wireRecordProperties = wireRecord.getProperties();
 
-        for (final Entry<String, TypedValue<?>> entry : wireRecordProperties.entrySet()) {
-            kuraPayload.addMetric(entry.getKey(), entry.getValue().getValue());
+        if (wireRecord instanceof PrimitiveWireRecord) {
+            final PrimitiveWireRecord primitiveRecord = (PrimitiveWireRecord) wireRecord;
+            final WireRecordSchema schema = primitiveRecord.getSchema();
+            for (int slot = 0; slot < schema.size(); slot++) {
+                if (primitiveRecord.isSet(slot)) {
+                    kuraPayload.addMetric(schema.getName(slot), getSlotValue(primitiveRecord, slot));
+                }
+            }
+        } else {
+            for (final Entry<String, TypedValue<?>> entry : wireRecordProperties.entrySet()) {
+                kuraPayload.addMetric(entry.getKey(), entry.getValue().getValue());
+            }
         }
 
         final Optional<String> bodyProperty = this.cloudPublisherOptions.getBodyProperty();
@@ -278,14 +324,176 @@ public final class CloudPublisher implements WireReceiver, ConfigurableComponent
         }
     }
 
-    private Map<String, Object> buildKuraMessageProperties(final WireRecord wireRecord) {
-        Map<String, TypedValue<?>> wireRecordProps = wireRecord.getProperties();
+    /**
+     * Publishes the provided {@link WireRecord}s in batches, or collects them if a batch window is configured
+     *
+     * @param wireRecords
+     *            the provided list of {@link WireRecord}s
+     */
+    private void enqueueBatch(final List<WireRecord> wireRecords) {
+        requireNonNull(wireRecords, "Wire Records cannot be null");
+
+        final long now = System.currentTimeMillis();
+        final int batchWindow = this.cloudPublisherOptions.getBatchWindow();
+        final int maxRecords = this.cloudPublisherOptions.getBatchMaxRecords();
+
+        if (batchWindow == 0) {
+            final long[] timestamps = new long[wireRecords.size()];
+            Arrays.fill(timestamps, now);
+            publishBatch(wireRecords, timestamps, maxRecords);
+            return;
+        }
+
+        synchronized (this) {
+            for (final WireRecord wireRecord : wireRecords) {
+                this.pendingRecords.add(wireRecord);
+                this.pendingTimestamps.add(now);
+                if (this.pendingRecords.size() >= maxRecords) {
+                    flushPendingRecords();
+                }
+            }
+
+            if (!this.pendingRecords.isEmpty() && this.batchFlushTask == null) {
+                if (this.batchExecutor == null) {
+                    final String pid = this.cloudPublisherOptions.getOwnPid();
+                    this.batchExecutor = Executors.newSingleThreadScheduledExecutor(getThreadFactory(pid));
+                }
+                this.batchFlushTask = this.batchExecutor.schedule(this::flushPendingRecords, batchWindow,
+                        TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private synchronized void flushPendingRecords() {
+        if (this.batchFlushTask != null) {
+            this.batchFlushTask.cancel(false);
+            this.batchFlushTask = null;
+        }
+
+        if (this.pendingRecords.isEmpty()) {
+            return;
+        }
+
+        final List<WireRecord> records = new ArrayList<>(this.pendingRecords);
+        final long[] timestamps = new long[records.size()];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = this.pendingTimestamps.get(i);
+        }
+        this.pendingRecords.clear();
+        this.pendingTimestamps.clear();
+
+        if (isNull(this.cloudConnectionPublisher)) {
+            logger.warn("Cloud publisher not attached, discarding {} pending records", records.size());
+            return;
+        }
 
+        publishBatch(records, timestamps, this.cloudPublisherOptions.getBatchMaxRecords());
+    }
+
+    /**
+     * Publishes the provided {@link WireRecord}s in messages containing at most {@code maxRecords} records each
+     *
+     * @param wireRecords
+     *            the provided list of {@link WireRecord}s
+     * @param timestamps
+     *            the timestamps of the records
+     * @param maxRecords
+     *            the maximum number of records in a message
+     */
+    private void publishBatch(final List<WireRecord> wireRecords, final long[] timestamps, final int maxRecords) {
+        try {
+            for (int start = 0; start < wireRecords.size(); start += maxRecords) {
+                final int end = Math.min(wireRecords.size(), start + maxRecords);
+                final List<WireRecord> batchRecords = wireRecords.subList(start, end);
+                final WireRecordBatch batch = new WireRecordBatch(batchRecords,
+                        Arrays.copyOfRange(timestamps, start, end));
+
+                final KuraPayload kuraPayload = new KuraPayload();
+                kuraPayload.setTimestamp(new Date(timestamps[start]));
+
+                if (this.cloudPublisherOptions.getPositionType() != PositionType.NONE) {
+                    kuraPayload.setPosition(getPosition());
+                }
+
+                kuraPayload.addMetric(WireRecordBatch.FORMAT_METRIC_NAME, WireRecordBatch.COLUMNAR_FORMAT);
+                kuraPayload.setBody(batch.toByteArray());
+
+                final KuraMessage message = new KuraMessage(kuraPayload, buildBatchMessageProperties(batchRecords));
+                this.cloudConnectionPublisher.publish(message);
+            }
+        } catch (final Exception e) {
+            logger.error("Error in publishing wire record batch using cloud publisher..", e);
+        }
+    }
+
+    /**
+     * Builds the message properties of a batch, only the properties having the same value in all the records are
+     * retained, so that they can still be used to fill the topic placeholders
+     */
+    private Map<String, Object> buildBatchMessageProperties(final List<WireRecord> wireRecords) {
+        final Map<String, Object> properties = buildKuraMessageProperties(wireRecords.get(0));
+
+        for (int i = 1; i < wireRecords.size() && !properties.isEmpty(); i++) {
+            final Map<String, TypedValue<?>> wireRecordProps = wireRecords.get(i).getProperties();
+            properties.entrySet().removeIf(entry -> {
+                final TypedValue<?> value = wireRecordProps.get(entry.getKey());
+                return value == null || !Objects.deepEquals(entry.getValue(), value.getValue());
+            });
+        }
+        return properties;
+    }
+
+    private Map<String, Object> buildKuraMessageProperties(final WireRecord wireRecord) {
         final Map<String, Object> properties = new HashMap<>();
+
+        if (wireRecord instanceof PrimitiveWireRecord) {
+            final PrimitiveWireRecord primitiveRecord = (PrimitiveWireRecord) wireRecord;
+            final WireRecordSchema schema = primitiveRecord.getSchema();
+            for (int slot = 0; slot < schema.size(); slot++) {
+                if (primitiveRecord.isSet(slot)) {
+                    properties.put(schema.getName(slot), getSlotValue(primitiveRecord, slot));
+                }
+            }
+            return properties;
+        }
+
+        Map<String, TypedValue<?>> wireRecordProps = wireRecord.getProperties();
         List<String> l = new ArrayList<>(wireRecordProps.keySet());
         for (String s : l) {
             properties.put(s, wireRecordProps.get(s).getValue());
         }
         return properties;
     }
+
+    /**
+     * Reads a slot of a {@link PrimitiveWireRecord} without creating the intermediate {@link TypedValue}
+     */
+    private static Object getSlotValue(final PrimitiveWireRecord wireRecord, final int slot) {
+        final DataType type = wireRecord.getSchema().getType(slot);
+        if (type == DataType.BOOLEAN) {
+            return wireRecord.getBoolean(slot);
+        } else if (type == DataType.INTEGER) {
+            return wireRecord.getInteger(slot);
+        } else if (type == DataType.LONG) {
+            return wireRecord.getLong(slot);
+        } else if (type == DataType.FLOAT) {
+            return wireRecord.getFloat(slot);
+        } else if (type == DataType.DOUBLE) {
+            return wireRecord.getDouble(slot);
+        } else if (type == DataType.STRING) {
+            return wireRecord.getString(slot);
+        } else {
+            return wireRecord.getByteArray(slot);
+        }
+    }
+
+    private static ThreadFactory getThreadFactory(final String pid) {
+        final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+        return runnable -> {
+            final Thread result = defaultFactory.newThread(runnable);
+            result.setName("CloudPublisher_" + pid + "_" + System.identityHashCode(result));
+            result.setDaemon(true);
+            return result;
+        };
+    }
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2016, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -21,6 +21,7 @@ import java.util.Optional;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.eclipse.kura.configuration.ConfigurationService;
 
 /**
  * The Class CloudPublisherOptions is responsible to provide all the required
@@ -32,6 +33,11 @@ final class CloudPublisherOptions {
 
     private static final String CONF_POSITION = "publish.position";
     private static final String CONF_BODY_PROPERTY = "set.body.from.property";
+    private static final String CONF_BATCH_ENABLED = "publish.batch.enabled";
+    private static final String CONF_BATCH_WINDOW = "publish.batch.window";
+    private static final String CONF_BATCH_MAX_RECORDS = "publish.batch.max.records";
+
+    private static final int DEFAULT_BATCH_MAX_RECORDS = 1000;
 
     private final Map<String, Object> properties;
 
@@ -82,4 +88,44 @@ final class CloudPublisherOptions {
 
         return Optional.of(property);
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns if the records have to be published in batches, using the columnar format.
+     *
+     * @return true if batched publishing is enabled
+     */
+    boolean isBatchEnabled() {
+        final Object batchEnabled = this.properties.get(CONF_BATCH_ENABLED);
+        return batchEnabled instanceof Boolean && (Boolean) batchEnabled;
+    }
+
+    /**
+     * Returns the time window in milliseconds during which the received envelopes are collected in a single batch.
+     *
+     * @return the batch window, 0 if a batch has to be published for each envelope
+     */
+    int getBatchWindow() {
+        final Object batchWindow = this.properties.get(CONF_BATCH_WINDOW);
+        if (batchWindow instanceof Integer) {
+            return Math.max(0, (Integer) batchWindow);
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the maximum number of records published in a single batch.
+     *
+     * @return the maximum number of records in a batch
+     */
+    int getBatchMaxRecords() {
+        final Object batchMaxRecords = this.properties.get(CONF_BATCH_MAX_RECORDS);
+        if (batchMaxRecords instanceof Integer) {
+            return Math.max(1, (Integer) batchMaxRecords);
+        }
+        return DEFAULT_BATCH_MAX_RECORDS;
+    }
+
+    String getOwnPid() {
+        return String.valueOf(this.properties.get(ConfigurationService.KURA_SERVICE_PID));
+    }
+}
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *******************************************************************************/
+package org.eclipse.kura.internal.wire.window;
+
+import org.eclipse.kura.type.TypedValue;
+import org.eclipse.kura.type.TypedValues;
+
+/**
+ * The incremental state of the aggregate functions of a single property. Values are added in constant time and two
+ * aggregates can be merged in constant time, the variance is maintained with the Welford/Chan algorithms so that no
+ * sample needs to be retained.
+ */
+final class Aggregate {
+
+    private long count;
+    private double sum;
+    private double mean;
+    private double m2;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private TypedValue<?> first;
+    private TypedValue<?> last;
+
+    /**
+     * Adds a sample, the value of the provided {@link TypedValue} must be a {@link Number}.
+     *
+     * @param value
+     *            the sample
+     */
+    void add(final TypedValue<?> value) {
+        final double x = ((Number) value.getValue()).doubleValue();
+
+        this.count++;
+        this.sum += x;
+        final double delta = x - this.mean;
+        this.mean += delta / this.count;
+        this.m2 += delta * (x - this.mean);
+        this.min = Math.min(this.min, x);
+        this.max = Math.max(this.max, x);
+
+        if (this.first == null) {
+            this.first = value;
+        }
+        this.last = value;
+    }
+
+    /**
+     * Merges the samples of an aggregate that follows this one in time into this aggregate.
+     *
+     * @param newer
+     *            the aggregate of the samples received after the ones of this aggregate
+     */
+    void merge(final Aggregate newer) {
+        if (newer.count == 0) {
+            return;
+        }
+        if (this.count == 0) {
+            copyFrom(newer);
+            return;
+        }
+
+        final long total = this.count + newer.count;
+        final double delta = newer.mean - this.mean;
+        this.mean += delta * newer.count / total;
+        this.m2 += newer.m2 + delta * delta * this.count * newer.count / total;
+        this.count = total;
+        this.sum += newer.sum;
+        this.min = Math.min(this.min, newer.min);
+        this.max = Math.max(this.max, newer.max);
+        this.last = newer.last;
+    }
+
+    Aggregate copy() {
+        final Aggregate result = new Aggregate();
+        result.copyFrom(this);
+        return result;
+    }
+
+    long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Returns the result of an aggregate function. Minimum, maximum, average, sum and the population standard
+     * deviation are returned as doubles, the first and last values keep their original type.
+     *
+     * @param function
+     *            the function
+     * @return the result, or {@code null} if no samples have been added
+     */
+    TypedValue<?> getValue(final AggregateFunction function) {
+        if (function == AggregateFunction.COUNT) {
+            return TypedValues.newLongValue(this.count);
+        }
+        if (this.count == 0) {
+            return null;
+        }
+
+        if (function == AggregateFunction.MIN) {
+            return TypedValues.newDoubleValue(this.min);
+        } else if (function == AggregateFunction.MAX) {
+            return TypedValues.newDoubleValue(this.max);
+        } else if (function == AggregateFunction.AVG) {
+            return TypedValues.newDoubleValue(this.sum / this.count);
+        } else if (function == AggregateFunction.SUM) {
+            return TypedValues.newDoubleValue(this.sum);
+        } else if (function == AggregateFunction.STDDEV) {
+            return TypedValues.newDoubleValue(Math.sqrt(Math.max(0, this.m2 / this.count)));
+        } else if (function == AggregateFunction.FIRST) {
+            return this.first;
+        } else {
+            return this.last;
+        }
+    }
+
+    private void copyFrom(final Aggregate other) {
+        this.count = other.count;
+        this.sum = other.sum;
+        this.mean = other.mean;
+        this.m2 = other.m2;
+        this.min = other.min;
+        this.max = other.max;
+        this.first = other.first;
+        this.last = other.last;
+    }
+}
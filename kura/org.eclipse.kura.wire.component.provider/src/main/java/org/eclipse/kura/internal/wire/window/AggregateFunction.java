@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *******************************************************************************/
+package org.eclipse.kura.internal.wire.window;
+
+/**
+ * The functions that can be computed over a window. The result of a function is emitted as a property named
+ * {@code <property>_<suffix>}.
+ */
+enum AggregateFunction {
+
+    MIN("min"),
+    MAX("max"),
+    AVG("avg"),
+    COUNT("count"),
+    SUM("sum"),
+    STDDEV("stddev"),
+    FIRST("first"),
+    LAST("last");
+
+    private final String suffix;
+
+    private AggregateFunction(final String suffix) {
+        this.suffix = suffix;
+    }
+
+    String getSuffix() {
+        return this.suffix;
+    }
+}
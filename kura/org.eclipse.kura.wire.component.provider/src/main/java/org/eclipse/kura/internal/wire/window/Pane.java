@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *******************************************************************************/
+package org.eclipse.kura.internal.wire.window;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.eclipse.kura.type.TypedValue;
+import org.eclipse.kura.type.TypedValues;
+import org.eclipse.kura.wire.WireRecord;
+
+/**
+ * The aggregates of the numeric properties of the records received in a time or count interval. A tumbling or session
+ * window is a single pane, a sliding window is the merge of the panes that fall in the window.
+ */
+final class Pane {
+
+    static final String WINDOW_START_PROPERTY = "window_start";
+    static final String WINDOW_END_PROPERTY = "window_end";
+
+    private final Map<String, Aggregate> aggregates = new LinkedHashMap<>();
+    private long recordCount;
+    private long start;
+    private long end;
+
+    Pane(final long start) {
+        this.start = start;
+        this.end = start;
+    }
+
+    /**
+     * Adds the numeric properties of a record, other properties are ignored.
+     *
+     * @param wireRecord
+     *            the record
+     */
+    void add(final WireRecord wireRecord) {
+        this.recordCount++;
+
+        for (final Entry<String, TypedValue<?>> entry : wireRecord.getProperties().entrySet()) {
+            final TypedValue<?> value = entry.getValue();
+
+            if (value == null || !(value.getValue() instanceof Number)) {
+                continue;
+            }
+
+            Aggregate aggregate = this.aggregates.get(entry.getKey());
+            if (aggregate == null) {
+                aggregate = new Aggregate();
+                this.aggregates.put(entry.getKey(), aggregate);
+            }
+            aggregate.add(value);
+        }
+    }
+
+    /**
+     * Merges a pane that follows this one in time into this pane.
+     *
+     * @param newer
+     *            the newer pane
+     * @return this pane
+     */
+    Pane merge(final Pane newer) {
+        for (final Entry<String, Aggregate> entry : newer.aggregates.entrySet()) {
+            final Aggregate aggregate = this.aggregates.get(entry.getKey());
+            if (aggregate == null) {
+                this.aggregates.put(entry.getKey(), entry.getValue().copy());
+            } else {
+                aggregate.merge(entry.getValue());
+            }
+        }
+        this.recordCount += newer.recordCount;
+        this.start = Math.min(this.start, newer.start);
+        this.end = Math.max(this.end, newer.end);
+        return this;
+    }
+
+    Pane copy() {
+        final Pane result = new Pane(this.start);
+        result.end = this.end;
+        return result.merge(this);
+    }
+
+    long getRecordCount() {
+        return this.recordCount;
+    }
+
+    boolean isEmpty() {
+        return this.recordCount == 0;
+    }
+
+    void setEnd(final long end) {
+        this.end = end;
+    }
+
+    /**
+     * Creates a record containing the start and end timestamps of the pane and the results of the provided functions
+     * for each aggregated property.
+     *
+     * @param functions
+     *            the functions to be emitted
+     * @return the record
+     */
+    WireRecord toWireRecord(final AggregateFunction[] functions) {
+        final Map<String, TypedValue<?>> properties = new HashMap<>();
+
+        properties.put(WINDOW_START_PROPERTY, TypedValues.newLongValue(this.start));
+        properties.put(WINDOW_END_PROPERTY, TypedValues.newLongValue(this.end));
+
+        for (final Entry<String, Aggregate> entry : this.aggregates.entrySet()) {
+            final Aggregate aggregate = entry.getValue();
+
+            for (final AggregateFunction function : functions) {
+                final TypedValue<?> value = aggregate.getValue(function);
+                if (value != null) {
+                    properties.put(entry.getKey() + '_' + function.getSuffix(), value);
+                }
+            }
+        }
+        return new WireRecord(properties);
+    }
+}
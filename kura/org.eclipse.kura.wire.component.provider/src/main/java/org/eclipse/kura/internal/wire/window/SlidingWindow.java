@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *******************************************************************************/
+package org.eclipse.kura.internal.wire.window;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A FIFO queue of {@link Pane}s that returns the merge of all queued panes in amortized constant time, using the
+ * two-stack sliding aggregation algorithm.
+ * <p>
+ * New panes are pushed on the back stack and merged into a running back aggregate. The front stack contains, for each
+ * pane, the merge of that pane with all the newer panes in the front stack, so that its top is the aggregate of the
+ * whole front stack. When the front stack is empty and a pane needs to be evicted, the back stack is moved to the
+ * front stack computing these suffix aggregates. Each pane is merged a constant number of times.
+ */
+final class SlidingWindow {
+
+    private final Deque<Pane> front = new ArrayDeque<>();
+    private final Deque<Pane> back = new ArrayDeque<>();
+    private Pane backAggregate;
+
+    void push(final Pane pane) {
+        this.back.push(pane);
+        if (this.backAggregate == null) {
+            this.backAggregate = pane.copy();
+        } else {
+            this.backAggregate.merge(pane);
+        }
+    }
+
+    /**
+     * Removes the oldest pane.
+     */
+    void evict() {
+        if (this.front.isEmpty()) {
+            Pane suffix = null;
+            while (!this.back.isEmpty()) {
+                final Pane pane = this.back.pop();
+                suffix = suffix == null ? pane : pane.copy().merge(suffix);
+                this.front.push(suffix);
+            }
+            this.backAggregate = null;
+        }
+        this.front.poll();
+    }
+
+    int size() {
+        return this.front.size() + this.back.size();
+    }
+
+    /**
+     * Returns the merge of all the queued panes. The returned pane must not be modified.
+     *
+     * @return the aggregate, or {@code null} if the window is empty
+     */
+    Pane query() {
+        final Pane oldest = this.front.peek();
+
+        if (oldest == null) {
+            return this.backAggregate;
+        } else if (this.backAggregate == null) {
+            return oldest;
+        }
+        return oldest.copy().merge(this.backAggregate);
+    }
+}
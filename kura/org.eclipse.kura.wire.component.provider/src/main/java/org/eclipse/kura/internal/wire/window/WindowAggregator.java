@@ -0,0 +1,305 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *******************************************************************************/
+package org.eclipse.kura.internal.wire.window;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.kura.configuration.ConfigurableComponent;
+import org.eclipse.kura.wire.WireComponent;
+import org.eclipse.kura.wire.WireEmitter;
+import org.eclipse.kura.wire.WireEnvelope;
+import org.eclipse.kura.wire.WireHelperService;
+import org.eclipse.kura.wire.WireReceiver;
+import org.eclipse.kura.wire.WireRecord;
+import org.eclipse.kura.wire.WireSupport;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.component.ComponentContext;
+import org.osgi.service.wireadmin.Wire;
+
+/**
+ * The Class {@link WindowAggregator} is a {@link WireComponent} that downsamples the received records by computing
+ * aggregate functions of their numeric properties over tumbling, sliding or session windows, and emitting a single
+ * record per window.
+ * <p>
+ * Windows are maintained incrementally: each received record updates the aggregates of the current pane in constant
+ * time and no record is retained. Sliding windows are composed by the panes of length {@code window.slide} that fall
+ * in the window, that are combined using the two-stack algorithm implemented by {@link SlidingWindow}.
+ */
+public final class WindowAggregator implements WireEmitter, WireReceiver, ConfigurableComponent {
+
+    private static final Logger logger = LogManager.getLogger(WindowAggregator.class);
+
+    private volatile WireHelperService wireHelperService;
+    private WireSupport wireSupport;
+
+    private WindowType windowType;
+    private WindowBasis windowBasis;
+    private AggregateFunction[] functions;
+
+    private long paneLength;
+    private long sessionGap;
+    private int panesPerWindow;
+
+    private Pane currentPane;
+    private long currentPaneStart;
+    private long lastRecordTimestamp;
+    private SlidingWindow slidingWindow;
+
+    private ScheduledExecutorService executor;
+
+    public void bindWireHelperService(final WireHelperService wireHelperService) {
+        if (isNull(this.wireHelperService)) {
+            this.wireHelperService = wireHelperService;
+        }
+    }
+
+    public void unbindWireHelperService(final WireHelperService wireHelperService) {
+        if (this.wireHelperService == wireHelperService) {
+            this.wireHelperService = null;
+        }
+    }
+
+    public void activate(final Map<String, Object> properties, final ComponentContext componentContext) {
+        logger.info("Activating Window Aggregator...");
+        this.wireSupport = this.wireHelperService.newWireSupport(this,
+                (ServiceReference<WireComponent>) componentContext.getServiceReference());
+        updated(properties);
+        logger.info("Activating Window Aggregator... Done");
+    }
+
+    public synchronized void deactivate() {
+        logger.info("Deactivating Window Aggregator...");
+        shutdownExecutor();
+        logger.info("Deactivating Window Aggregator... Done");
+    }
+
+    public synchronized void updated(final Map<String, Object> properties) {
+        logger.info("Updating Window Aggregator...");
+
+        shutdownExecutor();
+
+        final WindowAggregatorOptions options = new WindowAggregatorOptions(properties);
+        this.windowType = options.getWindowType();
+        this.windowBasis = options.getWindowBasis();
+        this.functions = options.getFunctions();
+        this.sessionGap = options.getSessionGap();
+
+        final long windowSize = options.getWindowSize();
+        if (this.windowType == WindowType.SLIDING) {
+            this.paneLength = options.getWindowSlide();
+            this.panesPerWindow = (int) ((windowSize + this.paneLength - 1) / this.paneLength);
+            if (windowSize % this.paneLength != 0) {
+                logger.warn("The window size is not a multiple of the slide, using a window of {} slides",
+                        this.panesPerWindow);
+            }
+        } else {
+            this.paneLength = windowSize;
+            this.panesPerWindow = 1;
+        }
+
+        this.currentPane = null;
+        this.slidingWindow = new SlidingWindow();
+
+        if (this.windowBasis == WindowBasis.TIME) {
+            this.executor = Executors.newSingleThreadScheduledExecutor(getThreadFactory(options.getOwnPid()));
+
+            if (this.windowType != WindowType.SESSION) {
+                // panes are aligned to multiples of their length, so that for example one minute windows are
+                // closed at the beginning of each minute
+                final long now = System.currentTimeMillis();
+                this.currentPaneStart = now - now % this.paneLength;
+                this.currentPane = new Pane(this.currentPaneStart);
+
+                final ScheduledExecutorService currentExecutor = this.executor;
+                this.executor.scheduleAtFixedRate(() -> onPaneTimeout(currentExecutor),
+                        this.currentPaneStart + this.paneLength - now, this.paneLength, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        logger.info("Updating Window Aggregator... Done");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void onWireReceive(final WireEnvelope wireEnvelope) {
+        requireNonNull(wireEnvelope, "Wire Envelope cannot be null");
+
+        final List<WireRecord> result = aggregate(wireEnvelope.getRecords());
+
+        if (!result.isEmpty()) {
+            this.wireSupport.emit(result);
+        }
+    }
+
+    private synchronized List<WireRecord> aggregate(final List<WireRecord> wireRecords) {
+        final long now = System.currentTimeMillis();
+        List<WireRecord> result = Collections.emptyList();
+
+        for (final WireRecord wireRecord : wireRecords) {
+            if (this.currentPane == null) {
+                this.currentPane = new Pane(now);
+                if (this.windowType == WindowType.SESSION) {
+                    scheduleSessionCheck(this.sessionGap);
+                }
+            }
+
+            this.currentPane.add(wireRecord);
+            this.lastRecordTimestamp = now;
+
+            if (this.windowBasis == WindowBasis.COUNT && this.currentPane.getRecordCount() >= this.paneLength) {
+                this.currentPane.setEnd(now);
+                final WireRecord windowRecord = closePane(this.currentPane);
+                this.currentPane = null;
+
+                if (windowRecord != null) {
+                    if (result.isEmpty()) {
+                        result = new ArrayList<>();
+                    }
+                    result.add(windowRecord);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void onPaneTimeout(final ScheduledExecutorService owner) {
+        final WireRecord windowRecord;
+
+        synchronized (this) {
+            if (this.executor != owner) {
+                return;
+            }
+            this.currentPane.setEnd(this.currentPaneStart + this.paneLength);
+            windowRecord = closePane(this.currentPane);
+            this.currentPaneStart += this.paneLength;
+            this.currentPane = new Pane(this.currentPaneStart);
+        }
+
+        emit(windowRecord);
+    }
+
+    private void onSessionCheck(final ScheduledExecutorService owner) {
+        final WireRecord windowRecord;
+
+        synchronized (this) {
+            if (this.executor != owner || this.currentPane == null) {
+                return;
+            }
+            final long elapsed = System.currentTimeMillis() - this.lastRecordTimestamp;
+            if (elapsed < this.sessionGap) {
+                scheduleSessionCheck(this.sessionGap - elapsed);
+                return;
+            }
+            this.currentPane.setEnd(this.lastRecordTimestamp);
+            windowRecord = closePane(this.currentPane);
+            this.currentPane = null;
+        }
+
+        emit(windowRecord);
+    }
+
+    private void scheduleSessionCheck(final long delay) {
+        final ScheduledExecutorService currentExecutor = this.executor;
+        if (currentExecutor == null) {
+            return;
+        }
+        currentExecutor.schedule(() -> onSessionCheck(currentExecutor), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Completes a pane and returns the record of the window that ends with it.
+     *
+     * @param pane
+     *            the completed pane
+     * @return the window record, or {@code null} if no records have been received in the window
+     */
+    private WireRecord closePane(final Pane pane) {
+        final Pane window;
+
+        if (this.windowType == WindowType.SLIDING) {
+            this.slidingWindow.push(pane);
+            while (this.slidingWindow.size() > this.panesPerWindow) {
+                this.slidingWindow.evict();
+            }
+            window = this.slidingWindow.query();
+        } else {
+            window = pane;
+        }
+
+        if (window == null || window.isEmpty()) {
+            return null;
+        }
+        return window.toWireRecord(this.functions);
+    }
+
+    private void emit(final WireRecord windowRecord) {
+        if (windowRecord == null) {
+            return;
+        }
+        try {
+            this.wireSupport.emit(Collections.singletonList(windowRecord));
+        } catch (final Exception e) {
+            logger.warn("Failed to emit window", e);
+        }
+    }
+
+    private void shutdownExecutor() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+            this.executor = null;
+        }
+    }
+
+    private static ThreadFactory getThreadFactory(final String pid) {
+        final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+
+        return runnable -> {
+            final Thread result = defaultFactory.newThread(runnable);
+            result.setName("WindowAggregator_" + pid + "_" + System.identityHashCode(result));
+            return result;
+        };
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void consumersConnected(final Wire[] wires) {
+        this.wireSupport.consumersConnected(wires);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void producersConnected(final Wire[] wires) {
+        this.wireSupport.producersConnected(wires);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object polled(final Wire wire) {
+        return this.wireSupport.polled(wire);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void updated(final Wire wire, final Object value) {
+        this.wireSupport.updated(wire, value);
+    }
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *******************************************************************************/
+package org.eclipse.kura.internal.wire.window;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.kura.configuration.ConfigurationService;
+
+/**
+ * The Class WindowAggregatorOptions is responsible to contain all the Window Aggregator related configurable options
+ */
+final class WindowAggregatorOptions {
+
+    private static final Logger logger = LogManager.getLogger(WindowAggregatorOptions.class);
+
+    private static final String PROP_WINDOW_TYPE = "window.type";
+    private static final String PROP_WINDOW_BASIS = "window.basis";
+    private static final String PROP_WINDOW_SIZE = "window.size";
+    private static final String PROP_WINDOW_SLIDE = "window.slide";
+    private static final String PROP_SESSION_GAP = "session.gap";
+    private static final String PROP_TIME_UNIT = "time.unit";
+    private static final String PROP_AGGREGATIONS = "aggregations";
+
+    private static final String DEFAULT_AGGREGATIONS = "min,max,avg,count";
+
+    private final Map<String, Object> properties;
+
+    WindowAggregatorOptions(final Map<String, Object> properties) {
+        requireNonNull(properties, "Properties cannot be null");
+        this.properties = properties;
+    }
+
+    WindowType getWindowType() {
+        try {
+            return WindowType.valueOf((String) this.properties.getOrDefault(PROP_WINDOW_TYPE, "TUMBLING"));
+        } catch (final Exception e) {
+            return WindowType.TUMBLING;
+        }
+    }
+
+    /**
+     * Returns the basis of the window, session windows are always time based.
+     *
+     * @return the window basis
+     */
+    WindowBasis getWindowBasis() {
+        if (getWindowType() == WindowType.SESSION) {
+            return WindowBasis.TIME;
+        }
+        try {
+            return WindowBasis.valueOf((String) this.properties.getOrDefault(PROP_WINDOW_BASIS, "TIME"));
+        } catch (final Exception e) {
+            return WindowBasis.TIME;
+        }
+    }
+
+    /**
+     * Returns the length of a window, in milliseconds for time based windows or in records for count based windows.
+     *
+     * @return the window size, at least 1
+     */
+    long getWindowSize() {
+        return toBasisUnits(getPositiveInteger(PROP_WINDOW_SIZE, 60));
+    }
+
+    /**
+     * Returns the distance between the start of two consecutive sliding windows, in milliseconds for time based windows
+     * or in records for count based windows. The value is not greater than {@link #getWindowSize()}.
+     *
+     * @return the window slide, at least 1
+     */
+    long getWindowSlide() {
+        return Math.min(toBasisUnits(getPositiveInteger(PROP_WINDOW_SLIDE, 10)), getWindowSize());
+    }
+
+    /**
+     * Returns the inactivity interval in milliseconds after which a session window is closed.
+     *
+     * @return the session gap
+     */
+    long getSessionGap() {
+        return getPositiveInteger(PROP_SESSION_GAP, 30) * getTimeUnit().toMillis(1);
+    }
+
+    AggregateFunction[] getFunctions() {
+        final Object aggregations = this.properties.getOrDefault(PROP_AGGREGATIONS, DEFAULT_AGGREGATIONS);
+        final Set<AggregateFunction> result = EnumSet.noneOf(AggregateFunction.class);
+
+        for (final String name : String.valueOf(aggregations).split(",")) {
+            final String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            try {
+                result.add(AggregateFunction.valueOf(trimmed.toUpperCase()));
+            } catch (final IllegalArgumentException e) {
+                logger.warn("Ignoring unknown aggregation: {}", trimmed);
+            }
+        }
+        return result.toArray(new AggregateFunction[result.size()]);
+    }
+
+    String getOwnPid() {
+        return String.valueOf(this.properties.get(ConfigurationService.KURA_SERVICE_PID));
+    }
+
+    private TimeUnit getTimeUnit() {
+        try {
+            return TimeUnit.valueOf((String) this.properties.getOrDefault(PROP_TIME_UNIT, "SECONDS"));
+        } catch (final Exception e) {
+            return TimeUnit.SECONDS;
+        }
+    }
+
+    private long toBasisUnits(final int value) {
+        return getWindowBasis() == WindowBasis.TIME ? value * getTimeUnit().toMillis(1) : value;
+    }
+
+    private int getPositiveInteger(final String key, final int defaultValue) {
+        final Object value = this.properties.get(key);
+        if (value instanceof Integer && (Integer) value > 0) {
+            return (Integer) value;
+        }
+        return defaultValue;
+    }
+}
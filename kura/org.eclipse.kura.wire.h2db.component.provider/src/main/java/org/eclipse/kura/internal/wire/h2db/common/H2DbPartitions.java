@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *******************************************************************************/
+package org.eclipse.kura.internal.wire.h2db.common;
+
+import static java.util.Objects.requireNonNull;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Utility methods for the time partitioned tables managed by the H2 DB Wire Record Store.
+ * <p>
+ * The records of a partitioned table named {@code T} are stored in a set of tables named {@code T_P<start>}, where
+ * {@code <start>} is the UTC start time of the partition formatted as {@code yyyyMMddHH} for hourly partitions or
+ * {@code yyyyMMdd} for daily partitions. All partitions share the same columns, and a view named {@code T} provides
+ * the union of all partitions.
+ */
+public final class H2DbPartitions {
+
+    private static final String[] TABLE_TYPE = new String[] { "TABLE" };
+
+    private static final String PARTITION_SUFFIX = "_P";
+
+    private static final String SQL_SELECT_PARTITION = "SELECT {0} FROM {1}";
+
+    private static final String SQL_UNION_ALL = " UNION ALL ";
+
+    private H2DbPartitions() {
+    }
+
+    /**
+     * The length of the time interval covered by a partition.
+     */
+    public enum Interval {
+
+        HOURLY("yyyyMMddHH", TimeUnit.HOURS.toMillis(1)),
+        DAILY("yyyyMMdd", TimeUnit.DAYS.toMillis(1));
+
+        private final DateTimeFormatter formatter;
+        private final int formattedLength;
+        private final long length;
+
+        private Interval(final String pattern, final long length) {
+            this.formatter = DateTimeFormatter.ofPattern(pattern).withZone(ZoneOffset.UTC);
+            this.formattedLength = pattern.length();
+            this.length = length;
+        }
+
+        /**
+         * Returns the start of the partition containing the provided timestamp.
+         *
+         * @param timestamp
+         *            the timestamp in milliseconds
+         * @return the partition start in milliseconds
+         */
+        public long getStart(final long timestamp) {
+            return timestamp - Math.floorMod(timestamp, this.length);
+        }
+
+        public long getLength() {
+            return this.length;
+        }
+
+        /**
+         * Returns the name of the partition of the provided table that contains the provided timestamp.
+         *
+         * @param tableName
+         *            the name of the partitioned table
+         * @param timestamp
+         *            the timestamp in milliseconds
+         * @return the partition name, not sanitized
+         */
+        public String getPartitionName(final String tableName, final long timestamp) {
+            return tableName + PARTITION_SUFFIX + this.formatter.format(Instant.ofEpochMilli(timestamp));
+        }
+
+        private static Interval fromFormattedLength(final int formattedLength) {
+            for (final Interval interval : values()) {
+                if (interval.formattedLength == formattedLength) {
+                    return interval;
+                }
+            }
+            return null;
+        }
+
+        private long parse(final String formatted) {
+            final String padded = this == DAILY ? formatted + "00" : formatted;
+            return LocalDateTime.parse(padded, HOURLY.formatter).toInstant(ZoneOffset.UTC).toEpochMilli();
+        }
+    }
+
+    /**
+     * A partition of a partitioned table.
+     */
+    public static final class Partition {
+
+        private final String name;
+        private final long start;
+        private final long end;
+
+        private Partition(final String name, final long start, final long end) {
+            this.name = name;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Returns the name of the partition table, not sanitized.
+         *
+         * @return the name
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        public long getStart() {
+            return this.start;
+        }
+
+        public long getEnd() {
+            return this.end;
+        }
+    }
+
+    /**
+     * Returns the partitions of the provided table, ordered by start time.
+     *
+     * @param c
+     *            the connection
+     * @param tableName
+     *            the name of the partitioned table
+     * @return the partitions, oldest first
+     * @throws SQLException
+     *             if the database metadata cannot be read
+     */
+    public static List<Partition> getPartitions(final Connection c, final String tableName) throws SQLException {
+        requireNonNull(tableName, "Table name cannot be null");
+
+        final Pattern pattern = Pattern.compile(Pattern.quote(tableName + PARTITION_SUFFIX) + "(\\d{8}|\\d{10})");
+        final List<Partition> result = new ArrayList<>();
+
+        final DatabaseMetaData dbMetaData = c.getMetaData();
+        try (final ResultSet rsTbls = dbMetaData.getTables(c.getCatalog(), null, null, TABLE_TYPE)) {
+            while (rsTbls.next()) {
+                final String name = rsTbls.getString("TABLE_NAME");
+                final Matcher matcher = pattern.matcher(name);
+                if (!matcher.matches()) {
+                    continue;
+                }
+                final String formatted = matcher.group(1);
+                final Interval interval = Interval.fromFormattedLength(formatted.length());
+                final long start = interval.parse(formatted);
+                result.add(new Partition(name, start, start + interval.getLength()));
+            }
+        }
+
+        Collections.sort(result, (a, b) -> Long.compare(a.start, b.start));
+        return result;
+    }
+
+    /**
+     * Returns the names of the columns of the provided table, in ordinal order.
+     *
+     * @param c
+     *            the connection
+     * @param tableName
+     *            the table name, not sanitized
+     * @return the column names, not sanitized
+     * @throws SQLException
+     *             if the database metadata cannot be read
+     */
+    public static List<String> getColumnNames(final Connection c, final String tableName) throws SQLException {
+        final List<String> result = new ArrayList<>();
+
+        final DatabaseMetaData dbMetaData = c.getMetaData();
+        try (final ResultSet rsColumns = dbMetaData.getColumns(c.getCatalog(), null, tableName, null)) {
+            while (rsColumns.next()) {
+                // the table name is a pattern, skip the tables that match it without being equal
+                if (tableName.equals(rsColumns.getString("TABLE_NAME"))) {
+                    result.add(rsColumns.getString("COLUMN_NAME"));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds a query that returns the union of the provided partitions. The columns are selected explicitly so that
+     * the result does not depend on the order in which they have been added to each partition.
+     *
+     * @param dbHelper
+     *            the helper used to sanitize the names
+     * @param partitions
+     *            the partitions, must not be empty
+     * @param columnNames
+     *            the columns to be selected, that must be present in all partitions
+     * @return the query
+     */
+    public static String buildUnionQuery(final H2DbServiceHelper dbHelper, final List<Partition> partitions,
+            final List<String> columnNames) {
+        final StringBuilder columns = new StringBuilder();
+        for (final String columnName : columnNames) {
+            if (columns.length() > 0) {
+                columns.append(", ");
+            }
+            columns.append(dbHelper.sanitizeSqlTableAndColumnName(columnName));
+        }
+
+        final StringBuilder query = new StringBuilder();
+        for (final Partition partition : partitions) {
+            if (query.length() > 0) {
+                query.append(SQL_UNION_ALL);
+            }
+            query.append(MessageFormat.format(SQL_SELECT_PARTITION, columns,
+                    dbHelper.sanitizeSqlTableAndColumnName(partition.getName())));
+        }
+        return query.toString();
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -18,6 +18,7 @@ import java.sql.SQLException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.kura.db.H2DbService;
+import org.eclipse.kura.db.H2DbSession;
 
 /**
  * The Class DbServiceHelper is responsible for providing {@link H2DbService}
@@ -87,6 +88,15 @@ public final class H2DbServiceHelper {
         return this.dbService.withConnection(callable);
     }
 
+    /**
+     * Opens a new {@link H2DbSession} on the wrapped {@link H2DbService}.
+     *
+     * @return the session, that must be closed by the caller
+     */
+    public H2DbSession openSession() {
+        return this.dbService.openSession();
+    }
+
     /**
      * Encloses the provided String between double quotes and escapes
      * any double quote present in the string.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -19,6 +19,7 @@ import static java.util.Objects.requireNonNull;
 import static org.eclipse.kura.configuration.ConfigurationService.KURA_SERVICE_PID;
 
 import java.sql.Blob;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -29,11 +30,16 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.kura.configuration.ConfigurableComponent;
 import org.eclipse.kura.db.H2DbService;
+import org.eclipse.kura.internal.wire.h2db.common.H2DbPartitions;
+import org.eclipse.kura.internal.wire.h2db.common.H2DbPartitions.Partition;
 import org.eclipse.kura.internal.wire.h2db.common.H2DbServiceHelper;
 import org.eclipse.kura.type.TypedValue;
 import org.eclipse.kura.type.TypedValues;
@@ -63,6 +69,13 @@ public class H2DbWireRecordFilter implements WireEmitter, WireReceiver, Configur
 
     private static final Logger logger = LogManager.getLogger(H2DbWireRecordFilter.class);
 
+    /**
+     * Matches the {@code $PARTITIONS(table)} and {@code $PARTITIONS(table, seconds)} references to the partitions of a
+     * partitioned table in the SQL view, the table name can be optionally enclosed in double quotes.
+     */
+    private static final Pattern PARTITIONS_PATTERN = Pattern
+            .compile("\\$PARTITIONS\\(\\s*(?:\"([^\"]+)\"|([^\\s,)]+))\\s*(?:,\\s*(\\d+)\\s*)?\\)");
+
     private List<WireRecord> lastRecords;
 
     private H2DbServiceHelper dbHelper;
@@ -187,8 +200,9 @@ public class H2DbWireRecordFilter implements WireEmitter, WireReceiver, Configur
 
         return this.dbHelper.withConnection(c -> {
             final List<WireRecord> dataRecords = new ArrayList<>();
+            final String sql = resolvePartitions(c, sqlView);
 
-            try (final Statement stmt = c.createStatement(); final ResultSet rset = stmt.executeQuery(sqlView)) {
+            try (final Statement stmt = c.createStatement(); final ResultSet rset = stmt.executeQuery(sql)) {
                 while (rset.next()) {
                     final WireRecord wireRecord = new WireRecord(convertSQLRowToWireRecord(rset));
                     dataRecords.add(wireRecord);
@@ -199,6 +213,54 @@ public class H2DbWireRecordFilter implements WireEmitter, WireReceiver, Configur
         });
     }
 
+    /**
+     * Replaces each {@code $PARTITIONS(table, seconds)} reference in the provided SQL with a subquery returning the
+     * union of the partitions of the table that contain records of the last {@code seconds} seconds, or of all
+     * partitions if the number of seconds is not specified. An alias can be specified after the reference. References
+     * to tables without partitions are replaced with the table name.
+     */
+    private String resolvePartitions(final Connection c, final String sql) throws SQLException {
+        final Matcher matcher = PARTITIONS_PATTERN.matcher(sql);
+        if (!matcher.find()) {
+            return sql;
+        }
+
+        final long now = System.currentTimeMillis();
+        final StringBuffer result = new StringBuffer();
+
+        do {
+            final String tableName = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+            final long from = matcher.group(3) != null
+                    ? now - TimeUnit.SECONDS.toMillis(Long.parseLong(matcher.group(3)))
+                    : Long.MIN_VALUE;
+
+            final List<Partition> partitions = H2DbPartitions.getPartitions(c, tableName);
+            final List<Partition> selected = new ArrayList<>();
+            for (final Partition partition : partitions) {
+                if (partition.getEnd() > from) {
+                    selected.add(partition);
+                }
+            }
+
+            final String replacement;
+            if (partitions.isEmpty()) {
+                replacement = this.dbHelper.sanitizeSqlTableAndColumnName(tableName);
+            } else {
+                final Partition newest = partitions.get(partitions.size() - 1);
+                final List<String> columnNames = H2DbPartitions.getColumnNames(c, newest.getName());
+                final String query = selected.isEmpty()
+                        ? H2DbPartitions.buildUnionQuery(this.dbHelper, Collections.singletonList(newest),
+                                columnNames) + " WHERE FALSE"
+                        : H2DbPartitions.buildUnionQuery(this.dbHelper, selected, columnNames);
+                replacement = "(" + query + ")";
+            }
+            matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
+        } while (matcher.find());
+
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
     private Map<String, TypedValue<?>> convertSQLRowToWireRecord(ResultSet rset) throws SQLException {
         final Map<String, TypedValue<?>> wireRecordProperties = new HashMap<>();
         final ResultSetMetaData rmet = rset.getMetaData();
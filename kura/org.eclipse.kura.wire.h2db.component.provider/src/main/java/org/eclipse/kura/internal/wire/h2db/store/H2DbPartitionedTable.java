@@ -0,0 +1,290 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *******************************************************************************/
+package org.eclipse.kura.internal.wire.h2db.store;
+
+import static java.util.Objects.requireNonNull;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.kura.internal.wire.h2db.common.H2DbPartitions;
+import org.eclipse.kura.internal.wire.h2db.common.H2DbPartitions.Interval;
+import org.eclipse.kura.internal.wire.h2db.common.H2DbPartitions.Partition;
+import org.eclipse.kura.internal.wire.h2db.common.H2DbServiceHelper;
+import org.eclipse.kura.internal.wire.h2db.store.H2DbDataTypeMapper.JdbcType;
+import org.eclipse.kura.type.DataType;
+
+/**
+ * Manages the partitions of a time partitioned table, see {@link H2DbPartitions}.
+ * <p>
+ * A new partition is created when the first record falling in its time interval is stored, copying the columns of
+ * the newest existing partition. When a partition is created the oldest partitions exceeding the configured retention
+ * are dropped and the view providing the union of the partitions is recreated. The IDs of the records are generated by
+ * a sequence shared by all partitions.
+ */
+final class H2DbPartitionedTable {
+
+    private static final Logger logger = LogManager.getLogger(H2DbPartitionedTable.class);
+
+    private static final String ID_COLUMN = "ID";
+
+    private static final String TIMESTAMP_COLUMN = "TIMESTAMP";
+
+    private static final String[] TABLE_TYPE = new String[] { "TABLE" };
+
+    private static final String SQL_CREATE_SEQUENCE = "CREATE SEQUENCE IF NOT EXISTS {0} START WITH {1};";
+
+    private static final String SQL_CREATE_PARTITION = "CREATE TABLE IF NOT EXISTS {0} (ID BIGINT DEFAULT "
+            + "NEXT VALUE FOR {1} PRIMARY KEY, TIMESTAMP BIGINT);";
+
+    private static final String SQL_CREATE_INDEX = "CREATE INDEX IF NOT EXISTS {0} ON {1} (TIMESTAMP DESC);";
+
+    private static final String SQL_ADD_COLUMN = "ALTER TABLE {0} ADD COLUMN {1} {2};";
+
+    private static final String SQL_RENAME_TABLE = "ALTER TABLE {0} RENAME TO {1};";
+
+    private static final String SQL_MAX_ID = "SELECT MAX(ID) FROM {0};";
+
+    private static final String SQL_CREATE_VIEW = "CREATE OR REPLACE VIEW {0} AS {1};";
+
+    private static final String SQL_DROP_TABLE = "DROP TABLE IF EXISTS {0};";
+
+    private static final String SQL_DROP_VIEW = "DROP VIEW IF EXISTS {0};";
+
+    private final H2DbServiceHelper dbHelper;
+    private final String tableName;
+    private final Interval interval;
+    private final int retention;
+
+    private long currentPartitionStart = Long.MIN_VALUE;
+    private String currentPartitionName;
+
+    H2DbPartitionedTable(final H2DbServiceHelper dbHelper, final String tableName, final Interval interval,
+            final int retention) {
+        requireNonNull(dbHelper, "DB Helper cannot be null");
+        requireNonNull(tableName, "Table name cannot be null");
+        requireNonNull(interval, "Interval cannot be null");
+
+        this.dbHelper = dbHelper;
+        this.tableName = tableName;
+        this.interval = interval;
+        this.retention = Math.max(1, retention);
+    }
+
+    /**
+     * Converts an existing non partitioned table with the same name into the oldest partition, creates the partition
+     * for the current time if needed, applies the retention and recreates the view.
+     *
+     * @throws SQLException
+     *             if the operation fails
+     */
+    void reconcile() throws SQLException {
+        this.dbHelper.withConnection(c -> {
+            if (tableExists(c, this.tableName)) {
+                final String partitionName = this.interval.getPartitionName(this.tableName, 0);
+                logger.info("Converting table {} to partition {}...", this.tableName, partitionName);
+                this.dbHelper.execute(c, MessageFormat.format(SQL_RENAME_TABLE, sanitize(this.tableName),
+                        sanitize(partitionName)));
+            }
+            return (Void) null;
+        });
+
+        this.currentPartitionStart = Long.MIN_VALUE;
+        getPartition(System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the name of the partition where the records with the provided timestamp must be stored, creating it if
+     * needed.
+     *
+     * @param timestamp
+     *            the record timestamp
+     * @return the partition name, not sanitized
+     * @throws SQLException
+     *             if the partition cannot be created
+     */
+    String getPartition(final long timestamp) throws SQLException {
+        final long start = this.interval.getStart(timestamp);
+        if (start == this.currentPartitionStart) {
+            return this.currentPartitionName;
+        }
+
+        final String partitionName = this.interval.getPartitionName(this.tableName, timestamp);
+
+        this.dbHelper.withConnection(c -> {
+            final List<Partition> partitions = H2DbPartitions.getPartitions(c, this.tableName);
+
+            if (!containsPartition(partitions, partitionName)) {
+                createPartition(c, partitionName, partitions);
+                partitions.clear();
+                partitions.addAll(H2DbPartitions.getPartitions(c, this.tableName));
+            }
+
+            final List<Partition> expired = new ArrayList<>();
+            while (partitions.size() > this.retention && !partitions.get(0).getName().equals(partitionName)) {
+                expired.add(partitions.remove(0));
+            }
+
+            // the view must be updated before dropping the partitions it depends on
+            updateView(c, partitions);
+
+            for (final Partition partition : expired) {
+                logger.info("Dropping expired partition {}...", partition.getName());
+                this.dbHelper.execute(c, MessageFormat.format(SQL_DROP_TABLE, sanitize(partition.getName())));
+            }
+            return (Void) null;
+        });
+
+        this.currentPartitionStart = start;
+        this.currentPartitionName = partitionName;
+        return partitionName;
+    }
+
+    /**
+     * Returns the names of the existing partitions, oldest first.
+     *
+     * @return the partition names, not sanitized
+     * @throws SQLException
+     *             if the database metadata cannot be read
+     */
+    List<String> getPartitionNames() throws SQLException {
+        return this.dbHelper.withConnection(c -> {
+            final List<String> result = new ArrayList<>();
+            for (final Partition partition : H2DbPartitions.getPartitions(c, this.tableName)) {
+                result.add(partition.getName());
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Recreates the view, must be called after the columns of the partitions have been changed.
+     *
+     * @throws SQLException
+     *             if the view cannot be created
+     */
+    void updateView() throws SQLException {
+        this.dbHelper.withConnection(c -> {
+            updateView(c, H2DbPartitions.getPartitions(c, this.tableName));
+            return (Void) null;
+        });
+    }
+
+    /**
+     * Drops the view, must be called before dropping or changing the type of the columns of the partitions.
+     *
+     * @throws SQLException
+     *             if the view cannot be dropped
+     */
+    void dropView() throws SQLException {
+        this.dbHelper.withConnection(c -> {
+            this.dbHelper.execute(c, MessageFormat.format(SQL_DROP_VIEW, sanitize(this.tableName)));
+            return (Void) null;
+        });
+    }
+
+    private void updateView(final Connection c, final List<Partition> partitions) throws SQLException {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        final List<String> columnNames = H2DbPartitions.getColumnNames(c,
+                partitions.get(partitions.size() - 1).getName());
+        final String query = H2DbPartitions.buildUnionQuery(this.dbHelper, partitions, columnNames);
+
+        this.dbHelper.execute(c, MessageFormat.format(SQL_CREATE_VIEW, sanitize(this.tableName), query));
+    }
+
+    private void createPartition(final Connection c, final String partitionName, final List<Partition> partitions)
+            throws SQLException {
+        logger.info("Creating partition {}...", partitionName);
+
+        final String sequenceName = sanitize(this.tableName + "_ID_SEQ");
+        this.dbHelper.execute(c,
+                MessageFormat.format(SQL_CREATE_SEQUENCE, sequenceName, Long.toString(getMaxId(c, partitions) + 1)));
+
+        final String sqlPartitionName = sanitize(partitionName);
+        this.dbHelper.execute(c, MessageFormat.format(SQL_CREATE_PARTITION, sqlPartitionName, sequenceName));
+        this.dbHelper.execute(c,
+                MessageFormat.format(SQL_CREATE_INDEX, sanitize(partitionName + "_TIMESTAMP"), sqlPartitionName));
+
+        if (partitions.isEmpty()) {
+            return;
+        }
+
+        // copy the columns of the newest partition, so that all partitions have the same columns
+        final String newestPartition = partitions.get(partitions.size() - 1).getName();
+        final DatabaseMetaData dbMetaData = c.getMetaData();
+        try (final ResultSet rsColumns = dbMetaData.getColumns(c.getCatalog(), null, newestPartition, null)) {
+            while (rsColumns.next()) {
+                final String columnName = rsColumns.getString("COLUMN_NAME");
+                if (!newestPartition.equals(rsColumns.getString("TABLE_NAME")) || ID_COLUMN.equals(columnName)
+                        || TIMESTAMP_COLUMN.equals(columnName)) {
+                    continue;
+                }
+                final DataType dataType = H2DbDataTypeMapper.getDataType(rsColumns.getInt("DATA_TYPE"));
+                final JdbcType jdbcType = dataType != null ? H2DbDataTypeMapper.getJdbcType(dataType) : null;
+                if (jdbcType == null) {
+                    logger.warn("Unsupported type for column {}, not copied to partition {}", columnName,
+                            partitionName);
+                    continue;
+                }
+                this.dbHelper.execute(c, MessageFormat.format(SQL_ADD_COLUMN, sqlPartitionName, sanitize(columnName),
+                        jdbcType.getTypeString()));
+            }
+        }
+    }
+
+    private long getMaxId(final Connection c, final List<Partition> partitions) throws SQLException {
+        long result = 0;
+        for (final Partition partition : partitions) {
+            try (final Statement stmt = c.createStatement();
+                    final ResultSet rs = stmt
+                            .executeQuery(MessageFormat.format(SQL_MAX_ID, sanitize(partition.getName())))) {
+                if (rs.next()) {
+                    result = Math.max(result, rs.getLong(1));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static boolean containsPartition(final List<Partition> partitions, final String partitionName) {
+        for (final Partition partition : partitions) {
+            if (partition.getName().equals(partitionName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean tableExists(final Connection c, final String tableName) throws SQLException {
+        final DatabaseMetaData dbMetaData = c.getMetaData();
+        try (final ResultSet rsTbls = dbMetaData.getTables(c.getCatalog(), null, tableName, TABLE_TYPE)) {
+            while (rsTbls.next()) {
+                if (tableName.equals(rsTbls.getString("TABLE_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private String sanitize(final String name) {
+        return this.dbHelper.sanitizeSqlTableAndColumnName(name);
+    }
+}
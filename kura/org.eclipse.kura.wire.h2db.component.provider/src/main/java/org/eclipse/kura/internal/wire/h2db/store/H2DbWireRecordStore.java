@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -20,22 +20,31 @@ import static org.eclipse.kura.configuration.ConfigurationService.KURA_SERVICE_P
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
-import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.text.MessageFormat;
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.kura.configuration.ConfigurableComponent;
 import org.eclipse.kura.db.H2DbService;
+import org.eclipse.kura.db.H2DbSession;
+import org.eclipse.kura.internal.wire.h2db.common.H2DbPartitions.Interval;
 import org.eclipse.kura.internal.wire.h2db.common.H2DbServiceHelper;
 import org.eclipse.kura.internal.wire.h2db.store.H2DbDataTypeMapper.JdbcType;
 import org.eclipse.kura.type.BooleanValue;
@@ -48,12 +57,14 @@ import org.eclipse.kura.type.LongValue;
 import org.eclipse.kura.type.StringValue;
 import org.eclipse.kura.type.TypedValue;
 import org.eclipse.kura.util.collection.CollectionUtil;
+import org.eclipse.kura.wire.PrimitiveWireRecord;
 import org.eclipse.kura.wire.WireComponent;
 import org.eclipse.kura.wire.WireEmitter;
 import org.eclipse.kura.wire.WireEnvelope;
 import org.eclipse.kura.wire.WireHelperService;
 import org.eclipse.kura.wire.WireReceiver;
 import org.eclipse.kura.wire.WireRecord;
+import org.eclipse.kura.wire.WireRecordSchema;
 import org.eclipse.kura.wire.WireSupport;
 import org.osgi.framework.Filter;
 import org.osgi.framework.FrameworkUtil;
@@ -90,14 +101,20 @@ public class H2DbWireRecordStore implements WireEmitter, WireReceiver, Configura
 
     private static final String SQL_DROP_COLUMN = "ALTER TABLE {0} DROP COLUMN {1};";
 
+    private static final String SQL_DROP_VIEW = "DROP VIEW IF EXISTS {0};";
+
     private static final String SQL_INSERT_RECORD = "INSERT INTO {0} ({1}) VALUES ({2});";
 
     private static final String SQL_TRUNCATE_TABLE = "TRUNCATE TABLE {0};";
 
     private static final String[] TABLE_TYPE = new String[] { "TABLE" };
 
+    private static final int MAX_CACHED_INSERT_STATEMENTS = 64;
+
     private H2DbServiceHelper dbHelper;
 
+    private H2DbSession dbSession;
+
     private H2DbWireRecordStoreOptions wireRecordStoreOptions;
 
     private volatile WireHelperService wireHelperService;
@@ -108,15 +125,41 @@ public class H2DbWireRecordStore implements WireEmitter, WireReceiver, Configura
 
     private ComponentContext componentContext;
 
+    private final Map<ColumnSignature, String> insertSqlCache = new HashMap<>();
+
+    private String insertSqlCacheTable;
+
+    private H2DbPartitionedTable partitionedTable;
+
+    private long tableSize = -1;
+
+    private final List<WireRecord> pendingRecords = new ArrayList<>();
+
+    private final List<Long> pendingTimestamps = new ArrayList<>();
+
+    private ScheduledExecutorService flushExecutor;
+
+    private ScheduledFuture<?> flushTask;
+
     public synchronized void bindDbService(final H2DbService dbService) {
+        closeDbSession();
         H2DbWireRecordStore.this.dbHelper = H2DbServiceHelper.of(dbService);
+        this.dbSession = this.dbHelper.openSession();
         reconcileDB(this.wireRecordStoreOptions.getTableName());
     }
 
     public synchronized void unbindDbService(final H2DbService dbService) {
+        closeDbSession();
         H2DbWireRecordStore.this.dbHelper = null;
     }
 
+    private void closeDbSession() {
+        if (this.dbSession != null) {
+            this.dbSession.close();
+            this.dbSession = null;
+        }
+    }
+
     public void bindWireHelperService(final WireHelperService wireHelperService) {
         if (isNull(this.wireHelperService)) {
             this.wireHelperService = wireHelperService;
@@ -146,6 +189,7 @@ public class H2DbWireRecordStore implements WireEmitter, WireReceiver, Configura
                 (ServiceReference<WireComponent>) componentContext.getServiceReference());
 
         restartDbServiceTracker();
+        updateFlushTask();
         logger.debug("Activating DB Wire Record Store... Done");
     }
 
@@ -160,7 +204,11 @@ public class H2DbWireRecordStore implements WireEmitter, WireReceiver, Configura
 
         final String oldDbServicePid = this.wireRecordStoreOptions.getDbServiceInstancePid();
 
+        flushPendingRecords();
+
         this.wireRecordStoreOptions = new H2DbWireRecordStoreOptions(properties);
+        this.insertSqlCache.clear();
+        this.tableSize = -1;
 
         if (oldDbServicePid.equals(this.wireRecordStoreOptions.getDbServiceInstancePid())) {
             final String tableName = this.wireRecordStoreOptions.getTableName();
@@ -169,6 +217,8 @@ public class H2DbWireRecordStore implements WireEmitter, WireReceiver, Configura
             restartDbServiceTracker();
         }
 
+        updateFlushTask();
+
         logger.debug("Updating DB Wire Record Store... Done");
     }
 
@@ -180,6 +230,15 @@ public class H2DbWireRecordStore implements WireEmitter, WireReceiver, Configura
      */
     protected void deactivate(final ComponentContext componentContext) {
         logger.debug("Deactivating DB Wire Record Store...");
+        synchronized (this) {
+            stopFlushTask();
+            if (this.flushExecutor != null) {
+                this.flushExecutor.shutdown();
+                this.flushExecutor = null;
+            }
+            flushPendingRecords();
+            closeDbSession();
+        }
         stopDbServiceTracker();
         logger.debug("Deactivating DB Wire Record Store... Done");
     }
@@ -252,18 +311,33 @@ public class H2DbWireRecordStore implements WireEmitter, WireReceiver, Configura
         requireNonNull(wireEvelope, "Wire Envelope cannot be null");
 
         final List<WireRecord> records = wireEvelope.getRecords();
+        // records are timestamped on reception, also if they are stored later by the coalescing flush task
+        final long timestamp = System.currentTimeMillis();
 
         if (this.dbHelper != null) {
-            try {
-                if (getTableSize() >= this.wireRecordStoreOptions.getMaximumTableSize()) {
-                    truncate();
+            if (this.wireRecordStoreOptions.isBatchInsertEnabled()) {
+                if (this.wireRecordStoreOptions.getBatchCoalesceWindow() > 0) {
+                    this.pendingRecords.addAll(records);
+                    this.pendingTimestamps.addAll(Collections.nCopies(records.size(), timestamp));
+                    if (this.pendingRecords.size() >= this.wireRecordStoreOptions.getBatchMaxPendingRecords()) {
+                        flushPendingRecords();
+                    }
+                } else {
+                    storeBatch(records, Collections.nCopies(records.size(), timestamp));
+                }
+            } else {
+                try {
+                    if (this.partitionedTable == null
+                            && getTableSize() >= this.wireRecordStoreOptions.getMaximumTableSize()) {
+                        truncate();
+                    }
+                } catch (SQLException e) {
+                    logger.warn("Exception while trying to clean db");
                 }
-            } catch (SQLException e) {
-                logger.warn("Exception while trying to clean db");
-            }
 
-            for (WireRecord wireRecord : records) {
-                store(wireRecord);
+                for (WireRecord wireRecord : records) {
+                    store(wireRecord, timestamp);
+                }
             }
         } else {
             logger.warn("DbService instance not attached");
@@ -278,16 +352,18 @@ public class H2DbWireRecordStore implements WireEmitter, WireReceiver, Configura
      *
      * @param wireRecord
      *            the {@link WireRecord} to be stored
+     * @param timestamp
+     *            the timestamp of the record
      * @throws NullPointerException
      *             if the provided argument is null
      */
-    private void store(final WireRecord wireRecord) {
+    private void store(final WireRecord wireRecord, final long timestamp) {
         requireNonNull(wireRecord, "Wire Record cannot be null");
         int retryCount = 0;
         final String tableName = this.wireRecordStoreOptions.getTableName();
         do {
             try {
-                insertDataRecord(tableName, wireRecord);
+                insertDataRecord(tableName, wireRecord, timestamp);
                 break;
             } catch (final SQLException e) {
                 logger.error("Insertion failed. Reconciling Table and Columns...", e);
@@ -297,6 +373,120 @@ public class H2DbWireRecordStore implements WireEmitter, WireReceiver, Configura
         } while (retryCount < 2);
     }
 
+    /**
+     * Stores the provided {@link WireRecord}s using JDBC batches and a single commit. Consecutive records with the
+     * same columns are added to the same batch. The table size is tracked incrementally and the table is truncated
+     * before storing if the maximum size has been reached.
+     *
+     * @param wireRecords
+     *            the {@link WireRecord}s to be stored
+     * @param timestamps
+     *            the timestamps of the records
+     */
+    private void storeBatch(final List<WireRecord> wireRecords, final List<Long> timestamps) {
+        if (wireRecords.isEmpty()) {
+            return;
+        }
+
+        // the retention of partitioned tables is enforced by dropping partitions
+        if (this.partitionedTable == null) {
+            try {
+                if (this.tableSize < 0) {
+                    this.tableSize = getTableSize();
+                }
+                if (this.tableSize >= this.wireRecordStoreOptions.getMaximumTableSize()) {
+                    truncate();
+                    this.tableSize = getTableSize();
+                }
+            } catch (SQLException e) {
+                logger.warn("Exception while trying to clean db");
+                this.tableSize = -1;
+            }
+        }
+
+        int retryCount = 0;
+        final String tableName = this.wireRecordStoreOptions.getTableName();
+        do {
+            try {
+                insertDataRecords(tableName, wireRecords, timestamps);
+                if (this.tableSize >= 0) {
+                    this.tableSize += wireRecords.size();
+                }
+                break;
+            } catch (final SQLException e) {
+                logger.error("Batch insertion failed. Reconciling Table and Columns...", e);
+                this.insertSqlCache.clear();
+                reconcileDB(wireRecords, tableName);
+                retryCount++;
+            }
+        } while (retryCount < 2);
+    }
+
+    private synchronized void flushPendingRecords() {
+        if (this.pendingRecords.isEmpty()) {
+            return;
+        }
+
+        final List<WireRecord> records = new ArrayList<>(this.pendingRecords);
+        final List<Long> timestamps = new ArrayList<>(this.pendingTimestamps);
+        this.pendingRecords.clear();
+        this.pendingTimestamps.clear();
+
+        if (this.dbHelper != null) {
+            storeBatch(records, timestamps);
+        } else {
+            logger.warn("DbService instance not attached, discarding {} pending records", records.size());
+        }
+    }
+
+    private synchronized void updateFlushTask() {
+        stopFlushTask();
+
+        final long window = this.wireRecordStoreOptions.getBatchCoalesceWindow();
+        if (!this.wireRecordStoreOptions.isBatchInsertEnabled() || window <= 0) {
+            return;
+        }
+
+        if (this.flushExecutor == null) {
+            this.flushExecutor = Executors
+                    .newSingleThreadScheduledExecutor(getThreadFactory(this.wireRecordStoreOptions.getOwnPid()));
+        }
+        this.flushTask = this.flushExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                flushPendingRecords();
+            } catch (Exception e) {
+                logger.warn("Failed to flush pending records", e);
+            }
+        }, window, window, TimeUnit.MILLISECONDS);
+    }
+
+    private static ThreadFactory getThreadFactory(final String pid) {
+        final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+        return runnable -> {
+            final Thread result = defaultFactory.newThread(runnable);
+            result.setName("H2DbWireRecordStore_" + pid + "_" + System.identityHashCode(result));
+            result.setDaemon(true);
+            return result;
+        };
+    }
+
+    private void stopFlushTask() {
+        if (this.flushTask != null) {
+            this.flushTask.cancel(false);
+            this.flushTask = null;
+        }
+    }
+
+    private void reconcileDB(final List<WireRecord> wireRecords, final String tableName) {
+        final Map<ColumnSignature, WireRecord> distinctRecords = new HashMap<>();
+        for (final WireRecord wireRecord : wireRecords) {
+            distinctRecords.putIfAbsent(ColumnSignature.of(wireRecord), wireRecord);
+        }
+        for (final WireRecord wireRecord : distinctRecords.values()) {
+            reconcileDB(wireRecord, tableName);
+        }
+    }
+
     /**
      * Tries to reconcile the database.
      *
@@ -308,8 +498,12 @@ public class H2DbWireRecordStore implements WireEmitter, WireReceiver, Configura
     private void reconcileDB(final WireRecord wireRecord, final String tableName) {
         try {
             if (nonNull(tableName) && !tableName.isEmpty()) {
-                reconcileTable(tableName);
-                reconcileColumns(tableName, wireRecord);
+                if (this.partitionedTable != null) {
+                    reconcilePartitions(wireRecord);
+                } else {
+                    reconcileTable(tableName);
+                    reconcileColumns(tableName, wireRecord);
+                }
             }
         } catch (final SQLException ee) {
             logger.error("Error while storing Wire Records...", ee);
@@ -324,8 +518,17 @@ public class H2DbWireRecordStore implements WireEmitter, WireReceiver, Configura
      */
     private synchronized void reconcileDB(final String tableName) {
         try {
+            this.partitionedTable = null;
+            this.insertSqlCacheTable = null;
             if (nonNull(this.dbHelper) && nonNull(tableName) && !tableName.isEmpty()) {
-                reconcileTable(tableName);
+                final Interval partitionInterval = this.wireRecordStoreOptions.getPartitionInterval();
+                if (partitionInterval != null) {
+                    this.partitionedTable = new H2DbPartitionedTable(this.dbHelper, tableName, partitionInterval,
+                            this.wireRecordStoreOptions.getPartitionRetention());
+                    this.partitionedTable.reconcile();
+                } else {
+                    reconcileTable(tableName);
+                }
             }
         } catch (final SQLException ee) {
             logger.error("Error while storing Wire Records...", ee);
@@ -353,7 +556,8 @@ public class H2DbWireRecordStore implements WireEmitter, WireReceiver, Configura
             try (final ResultSet rsTbls = dbMetaData.getTables(catalog, null,
                     this.wireRecordStoreOptions.getTableName(), TABLE_TYPE)) {
                 if (!rsTbls.next()) {
-                    // table does not exist, create it
+                    // table does not exist, create it, removing the view left by a previous partitioned configuration
+                    this.dbHelper.execute(c, MessageFormat.format(SQL_DROP_VIEW, sqlTableName));
                     logger.info("Creating table {}...", sqlTableName);
                     this.dbHelper.execute(c, MessageFormat.format(SQL_CREATE_TABLE, sqlTableName));
                     createIndex(this.dbHelper.sanitizeSqlTableAndColumnName(tableName + "_TIMESTAMP"), sqlTableName,
@@ -364,6 +568,24 @@ public class H2DbWireRecordStore implements WireEmitter, WireReceiver, Configura
         });
     }
 
+    /**
+     * Creates the partition for the current time if needed and reconciles the columns of all partitions.
+     *
+     * @param wireRecord
+     *            against which the partition columns have to be reconciled.
+     * @throws SQLException
+     *             the SQL exception
+     */
+    private void reconcilePartitions(final WireRecord wireRecord) throws SQLException {
+        this.partitionedTable.reconcile();
+        // the view would prevent dropping the columns whose type has changed
+        this.partitionedTable.dropView();
+        for (final String partitionName : this.partitionedTable.getPartitionNames()) {
+            reconcileColumns(partitionName, wireRecord);
+        }
+        this.partitionedTable.updateView();
+    }
+
     private void createIndex(String indexname, String table, String order) throws SQLException {
         this.dbHelper.withConnection(c -> {
             this.dbHelper.execute(c, MessageFormat.format(SQL_CREATE_TABLE_INDEX, indexname, table, order));
@@ -431,33 +653,122 @@ public class H2DbWireRecordStore implements WireEmitter, WireReceiver, Configura
      *            the table name
      * @param wireRecord
      *            the {@link WireRecord}
+     * @param timestamp
+     *            the timestamp of the record
      * @throws SQLException
      *             the SQL exception
      * @throws NullPointerException
      *             if any of the provided arguments is null
      */
-    private void insertDataRecord(final String tableName, final WireRecord wireRecord) throws SQLException {
+    private void insertDataRecord(final String tableName, final WireRecord wireRecord, final long timestamp)
+            throws SQLException {
         requireNonNull(tableName, "Table name cannot be null");
         requireNonNull(wireRecord, "Wire Record cannot be null");
 
-        final Map<String, TypedValue<?>> wireRecordProperties = wireRecord.getProperties();
-
-        this.dbHelper.withConnection(c -> {
-            try (final PreparedStatement stmt = prepareStatement(c, tableName, wireRecordProperties,
-                    new Date().getTime())) {
-                stmt.execute();
-                c.commit();
-                return (Void) null;
-            }
+        final String targetTableName = getTargetTableName(tableName, timestamp);
 
+        this.dbSession.withConnection(context -> {
+            final PreparedStatement stmt = context
+                    .prepareStatement(buildInsertSql(targetTableName, wireRecord.getProperties()));
+            stmt.setLong(1, timestamp);
+            setParameters(stmt, wireRecord);
+            stmt.execute();
+            context.getConnection().commit();
+            return (Void) null;
         });
 
         logger.debug("Stored typed value");
     }
 
-    private PreparedStatement prepareStatement(Connection connection, String tableName,
-            final Map<String, TypedValue<?>> properties, long timestamp) throws SQLException {
+    /**
+     * Insert the provided {@link WireRecord}s to the specified table using JDBC batches and a single commit.
+     *
+     * @param tableName
+     *            the table name
+     * @param wireRecords
+     *            the {@link WireRecord}s
+     * @param timestamps
+     *            the timestamps of the records
+     * @throws SQLException
+     *             the SQL exception
+     */
+    private void insertDataRecords(final String tableName, final List<WireRecord> wireRecords,
+            final List<Long> timestamps) throws SQLException {
+        final String[] targetTableNames = new String[wireRecords.size()];
+        for (int i = 0; i < targetTableNames.length; i++) {
+            targetTableNames[i] = getTargetTableName(tableName, timestamps.get(i));
+        }
+
+        this.dbSession.withConnection(context -> {
+            ColumnSignature currentSignature = null;
+            String currentTableName = null;
+            WireRecord previousRecord = null;
+            PreparedStatement stmt = null;
+
+            for (int i = 0; i < targetTableNames.length; i++) {
+                final WireRecord wireRecord = wireRecords.get(i);
+                final String targetTableName = targetTableNames[i];
+
+                if (!targetTableName.equals(currentTableName) || !hasSameLayout(previousRecord, wireRecord)) {
+                    final ColumnSignature signature = ColumnSignature.of(wireRecord);
 
+                    if (!targetTableName.equals(currentTableName) || !signature.equals(currentSignature)) {
+                        if (stmt != null) {
+                            stmt.executeBatch();
+                        }
+                        stmt = context.prepareStatement(
+                                getInsertSql(targetTableName, signature, wireRecord.getProperties()));
+                        currentSignature = signature;
+                        currentTableName = targetTableName;
+                    }
+                }
+
+                stmt.setLong(1, timestamps.get(i));
+                setParameters(stmt, wireRecord);
+                stmt.addBatch();
+                previousRecord = wireRecord;
+            }
+            if (stmt != null) {
+                stmt.executeBatch();
+            }
+            context.getConnection().commit();
+            return (Void) null;
+        });
+
+        logger.debug("Stored {} wire records", wireRecords.size());
+    }
+
+    /**
+     * Returns the table where records with the provided timestamp must be inserted, that is the partition containing
+     * the timestamp if the table is partitioned.
+     */
+    private String getTargetTableName(final String tableName, final long timestamp) throws SQLException {
+        if (this.partitionedTable == null) {
+            return tableName;
+        }
+        return this.partitionedTable.getPartition(timestamp);
+    }
+
+    private String getInsertSql(final String tableName, final ColumnSignature signature,
+            final Map<String, TypedValue<?>> properties) {
+        if (!tableName.equals(this.insertSqlCacheTable)) {
+            this.insertSqlCache.clear();
+            this.insertSqlCacheTable = tableName;
+        }
+
+        String sqlInsert = this.insertSqlCache.get(signature);
+
+        if (sqlInsert == null) {
+            sqlInsert = buildInsertSql(tableName, properties);
+            if (this.insertSqlCache.size() >= MAX_CACHED_INSERT_STATEMENTS) {
+                this.insertSqlCache.clear();
+            }
+            this.insertSqlCache.put(signature, sqlInsert);
+        }
+        return sqlInsert;
+    }
+
+    private String buildInsertSql(final String tableName, final Map<String, TypedValue<?>> properties) {
         final String sqlTableName = this.dbHelper.sanitizeSqlTableAndColumnName(tableName);
         final StringBuilder sbCols = new StringBuilder();
         final StringBuilder sbVals = new StringBuilder();
@@ -466,7 +777,6 @@ public class H2DbWireRecordStore implements WireEmitter, WireReceiver, Configura
         sbCols.append("TIMESTAMP");
         sbVals.append("?");
 
-        int i = 2;
         for (Entry<String, TypedValue<?>> entry : properties.entrySet()) {
             final String sqlColName = this.dbHelper.sanitizeSqlTableAndColumnName(entry.getKey());
             sbCols.append(", ").append(sqlColName);
@@ -474,11 +784,66 @@ public class H2DbWireRecordStore implements WireEmitter, WireReceiver, Configura
         }
 
         logger.debug("Storing data into table {}...", sqlTableName);
-        final String sqlInsert = MessageFormat.format(SQL_INSERT_RECORD, sqlTableName, sbCols.toString(),
-                sbVals.toString());
-        final PreparedStatement stmt = connection.prepareStatement(sqlInsert);
-        stmt.setLong(1, timestamp);
+        return MessageFormat.format(SQL_INSERT_RECORD, sqlTableName, sbCols.toString(), sbVals.toString());
+    }
+
+    /**
+     * Returns whether the two records are {@link PrimitiveWireRecord}s with the same schema instance and set slots,
+     * in this case the INSERT statement of the previous record can be reused without computing the signature.
+     */
+    private static boolean hasSameLayout(final WireRecord previous, final WireRecord current) {
+        return previous instanceof PrimitiveWireRecord && current instanceof PrimitiveWireRecord
+                && ((PrimitiveWireRecord) previous).hasSameLayout((PrimitiveWireRecord) current);
+    }
 
+    private void setParameters(final PreparedStatement stmt, final WireRecord wireRecord) throws SQLException {
+        if (wireRecord instanceof PrimitiveWireRecord) {
+            setParameters(stmt, (PrimitiveWireRecord) wireRecord);
+        } else {
+            setParameters(stmt, wireRecord.getProperties());
+        }
+    }
+
+    private void setParameters(final PreparedStatement stmt, final PrimitiveWireRecord wireRecord)
+            throws SQLException {
+        final WireRecordSchema schema = wireRecord.getSchema();
+        int i = 2;
+        for (int slot = 0; slot < schema.size(); slot++) {
+            if (!wireRecord.isSet(slot)) {
+                continue;
+            }
+            switch (schema.getType(slot)) {
+            case BOOLEAN:
+                stmt.setBoolean(i, wireRecord.getBoolean(slot));
+                break;
+            case FLOAT:
+                stmt.setFloat(i, wireRecord.getFloat(slot));
+                break;
+            case DOUBLE:
+                stmt.setDouble(i, wireRecord.getDouble(slot));
+                break;
+            case INTEGER:
+                stmt.setInt(i, wireRecord.getInteger(slot));
+                break;
+            case LONG:
+                stmt.setLong(i, wireRecord.getLong(slot));
+                break;
+            case BYTE_ARRAY:
+                stmt.setBlob(i, new ByteArrayInputStream(wireRecord.getByteArray(slot)));
+                break;
+            case STRING:
+                stmt.setString(i, wireRecord.getString(slot));
+                break;
+            default:
+                break;
+            }
+            i++;
+        }
+    }
+
+    private void setParameters(final PreparedStatement stmt, final Map<String, TypedValue<?>> properties)
+            throws SQLException {
+        int i = 2;
         for (Entry<String, TypedValue<?>> entry : properties.entrySet()) {
             final DataType dataType = entry.getValue().getType();
             final Object value = entry.getValue();
@@ -511,8 +876,6 @@ public class H2DbWireRecordStore implements WireEmitter, WireReceiver, Configura
             }
             i++;
         }
-        return stmt;
-
     }
 
     protected void restartDbServiceTracker() {
@@ -575,4 +938,73 @@ public class H2DbWireRecordStore implements WireEmitter, WireReceiver, Configura
     public void updated(final Wire wire, final Object value) {
         this.wireSupport.updated(wire, value);
     }
+
+    /**
+     * The names and types of the properties of a {@link WireRecord}, in iteration order. Used as key for the cache of
+     * INSERT statements.
+     */
+    private static final class ColumnSignature {
+
+        private final String[] names;
+        private final DataType[] types;
+        private final int hashCode;
+
+        private ColumnSignature(final String[] names, final DataType[] types) {
+            this.names = names;
+            this.types = types;
+            this.hashCode = 31 * Arrays.hashCode(this.names) + Arrays.hashCode(this.types);
+        }
+
+        static ColumnSignature of(final WireRecord wireRecord) {
+            if (wireRecord instanceof PrimitiveWireRecord) {
+                return of((PrimitiveWireRecord) wireRecord);
+            }
+
+            final Map<String, TypedValue<?>> properties = wireRecord.getProperties();
+            final String[] names = new String[properties.size()];
+            final DataType[] types = new DataType[properties.size()];
+
+            int i = 0;
+            for (Entry<String, TypedValue<?>> entry : properties.entrySet()) {
+                names[i] = entry.getKey();
+                types[i] = entry.getValue().getType();
+                i++;
+            }
+            return new ColumnSignature(names, types);
+        }
+
+        private static ColumnSignature of(final PrimitiveWireRecord wireRecord) {
+            final WireRecordSchema schema = wireRecord.getSchema();
+            final String[] names = new String[wireRecord.getProperties().size()];
+            final DataType[] types = new DataType[names.length];
+
+            int i = 0;
+            for (int slot = 0; slot < schema.size(); slot++) {
+                if (wireRecord.isSet(slot)) {
+                    names[i] = schema.getName(slot);
+                    types[i] = schema.getType(slot);
+                    i++;
+                }
+            }
+            return new ColumnSignature(names, types);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ColumnSignature)) {
+                return false;
+            }
+            final ColumnSignature other = (ColumnSignature) obj;
+            return this.hashCode == other.hashCode && Arrays.equals(this.names, other.names)
+                    && Arrays.equals(this.types, other.types);
+        }
+    }
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -20,7 +20,9 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.eclipse.kura.configuration.ConfigurationService;
 import org.eclipse.kura.db.H2DbService;
+import org.eclipse.kura.internal.wire.h2db.common.H2DbPartitions.Interval;
 
 /**
  * The Class DbWireRecordStoreOptions is responsible to contain all the DB Wire
@@ -38,6 +40,20 @@ final class H2DbWireRecordStoreOptions {
 
     private static final String TABLE_NAME = "table.name";
 
+    private static final String BATCH_INSERT_ENABLED = "batch.insert.enabled";
+
+    private static final String BATCH_COALESCE_WINDOW = "batch.coalesce.window";
+
+    private static final String BATCH_MAX_PENDING_RECORDS = "batch.max.pending.records";
+
+    private static final int DEFAULT_BATCH_MAX_PENDING_RECORDS = 10000;
+
+    private static final String PARTITION_INTERVAL = "partition.interval";
+
+    private static final String PARTITION_RETENTION = "partition.retention";
+
+    private static final String PARTITION_INTERVAL_NONE = "NONE";
+
     private final Map<String, Object> properties;
 
     /**
@@ -88,6 +104,75 @@ final class H2DbWireRecordStoreOptions {
         return tableName;
     }
 
+    boolean isBatchInsertEnabled() {
+        boolean enabled = false;
+        final Object batchInsertEnabled = this.properties.get(BATCH_INSERT_ENABLED);
+        if (nonNull(batchInsertEnabled) && batchInsertEnabled instanceof Boolean) {
+            enabled = (Boolean) batchInsertEnabled;
+        }
+        return enabled;
+    }
+
+    /**
+     * Returns the time window in milliseconds used to coalesce the records of multiple envelopes in a single batch.
+     *
+     * @return the coalesce window, 0 if each envelope is stored as soon as it is received
+     */
+    long getBatchCoalesceWindow() {
+        long window = 0;
+        final Object coalesceWindow = this.properties.get(BATCH_COALESCE_WINDOW);
+        if (nonNull(coalesceWindow) && coalesceWindow instanceof Integer) {
+            window = (Integer) coalesceWindow;
+        }
+        return window;
+    }
+
+    /**
+     * Returns the maximum number of records waiting for the coalesce window to elapse, the pending records are stored
+     * as soon as this number is reached.
+     *
+     * @return the maximum number of pending records
+     */
+    int getBatchMaxPendingRecords() {
+        int maxPendingRecords = DEFAULT_BATCH_MAX_PENDING_RECORDS;
+        final Object propertiesMaxPendingRecords = this.properties.get(BATCH_MAX_PENDING_RECORDS);
+        if (nonNull(propertiesMaxPendingRecords) && propertiesMaxPendingRecords instanceof Integer) {
+            maxPendingRecords = Math.max(1, (Integer) propertiesMaxPendingRecords);
+        }
+        return maxPendingRecords;
+    }
+
+    /**
+     * Returns the time interval covered by each partition of the table.
+     *
+     * @return the partition interval, or {@code null} if the table is not partitioned
+     */
+    Interval getPartitionInterval() {
+        final Object interval = this.properties.get(PARTITION_INTERVAL);
+        if (nonNull(interval) && interval instanceof String && !PARTITION_INTERVAL_NONE.equals(interval)) {
+            try {
+                return Interval.valueOf((String) interval);
+            } catch (final IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of partitions to keep, older partitions are dropped.
+     *
+     * @return the number of partitions
+     */
+    int getPartitionRetention() {
+        int retention = 24;
+        final Object partitionRetention = this.properties.get(PARTITION_RETENTION);
+        if (nonNull(partitionRetention) && partitionRetention instanceof Integer) {
+            retention = (Integer) partitionRetention;
+        }
+        return retention;
+    }
+
     String getDbServiceInstancePid() {
         String dbServicePid = H2DbService.DEFAULT_INSTANCE_PID;
         final Object pid = this.properties.get(DB_SERVICE_INSTANCE);
@@ -96,4 +181,8 @@ final class H2DbWireRecordStoreOptions {
         }
         return dbServicePid;
     }
-}
\ No newline at end of file
+
+    String getOwnPid() {
+        return String.valueOf(this.properties.get(ConfigurationService.KURA_SERVICE_PID));
+    }
+}
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Eurotech
+ *
+ *******************************************************************************/
+package org.eclipse.kura.internal.wire.helper;
+
+/**
+ * Defines the behavior of a {@link WireMailbox} when an envelope is submitted and the mailbox is full.
+ */
+enum OverflowPolicy {
+
+    /**
+     * The emitter blocks until the envelope can be enqueued.
+     */
+    BLOCK,
+    /**
+     * The oldest enqueued envelope is discarded.
+     */
+    DROP_OLDEST,
+    /**
+     * The submitted envelope is discarded.
+     */
+    DROP_NEWEST;
+
+    static OverflowPolicy fromValue(final Object value, final OverflowPolicy defaultValue) {
+        if (value instanceof String) {
+            try {
+                return OverflowPolicy.valueOf(((String) value).trim());
+            } catch (IllegalArgumentException e) {
+                // use default
+            }
+        }
+        return defaultValue;
+    }
+}
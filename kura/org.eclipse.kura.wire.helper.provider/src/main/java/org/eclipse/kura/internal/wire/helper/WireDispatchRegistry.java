@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.internal.wire.helper;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.eclipse.kura.wire.WireEnvelope;
+import org.osgi.service.wireadmin.Wire;
+
+/**
+ * Associates the {@link Wire} instances created by WireAdmin with the receiver ports they are connected to, allowing
+ * the emitters to deliver envelopes directly to the consumer without going through {@link Wire#update(Object)}.
+ * <p>
+ * WireAdmin remains the source of truth for the topology: the associations are created and removed by the
+ * {@link WireSupportImpl} instances when WireAdmin notifies them about the connected wires. Each change increments
+ * a generation counter, which is used by the emitters to detect that their compiled routes must be resolved again.
+ */
+final class WireDispatchRegistry {
+
+    private final Map<Wire, Consumer<WireEnvelope>> targets = new ConcurrentHashMap<>();
+    private final AtomicInteger generation = new AtomicInteger();
+
+    void bind(final Wire wire, final Consumer<WireEnvelope> target) {
+        this.targets.put(wire, target);
+        this.generation.incrementAndGet();
+    }
+
+    void unbind(final Wire wire, final Consumer<WireEnvelope> target) {
+        if (this.targets.remove(wire, target)) {
+            this.generation.incrementAndGet();
+        }
+    }
+
+    Consumer<WireEnvelope> resolve(final Wire wire) {
+        return this.targets.get(wire);
+    }
+
+    int getGeneration() {
+        return this.generation.get();
+    }
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Eurotech
+ *
+ *******************************************************************************/
+package org.eclipse.kura.internal.wire.helper;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers wire envelopes asynchronously using a worker pool shared by all the {@link WireMailbox}es.
+ * <p>
+ * The worker pool is a {@link ForkJoinPool} in asynchronous mode: a worker that blocks while emitting to a full
+ * mailbox is temporarily compensated by an additional worker, so that the graph can always make progress.
+ */
+final class WireDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(WireDispatcher.class);
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    private ForkJoinPool pool;
+    private int workerThreads;
+
+    synchronized void setWorkerThreads(final int workerThreads) {
+        final int newWorkerThreads = Math.max(1, workerThreads);
+
+        if (this.pool != null && newWorkerThreads == this.workerThreads) {
+            return;
+        }
+
+        final ForkJoinPool oldPool = this.pool;
+
+        this.workerThreads = newWorkerThreads;
+        this.pool = new ForkJoinPool(newWorkerThreads, WireDispatcher::newWorkerThread,
+                (thread, e) -> logger.warn("Unexpected exception in wire dispatcher worker", e), true);
+        logger.info("Wire dispatcher worker threads: {}", newWorkerThreads);
+
+        if (oldPool != null) {
+            // already submitted tasks are still executed by the old pool
+            oldPool.shutdown();
+        }
+    }
+
+    synchronized void shutdown() {
+        if (this.pool == null) {
+            return;
+        }
+
+        this.pool.shutdown();
+        try {
+            if (!this.pool.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warn("Wire dispatcher workers did not terminate in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.pool = null;
+    }
+
+    WireMailbox newMailbox(final String name, final int capacity, final OverflowPolicy overflowPolicy) {
+        return new WireMailbox(name, this, capacity, overflowPolicy);
+    }
+
+    void execute(final Runnable task) {
+        final ForkJoinPool currentPool;
+
+        synchronized (this) {
+            currentPool = this.pool;
+        }
+
+        if (currentPool == null) {
+            throw new RejectedExecutionException("Wire dispatcher is not running");
+        }
+        currentPool.execute(task);
+    }
+
+    private static ForkJoinWorkerThread newWorkerThread(final ForkJoinPool pool) {
+        final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("WireDispatcher-" + threadCount.incrementAndGet());
+        return thread;
+    }
+}
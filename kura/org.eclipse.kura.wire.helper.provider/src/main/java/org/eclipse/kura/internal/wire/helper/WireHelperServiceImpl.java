@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2016, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -19,6 +19,9 @@ import static org.eclipse.kura.wire.graph.Constants.EMITTER_PORT_COUNT_PROP_NAME
 import static org.eclipse.kura.wire.graph.Constants.RECEIVER_PORT_COUNT_PROP_NAME;
 import static org.osgi.framework.Constants.SERVICE_PID;
 
+import java.util.Map;
+
+import org.eclipse.kura.configuration.ConfigurableComponent;
 import org.eclipse.kura.util.service.ServiceUtil;
 import org.eclipse.kura.wire.WireComponent;
 import org.eclipse.kura.wire.WireEmitter;
@@ -28,12 +31,73 @@ import org.eclipse.kura.wire.WireSupport;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.FrameworkUtil;
 import org.osgi.framework.ServiceReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * The Class WireHelperServiceImpl is the implementation of
  * {@link WireHelperService}
+ * <p>
+ * If asynchronous dispatch is enabled, the {@link WireSupport} instances created by this service deliver the received
+ * envelopes using a bounded {@link WireMailbox} per wire component, served by a shared {@link WireDispatcher}. The
+ * dispatch properties can be overridden for a single wire component by adding them to its service properties.
+ * <p>
+ * If direct dispatch is enabled, the wires connected by WireAdmin are compiled into per port routes that deliver
+ * the envelopes to the consumers through a shared {@link WireDispatchRegistry}, without calling
+ * {@link org.osgi.service.wireadmin.Wire#update(Object)}. WireAdmin still defines the topology, but it does not
+ * generate trace events for the envelopes delivered this way.
  */
-public final class WireHelperServiceImpl implements WireHelperService {
+public final class WireHelperServiceImpl implements WireHelperService, ConfigurableComponent {
+
+    private static final Logger logger = LoggerFactory.getLogger(WireHelperServiceImpl.class);
+
+    static final String DISPATCH_ASYNC_ENABLED_PROP_NAME = "dispatch.async.enabled";
+    static final String DISPATCH_WORKER_THREADS_PROP_NAME = "dispatch.worker.threads";
+    static final String DISPATCH_MAILBOX_CAPACITY_PROP_NAME = "dispatch.mailbox.capacity";
+    static final String DISPATCH_OVERFLOW_POLICY_PROP_NAME = "dispatch.overflow.policy";
+    static final String DISPATCH_DIRECT_ENABLED_PROP_NAME = "dispatch.direct.enabled";
+
+    private static final int DISPATCH_WORKER_THREADS_DEFAULT = 2;
+    private static final int DISPATCH_MAILBOX_CAPACITY_DEFAULT = 1000;
+
+    private final WireDispatcher dispatcher = new WireDispatcher();
+    private final WireDispatchRegistry dispatchRegistry = new WireDispatchRegistry();
+
+    private volatile boolean asyncDispatchEnabled;
+    private volatile boolean directDispatchEnabled;
+    private volatile int mailboxCapacity = DISPATCH_MAILBOX_CAPACITY_DEFAULT;
+    private volatile OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+    protected void activate(final Map<String, Object> properties) {
+        logger.info("Activating Wire Helper Service...");
+        updated(properties);
+        logger.info("Activating Wire Helper Service... Done");
+    }
+
+    public void updated(final Map<String, Object> properties) {
+        logger.info("Updating Wire Helper Service...");
+
+        if (properties != null) {
+            this.asyncDispatchEnabled = (Boolean) properties.getOrDefault(DISPATCH_ASYNC_ENABLED_PROP_NAME, false);
+            this.directDispatchEnabled = (Boolean) properties.getOrDefault(DISPATCH_DIRECT_ENABLED_PROP_NAME, false);
+            this.mailboxCapacity = getIntOrDefault(properties.get(DISPATCH_MAILBOX_CAPACITY_PROP_NAME),
+                    DISPATCH_MAILBOX_CAPACITY_DEFAULT);
+            this.overflowPolicy = OverflowPolicy.fromValue(properties.get(DISPATCH_OVERFLOW_POLICY_PROP_NAME),
+                    OverflowPolicy.BLOCK);
+            this.dispatcher.setWorkerThreads(getIntOrDefault(properties.get(DISPATCH_WORKER_THREADS_PROP_NAME),
+                    DISPATCH_WORKER_THREADS_DEFAULT));
+        } else {
+            this.dispatcher.setWorkerThreads(DISPATCH_WORKER_THREADS_DEFAULT);
+        }
+
+        logger.info("Updating Wire Helper Service... Done");
+    }
+
+    protected void deactivate() {
+        logger.info("Deactivating Wire Helper Service...");
+        this.dispatcher.shutdown();
+        logger.info("Deactivating Wire Helper Service... Done");
+    }
 
     /** {@inheritDoc} */
     @Override
@@ -151,6 +215,28 @@ public final class WireHelperServiceImpl implements WireHelperService {
         int emitterPortCount = getIntOrDefault(wireComponentRef.getProperty(EMITTER_PORT_COUNT_PROP_NAME.value()),
                 wireComponent instanceof WireEmitter ? 1 : 0);
 
-        return new WireSupportImpl(wireComponent, servicePid, kuraServicePid, receiverPortCount, emitterPortCount);
+        final Object directEnabled = wireComponentRef.getProperty(DISPATCH_DIRECT_ENABLED_PROP_NAME);
+        final boolean direct = directEnabled instanceof Boolean ? (Boolean) directEnabled
+                : this.directDispatchEnabled;
+
+        return new WireSupportImpl(wireComponent, servicePid, kuraServicePid, receiverPortCount, emitterPortCount,
+                newMailbox(kuraServicePid, wireComponentRef), direct ? this.dispatchRegistry : null);
+    }
+
+    private WireMailbox newMailbox(final String kuraServicePid,
+            final ServiceReference<WireComponent> wireComponentRef) {
+        final Object asyncEnabled = wireComponentRef.getProperty(DISPATCH_ASYNC_ENABLED_PROP_NAME);
+        if (!(asyncEnabled instanceof Boolean ? (Boolean) asyncEnabled : this.asyncDispatchEnabled)) {
+            return null;
+        }
+
+        final int capacity = getIntOrDefault(wireComponentRef.getProperty(DISPATCH_MAILBOX_CAPACITY_PROP_NAME),
+                this.mailboxCapacity);
+        final OverflowPolicy policy = OverflowPolicy
+                .fromValue(wireComponentRef.getProperty(DISPATCH_OVERFLOW_POLICY_PROP_NAME), this.overflowPolicy);
+
+        logger.debug("Using asynchronous dispatch for {}, mailbox capacity: {}, overflow policy: {}", kuraServicePid,
+                capacity, policy);
+        return this.dispatcher.newMailbox(kuraServicePid, capacity, policy);
     }
 }
@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *  Eurotech
+ *
+ *******************************************************************************/
+package org.eclipse.kura.internal.wire.helper;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded queue of deliveries for a single wire component, served by the worker pool of a {@link WireDispatcher}.
+ * <p>
+ * At most one worker at a time drains a mailbox, so the deliveries to a wire component are performed sequentially and
+ * in submission order. A worker processes a limited number of deliveries before yielding, so that busy mailboxes do
+ * not starve the others.
+ */
+final class WireMailbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(WireMailbox.class);
+
+    private static final int MAX_DELIVERIES_PER_RUN = 32;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = this.lock.newCondition();
+
+    private final String name;
+    private final WireDispatcher dispatcher;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final ArrayDeque<Runnable> queue;
+
+    private boolean scheduled;
+    private long droppedCount;
+
+    WireMailbox(final String name, final WireDispatcher dispatcher, final int capacity,
+            final OverflowPolicy overflowPolicy) {
+        this.name = name;
+        this.dispatcher = dispatcher;
+        this.capacity = Math.max(1, capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.queue = new ArrayDeque<>(Math.min(this.capacity, 64));
+    }
+
+    /**
+     * Enqueues a delivery, applying the overflow policy if the mailbox is full.
+     *
+     * @param delivery
+     *            the delivery
+     * @return true if the delivery has been enqueued, false if it has been discarded
+     */
+    boolean submit(final Runnable delivery) {
+        this.lock.lock();
+        try {
+            if (this.queue.size() >= this.capacity && !makeRoom()) {
+                return false;
+            }
+
+            this.queue.add(delivery);
+
+            if (!this.scheduled) {
+                this.scheduled = true;
+                schedule();
+            }
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    long getDroppedCount() {
+        this.lock.lock();
+        try {
+            return this.droppedCount;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    // must be called holding the lock
+    private boolean makeRoom() {
+        switch (this.overflowPolicy) {
+        case DROP_NEWEST:
+            onDropped();
+            return false;
+        case DROP_OLDEST:
+            this.queue.poll();
+            onDropped();
+            return true;
+        default:
+            return awaitNotFull();
+        }
+    }
+
+    // must be called holding the lock
+    private boolean awaitNotFull() {
+        try {
+            // allows the pool to compensate for workers blocked while emitting to a full mailbox
+            ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+
+                @Override
+                public boolean block() throws InterruptedException {
+                    if (!isReleasable()) {
+                        WireMailbox.this.notFull.await();
+                    }
+                    return isReleasable();
+                }
+
+                @Override
+                public boolean isReleasable() {
+                    return WireMailbox.this.queue.size() < WireMailbox.this.capacity;
+                }
+            });
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for mailbox {}, discarding envelope", this.name);
+            onDropped();
+            return false;
+        }
+    }
+
+    // must be called holding the lock
+    private void onDropped() {
+        this.droppedCount++;
+        logger.debug("Mailbox {} full, envelope discarded, total discarded: {}", this.name, this.droppedCount);
+    }
+
+    // must be called holding the lock
+    private void schedule() {
+        try {
+            this.dispatcher.execute(this::run);
+        } catch (RejectedExecutionException e) {
+            this.scheduled = false;
+            logger.warn("Dispatcher not available, delivering envelopes for {} on the caller thread", this.name);
+            drainOnCallerThread();
+        }
+    }
+
+    // must be called holding the lock
+    private void drainOnCallerThread() {
+        Runnable next;
+        while ((next = this.queue.poll()) != null) {
+            this.notFull.signalAll();
+            this.lock.unlock();
+            try {
+                deliver(next);
+            } finally {
+                this.lock.lock();
+            }
+        }
+    }
+
+    private void run() {
+        for (int i = 0; i < MAX_DELIVERIES_PER_RUN; i++) {
+            final Runnable next;
+
+            this.lock.lock();
+            try {
+                next = this.queue.poll();
+                if (next == null) {
+                    this.scheduled = false;
+                    return;
+                }
+                this.notFull.signal();
+            } finally {
+                this.lock.unlock();
+            }
+
+            deliver(next);
+        }
+
+        this.lock.lock();
+        try {
+            if (this.queue.isEmpty()) {
+                this.scheduled = false;
+            } else {
+                schedule();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void deliver(final Runnable delivery) {
+        try {
+            delivery.run();
+        } catch (Exception e) {
+            logger.warn("Unexpected exception while delivering envelope to {}", this.name, e);
+        }
+    }
+}
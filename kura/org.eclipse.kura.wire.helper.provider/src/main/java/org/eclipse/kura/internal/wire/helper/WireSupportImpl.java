@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2016, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -19,7 +19,9 @@ import static org.eclipse.kura.wire.graph.Constants.WIRE_RECEIVER_PORT_PROP_NAME
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Dictionary;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -35,11 +37,25 @@ import org.eclipse.kura.wire.graph.MultiportWireSupport;
 import org.eclipse.kura.wire.graph.Port;
 import org.eclipse.kura.wire.graph.ReceiverPort;
 import org.osgi.service.wireadmin.Wire;
+import org.osgi.service.wireadmin.WireConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * The Class WireSupportImpl implements {@link WireSupport}
+ * <p>
+ * If a {@link WireMailbox} is provided, the envelopes received by the wire component are enqueued in the mailbox and
+ * delivered by the {@link WireDispatcher} workers, otherwise they are delivered on the thread of the emitter.
+ * <p>
+ * If a {@link WireDispatchRegistry} is provided, the wires connected to the receiver ports are registered in it and
+ * each emitter port compiles its connected wires into an array of routes. Envelopes emitted on a route whose consumer
+ * is registered are delivered directly to the receiver port, bypassing {@link Wire#update(Object)}; the other routes
+ * fall back to WireAdmin. Wires with a WireAdmin filter, or whose consumer flavors do not accept {@link WireEnvelope},
+ * always use WireAdmin, since the filter and the flavors are checked by {@link Wire#update(Object)}.
+ * <p>
+ * The last value of a directly routed wire is not updated: {@link #polled(Wire)} returns the last envelope delivered
+ * on the route instead of {@link Wire#getLastValue()}, so that polling consumers keep working, while
+ * {@link Wire#getLastValue()} does not reflect the envelopes delivered directly.
  */
 final class WireSupportImpl implements WireSupport, MultiportWireSupport {
 
@@ -55,10 +71,25 @@ final class WireSupportImpl implements WireSupport, MultiportWireSupport {
 
     private final String kuraServicePid;
 
-    private final Map<Wire, ReceiverPortImpl> receiverPortByWire;
+    private volatile Map<Wire, ReceiverPortImpl> receiverPortByWire = Collections.emptyMap();
+
+    private final WireMailbox mailbox;
+
+    private final WireDispatchRegistry dispatchRegistry;
 
     WireSupportImpl(final WireComponent wireComponent, final String servicePid, final String kuraServicePid,
             int inputPortCount, int outputPortCount) {
+        this(wireComponent, servicePid, kuraServicePid, inputPortCount, outputPortCount, null);
+    }
+
+    WireSupportImpl(final WireComponent wireComponent, final String servicePid, final String kuraServicePid,
+            int inputPortCount, int outputPortCount, final WireMailbox mailbox) {
+        this(wireComponent, servicePid, kuraServicePid, inputPortCount, outputPortCount, mailbox, null);
+    }
+
+    WireSupportImpl(final WireComponent wireComponent, final String servicePid, final String kuraServicePid,
+            int inputPortCount, int outputPortCount, final WireMailbox mailbox,
+            final WireDispatchRegistry dispatchRegistry) {
         requireNonNull(wireComponent, "Wire component cannot be null");
         requireNonNull(servicePid, "service pid cannot be null");
         requireNonNull(kuraServicePid, "kura service pid cannot be null");
@@ -66,6 +97,8 @@ final class WireSupportImpl implements WireSupport, MultiportWireSupport {
         this.servicePid = servicePid;
         this.kuraServicePid = kuraServicePid;
         this.wireComponent = wireComponent;
+        this.mailbox = mailbox;
+        this.dispatchRegistry = dispatchRegistry;
 
         if (inputPortCount < 0) {
             throw new IllegalArgumentException("Input port count must be greater or equal than zero");
@@ -76,7 +109,6 @@ final class WireSupportImpl implements WireSupport, MultiportWireSupport {
 
         this.receiverPorts = new ArrayList<>(inputPortCount);
         this.emitterPorts = new ArrayList<>(outputPortCount);
-        this.receiverPortByWire = new HashMap<>();
 
         for (int i = 0; i < inputPortCount; i++) {
             receiverPorts.add(new ReceiverPortImpl());
@@ -88,14 +120,13 @@ final class WireSupportImpl implements WireSupport, MultiportWireSupport {
     }
 
     private void clearReceiverPorts() {
-        this.receiverPortByWire.clear();
-        for (final ReceiverPort port : this.receiverPorts) {
-            ((PortImpl) port).connectedWires.clear();
+        if (this.dispatchRegistry != null) {
+            for (final Map.Entry<Wire, ReceiverPortImpl> entry : this.receiverPortByWire.entrySet()) {
+                this.dispatchRegistry.unbind(entry.getKey(), entry.getValue().target);
+            }
         }
-    }
-
-    private void clearEmitterPorts() {
-        for (final EmitterPort port : this.emitterPorts) {
+        this.receiverPortByWire = Collections.emptyMap();
+        for (final ReceiverPort port : this.receiverPorts) {
             ((PortImpl) port).connectedWires.clear();
         }
     }
@@ -103,18 +134,23 @@ final class WireSupportImpl implements WireSupport, MultiportWireSupport {
     /** {@inheritDoc} */
     @Override
     public synchronized void consumersConnected(final Wire[] wires) {
-        clearEmitterPorts();
-        if (wires == null) {
-            return;
+        final Map<EmitterPortImpl, List<Wire>> wiresByPort = new IdentityHashMap<>();
+        for (final EmitterPort port : this.emitterPorts) {
+            wiresByPort.put((EmitterPortImpl) port, new ArrayList<>());
         }
-        for (Wire w : wires) {
-            try {
-                final int outputPort = (Integer) w.getProperties().get(WIRE_EMITTER_PORT_PROP_NAME.value());
-                ((PortImpl) this.emitterPorts.get(outputPort)).connectedWires.add(w);
-            } catch (Exception e) {
-                logger.warn("Failed to assign outgoing wire to port", e);
+        if (wires != null) {
+            for (Wire w : wires) {
+                try {
+                    final int outputPort = (Integer) w.getProperties().get(WIRE_EMITTER_PORT_PROP_NAME.value());
+                    wiresByPort.get(this.emitterPorts.get(outputPort)).add(w);
+                } catch (Exception e) {
+                    logger.warn("Failed to assign outgoing wire to port", e);
+                }
             }
         }
+        for (final Map.Entry<EmitterPortImpl, List<Wire>> entry : wiresByPort.entrySet()) {
+            entry.getKey().connect(entry.getValue());
+        }
     }
 
     /** {@inheritDoc} */
@@ -130,6 +166,13 @@ final class WireSupportImpl implements WireSupport, MultiportWireSupport {
     /** {@inheritDoc} */
     @Override
     public synchronized Object polled(final Wire wire) {
+        for (final EmitterPort port : this.emitterPorts) {
+            for (final Route route : ((EmitterPortImpl) port).routes) {
+                if (route.wire == wire && route.lastDirectValue != null) {
+                    return route.lastDirectValue;
+                }
+            }
+        }
         return wire.getLastValue();
     }
 
@@ -140,16 +183,23 @@ final class WireSupportImpl implements WireSupport, MultiportWireSupport {
         if (wires == null) {
             return;
         }
+        final Map<Wire, ReceiverPortImpl> portByWire = new HashMap<>();
         for (Wire w : wires) {
             try {
                 final int receiverPortIndex = (Integer) w.getProperties().get(WIRE_RECEIVER_PORT_PROP_NAME.value());
                 final ReceiverPortImpl receiverPort = (ReceiverPortImpl) this.receiverPorts.get(receiverPortIndex);
                 receiverPort.connectedWires.add(w);
-                this.receiverPortByWire.put(w, receiverPort);
+                portByWire.put(w, receiverPort);
             } catch (Exception e) {
                 logger.warn("Failed to assign incomimg wire to port", e);
             }
         }
+        this.receiverPortByWire = Collections.unmodifiableMap(portByWire);
+        if (this.dispatchRegistry != null) {
+            for (final Map.Entry<Wire, ReceiverPortImpl> entry : portByWire.entrySet()) {
+                this.dispatchRegistry.bind(entry.getKey(), entry.getValue().target);
+            }
+        }
     }
 
     /** {@inheritDoc} */
@@ -159,12 +209,24 @@ final class WireSupportImpl implements WireSupport, MultiportWireSupport {
             logger.warn("Wire cannot be null");
             return;
         }
-        final WireEnvelope envelope = (WireEnvelope) value;
+        receive(this.receiverPortByWire.get(wire), (WireEnvelope) value);
+    }
+
+    private void receive(final ReceiverPortImpl receiverPort, final WireEnvelope envelope) {
+        if (this.mailbox != null) {
+            this.mailbox.submit(() -> deliver(receiverPort, envelope));
+        } else {
+            deliver(receiverPort, envelope);
+        }
+    }
+
+    private void deliver(final ReceiverPortImpl receiverPort, final WireEnvelope envelope) {
         if (wireComponent instanceof WireReceiver) {
             ((WireReceiver) this.wireComponent).onWireReceive(envelope);
-        } else {
-            final ReceiverPortImpl receiverPort = this.receiverPortByWire.get(wire);
+        } else if (receiverPort != null) {
             receiverPort.consumer.accept(envelope);
+        } else {
+            logger.warn("Received envelope from a wire not assigned to any port");
         }
     }
 
@@ -180,7 +242,7 @@ final class WireSupportImpl implements WireSupport, MultiportWireSupport {
 
     private abstract class PortImpl implements Port {
 
-        List<Wire> connectedWires = new CopyOnWriteArrayList<>();
+        volatile List<Wire> connectedWires = new CopyOnWriteArrayList<>();
 
         @Override
         public List<Wire> listConnectedWires() {
@@ -190,16 +252,103 @@ final class WireSupportImpl implements WireSupport, MultiportWireSupport {
 
     private class EmitterPortImpl extends PortImpl implements EmitterPort {
 
+        private volatile Route[] routes = new Route[0];
+
+        void connect(final List<Wire> wires) {
+            final Route[] compiled = new Route[wires.size()];
+            for (int i = 0; i < compiled.length; i++) {
+                compiled[i] = new Route(wires.get(i));
+            }
+            this.connectedWires = new CopyOnWriteArrayList<>(wires);
+            this.routes = compiled;
+        }
+
         @Override
         public void emit(WireEnvelope envelope) {
-            for (final Wire wire : this.connectedWires) {
-                wire.update(envelope);
+            for (final Route route : this.routes) {
+                route.deliver(envelope);
             }
         }
     }
 
+    /**
+     * A compiled outgoing wire. The consumer resolved from the {@link WireDispatchRegistry} is cached together with
+     * the registry generation it was resolved at, and resolved again only if the registry changes.
+     */
+    private final class Route {
+
+        private final Wire wire;
+        private final boolean direct;
+        private volatile Binding binding = new Binding(-1, null);
+        private volatile WireEnvelope lastDirectValue;
+
+        Route(final Wire wire) {
+            this.wire = wire;
+            this.direct = WireSupportImpl.this.dispatchRegistry != null && isDirectRouteAllowed(wire);
+        }
+
+        void deliver(final WireEnvelope envelope) {
+            final WireDispatchRegistry registry = WireSupportImpl.this.dispatchRegistry;
+            if (!this.direct) {
+                this.wire.update(envelope);
+                return;
+            }
+
+            Binding current = this.binding;
+            final int generation = registry.getGeneration();
+            if (current.generation != generation) {
+                current = new Binding(generation, registry.resolve(this.wire));
+                this.binding = current;
+            }
+
+            if (current.target != null && this.wire.isConnected()) {
+                this.lastDirectValue = envelope;
+                current.target.accept(envelope);
+            } else {
+                this.lastDirectValue = null;
+                this.wire.update(envelope);
+            }
+        }
+    }
+
+    // the WireAdmin filter and the consumer flavors are enforced by Wire.update() only
+    private static boolean isDirectRouteAllowed(final Wire wire) {
+        try {
+            final Dictionary<?, ?> properties = wire.getProperties();
+            if (properties != null && properties.get(WireConstants.WIREADMIN_FILTER) != null) {
+                return false;
+            }
+            final Class<?>[] flavors = wire.getFlavors();
+            if (flavors == null) {
+                return true;
+            }
+            for (final Class<?> flavor : flavors) {
+                if (flavor.isAssignableFrom(WireEnvelope.class)) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (Exception e) {
+            logger.warn("Failed to check wire properties, using WireAdmin", e);
+            return false;
+        }
+    }
+
+    private static final class Binding {
+
+        final int generation;
+        final Consumer<WireEnvelope> target;
+
+        Binding(final int generation, final Consumer<WireEnvelope> target) {
+            this.generation = generation;
+            this.target = target;
+        }
+    }
+
     private class ReceiverPortImpl extends PortImpl implements ReceiverPort {
 
+        final Consumer<WireEnvelope> target = envelope -> receive(this, envelope);
+
         Consumer<WireEnvelope> consumer = envelope -> {
             // do nothing
         };
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -25,6 +25,7 @@ import org.eclipse.kura.configuration.ConfigurableComponent;
 import org.eclipse.kura.type.DataType;
 import org.eclipse.kura.type.TypedValue;
 import org.eclipse.kura.type.TypedValues;
+import org.eclipse.kura.util.expression.CompiledProjection;
 import org.eclipse.kura.wire.WireComponent;
 import org.eclipse.kura.wire.WireEmitter;
 import org.eclipse.kura.wire.WireEnvelope;
@@ -47,8 +48,12 @@ public class ScriptFilter implements WireEmitter, WireReceiver, ConfigurableComp
 
     private static final String SCRIPT_PROPERTY_KEY = "script";
     private static final String SCRIPT_CONTEXT_DROP_PROPERTY_KEY = "script.context.drop";
+    private static final String SCRIPT_LANGUAGE_PROPERTY_KEY = "script.language";
+
+    private static final String LANGUAGE_EXPRESSION = "EXPRESSION";
 
     private CompiledScript script;
+    private volatile CompiledProjection projection;
     private Bindings bindings;
 
     private volatile WireHelperService wireHelperService;
@@ -74,9 +79,6 @@ public class ScriptFilter implements WireEmitter, WireReceiver, ConfigurableComp
         this.wireSupport = this.wireHelperService.newWireSupport(this,
                 (ServiceReference<WireComponent>) componentContext.getServiceReference());
 
-        this.scriptEngine = createEngine();
-        this.bindings = createBindings();
-
         updated(properties);
 
         logger.info("ActivatingScript Filter... Done");
@@ -91,13 +93,32 @@ public class ScriptFilter implements WireEmitter, WireReceiver, ConfigurableComp
         logger.info("Updating Script Filter...");
 
         final String scriptSource = (String) properties.get(SCRIPT_PROPERTY_KEY);
+        final boolean isExpression = LANGUAGE_EXPRESSION.equals(properties.get(SCRIPT_LANGUAGE_PROPERTY_KEY));
+
+        // the script engine is only needed, and created, if JavaScript is used
+        if (!isExpression && this.scriptEngine == null) {
+            this.scriptEngine = createEngine();
+            this.bindings = createBindings();
+        }
 
         if (scriptSource == null) {
             logger.warn("Script source is null");
             return;
         }
 
+        this.projection = null;
         this.script = null;
+
+        if (isExpression) {
+            try {
+                this.projection = CompiledProjection.compile(scriptSource);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Failed to compile script", e);
+            }
+            logger.info("Updating Script Filter... Done");
+            return;
+        }
+
         try {
             this.script = ((Compilable) this.scriptEngine).compile(scriptSource);
         } catch (ScriptException e) {
@@ -112,7 +133,26 @@ public class ScriptFilter implements WireEmitter, WireReceiver, ConfigurableComp
     }
 
     @Override
-    public synchronized void onWireReceive(WireEnvelope wireEnvelope) {
+    public void onWireReceive(WireEnvelope wireEnvelope) {
+        final CompiledProjection currentProjection = this.projection;
+
+        if (currentProjection == null) {
+            evaluateScript(wireEnvelope);
+            return;
+        }
+
+        try {
+            final List<WireRecord> result = currentProjection.apply(wireEnvelope);
+
+            if (!result.isEmpty()) {
+                this.wireSupport.emit(result);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to execute script", e);
+        }
+    }
+
+    private synchronized void evaluateScript(WireEnvelope wireEnvelope) {
         if (this.script == null) {
             logger.warn("Failed to compile script");
             return;
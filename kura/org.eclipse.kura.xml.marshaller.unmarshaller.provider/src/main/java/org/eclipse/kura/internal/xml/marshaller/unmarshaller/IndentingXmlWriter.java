@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *******************************************************************************/
+package org.eclipse.kura.internal.xml.marshaller.unmarshaller;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Minimal streaming XML writer that produces the same output as the indenting {@link javax.xml.transform.Transformer}
+ * previously used to serialize DOM documents: four spaces indentation, empty elements closed with {@code />} and the
+ * same character escaping.
+ * <p>
+ * Attributes are written in call order, callers must provide them in alphabetical order to match the DOM serializer.
+ */
+final class IndentingXmlWriter {
+
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+    private static final String INDENT = "    ";
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Writer writer;
+    private final Deque<String> openElements = new ArrayDeque<>();
+
+    private boolean startTagOpen;
+
+    IndentingXmlWriter(final Writer writer) {
+        this.writer = writer;
+    }
+
+    void writeStartDocument() throws IOException {
+        this.writer.write(XML_DECLARATION);
+    }
+
+    void writeEndDocument() throws IOException {
+        while (!this.openElements.isEmpty()) {
+            writeEndElement();
+        }
+        this.writer.write(LINE_SEPARATOR);
+        this.writer.flush();
+    }
+
+    void writeStartElement(final String qname) throws IOException {
+        closeStartTag();
+        // the root element directly follows the XML declaration
+        if (!this.openElements.isEmpty()) {
+            writeIndent();
+        }
+        this.writer.write('<');
+        this.writer.write(qname);
+        this.openElements.push(qname);
+        this.startTagOpen = true;
+    }
+
+    void writeAttribute(final String name, final String value) throws IOException {
+        if (!this.startTagOpen) {
+            throw new IllegalStateException("Attributes must be written after the start of an element");
+        }
+        this.writer.write(' ');
+        this.writer.write(name);
+        this.writer.write("=\"");
+        if (value != null) {
+            writeEscaped(value, true);
+        }
+        this.writer.write('"');
+    }
+
+    void writeEndElement() throws IOException {
+        final String qname = this.openElements.pop();
+        if (this.startTagOpen) {
+            this.writer.write("/>");
+            this.startTagOpen = false;
+            return;
+        }
+        writeIndent();
+        this.writer.write("</");
+        this.writer.write(qname);
+        this.writer.write('>');
+    }
+
+    /**
+     * Writes an element containing only text.
+     *
+     * @param qname
+     *            the element name
+     * @param text
+     *            the element content, the element is written as empty if {@code null} or empty
+     * @throws IOException
+     *             if writing fails
+     */
+    void writeTextElement(final String qname, final String text) throws IOException {
+        closeStartTag();
+        writeIndent();
+        this.writer.write('<');
+        this.writer.write(qname);
+        if (text == null || text.isEmpty()) {
+            this.writer.write("/>");
+            return;
+        }
+        this.writer.write('>');
+        writeEscaped(text, false);
+        this.writer.write("</");
+        this.writer.write(qname);
+        this.writer.write('>');
+    }
+
+    private void closeStartTag() throws IOException {
+        if (this.startTagOpen) {
+            this.writer.write('>');
+            this.startTagOpen = false;
+        }
+    }
+
+    private void writeIndent() throws IOException {
+        final int depth = this.openElements.size();
+        this.writer.write(LINE_SEPARATOR);
+        for (int i = 0; i < depth; i++) {
+            this.writer.write(INDENT);
+        }
+    }
+
+    private void writeEscaped(final String value, final boolean attribute) throws IOException {
+        final int length = value.length();
+        int start = 0;
+
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            String entity = null;
+            int codePoint = -1;
+
+            if (c == '<') {
+                entity = "&lt;";
+            } else if (c == '>') {
+                entity = "&gt;";
+            } else if (c == '&') {
+                entity = "&amp;";
+            } else if (c == '"' && attribute) {
+                entity = "&quot;";
+            } else if (c < 0x20 && (attribute || c != '\t' && c != '\n')) {
+                codePoint = c;
+            } else if (!attribute && c >= 0x7f && c <= 0x9f) {
+                codePoint = c;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                codePoint = Character.toCodePoint(c, value.charAt(i + 1));
+            } else {
+                continue;
+            }
+
+            this.writer.write(value, start, i - start);
+            if (entity != null) {
+                this.writer.write(entity);
+            } else {
+                this.writer.write("&#");
+                this.writer.write(Integer.toString(codePoint));
+                this.writer.write(';');
+            }
+            if (Character.isSupplementaryCodePoint(codePoint)) {
+                i++;
+            }
+            start = i + 1;
+        }
+        this.writer.write(value, start, length - start);
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011, 2017 Eurotech and/or its affiliates
+ * Copyright (c) 2011, 2020 Eurotech and/or its affiliates
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -11,10 +11,16 @@
  *******************************************************************************/
 package org.eclipse.kura.internal.xml.marshaller.unmarshaller;
 
+import static org.eclipse.kura.internal.xml.marshaller.unmarshaller.XmlJavaDataMapper.ESF_NAMESPACE;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.eclipse.kura.configuration.ComponentConfiguration;
 import org.eclipse.kura.configuration.metatype.OCD;
 import org.eclipse.kura.core.configuration.ComponentConfigurationImpl;
@@ -23,13 +29,17 @@ import org.eclipse.kura.core.configuration.XmlConfigPropertiesAdapted;
 import org.eclipse.kura.core.configuration.XmlConfigPropertiesAdapter;
 import org.eclipse.kura.core.configuration.XmlConfigPropertyAdapted;
 import org.eclipse.kura.core.configuration.XmlConfigPropertyAdapted.ConfigPropertyType;
-import org.w3c.dom.Attr;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
-public class XmlJavaComponentConfigurationsMapper implements XmlJavaDataMapper {
+/**
+ * Maps {@link XmlComponentConfigurations} to XML and back without building a DOM, since snapshots containing the
+ * configuration of all the components can be large. The configurations are written through an
+ * {@link IndentingXmlWriter} and parsed with an {@link XMLStreamReader}, the produced and accepted documents are the
+ * same as the ones of the previous DOM based implementation.
+ */
+public class XmlJavaComponentConfigurationsMapper {
+
+    private static final String ESF_NAMESPACE_URI = "http://eurotech.com/esf/2.0";
+    private static final String OCD_NAMESPACE_URI = "http://www.osgi.org/xmlns/metatype/v1.2.0";
 
     private static final String CONFIGURATIONS = "configurations";
     private static final String PROPERTIES = "properties";
@@ -44,129 +54,93 @@ public class XmlJavaComponentConfigurationsMapper implements XmlJavaDataMapper {
     private static final String CONFIGURATIONS_CONFIGURATION_PROPERTY_TYPE = "type";
     private static final String CONFIGURATIONS_CONFIGURATION_PROPERTY_VALUE = "value";
 
-    private Document marshallDoc = null;
+    void marshal(IndentingXmlWriter writer, XmlComponentConfigurations xmlCompConfig) throws Exception {
+        writer.writeStartElement(ESF_NAMESPACE + ":" + CONFIGURATIONS);
+        writer.writeAttribute("xmlns:esf", ESF_NAMESPACE_URI);
+        writer.writeAttribute("xmlns:ocd", OCD_NAMESPACE_URI);
 
-    @Override
-    public Element marshal(Document doc, Object object) throws Exception {
-        this.marshallDoc = doc;
-        Element configurations = doc.createElement(ESF_NAMESPACE + ":" + CONFIGURATIONS);
-        configurations.setAttributeNS("http://www.w3.org/2000/xmlns/", "xmlns:esf", "http://eurotech.com/esf/2.0");
-        configurations.setAttributeNS("http://www.w3.org/2000/xmlns/", "xmlns:ocd",
-                "http://www.osgi.org/xmlns/metatype/v1.2.0");
-        doc.appendChild(configurations);
-
-        XmlComponentConfigurations xmlCompConfig = (XmlComponentConfigurations) object;
         List<ComponentConfiguration> configs = xmlCompConfig.getConfigurations();
 
         if (configs != null) {
             for (ComponentConfiguration config : configs) {
-                Element configuration = marshallConfiguration(config);
-                configurations.appendChild(configuration);
+                marshallConfiguration(writer, config);
             }
         }
-        return configurations;
+        writer.writeEndElement();
     }
 
-    @SuppressWarnings("unchecked")
-    @Override
-    public <T> T unmarshal(Document doc) throws Exception {
+    public XmlComponentConfigurations unmarshal(XMLStreamReader reader) throws Exception {
         XmlComponentConfigurations xcc = new XmlComponentConfigurations();
 
-        // Get all configurations
-        NodeList configurationList = doc.getElementsByTagName(ESF_NAMESPACE + ":" + CONFIGURATIONS_CONFIGURATION);
-
         List<ComponentConfiguration> compConfList = new ArrayList<>();
-        // Iterate through all the configuration elements inside configurations tag
-        for (int configIndex = 0; configIndex < configurationList.getLength(); configIndex++) {
-            Element configuration = (Element) configurationList.item(configIndex);
-            ComponentConfiguration cci = parseConfiguration(configuration);
-            compConfList.add(cci);
+        // Parse all the configuration elements, regardless of their position in the document
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT
+                    && ESF_NAMESPACE.equals(reader.getPrefix())
+                    && CONFIGURATIONS_CONFIGURATION.equals(reader.getLocalName())) {
+                compConfList.add(parseConfiguration(reader));
+            }
         }
         xcc.setConfigurations(compConfList);
-        return (T) xcc;
+        return xcc;
     }
 
     //
     // Marshaller's private methods
     //
-    private Element marshallConfiguration(ComponentConfiguration config) throws Exception {
+    private void marshallConfiguration(IndentingXmlWriter writer, ComponentConfiguration config) throws Exception {
         // get ComponentConfigurationImpl Object data
         String configPid = config.getPid();
         Map<String, Object> configProperty = config.getConfigurationProperties();
         OCD configOCD = config.getDefinition();
 
         // create configuration element
-        Element configurationElement = this.marshallDoc
-                .createElement(ESF_NAMESPACE + ":" + CONFIGURATIONS_CONFIGURATION);
-        Attr propertiesAttribute = this.marshallDoc.createAttribute(CONFIGURATION_PID);
-        propertiesAttribute.setNodeValue(configPid);
-        configurationElement.setAttributeNode(propertiesAttribute);
+        writer.writeStartElement(ESF_NAMESPACE + ":" + CONFIGURATIONS_CONFIGURATION);
+        writer.writeAttribute(CONFIGURATION_PID, configPid);
 
         // Add OCD node and marshall definitions
         if (configOCD != null) {
-            Element ocd = new XmlJavaMetadataMapper().marshal(this.marshallDoc, configOCD);
-            configurationElement.appendChild(ocd);
+            new XmlJavaMetadataMapper().marshal(writer, configOCD);
         }
 
         // Add properties Node and marshall properties
         if (configProperty != null) {
-            Element properties = this.marshallDoc.createElement(ESF_NAMESPACE + ":" + PROPERTIES);
-            marshallProperties(configProperty, properties);
-            configurationElement.appendChild(properties);
+            writer.writeStartElement(ESF_NAMESPACE + ":" + PROPERTIES);
+            marshallProperties(writer, configProperty);
+            writer.writeEndElement();
         }
 
-        return configurationElement;
+        writer.writeEndElement();
     }
 
-    private void marshallProperties(Map<String, Object> propertyMap, Element properties) throws Exception {
+    private void marshallProperties(IndentingXmlWriter writer, Map<String, Object> propertyMap) throws Exception {
         XmlConfigPropertiesAdapter xmlPropAdapter = new XmlConfigPropertiesAdapter();
         XmlConfigPropertiesAdapted configPropAdapted = xmlPropAdapter.marshal(propertyMap);
 
         XmlConfigPropertyAdapted[] propArray = configPropAdapted.getProperties();
         for (XmlConfigPropertyAdapted propertyObj : propArray) {
-            Element property = marshallProperty(propertyObj);
-            if (property != null) {
-                properties.appendChild(property);
-            }
+            marshallProperty(writer, propertyObj);
         }
     }
 
-    private Element marshallProperty(XmlConfigPropertyAdapted propertyObj) {
-        String name = propertyObj.getName();
-        Boolean array = propertyObj.getArray();
-        Boolean encrypted = propertyObj.isEncrypted();
-        ConfigPropertyType cpt = propertyObj.getType();
+    private void marshallProperty(IndentingXmlWriter writer, XmlConfigPropertyAdapted propertyObj)
+            throws Exception {
         String[] values = propertyObj.getValues();
 
         if (values != null) {
-            Element property = this.marshallDoc
-                    .createElement(ESF_NAMESPACE + ":" + CONFIGURATIONS_CONFIGURATION_PROPERTY);
-            Attr attName = this.marshallDoc.createAttribute(CONFIGURATIONS_CONFIGURATION_PROPERTY_NAME);
-            attName.setNodeValue(name);
-            property.setAttributeNode(attName);
-
-            Attr attArray = this.marshallDoc.createAttribute(CONFIGURATIONS_CONFIGURATION_PROPERTY_ARRAY);
-            attArray.setNodeValue(array.toString());
-            property.setAttributeNode(attArray);
-
-            Attr attEncrypted = this.marshallDoc.createAttribute(CONFIGURATIONS_CONFIGURATION_PROPERTY_ENCRYPTED);
-            attEncrypted.setNodeValue(encrypted.toString());
-            property.setAttributeNode(attEncrypted);
-
-            Attr attType = this.marshallDoc.createAttribute(CONFIGURATIONS_CONFIGURATION_PROPERTY_TYPE);
-
-            attType.setNodeValue(getStringValue(cpt));
-            property.setAttributeNode(attType);
+            writer.writeStartElement(ESF_NAMESPACE + ":" + CONFIGURATIONS_CONFIGURATION_PROPERTY);
+            writer.writeAttribute(CONFIGURATIONS_CONFIGURATION_PROPERTY_ARRAY,
+                    Boolean.toString(propertyObj.getArray()));
+            writer.writeAttribute(CONFIGURATIONS_CONFIGURATION_PROPERTY_ENCRYPTED,
+                    Boolean.toString(propertyObj.isEncrypted()));
+            writer.writeAttribute(CONFIGURATIONS_CONFIGURATION_PROPERTY_NAME, propertyObj.getName());
+            writer.writeAttribute(CONFIGURATIONS_CONFIGURATION_PROPERTY_TYPE, getStringValue(propertyObj.getType()));
 
             for (String value : values) {
-                Element valueElem = this.marshallDoc
-                        .createElement(ESF_NAMESPACE + ":" + CONFIGURATIONS_CONFIGURATION_PROPERTY_VALUE);
-                valueElem.setTextContent(value);
-                property.appendChild(valueElem);
+                writer.writeTextElement(ESF_NAMESPACE + ":" + CONFIGURATIONS_CONFIGURATION_PROPERTY_VALUE, value);
             }
-            return property;
+            writer.writeEndElement();
         }
-        return null;
     }
 
     private String getStringValue(ConfigPropertyType type) {
@@ -200,69 +174,90 @@ public class XmlJavaComponentConfigurationsMapper implements XmlJavaDataMapper {
     //
     // Unmarshaller's private methods
     //
-    private ComponentConfiguration parseConfiguration(Element configuration) throws Exception {
+    private ComponentConfiguration parseConfiguration(XMLStreamReader reader) throws Exception {
         XmlConfigPropertiesAdapter xmlPropAdapter = new XmlConfigPropertiesAdapter();
 
-        // get configuration's properties
-        NodeList propertiesList = configuration.getChildNodes();
-
-        // get effective elements
-        Element[] propertiesArray = getElementNodes(propertiesList);
+        String pid = getAttribute(reader, CONFIGURATION_PID);
 
+        // the properties are the child elements of the last child element of the configuration
         XmlConfigPropertiesAdapted xmlPropertiesAdapted = new XmlConfigPropertiesAdapted();
-        for (Element element : propertiesArray) {
-            // parse property elements
-            NodeList propertyList = element.getChildNodes();
-            Element[] propertyArray = getElementNodes(propertyList);
-
-            XmlConfigPropertyAdapted[] xmlConfigProperties = new XmlConfigPropertyAdapted[propertyArray.length];
-            for (int propertyIndex = 0; propertyIndex < propertyArray.length; propertyIndex++) {
-                XmlConfigPropertyAdapted xmlProperty = parseProperty(propertyArray[propertyIndex]);
-                xmlConfigProperties[propertyIndex] = xmlProperty;
+        while (nextChildElement(reader)) {
+            List<XmlConfigPropertyAdapted> xmlConfigProperties = new ArrayList<>();
+            while (nextChildElement(reader)) {
+                xmlConfigProperties.add(parseProperty(reader));
             }
-            xmlPropertiesAdapted.setProperties(xmlConfigProperties);
+            xmlPropertiesAdapted.setProperties(xmlConfigProperties.toArray(new XmlConfigPropertyAdapted[0]));
         }
 
         Map<String, Object> propertiesMap = xmlPropAdapter.unmarshal(xmlPropertiesAdapted);
 
-        String pid = configuration.getAttribute(CONFIGURATION_PID);
         return new ComponentConfigurationImpl(pid, null, propertiesMap);
     }
 
-    private XmlConfigPropertyAdapted parseProperty(Element property) {
-        NodeList valuesList = property.getChildNodes();
-        Element[] valuesArray = getElementNodes(valuesList);
-        String[] values = new String[valuesArray.length];
+    private XmlConfigPropertyAdapted parseProperty(XMLStreamReader reader) throws XMLStreamException {
+        String name = getAttribute(reader, CONFIGURATIONS_CONFIGURATION_PROPERTY_NAME);
+        String type = getAttribute(reader, CONFIGURATIONS_CONFIGURATION_PROPERTY_TYPE);
+        String array = getAttribute(reader, CONFIGURATIONS_CONFIGURATION_PROPERTY_ARRAY);
+        String encrypted = getAttribute(reader, CONFIGURATIONS_CONFIGURATION_PROPERTY_ENCRYPTED);
 
         // get values
-        for (int valIndex = 0; valIndex < valuesArray.length; valIndex++) {
-            values[valIndex] = valuesArray[valIndex].getTextContent();
+        List<String> values = new ArrayList<>();
+        while (nextChildElement(reader)) {
+            values.add(getTextContent(reader));
         }
 
-        String name = property.getAttribute(CONFIGURATIONS_CONFIGURATION_PROPERTY_NAME);
-        String type = property.getAttribute(CONFIGURATIONS_CONFIGURATION_PROPERTY_TYPE);
-        String array = property.getAttribute(CONFIGURATIONS_CONFIGURATION_PROPERTY_ARRAY);
-        String encrypted = property.getAttribute(CONFIGURATIONS_CONFIGURATION_PROPERTY_ENCRYPTED);
-
         ConfigPropertyType cct = getType(type);
 
-        XmlConfigPropertyAdapted xmlProperty = new XmlConfigPropertyAdapted(name, cct, values);
+        XmlConfigPropertyAdapted xmlProperty = new XmlConfigPropertyAdapted(name, cct,
+                values.toArray(new String[values.size()]));
         xmlProperty.setArray(Boolean.parseBoolean(array));
         xmlProperty.setEncrypted(Boolean.parseBoolean(encrypted));
 
         return xmlProperty;
     }
 
-    private Element[] getElementNodes(NodeList propertiesList) {
-        List<Element> elementList = new ArrayList<>();
-        for (int propIndex = 0; propIndex < propertiesList.getLength(); propIndex++) {
-            Node currentNode = propertiesList.item(propIndex);
-            if (currentNode.getNodeType() == Node.ELEMENT_NODE) {
-                Element el = (Element) currentNode;
-                elementList.add(el);
+    /**
+     * Moves the reader to the start of the next child element of the current element.
+     *
+     * @return {@code true} if a child element has been found, {@code false} if the reader reached the end of the
+     *         current element
+     */
+    private static boolean nextChildElement(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the concatenation of the text nodes contained in the current element, including the ones of its
+     * descendants, and moves the reader to the end of the element.
+     */
+    private static String getTextContent(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder content = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE) {
+                content.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
             }
         }
-        return elementList.toArray(new Element[0]);
+        return content.toString();
+    }
+
+    private static String getAttribute(XMLStreamReader reader, String name) {
+        String value = reader.getAttributeValue(null, name);
+        return value != null ? value : "";
     }
 
     private ConfigPropertyType getType(String type) {
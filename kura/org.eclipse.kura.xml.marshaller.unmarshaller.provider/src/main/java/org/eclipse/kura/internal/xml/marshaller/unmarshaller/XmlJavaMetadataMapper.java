@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -11,12 +11,14 @@
  *******************************************************************************/
 package org.eclipse.kura.internal.xml.marshaller.unmarshaller;
 
+import java.io.IOException;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.eclipse.kura.configuration.metatype.AD;
 import org.eclipse.kura.configuration.metatype.Icon;
+import org.eclipse.kura.configuration.metatype.OCD;
 import org.eclipse.kura.configuration.metatype.Option;
 import org.eclipse.kura.configuration.metatype.Scalar;
 import org.eclipse.kura.core.configuration.metatype.Tad;
@@ -153,9 +155,98 @@ public class XmlJavaMetadataMapper implements XmlJavaDataMapper {
         return (T) tMetadata;
     }
 
+    /**
+     * Streaming counterpart of {@link #marshal(Document, Object)}, writes the provided OCD without building a DOM.
+     * The attributes are written in alphabetical order, as done by the DOM serializer.
+     */
+    void marshal(IndentingXmlWriter writer, OCD configOCD) throws IOException {
+        String ocdName = configOCD.getName();
+        String ocdDescription = configOCD.getDescription();
+        String ocdID = configOCD.getId();
+        List<Icon> ocdIcons = configOCD.getIcon();
+        List<AD> ocdADs = configOCD.getAD();
+
+        writer.writeStartElement(OCD_NAMESPACE + ":" + METADATA_OCD);
+        if (isNotBlank(ocdDescription)) {
+            writer.writeAttribute(METADATA_OCD_DESCRIPTION, ocdDescription);
+        }
+        if (isNotBlank(ocdID)) {
+            writer.writeAttribute(METADATA_OCD_ID, ocdID);
+        }
+        if (isNotBlank(ocdName)) {
+            writer.writeAttribute(METADATA_OCD_NAME, ocdName);
+        }
+
+        if (ocdADs != null) {
+            for (AD ocdAD : ocdADs) {
+                marshallAD(writer, ocdAD);
+            }
+        }
+
+        if (ocdIcons != null) {
+            for (Icon ocdIcon : ocdIcons) {
+                writer.writeStartElement(OCD_NAMESPACE + ":" + METADATA_ICON);
+                if (isNotBlank(ocdIcon.getResource())) {
+                    writer.writeAttribute(METADATA_ICON_RESOURCE, ocdIcon.getResource());
+                }
+                if (ocdIcon.getSize() != null) {
+                    writer.writeAttribute(METADATA_ICON_SIZE, ocdIcon.getSize().toString());
+                }
+                writer.writeEndElement();
+            }
+        }
+        writer.writeEndElement();
+    }
+
     //
     // Private methods
     //
+    private void marshallAD(IndentingXmlWriter writer, AD ocdAD) throws IOException {
+        writer.writeStartElement(OCD_NAMESPACE + ":" + METADATA_AD);
+        writer.writeAttribute(METADATA_AD_CARDINALITY, Integer.toString(ocdAD.getCardinality()));
+        if (ocdAD.getDefault() != null) {
+            writer.writeAttribute(METADATA_AD_DEFAULT, ocdAD.getDefault());
+        }
+        if (ocdAD.getDescription() != null) {
+            writer.writeAttribute(METADATA_AD_DESCRIPTION, ocdAD.getDescription());
+        }
+        if (ocdAD.getId() != null) {
+            writer.writeAttribute(METADATA_AD_ID, ocdAD.getId());
+        }
+        if (ocdAD.getMax() != null) {
+            writer.writeAttribute(METADATA_AD_MAX, ocdAD.getMax());
+        }
+        if (ocdAD.getMin() != null) {
+            writer.writeAttribute(METADATA_AD_MIN, ocdAD.getMin());
+        }
+        if (ocdAD.getName() != null) {
+            writer.writeAttribute(METADATA_AD_NAME, ocdAD.getName());
+        }
+        writer.writeAttribute(METADATA_AD_REQUIRED, Boolean.toString(ocdAD.isRequired()));
+        if (ocdAD.getType() != null) {
+            writer.writeAttribute(METADATA_AD_TYPE, ocdAD.getType().value());
+        }
+
+        List<Option> adOptions = ocdAD.getOption();
+        if (adOptions != null) {
+            for (Option adOption : adOptions) {
+                writer.writeStartElement(OCD_NAMESPACE + ":" + METADATA_AD_OPTION);
+                if (isNotBlank(adOption.getLabel())) {
+                    writer.writeAttribute(METADATA_AD_OPTION_LABEL, adOption.getLabel());
+                }
+                if (isNotBlank(adOption.getValue())) {
+                    writer.writeAttribute(METADATA_AD_OPTION_VALUE, adOption.getValue());
+                }
+                writer.writeEndElement();
+            }
+        }
+        writer.writeEndElement();
+    }
+
+    private static boolean isNotBlank(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+
     private void marshallIcon(Icon ocdIcon, Element icon) {
         String iconResource = ocdIcon.getResource();
         BigInteger iconSize = ocdIcon.getSize();
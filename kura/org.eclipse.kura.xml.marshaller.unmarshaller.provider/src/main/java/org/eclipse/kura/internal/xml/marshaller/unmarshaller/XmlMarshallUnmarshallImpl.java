@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -22,6 +22,9 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.stream.FactoryConfigurationError;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
@@ -49,6 +52,8 @@ public class XmlMarshallUnmarshallImpl implements Marshaller, Unmarshaller {
 
     private static final Logger logger = LoggerFactory.getLogger(XmlMarshallUnmarshallImpl.class);
 
+    private static final XMLInputFactory xmlInputFactory = createXmlInputFactory();
+
     @Override
     public String marshal(Object object) throws KuraException {
         StringWriter sw = new StringWriter();
@@ -61,6 +66,15 @@ public class XmlMarshallUnmarshallImpl implements Marshaller, Unmarshaller {
     }
 
     private void marshal(Object object, Writer w) throws Exception {
+        if (object instanceof XmlComponentConfigurations) {
+            // snapshots can be large, write them directly instead of building a DOM first
+            IndentingXmlWriter xmlWriter = new IndentingXmlWriter(w);
+            xmlWriter.writeStartDocument();
+            new XmlJavaComponentConfigurationsMapper().marshal(xmlWriter, (XmlComponentConfigurations) object);
+            xmlWriter.writeEndDocument();
+            return;
+        }
+
         try {
             DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
             docFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
@@ -81,8 +95,6 @@ public class XmlMarshallUnmarshallImpl implements Marshaller, Unmarshaller {
 
                 new XmlJavaSnapshotIdResultMapper().marshal(doc, object);
 
-            } else if (object instanceof XmlComponentConfigurations) {
-                new XmlJavaComponentConfigurationsMapper().marshal(doc, object);
             } else if (object instanceof XmlDeploymentPackages) {
                 // Expected resulting xml:
                 // <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
@@ -143,6 +155,10 @@ public class XmlMarshallUnmarshallImpl implements Marshaller, Unmarshaller {
     }
 
     private <T> T unmarshal(Reader r, Class<T> clazz) throws KuraException {
+        if (clazz.equals(XmlComponentConfigurations.class)) {
+            return clazz.cast(unmarshalConfigurations(r));
+        }
+
         DocumentBuilderFactory factory = null;
         DocumentBuilder parser = null;
 
@@ -171,18 +187,37 @@ public class XmlMarshallUnmarshallImpl implements Marshaller, Unmarshaller {
         }
 
         // identify the correct parser that has to execute
-        if (clazz.equals(XmlComponentConfigurations.class)) {
-            try {
-                // Snapshot parser
-                return new XmlJavaComponentConfigurationsMapper().unmarshal(doc);
-            } catch (Exception e) {
-                throw new KuraException(KuraErrorCode.DECODER_ERROR, e);
-            }
-        } else if (clazz.equals(MetaData.class) || clazz.equals(Tmetadata.class)) {
+        if (clazz.equals(MetaData.class) || clazz.equals(Tmetadata.class)) {
             // MetaData parser
             return new XmlJavaMetadataMapper().unmarshal(doc);
         } else {
             throw new IllegalArgumentException("Class not supported!");
         }
     }
+
+    private XmlComponentConfigurations unmarshalConfigurations(Reader r) throws KuraException {
+        XMLStreamReader reader = null;
+        try {
+            // Snapshot parser
+            reader = xmlInputFactory.createXMLStreamReader(r);
+            return new XmlJavaComponentConfigurationsMapper().unmarshal(reader);
+        } catch (Exception e) {
+            throw new KuraException(KuraErrorCode.DECODER_ERROR, e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    logger.warn("Failed to close XML reader", e);
+                }
+            }
+        }
+    }
+
+    private static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
 }
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Eurotech
+ *******************************************************************************/
+package org.eclipse.kura.core.cloud;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Date;
+
+import org.eclipse.kura.KuraInvalidMessageException;
+import org.eclipse.kura.core.util.GZipUtil;
+import org.eclipse.kura.message.KuraPayload;
+import org.eclipse.kura.message.KuraPosition;
+import org.junit.Test;
+
+public class CloudPayloadProtoBufStreamEncoderTest {
+
+    @Test
+    public void testSameBytesAsProtoBufEncoder() throws Exception {
+        KuraPayload payload = createPayload();
+
+        byte[] expected = new CloudPayloadProtoBufEncoderImpl(payload).getBytes();
+        CloudPayloadProtoBufStreamEncoder encoder = new CloudPayloadProtoBufStreamEncoder(payload);
+
+        assertEquals(expected.length, encoder.getSerializedSize());
+        assertArrayEquals(expected, encoder.getBytes());
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        encoder.writeTo(baos);
+        assertArrayEquals(expected, baos.toByteArray());
+    }
+
+    @Test
+    public void testSameBytesEmptyPayload() throws Exception {
+        KuraPayload payload = new KuraPayload();
+
+        byte[] expected = new CloudPayloadProtoBufEncoderImpl(payload).getBytes();
+
+        assertArrayEquals(expected, new CloudPayloadProtoBufStreamEncoder(payload).getBytes());
+    }
+
+    @Test
+    public void testSameBytesLargeBody() throws Exception {
+        KuraPayload payload = createPayload();
+        byte[] body = new byte[100000];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) i;
+        }
+        payload.setBody(body);
+
+        byte[] expected = new CloudPayloadProtoBufEncoderImpl(payload).getBytes();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new CloudPayloadProtoBufStreamEncoder(payload).writeTo(baos);
+
+        assertArrayEquals(expected, baos.toByteArray());
+    }
+
+    @Test
+    public void testDecodeProtoBufEncoderBytes() throws Exception {
+        KuraPayload payload = createPayload();
+
+        byte[] bytes = new CloudPayloadProtoBufEncoderImpl(payload).getBytes();
+
+        assertPayloadEquals(payload, new CloudPayloadProtoBufStreamDecoder(bytes).buildFromByteArray());
+    }
+
+    @Test
+    public void testGZipRoundTrip() throws Exception {
+        KuraPayload payload = createPayload();
+        payload.setBody(new byte[1000]);
+
+        byte[] bytes = new CloudPayloadGZipEncoder(new CloudPayloadProtoBufStreamEncoder(payload)).getBytes();
+        assertTrue(GZipUtil.isCompressed(bytes));
+
+        assertPayloadEquals(payload, new CloudPayloadProtoBufStreamDecoder(bytes).buildFromByteArray());
+    }
+
+    @Test
+    public void testGZipNotShorter() throws Exception {
+        KuraPayload payload = new KuraPayload();
+        payload.addMetric("m", 1);
+
+        byte[] expected = new CloudPayloadProtoBufEncoderImpl(payload).getBytes();
+
+        assertArrayEquals(expected,
+                new CloudPayloadGZipEncoder(new CloudPayloadProtoBufStreamEncoder(payload)).getBytes());
+    }
+
+    @Test
+    public void testDecodeEmpty() throws Exception {
+        KuraPayload decoded = new CloudPayloadProtoBufStreamDecoder(new byte[0]).buildFromByteArray();
+
+        assertNull(decoded.getTimestamp());
+        assertNull(decoded.getPosition());
+        assertNull(decoded.getBody());
+        assertTrue(decoded.metrics().isEmpty());
+    }
+
+    @Test(expected = KuraInvalidMessageException.class)
+    public void testDecodeMissingMetricType() throws Exception {
+        // metric field (5000), length 3, containing only the name "a"
+        byte[] bytes = new byte[] { (byte) 0xC2, (byte) 0xB8, 0x02, 0x03, 0x0A, 0x01, 'a' };
+
+        new CloudPayloadProtoBufStreamDecoder(bytes).buildFromByteArray();
+    }
+
+    private static KuraPayload createPayload() {
+        KuraPayload payload = new KuraPayload();
+        payload.setTimestamp(new Date(1580000000000L));
+
+        KuraPosition position = new KuraPosition();
+        position.setLatitude(45.5);
+        position.setLongitude(12.25);
+        position.setAltitude(100.0);
+        position.setHeading(90.0);
+        position.setPrecision(1.5);
+        position.setSpeed(-3.0);
+        position.setSatellites(7);
+        position.setStatus(2);
+        position.setTimestamp(new Date(1580000000001L));
+        payload.setPosition(position);
+
+        payload.addMetric("double", 1.25d);
+        payload.addMetric("float", -2.5f);
+        payload.addMetric("long", Long.MIN_VALUE);
+        payload.addMetric("int", -1);
+        payload.addMetric("bool", true);
+        payload.addMetric("string", "\u00e8 value");
+        payload.addMetric("bytes", new byte[] { 1, 2, 3 });
+        payload.addMetric("empty", "");
+
+        payload.setBody("body".getBytes());
+
+        return payload;
+    }
+
+    private static void assertPayloadEquals(KuraPayload expected, KuraPayload actual) {
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+
+        KuraPosition expectedPosition = expected.getPosition();
+        KuraPosition actualPosition = actual.getPosition();
+        assertEquals(expectedPosition.getLatitude(), actualPosition.getLatitude());
+        assertEquals(expectedPosition.getLongitude(), actualPosition.getLongitude());
+        assertEquals(expectedPosition.getAltitude(), actualPosition.getAltitude());
+        assertEquals(expectedPosition.getHeading(), actualPosition.getHeading());
+        assertEquals(expectedPosition.getPrecision(), actualPosition.getPrecision());
+        assertEquals(expectedPosition.getSpeed(), actualPosition.getSpeed());
+        assertEquals(expectedPosition.getSatellites(), actualPosition.getSatellites());
+        assertEquals(expectedPosition.getStatus(), actualPosition.getStatus());
+        assertEquals(expectedPosition.getTimestamp(), actualPosition.getTimestamp());
+
+        assertEquals(expected.metricNames(), actual.metricNames());
+        for (String name : expected.metricNames()) {
+            Object value = expected.getMetric(name);
+            if (value instanceof byte[]) {
+                assertArrayEquals((byte[]) value, (byte[]) actual.getMetric(name));
+            } else {
+                assertEquals(value, actual.getMetric(name));
+            }
+        }
+
+        assertArrayEquals(expected.getBody(), actual.getBody());
+    }
+}
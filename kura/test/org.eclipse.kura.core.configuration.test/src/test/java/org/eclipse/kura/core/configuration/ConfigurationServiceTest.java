@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2019 Eurotech and/or its affiliates and others
+ * Copyright (c) 2016, 2020 Eurotech and/or its affiliates and others
  *
  *   All rights reserved. This program and the accompanying materials
  *   are made available under the terms of the Eclipse Public License v1.0
@@ -27,6 +27,7 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -36,8 +37,11 @@ import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.eclipse.kura.KuraErrorCode;
 import org.eclipse.kura.KuraException;
@@ -2334,6 +2338,142 @@ public class ConfigurationServiceTest {
         d1.delete();
     }
 
+    @Test
+    public void testSaveDeltaSnapshot() throws Throwable {
+        // an incremental snapshot only contains the changed configurations and is merged with its base when loaded
+        final String dir = "dirSaveDeltaSnapshot";
+
+        File d1 = new File(dir);
+        d1.mkdirs();
+        d1.deleteOnExit();
+
+        ConfigurationServiceImpl cs = new ConfigurationServiceImpl() {
+
+            @Override
+            String getSnapshotsDirectory() {
+                return dir;
+            }
+
+            @Override
+            protected <T> T unmarshal(String xmlString, Class<T> clazz) throws KuraException {
+                return new XmlMarshallUnmarshallImpl().unmarshal(xmlString, clazz);
+            }
+
+            @Override
+            protected String marshal(Object object) throws KuraException {
+                return new XmlMarshallUnmarshallImpl().marshal(object);
+            }
+        };
+
+        CryptoService cryptoServiceMock = mock(CryptoService.class);
+        cs.setCryptoService(cryptoServiceMock);
+
+        when(cryptoServiceMock.encryptAes(Mockito.any(char[].class)))
+                .thenAnswer(invocation -> invocation.getArgumentAt(0, char[].class));
+        when(cryptoServiceMock.decryptAes(Mockito.any(char[].class)))
+                .thenAnswer(invocation -> invocation.getArgumentAt(0, char[].class));
+
+        SystemService systemServiceMock = mock(SystemService.class);
+        cs.setSystemService(systemServiceMock);
+
+        when(systemServiceMock.getKuraSnapshotsCount()).thenReturn(1);
+
+        List<ComponentConfiguration> configs = new ArrayList<>();
+        configs.add(prepareConfiguration("a", "1"));
+        configs.add(prepareConfiguration("b", "1"));
+
+        Long baseSid = (Long) TestUtil.invokePrivate(cs, "saveSnapshot", configs);
+
+        Map<String, ComponentConfiguration> pendingConfigs = (Map<String, ComponentConfiguration>) TestUtil
+                .getFieldValue(cs, "pendingSnapshotConfigs");
+        pendingConfigs.put("b", prepareConfiguration("b", "2"));
+        pendingConfigs.put("c", prepareConfiguration("c", "1"));
+
+        Long sid = (Long) TestUtil.invokePrivate(cs, "saveDeltaSnapshot");
+
+        File f1 = new File(d1, "snapshot_" + baseSid + ".xml");
+        File f2 = new File(d1, "snapshot_" + sid + "_delta_" + baseSid + ".xml");
+        f1.deleteOnExit();
+        f2.deleteOnExit();
+
+        assertTrue("delta snapshot file created", f2.exists());
+
+        // the base snapshot is retained even if the maximum count is exceeded
+        assertEquals(new TreeSet<>(Arrays.asList(baseSid, sid)), cs.getSnapshots());
+
+        List<ComponentConfiguration> snapshot = cs.getSnapshot(sid);
+        assertEquals(3, snapshot.size());
+        assertEquals("a", snapshot.get(0).getPid());
+        assertEquals("1", snapshot.get(0).getConfigurationProperties().get("prop"));
+        assertEquals("b", snapshot.get(1).getPid());
+        assertEquals("2", snapshot.get(1).getConfigurationProperties().get("prop"));
+        assertEquals("c", snapshot.get(2).getPid());
+
+        XmlComponentConfigurations delta = new XmlMarshallUnmarshallImpl().unmarshal(
+                new String(Files.readAllBytes(f2.toPath()), "UTF-8"),
+                XmlComponentConfigurations.class);
+        assertEquals(2, delta.getConfigurations().size());
+
+        assertEquals(2, cs.getSnapshot(baseSid).size());
+
+        f2.delete();
+        f1.delete();
+        d1.delete();
+    }
+
+    @Test
+    public void testSnapshotDebounceDisabledByDefault() throws Throwable {
+        // snapshots requested by configuration changes are written synchronously unless debouncing is enabled
+        ConfigurationServiceImpl cs = new ConfigurationServiceImpl();
+
+        SystemService systemServiceMock = mock(SystemService.class);
+        when(systemServiceMock.getProperties()).thenReturn(new Properties());
+        cs.setSystemService(systemServiceMock);
+
+        TestUtil.invokePrivate(cs, "activateSnapshotDebounce");
+
+        assertNull(TestUtil.getFieldValue(cs, "snapshotExecutor"));
+        assertEquals(0L, TestUtil.getFieldValue(cs, "snapshotDebounceDelay"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testRequestSnapshotKeepsLatestRequest() throws Throwable {
+        // a request for the current configuration replaces an explicit configuration requested earlier
+        ConfigurationServiceImpl cs = new ConfigurationServiceImpl();
+
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        TestUtil.setFieldValue(cs, "snapshotExecutor", executor);
+        TestUtil.setFieldValue(cs, "snapshotDebounceDelay", 60000L);
+
+        try {
+            TestUtil.invokePrivate(cs, "requestSnapshot",
+                    Collections.singletonMap("a", prepareConfiguration("a", "1")));
+            TestUtil.invokePrivate(cs, "requestSnapshot", Collections.singletonMap("a", null));
+
+            Map<String, ComponentConfiguration> pendingConfigs = (Map<String, ComponentConfiguration>) TestUtil
+                    .getFieldValue(cs, "pendingSnapshotConfigs");
+            assertTrue(pendingConfigs.containsKey("a"));
+            assertNull(pendingConfigs.get("a"));
+
+            TestUtil.invokePrivate(cs, "requestSnapshot",
+                    Collections.singletonMap("a", prepareConfiguration("a", "2")));
+            assertEquals("2", pendingConfigs.get("a").getConfigurationProperties().get("prop"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ComponentConfiguration prepareConfiguration(final String pid, final String value) {
+        ComponentConfigurationImpl cfg = new ComponentConfigurationImpl();
+        cfg.setPid(pid);
+        cfg.setProperties(new HashMap<>(Collections.singletonMap("prop", value)));
+        Tocd definition = new Tocd();
+        definition.setDescription("description");
+        cfg.setDefinition(definition);
+        return cfg;
+    }
+
     @Test
     public void testLineBreakHandling() throws KuraException, IOException {
         final CryptoService csMock = mock(CryptoService.class);
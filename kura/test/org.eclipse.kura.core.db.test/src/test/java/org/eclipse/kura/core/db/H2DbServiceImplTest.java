@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  *   All rights reserved. This program and the accompanying materials
  *   are made available under the terms of the Eclipse Public License v1.0
@@ -10,6 +10,10 @@ package org.eclipse.kura.core.db;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -19,13 +23,18 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
 
 import org.eclipse.kura.KuraException;
 import org.eclipse.kura.core.testutil.TestUtil;
 import org.eclipse.kura.crypto.CryptoService;
+import org.eclipse.kura.db.H2DbSession;
 import org.junit.Test;
 
 public class H2DbServiceImplTest {
@@ -253,4 +262,195 @@ public class H2DbServiceImplTest {
         }
     }
 
+    @Test
+    public void testOnlineDefrag() throws Throwable {
+        final String enc = "enc";
+        char[] encPass = enc.toCharArray();
+        String pass = "pass";
+        String user = "USR";
+
+        H2DbServiceImpl svc = new H2DbServiceImpl();
+        svc.activate(Collections.emptyMap());
+
+        CryptoService csMock = mock(CryptoService.class);
+        svc.setCryptoService(csMock);
+
+        when(csMock.decryptAes(encPass)).thenReturn(pass.toCharArray());
+
+        Map<String, Object> props = new HashMap<>();
+        props.put("db.user", user);
+        props.put("db.password", enc);
+        props.put("db.defrag.mode", "ONLINE");
+        props.put("db.defrag.online.fill.rate.threshold", 100);
+        File f = new File("/tmp/kurah2online/testdb");
+        props.put("db.connector.url", "jdbc:h2:file:" + f.getAbsolutePath());
+
+        svc.updated(props);
+
+        Connection conn = svc.getConnection();
+        Statement statement = conn.createStatement();
+        statement.execute("CREATE TABLE T (ID INT PRIMARY KEY, V VARCHAR(100))");
+        for (int i = 0; i < 1000; i++) {
+            statement.execute("INSERT INTO T VALUES (" + i + ", 'value " + i + "')");
+        }
+        statement.execute("DELETE FROM T WHERE MOD(ID, 2) = 0");
+        conn.commit();
+
+        ScheduledFuture<?> checkpointTask = (ScheduledFuture<?>) TestUtil.getFieldValue(svc, "checkpointTask");
+        ScheduledFuture<?> defragTask = (ScheduledFuture<?>) TestUtil.getFieldValue(svc, "defragTask");
+        assertNotNull(checkpointTask);
+        assertNotNull(defragTask);
+        assertNotSame(checkpointTask, defragTask);
+
+        H2DbServiceOptions cfg = (H2DbServiceOptions) TestUtil.getFieldValue(svc, "configuration");
+        Runnable onlineDefragTask = (Runnable) Class
+                .forName(H2DbServiceImpl.class.getName() + "$OnlineDefragTask")
+                .getDeclaredConstructor(H2DbServiceImpl.class, H2DbServiceOptions.class).newInstance(svc, cfg);
+        onlineDefragTask.run();
+
+        // the connection opened before the compaction is still usable
+        ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM T");
+        rs.next();
+        assertEquals(500, rs.getInt(1));
+        conn.close();
+
+        svc.deactivate();
+
+        TestUtil.invokePrivate(svc, "deleteDbFiles", cfg);
+    }
+
+    @Test
+    public void testSession() throws Throwable {
+        final String enc = "enc";
+        char[] encPass = enc.toCharArray();
+        String pass = "pass";
+        String user = "USR";
+
+        H2DbServiceImpl svc = new H2DbServiceImpl();
+        svc.activate(Collections.emptyMap());
+
+        CryptoService csMock = mock(CryptoService.class);
+        svc.setCryptoService(csMock);
+
+        when(csMock.decryptAes(encPass)).thenReturn(pass.toCharArray());
+
+        Map<String, Object> props = new HashMap<>();
+        props.put("db.user", user);
+        props.put("db.password", enc);
+        props.put("db.connector.url", "jdbc:h2:mem:sessiondb");
+
+        svc.updated(props);
+
+        final String insert = "INSERT INTO T VALUES (?)";
+        final H2DbSession session = svc.openSession();
+
+        session.withConnection(context -> {
+            context.getConnection().createStatement().execute("CREATE TABLE T (ID INT)");
+            return null;
+        });
+
+        final PreparedStatement first = session.withConnection(context -> {
+            PreparedStatement statement = context.prepareStatement(insert);
+            statement.setInt(1, 1);
+            statement.execute();
+            return statement;
+        });
+        final PreparedStatement second = session.withConnection(context -> {
+            PreparedStatement statement = context.prepareStatement(insert);
+            statement.setInt(1, 2);
+            statement.execute();
+            return statement;
+        });
+
+        // the statement is prepared once and reused
+        assertSame(first, second);
+
+        int count = svc.withConnection(c -> {
+            ResultSet rs = c.createStatement().executeQuery("SELECT COUNT(*) FROM T");
+            rs.next();
+            return rs.getInt(1);
+        });
+        assertEquals(2, count);
+
+        session.close();
+        assertTrue(first.isClosed());
+
+        try {
+            session.withConnection(context -> null);
+            fail("closed session should not be usable");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().contains("closed"));
+        }
+
+        svc.deactivate();
+    }
+
+    @Test
+    public void testOpenMoreSessionsThanPoolSize() throws Throwable {
+        final String enc = "enc";
+        char[] encPass = enc.toCharArray();
+        String pass = "pass";
+        String user = "USR";
+
+        H2DbServiceImpl svc = new H2DbServiceImpl();
+        svc.activate(Collections.emptyMap());
+
+        CryptoService csMock = mock(CryptoService.class);
+        svc.setCryptoService(csMock);
+
+        when(csMock.decryptAes(encPass)).thenReturn(pass.toCharArray());
+
+        final int poolSize = 3;
+
+        Map<String, Object> props = new HashMap<>();
+        props.put("db.user", user);
+        props.put("db.password", enc);
+        props.put("db.connector.url", "jdbc:h2:mem:sessionpooldb");
+        props.put("db.connection.pool.max.size", poolSize);
+        svc.updated(props);
+
+        svc.withConnection(c -> c.createStatement().execute("CREATE TABLE T (ID INT)"));
+
+        final String insert = "INSERT INTO T VALUES (?)";
+        final List<H2DbSession> sessions = new ArrayList<>();
+        final List<PreparedStatement> firstStatements = new ArrayList<>();
+
+        for (int i = 0; i < poolSize * 2; i++) {
+            final H2DbSession session = svc.openSession();
+            sessions.add(session);
+
+            final int value = i;
+            firstStatements.add(session.withConnection(context -> {
+                PreparedStatement statement = context.prepareStatement(insert);
+                statement.setInt(1, value);
+                statement.execute();
+                return statement;
+            }));
+        }
+
+        // the open sessions do not exhaust the pool
+        int count = svc.withConnection(c -> {
+            ResultSet rs = c.createStatement().executeQuery("SELECT COUNT(*) FROM T");
+            rs.next();
+            return rs.getInt(1);
+        });
+        assertEquals(poolSize * 2, count);
+
+        // the first sessions keep their connection and statements, the others return them to the pool
+        for (int i = 0; i < sessions.size(); i++) {
+            final PreparedStatement second = sessions.get(i)
+                    .withConnection(context -> context.prepareStatement(insert));
+            if (i < poolSize - 1) {
+                assertSame(firstStatements.get(i), second);
+            } else {
+                assertTrue(firstStatements.get(i).isClosed());
+            }
+        }
+
+        for (H2DbSession session : sessions) {
+            session.close();
+        }
+
+        svc.deactivate();
+    }
 }
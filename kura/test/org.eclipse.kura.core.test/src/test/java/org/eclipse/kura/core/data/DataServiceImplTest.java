@@ -10,18 +10,23 @@ package org.eclipse.kura.core.data;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +38,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.kura.KuraConnectException;
 import org.eclipse.kura.KuraStoreException;
+import org.eclipse.kura.KuraTooManyInflightMessagesException;
 import org.eclipse.kura.core.testutil.TestUtil;
 import org.eclipse.kura.data.DataTransportService;
 import org.eclipse.kura.data.DataTransportToken;
@@ -636,6 +642,134 @@ public class DataServiceImplTest {
         assertEquals(6, (int) ids.get(0));
     }
 
+    @Test
+    public void testPublishMessagesPipelined() throws Throwable {
+        // a window of messages is published, the state of the published messages is returned
+
+        DataServiceImpl svc = new DataServiceImpl();
+
+        DataStore storeMock = mock(DataStore.class);
+        DataTransportService dtsMock = mock(DataTransportService.class);
+        Map<DataTransportToken, Integer> inFlightMsgIds = new HashMap<>();
+        initPublisher(svc, storeMock, dtsMock, inFlightMsgIds);
+
+        byte[] payload = new byte[] { 1 };
+        DataMessage qos0 = new DataMessage.Builder(1).withTopic("t1").withQos(0).withPayload(payload).build();
+        DataMessage qos1 = new DataMessage.Builder(2).withTopic("t2").withQos(1).withPayload(payload).build();
+        when(storeMock.getNextMessages(3)).thenReturn(Arrays.asList(qos0, qos1));
+
+        DataTransportToken token = new DataTransportToken(10, "session");
+        when(dtsMock.publish("t1", payload, 0, false)).thenReturn(null);
+        when(dtsMock.publish("t2", payload, 1, false)).thenReturn(token);
+
+        List<DataMessage> published = new ArrayList<>();
+        long waitTime = (long) TestUtil.invokePrivate(svc, "publishMessagesPipelined", 3, published);
+
+        assertEquals(-1, waitTime);
+        assertEquals(2, published.size());
+        assertEquals(1, published.get(0).getId());
+        assertEquals(2, published.get(1).getId());
+        assertEquals(10, published.get(1).getPublishedMessageId());
+        assertEquals("session", published.get(1).getSessionId());
+        assertEquals(2, (int) inFlightMsgIds.get(token));
+
+        // the state of the messages is not written until the whole window has been published
+        verify(storeMock, never()).published(anyInt());
+        verify(storeMock, never()).published(anyListOf(DataMessage.class));
+
+        TestUtil.invokePrivate(svc, "storePublishedMessages", published);
+
+        verify(storeMock, times(1)).published(published);
+    }
+
+    @Test
+    public void testPublishMessagesPipelinedInFlightLimit() throws Throwable {
+        // publishing stops at the first message exceeding the in-flight messages limit
+
+        DataServiceImpl svc = new DataServiceImpl();
+
+        DataStore storeMock = mock(DataStore.class);
+        DataTransportService dtsMock = mock(DataTransportService.class);
+        Map<DataTransportToken, Integer> inFlightMsgIds = new HashMap<>();
+        initPublisher(svc, storeMock, dtsMock, inFlightMsgIds);
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("enable.rate.limit", false);
+        properties.put("in-flight-messages.max-number", 1);
+        TestUtil.setFieldValue(svc, "dataServiceOptions", new DataServiceOptions(properties));
+
+        byte[] payload = new byte[] { 1 };
+        DataMessage first = new DataMessage.Builder(1).withTopic("t1").withQos(1).withPayload(payload).build();
+        DataMessage second = new DataMessage.Builder(2).withTopic("t2").withQos(1).withPayload(payload).build();
+        when(storeMock.getNextMessages(2)).thenReturn(Arrays.asList(first, second));
+        when(dtsMock.publish("t1", payload, 1, false)).thenReturn(new DataTransportToken(10, "session"));
+
+        List<DataMessage> published = new ArrayList<>();
+        try {
+            TestUtil.invokePrivate(svc, "publishMessagesPipelined", 2, published);
+            fail("Exception was expected");
+        } catch (KuraTooManyInflightMessagesException e) {
+            // OK
+        }
+
+        assertEquals(1, published.size());
+        verify(dtsMock, never()).publish("t2", payload, 1, false);
+    }
+
+    @Test
+    public void testPublishedStateWriteBackFailure() throws Throwable {
+        // messages whose state cannot be written back are not published again and the write back is retried
+
+        DataServiceImpl svc = new DataServiceImpl();
+
+        DataStore storeMock = mock(DataStore.class);
+        DataTransportService dtsMock = mock(DataTransportService.class);
+        initPublisher(svc, storeMock, dtsMock, new HashMap<>());
+
+        byte[] payload = new byte[] { 1 };
+        DataMessage first = new DataMessage.Builder(1).withTopic("t1").withQos(0).withPayload(payload).build();
+        DataMessage second = new DataMessage.Builder(2).withTopic("t2").withQos(0).withPayload(payload).build();
+
+        List<DataMessage> published = new ArrayList<>();
+        published.add(first);
+        doThrow(new KuraStoreException("test")).when(storeMock).published(anyListOf(DataMessage.class));
+
+        TestUtil.invokePrivate(svc, "storePublishedMessages", published);
+
+        Map<Integer, DataMessage> unsaved = (Map<Integer, DataMessage>) TestUtil.getFieldValue(svc,
+                "unsavedPublishedMessages");
+        assertEquals(1, unsaved.size());
+
+        // the store still returns the first message as unpublished
+        reset(storeMock);
+        when(storeMock.getNextMessages(3)).thenReturn(Arrays.asList(first, second));
+
+        published = new ArrayList<>();
+        TestUtil.invokePrivate(svc, "publishMessagesPipelined", 2, published);
+
+        assertEquals(1, published.size());
+        assertEquals(2, published.get(0).getId());
+        verify(dtsMock, never()).publish("t1", payload, 0, false);
+        verify(dtsMock, times(1)).publish("t2", payload, 0, false);
+
+        TestUtil.invokePrivate(svc, "retryUnsavedPublishedMessages");
+
+        verify(storeMock, times(1)).published(Arrays.asList(first));
+        assertTrue(unsaved.isEmpty());
+    }
+
+    private void initPublisher(DataServiceImpl svc, DataStore store, DataTransportService dataTransportService,
+            Map<DataTransportToken, Integer> inFlightMsgIds) throws NoSuchFieldException {
+        TestUtil.setFieldValue(svc, "store", store);
+        TestUtil.setFieldValue(svc, "dataTransportService", dataTransportService);
+        TestUtil.setFieldValue(svc, "inFlightMsgIds", inFlightMsgIds);
+        TestUtil.setFieldValue(svc, "dataServiceListeners", new DataServiceListenerS(mock(ComponentContext.class)));
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("enable.rate.limit", false);
+        TestUtil.setFieldValue(svc, "dataServiceOptions", new DataServiceOptions(properties));
+    }
+
     private DataStore expectAllMessages(DataServiceImpl svc, List<DataMessage> unpublished, List<DataMessage> inFlight,
             List<DataMessage> dropped) throws NoSuchFieldException, KuraStoreException {
 
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.core.data.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import org.eclipse.kura.core.testutil.TestUtil;
+import org.eclipse.kura.db.H2DbService;
+import org.eclipse.kura.db.H2DbService.ConnectionCallable;
+import org.junit.Test;
+
+public class DbDataStoreTest {
+
+    @Test
+    public void testDeleteStaleMessagesInChunks() throws Throwable {
+        PreparedStatement droppedStmt = mock(PreparedStatement.class);
+        PreparedStatement confirmedStmt = mock(PreparedStatement.class);
+        PreparedStatement publishedStmt = mock(PreparedStatement.class);
+        when(droppedStmt.executeUpdate()).thenReturn(10, 10, 3);
+        when(confirmedStmt.executeUpdate()).thenReturn(0);
+        when(publishedStmt.executeUpdate()).thenReturn(10, 0);
+
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgumentAt(0, String.class);
+            if (sql.contains("droppedOn")) {
+                return droppedStmt;
+            } else if (sql.contains("confirmedOn")) {
+                return confirmedStmt;
+            }
+            return publishedStmt;
+        });
+
+        H2DbService dbService = mock(H2DbService.class);
+        when(dbService.withConnection(anyObject()))
+                .thenAnswer(invocation -> invocation.getArgumentAt(0, ConnectionCallable.class).call(connection));
+
+        DbDataStore store = new DbDataStore("ds_messages");
+        TestUtil.setFieldValue(store, "dbService", dbService);
+        store.setHousekeeperChunkSize(10);
+
+        store.deleteStaleMessages(60);
+
+        // a chunk deleting less rows than the chunk size terminates the deletion of each kind of message
+        verify(droppedStmt, times(3)).executeUpdate();
+        verify(confirmedStmt, times(1)).executeUpdate();
+        verify(publishedStmt, times(2)).executeUpdate();
+        verify(droppedStmt, times(3)).setInt(eq(3), eq(10));
+        verify(connection, times(6)).commit();
+
+        HouseKeeperStatistics statistics = store.getHouseKeeperStatistics();
+        assertEquals(33, statistics.getRowsPurged());
+        assertEquals(6, statistics.getChunks());
+    }
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.core.data.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.kura.KuraStoreException;
+import org.eclipse.kura.core.data.DataMessage;
+import org.eclipse.kura.core.data.store.GroupCommitter.PendingMessage;
+import org.junit.Test;
+
+public class GroupCommitterTest {
+
+    @Test
+    public void testSingleMessage() throws KuraStoreException {
+        AtomicInteger batches = new AtomicInteger();
+        GroupCommitter committer = new GroupCommitter(1, 10, batch -> {
+            batches.incrementAndGet();
+            return toMessages(batch, 0);
+        });
+
+        DataMessage message = committer.submit(new PendingMessage("topic", new byte[0], 0, false, 5));
+
+        assertEquals("topic", message.getTopic());
+        assertEquals(1, batches.get());
+    }
+
+    @Test
+    public void testConcurrentMessagesAreGrouped() throws Exception {
+        final int count = 20;
+        AtomicInteger batches = new AtomicInteger();
+        AtomicInteger ids = new AtomicInteger();
+        GroupCommitter committer = new GroupCommitter(200, count, batch -> {
+            batches.incrementAndGet();
+            return toMessages(batch, ids.getAndAdd(batch.size()));
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<DataMessage>> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final String topic = "topic" + i;
+            results.add(executor.submit(() -> {
+                start.await();
+                return committer.submit(new PendingMessage(topic, new byte[0], 0, false, 5));
+            }));
+        }
+        start.countDown();
+
+        List<Integer> messageIds = new ArrayList<>();
+        for (Future<DataMessage> result : results) {
+            messageIds.add(result.get(5, TimeUnit.SECONDS).getId());
+        }
+        executor.shutdown();
+
+        assertEquals(count, messageIds.stream().distinct().count());
+        assertTrue(batches.get() < count);
+    }
+
+    @Test
+    public void testBatchFailureIsReported() {
+        GroupCommitter committer = new GroupCommitter(1, 10, batch -> {
+            throw new KuraStoreException("test");
+        });
+
+        try {
+            committer.submit(new PendingMessage("topic", new byte[0], 0, false, 5));
+            fail("Exception expected");
+        } catch (KuraStoreException e) {
+            // expected
+        }
+    }
+
+    private static List<DataMessage> toMessages(List<PendingMessage> batch, int firstId) {
+        List<DataMessage> messages = new ArrayList<>();
+        int id = firstId;
+        for (PendingMessage message : batch) {
+            messages.add(new DataMessage.Builder(id++).withTopic(message.topic).build());
+        }
+        return messages;
+    }
+}
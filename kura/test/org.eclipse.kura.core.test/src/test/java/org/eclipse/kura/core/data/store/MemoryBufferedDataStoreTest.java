@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.core.data.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.kura.KuraStoreException;
+import org.eclipse.kura.core.data.DataMessage;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class MemoryBufferedDataStoreTest {
+
+    @Test
+    public void testQos0MessagesAreBufferedWhenConnected() throws KuraStoreException {
+        DbDataStore dbStore = mock(DbDataStore.class);
+        MemoryBufferedDataStore store = new MemoryBufferedDataStore(dbStore, () -> true);
+        store.setBufferCapacity(10, 100);
+
+        DataMessage message = store.store("topic", new byte[] { 1 }, 0, false, 5);
+
+        assertTrue(message.getId() < 0);
+        verify(dbStore, never()).store(anyObject(), anyObject(), anyInt(), eq(false), anyInt());
+        assertSame(message, store.getNextMessage());
+
+        store.published(message.getId());
+
+        when(dbStore.getNextMessage()).thenReturn(null);
+        assertNull(store.getNextMessage());
+    }
+
+    @Test
+    public void testHigherPriorityIsReturnedFirst() throws KuraStoreException {
+        DbDataStore dbStore = mock(DbDataStore.class);
+        MemoryBufferedDataStore store = new MemoryBufferedDataStore(dbStore, () -> true);
+        store.setBufferCapacity(10, 100);
+
+        store.store("low", new byte[0], 0, false, 7);
+        DataMessage high = store.store("high", new byte[0], 0, false, 2);
+
+        assertEquals(high.getId(), store.getNextMessage().getId());
+    }
+
+    @Test
+    public void testMessagesAboveHighWaterMarkAreStored() throws KuraStoreException {
+        DbDataStore dbStore = mock(DbDataStore.class);
+        MemoryBufferedDataStore store = new MemoryBufferedDataStore(dbStore, () -> true);
+        store.setBufferCapacity(10, 20);
+
+        store.store("topic", new byte[0], 0, false, 5);
+        store.store("topic", new byte[0], 0, false, 5);
+        store.store("topic", new byte[0], 0, false, 5);
+
+        verify(dbStore, times(1)).store("topic", new byte[0], 0, false, 5);
+    }
+
+    @Test
+    public void testNonQos0AndDisconnectedMessagesAreStored() throws KuraStoreException {
+        DbDataStore dbStore = mock(DbDataStore.class);
+        AtomicBoolean connected = new AtomicBoolean(true);
+        MemoryBufferedDataStore store = new MemoryBufferedDataStore(dbStore, connected::get);
+        store.setBufferCapacity(10, 100);
+
+        store.store("qos1", new byte[0], 1, false, 5);
+        connected.set(false);
+        store.store("disconnected", new byte[0], 0, false, 5);
+
+        verify(dbStore, times(1)).store(eq("qos1"), anyObject(), eq(1), eq(false), eq(5));
+        verify(dbStore, times(1)).store(eq("disconnected"), anyObject(), eq(0), eq(false), eq(5));
+    }
+
+    @Test
+    public void testSpill() throws KuraStoreException {
+        DbDataStore dbStore = mock(DbDataStore.class);
+        MemoryBufferedDataStore store = new MemoryBufferedDataStore(dbStore, () -> true);
+        store.setBufferCapacity(10, 100);
+
+        store.store("topic", new byte[0], 0, false, 5);
+        store.store("topic", new byte[0], 0, false, 5);
+        store.spill();
+
+        verify(dbStore, times(2)).store(eq("topic"), anyObject(), eq(0), eq(false), eq(5));
+        when(dbStore.getNextMessage()).thenReturn(null);
+        assertNull(store.getNextMessage());
+    }
+
+    @Test
+    public void testStoredMessagesAreMergedByPriority() throws KuraStoreException {
+        DbDataStore dbStore = mock(DbDataStore.class);
+        MemoryBufferedDataStore store = new MemoryBufferedDataStore(dbStore, () -> true);
+        store.setBufferCapacity(10, 100);
+
+        DataMessage bufferedLow = store.store("low", new byte[0], 0, false, 7);
+        DataMessage storedHigh = buildStoredMessage(1, 2);
+        when(dbStore.getNextMessage()).thenReturn(storedHigh);
+
+        assertSame(storedHigh, store.getNextMessage());
+
+        when(dbStore.getNextMessage()).thenReturn(buildStoredMessage(2, 9));
+
+        assertSame(bufferedLow, store.getNextMessage());
+    }
+
+    @Test
+    public void testGetNextMessagesMergesByPriority() throws KuraStoreException {
+        DbDataStore dbStore = mock(DbDataStore.class);
+        MemoryBufferedDataStore store = new MemoryBufferedDataStore(dbStore, () -> true);
+        store.setBufferCapacity(10, 100);
+
+        DataMessage buffered5 = store.store("topic", new byte[0], 0, false, 5);
+        store.store("topic", new byte[0], 0, false, 7);
+        DataMessage stored2 = buildStoredMessage(1, 2);
+        DataMessage stored6 = buildStoredMessage(2, 6);
+        when(dbStore.getNextMessages(3)).thenReturn(Arrays.asList(stored2, stored6));
+
+        List<DataMessage> messages = store.getNextMessages(3);
+
+        assertEquals(Arrays.asList(stored2, buffered5, stored6), messages);
+    }
+
+    @Test
+    public void testSpillKeepsInFlightMessages() throws KuraStoreException {
+        DbDataStore dbStore = mock(DbDataStore.class);
+        MemoryBufferedDataStore store = new MemoryBufferedDataStore(dbStore, () -> true);
+        store.setBufferCapacity(10, 100);
+
+        DataMessage inFlight = store.store("inflight", new byte[0], 0, false, 5);
+        store.store("topic", new byte[0], 0, false, 5);
+
+        assertSame(inFlight, store.getNextMessage());
+        store.spill();
+
+        // the message being published is not stored again with a different id
+        verify(dbStore, never()).store(eq("inflight"), anyObject(), anyInt(), eq(false), anyInt());
+        verify(dbStore, times(1)).store(eq("topic"), anyObject(), eq(0), eq(false), eq(5));
+
+        store.published(inFlight.getId());
+
+        when(dbStore.getNextMessage()).thenReturn(null);
+        assertNull(store.getNextMessage());
+    }
+
+    @Test
+    public void testStopSpillsInFlightMessages() throws KuraStoreException {
+        DbDataStore dbStore = mock(DbDataStore.class);
+        MemoryBufferedDataStore store = new MemoryBufferedDataStore(dbStore, () -> true);
+        store.setBufferCapacity(10, 100);
+
+        DataMessage inFlight = store.store("inflight", new byte[0], 0, false, 5);
+
+        assertSame(inFlight, store.getNextMessage());
+        store.stop();
+
+        verify(dbStore, times(1)).store(eq("inflight"), anyObject(), eq(0), eq(false), eq(5));
+    }
+
+    @Test
+    public void testSpilledMessagesKeepTheirId() throws KuraStoreException {
+        DbDataStore dbStore = mock(DbDataStore.class);
+        MemoryBufferedDataStore store = new MemoryBufferedDataStore(dbStore, () -> true);
+        store.setBufferCapacity(10, 100);
+
+        DataMessage buffered = store.store("topic", new byte[0], 0, false, 5);
+        DataMessage stored = buildStoredMessage(42, 5);
+        when(dbStore.store(eq("topic"), anyObject(), eq(0), eq(false), eq(5))).thenReturn(stored);
+
+        store.spill();
+
+        // the message is returned with the id known by the publisher
+        when(dbStore.getNextMessage()).thenReturn(stored);
+        DataMessage next = store.getNextMessage();
+        assertEquals(buffered.getId(), next.getId());
+        assertEquals("stored", next.getTopic());
+
+        when(dbStore.getNextMessages(1)).thenReturn(Arrays.asList(stored));
+        assertEquals(buffered.getId(), store.getNextMessages(1).get(0).getId());
+
+        when(dbStore.get(42)).thenReturn(stored);
+        assertEquals(buffered.getId(), store.get(buffered.getId()).getId());
+
+        // and translated back when it is marked as published
+        store.published(buffered.getId());
+        verify(dbStore, times(1)).published(42);
+
+        assertSame(stored, store.getNextMessage());
+    }
+
+    @Test
+    public void testSpilledMessagesPublishedInBatch() throws KuraStoreException {
+        DbDataStore dbStore = mock(DbDataStore.class);
+        MemoryBufferedDataStore store = new MemoryBufferedDataStore(dbStore, () -> true);
+        store.setBufferCapacity(10, 100);
+
+        DataMessage buffered = store.store("topic", new byte[0], 0, false, 5);
+        when(dbStore.store(eq("topic"), anyObject(), eq(0), eq(false), eq(5))).thenReturn(buildStoredMessage(42, 5));
+        store.spill();
+
+        DataMessage kept = store.store("kept", new byte[0], 0, false, 5);
+        DataMessage stored = buildStoredMessage(7, 5);
+
+        store.published(Arrays.asList(buffered, kept, stored));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<DataMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(dbStore, times(1)).published(captor.capture());
+        List<DataMessage> persisted = captor.getValue();
+        assertEquals(2, persisted.size());
+        assertEquals(42, persisted.get(0).getId());
+        assertSame(stored, persisted.get(1));
+    }
+
+    @Test
+    public void testBufferGrowsUpToCapacity() throws KuraStoreException {
+        DbDataStore dbStore = mock(DbDataStore.class);
+        MemoryBufferedDataStore store = new MemoryBufferedDataStore(dbStore, () -> true);
+        store.setBufferCapacity(100, 100);
+
+        List<DataMessage> buffered = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            buffered.add(store.store("topic", new byte[0], 0, false, 5));
+        }
+        store.store("full", new byte[0], 0, false, 5);
+
+        verify(dbStore, never()).store(eq("topic"), anyObject(), anyInt(), eq(false), anyInt());
+        verify(dbStore, times(1)).store(eq("full"), anyObject(), eq(0), eq(false), eq(5));
+        assertEquals(buffered, store.getNextMessages(100));
+    }
+
+    private static DataMessage buildStoredMessage(int id, int priority) {
+        return new DataMessage.Builder(id).withTopic("stored").withQos(0).withCreatedOn(new Date(0))
+                .withPublishedMessageId(-1).withPayload(new byte[0]).withPriority(priority).build();
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -13,6 +13,7 @@
 package org.eclipse.kura.driver.block.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -29,14 +30,19 @@ import org.eclipse.kura.channel.ChannelFlag;
 import org.eclipse.kura.channel.ChannelRecord;
 import org.eclipse.kura.driver.ChannelDescriptor;
 import org.eclipse.kura.driver.Driver.ConnectionException;
+import org.eclipse.kura.driver.PreparedRead;
 import org.eclipse.kura.driver.binary.Buffer;
 import org.eclipse.kura.driver.block.BlockFactory;
 import org.eclipse.kura.driver.block.ProhibitedBlock;
 import org.eclipse.kura.driver.block.task.AbstractBlockDriver;
+import org.eclipse.kura.driver.block.task.AbstractBlockDriver.BlockPreparedRead;
 import org.eclipse.kura.driver.block.task.AbstractBlockDriver.Pair;
 import org.eclipse.kura.driver.block.task.BlockTask;
 import org.eclipse.kura.driver.block.task.BlockTaskAggregator;
+import org.eclipse.kura.driver.block.task.LinkCostEstimator;
 import org.eclipse.kura.driver.block.task.Mode;
+import org.eclipse.kura.driver.block.task.ReadPlannerStatistics;
+import org.eclipse.kura.driver.block.task.ReadPlannerStatistics.DomainPlan;
 import org.eclipse.kura.driver.block.task.ToplevelBlockTask;
 import org.eclipse.kura.driver.block.task.UpdateBlockTask;
 import org.eclipse.kura.type.DataType;
@@ -186,6 +192,101 @@ public class AbstractBlockDriverTest {
         }
     }
 
+    @Test
+    public void shouldSupportMaximumBlockSize() throws ConnectionException {
+        List<Pair<Integer, BlockTask>> tasks = testTasks(1, Mode.READ, 0, 3, 3, 5, 5, 10);
+        List<ChannelRecord> records = getRecords(tasks);
+        TestBlockFactory factory1 = new TestBlockFactory(Mode.READ, 0, 5);
+        TestBlockFactory factory2 = new TestBlockFactory(Mode.READ, 5, 10);
+        TestDriver driver = new TestDriver().withTasks(tasks)
+                .withBlockFactoryProvider((domain, mode) -> (start, end) -> start == 0 ? factory1.build(start, end)
+                        : factory2.build(start, end))
+                .withMaximumBlockSize(5);
+        driver.read(records);
+        assertEquals(1, factory1.timesCalled);
+        assertEquals(1, factory2.timesCalled);
+        for (ChannelRecord record : records) {
+            assertEquals(true, record.getValue().getValue());
+        }
+    }
+
+    @Test
+    public void shouldProvidePlannerStatistics() throws ConnectionException, KuraException {
+        List<Pair<Integer, BlockTask>> tasks = testTasks(1, Mode.READ, 0, 3, 5, 7, 9, 12);
+        List<ChannelRecord> records = getRecords(tasks);
+        TestDriver driver = new TestDriver().withTasks(tasks)
+                .withBlockFactoryProvider((domain, mode) -> new TestBlockFactory(Mode.READ, 0, 12))
+                .withMinimumGapSize(3);
+
+        PreparedRead preparedRead = driver.prepareRead(records);
+        preparedRead.execute();
+
+        ReadPlannerStatistics statistics = ((BlockPreparedRead) preparedRead).getPlannerStatistics();
+        assertNotNull(statistics);
+        assertEquals(1, statistics.getDomainPlans().size());
+        DomainPlan plan = statistics.getDomainPlans().get(0);
+        assertEquals(1, plan.getDomain());
+        assertFalse(plan.isAdaptive());
+        assertEquals(3, plan.getMinimumGapSize());
+        assertEquals(Integer.MAX_VALUE, plan.getMaximumBlockSize());
+        assertEquals(3, plan.getTaskCount());
+        assertEquals(1, plan.getBlockCount());
+        assertEquals(12, plan.getTotalSize());
+    }
+
+    @Test
+    public void shouldUseObservedLinkCost() throws ConnectionException, KuraException {
+        List<Pair<Integer, BlockTask>> tasks = testTasks(1, Mode.READ, 0, 3, 5, 7, 9, 12);
+        List<ChannelRecord> records = getRecords(tasks);
+        TestBlockFactory factory = new TestBlockFactory(Mode.READ, 0, 12);
+        TestDriver driver = new TestDriver().withTasks(tasks).withBlockFactoryProvider((domain, mode) -> factory)
+                .withAdaptivePlanning(true);
+
+        trainEstimator(driver.getEstimator(1), 10000, 1000);
+
+        PreparedRead preparedRead = driver.prepareRead(records);
+        preparedRead.execute();
+
+        assertEquals(1, factory.timesCalled);
+        DomainPlan plan = ((BlockPreparedRead) preparedRead).getPlannerStatistics().getDomainPlans().get(0);
+        assertTrue(plan.isAdaptive());
+        assertEquals(10, plan.getMinimumGapSize());
+        assertEquals(1, plan.getBlockCount());
+        for (ChannelRecord record : records) {
+            assertEquals(true, record.getValue().getValue());
+        }
+    }
+
+    @Test
+    public void shouldReplanPreparedRead() throws ConnectionException, KuraException {
+        List<Pair<Integer, BlockTask>> tasks = testTasks(1, Mode.READ, 0, 3, 5, 7, 9, 12);
+        List<ChannelRecord> records = getRecords(tasks);
+        TestBlockFactory factory = new TestBlockFactory(Mode.READ, 0, 12);
+        TestDriver driver = new TestDriver().withTasks(tasks).withBlockFactoryProvider((domain, mode) -> factory)
+                .withAdaptivePlanning(true);
+
+        BlockPreparedRead preparedRead = (BlockPreparedRead) driver.prepareRead(records);
+        assertEquals(3, factory.timesCalled);
+        assertEquals(3, preparedRead.getPlannerStatistics().getDomainPlans().get(0).getBlockCount());
+
+        trainEstimator(driver.getEstimator(1), 10000, 1000);
+        factory.timesCalled = 0;
+        preparedRead.execute();
+
+        assertEquals(1, factory.timesCalled);
+        assertEquals(1, preparedRead.getPlannerStatistics().getDomainPlans().get(0).getBlockCount());
+        for (ChannelRecord record : records) {
+            assertEquals(true, record.getValue().getValue());
+        }
+    }
+
+    private void trainEstimator(LinkCostEstimator estimator, long overheadNanos, long perByteNanos) {
+        for (int i = 0; i < 20; i++) {
+            final int size = 1 + i % 5 * 10;
+            estimator.addSample(size, overheadNanos + perByteNanos * size);
+        }
+    }
+
     private List<Pair<Integer, BlockTask>> testTasks(int domain, Mode mode, int... ranges) {
         assertTrue(ranges.length % 2 == 0);
         List<Pair<Integer, BlockTask>> result = new ArrayList<>(ranges.length / 2);
@@ -279,6 +380,8 @@ public class AbstractBlockDriverTest {
         private Consumer<List<BlockTask>> afterAggregation;
         private Consumer<BlockTaskAggregator> beforeAggregation;
         private int minimumGapSize;
+        private int maximumBlockSize = Integer.MAX_VALUE;
+        private boolean adaptivePlanning;
 
         public TestDriver withTasks(List<Pair<Integer, BlockTask>> tasks) {
             this.tasks = tasks;
@@ -290,6 +393,20 @@ public class AbstractBlockDriverTest {
             return this;
         }
 
+        public TestDriver withMaximumBlockSize(int maximumBlockSize) {
+            this.maximumBlockSize = maximumBlockSize;
+            return this;
+        }
+
+        public TestDriver withAdaptivePlanning(boolean adaptivePlanning) {
+            this.adaptivePlanning = adaptivePlanning;
+            return this;
+        }
+
+        public LinkCostEstimator getEstimator(Integer domain) {
+            return getLinkCostEstimator(domain);
+        }
+
         public TestDriver withBlockFactoryProvider(
                 BiFunction<Integer, Mode, BlockFactory<ToplevelBlockTask>> blockFactoryProvider) {
             this.blockFactoryProvider = blockFactoryProvider;
@@ -311,6 +428,16 @@ public class AbstractBlockDriverTest {
             return this.minimumGapSize;
         }
 
+        @Override
+        protected int getReadMaximumBlockSizeForDomain(Integer domain) {
+            return this.maximumBlockSize;
+        }
+
+        @Override
+        protected boolean isAdaptiveReadPlanningEnabled(Integer domain) {
+            return this.adaptivePlanning;
+        }
+
         @Override
         protected void beforeAggregation(Integer domain, Mode mode, BlockTaskAggregator aggregator) {
             if (this.beforeAggregation != null) {
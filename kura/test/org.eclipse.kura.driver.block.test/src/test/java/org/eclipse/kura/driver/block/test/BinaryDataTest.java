@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -16,8 +16,10 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Random;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -27,7 +29,9 @@ import org.eclipse.kura.driver.binary.BinaryDataTypes;
 import org.eclipse.kura.driver.binary.Buffer;
 import org.eclipse.kura.driver.binary.ByteArray;
 import org.eclipse.kura.driver.binary.ByteArrayBuffer;
+import org.eclipse.kura.driver.binary.ByteBufferBuffer;
 import org.eclipse.kura.driver.binary.Endianness;
+import org.eclipse.kura.driver.binary.NumericBinaryData;
 import org.eclipse.kura.driver.binary.UnsignedIntegerLE;
 import org.eclipse.kura.driver.binary.adapter.GainOffset;
 import org.eclipse.kura.driver.binary.adapter.StringData;
@@ -271,6 +275,68 @@ public class BinaryDataTest {
         testAdapterRead(ToBoolean::new, BigInteger.valueOf(0), false);
     }
 
+    @Test
+    public void shouldReadSameValuesFromAllBuffers() {
+        final byte[] data = new byte[64];
+        new Random(1234).nextBytes(data);
+
+        final ByteBufferBuffer direct = ByteBufferBuffer.allocateDirect(data.length);
+        direct.write(0, data);
+        final ByteBufferBuffer withOffset = new ByteBufferBuffer(
+                ByteBuffer.wrap(new byte[data.length + 3], 3, data.length));
+        withOffset.write(0, data);
+        final Buffer[] buffers = new Buffer[] { new ByteArrayBuffer(data), direct, withOffset,
+                new SimpleBuffer(data) };
+
+        for (final BinaryData<?> binaryData : BinaryDataTypes.VALUES) {
+            for (int offset = 0; offset + binaryData.getSize() <= data.length; offset++) {
+                final Object expected = binaryData.read(buffers[buffers.length - 1], offset);
+                for (final Buffer buffer : buffers) {
+                    assertEquals(expected, binaryData.read(buffer, offset));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldWriteSameValuesToAllBuffers() {
+        final byte[] data = new byte[16];
+        new Random(5678).nextBytes(data);
+        final Buffer source = new SimpleBuffer(data);
+
+        for (final BinaryData<?> binaryData : BinaryDataTypes.VALUES) {
+            testWrite(binaryData, source, new ByteArrayBuffer(new byte[data.length]));
+            testWrite(binaryData, source, ByteBufferBuffer.allocateDirect(data.length));
+        }
+    }
+
+    @Test
+    public void shouldSupportPrimitiveReads() {
+        final byte[] data = new byte[64];
+        new Random(91011).nextBytes(data);
+        final Buffer buffer = new ByteArrayBuffer(data);
+
+        for (final BinaryData<?> binaryData : BinaryDataTypes.VALUES) {
+            final NumericBinaryData<?> numericData = (NumericBinaryData<?>) binaryData;
+            for (int offset = 0; offset + binaryData.getSize() <= data.length; offset++) {
+                final Number expected = numericData.read(buffer, offset);
+                assertEquals(expected.intValue(), numericData.readInt(buffer, offset));
+                assertEquals(expected.longValue(), numericData.readLong(buffer, offset));
+                assertEquals(expected.floatValue(), numericData.readFloat(buffer, offset), 0.0f);
+                assertEquals(expected.doubleValue(), numericData.readDouble(buffer, offset), 0.0d);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void testWrite(BinaryData<T> binaryData, Buffer source, Buffer target) {
+        final T value = binaryData.read(source, 0);
+        final SimpleBuffer expected = new SimpleBuffer(new byte[target.getLength()]);
+        binaryData.write(expected, 0, value);
+        binaryData.write(target, 0, value);
+        assertArrayEquals(expected.toArray(), target.toArray());
+    }
+
     private static void apply(byte[] data, Endianness endianness, BiFunction<byte[], Integer, Byte> func) {
         int start;
         int inc;
@@ -465,4 +531,27 @@ public class BinaryDataTest {
         }
     }
 
+    private static final class SimpleBuffer implements Buffer {
+
+        private final byte[] data;
+
+        SimpleBuffer(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public void put(int offset, byte value) {
+            this.data[offset] = value;
+        }
+
+        @Override
+        public byte get(int offset) {
+            return this.data[offset];
+        }
+
+        @Override
+        public int getLength() {
+            return this.data.length;
+        }
+    }
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -109,12 +109,38 @@ public class BlockAggregatorTest {
         new TestHelper().setInput(0, 1, 2, 3, 8, 9).prohibit(4, 7).expect(0, 3, 8, 9).setMinimumGapSize(10).exec();
     }
 
+    @Test
+    public void shouldNotExceedMaximumSize() {
+        new TestHelper().setInput(0, 4, 4, 8, 8, 12).expect(0, 8, 8, 12).setMaximumSize(8).exec();
+        new TestHelper().setInput(0, 2, 3, 5, 6, 8, 9, 11).expect(0, 5, 6, 11).setMinimumGapSize(2).setMaximumSize(5)
+                .exec();
+        new TestHelper().setInput(0, 2, 3, 5, 6, 8, 9, 11).expect(0, 11).setMinimumGapSize(2).exec();
+    }
+
+    @Test
+    public void shouldAggregateOverlappingBlocksExceedingMaximumSize() {
+        new TestHelper().setInput(0, 6, 4, 10, 10, 12).expect(0, 10, 10, 12).setMaximumSize(8).exec();
+        new TestHelper().setInput(0, 20, 2, 4).expect(0, 20).setMaximumSize(8).exec();
+    }
+
+    @Test
+    public void shouldSupportProhibitedBlocksWithMaximumSize() {
+        new TestHelper().setInput(0, 1, 2, 3, 8, 9, 10, 11).prohibit(4, 7).expect(0, 3, 8, 11).setMinimumGapSize(10)
+                .setMaximumSize(3).exec();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveMaximumSize() {
+        new TestHelper().setInput(0, 1).setMaximumSize(0).exec();
+    }
+
     private static class TestHelper {
 
         private int[] inputBlocks;
         private int[] prohibitedBlocks;
         private int[] outputBlocks;
         private int minimumGapSize;
+        private int maximumSize = Integer.MAX_VALUE;
         BlockAggregator<Block> aggregator;
 
         private TestHelper() {
@@ -141,6 +167,11 @@ public class BlockAggregatorTest {
             return (this);
         }
 
+        public TestHelper setMaximumSize(int maximumSize) {
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
         public TestHelper prohibit(int... prohibitedBlocks) {
             if (prohibitedBlocks.length % 2 != 0) {
                 fail("block list size must be a multiple of 2");
@@ -164,6 +195,7 @@ public class BlockAggregatorTest {
             }
             aggregator = new BlockAggregator<Block>(inputBlocksTemp, (start, end) -> new Block(start, end));
             aggregator.setMinimumGapSize(minimumGapSize);
+            aggregator.setMaximumSize(maximumSize);
             Iterator<Block> blocks = aggregator.stream().iterator();
 
             if (outputBlocks != null) {
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.internal.asset.provider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class AssetIoExecutorTest {
+
+    @Test
+    public void testSharedExecutor() throws InterruptedException {
+        SharedIoExecutor sharedExecutor = new SharedIoExecutor(1, 1);
+        ExecutorService privateExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "private"));
+
+        try {
+            AssetIoExecutor executor = new AssetIoExecutor(() -> "driver", () -> sharedExecutor, privateExecutor);
+
+            assertTrue(executeAndGetThreadName(executor).startsWith("AssetIO-"));
+        } finally {
+            sharedExecutor.shutdown();
+            privateExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPrivateExecutorIfSharedDisabled() throws InterruptedException {
+        ExecutorService privateExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "private"));
+
+        try {
+            AssetIoExecutor executor = new AssetIoExecutor(() -> "driver", () -> null, privateExecutor);
+
+            assertEquals("private", executeAndGetThreadName(executor));
+        } finally {
+            privateExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPrivateExecutorIfSharedShutDown() throws InterruptedException {
+        SharedIoExecutor sharedExecutor = new SharedIoExecutor(1, 1);
+        sharedExecutor.shutdown();
+        ExecutorService privateExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "private"));
+
+        try {
+            AssetIoExecutor executor = new AssetIoExecutor(() -> "driver", () -> sharedExecutor, privateExecutor);
+
+            assertEquals("private", executeAndGetThreadName(executor));
+        } finally {
+            privateExecutor.shutdown();
+        }
+    }
+
+    private static String executeAndGetThreadName(ExecutorService executor) throws InterruptedException {
+        AtomicReference<String> threadName = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        executor.execute(() -> {
+            threadName.set(Thread.currentThread().getName());
+            done.countDown();
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        return threadName.get();
+    }
+}
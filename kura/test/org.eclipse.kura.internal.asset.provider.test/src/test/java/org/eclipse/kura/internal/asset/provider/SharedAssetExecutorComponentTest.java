@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.internal.asset.provider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class SharedAssetExecutorComponentTest {
+
+    @Test
+    public void testDisabledByDefault() {
+        SharedAssetExecutorComponent component = new SharedAssetExecutorComponent();
+        component.activate(new HashMap<>());
+
+        assertNull(component.getExecutor());
+    }
+
+    @Test
+    public void testUpdatedDrainsPreviousExecutor() throws InterruptedException {
+        SharedAssetExecutorComponent component = new SharedAssetExecutorComponent();
+        component.activate(enabledProperties());
+
+        SharedIoExecutor oldExecutor = component.getExecutor();
+        assertNotNull(oldExecutor);
+
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger();
+        oldExecutor.execute("driver", () -> {
+            started.countDown();
+            sleep(200);
+            completed.incrementAndGet();
+        });
+        oldExecutor.execute("driver", completed::incrementAndGet);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        component.updated(enabledProperties());
+
+        // the tasks submitted to the previous executor are completed before it is replaced
+        assertEquals(2, completed.get());
+        assertTrue(oldExecutor.awaitTermination(0, TimeUnit.SECONDS));
+
+        SharedIoExecutor newExecutor = component.getExecutor();
+        assertNotNull(newExecutor);
+        assertNotSame(oldExecutor, newExecutor);
+
+        component.deactivate();
+
+        assertNull(component.getExecutor());
+        assertTrue(newExecutor.awaitTermination(0, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testDisableRejectsTasks() {
+        SharedAssetExecutorComponent component = new SharedAssetExecutorComponent();
+        component.activate(enabledProperties());
+        SharedIoExecutor executor = component.getExecutor();
+
+        component.updated(new HashMap<>());
+
+        assertNull(component.getExecutor());
+        executor.execute("driver", () -> {
+        });
+    }
+
+    private static Map<String, Object> enabledProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("enabled", true);
+        properties.put("io.threads", 2);
+        properties.put("driver.max.concurrency", 1);
+        return properties;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.internal.asset.provider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class SharedIoExecutorTest {
+
+    private SharedIoExecutor executor;
+
+    @After
+    public void tearDown() throws InterruptedException {
+        if (this.executor != null) {
+            this.executor.shutdown();
+            this.executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testPerDriverConcurrencyCap() throws InterruptedException {
+        this.executor = new SharedIoExecutor(4, 2);
+
+        int count = 20;
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(count);
+
+        for (int i = 0; i < count; i++) {
+            this.executor.execute("driver", () -> {
+                int current = running.incrementAndGet();
+                maxRunning.accumulateAndGet(current, Math::max);
+                sleep(5);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    public void testSlowDriverDoesNotDelayOtherDrivers() throws InterruptedException {
+        this.executor = new SharedIoExecutor(2, 1);
+
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 10; i++) {
+            this.executor.execute("slow", () -> await(release));
+        }
+
+        CountDownLatch fastDone = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++) {
+            this.executor.execute("fast", fastDone::countDown);
+        }
+
+        try {
+            assertTrue(fastDone.await(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testLaneHandOff() throws InterruptedException {
+        this.executor = new SharedIoExecutor(4, 1);
+
+        int count = 100;
+        List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean overlapped = new AtomicBoolean();
+        AtomicInteger running = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(count);
+
+        for (int i = 0; i < count; i++) {
+            final int value = i;
+            this.executor.execute("driver", () -> {
+                if (running.incrementAndGet() > 1) {
+                    overlapped.set(true);
+                }
+                executed.add(value);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertFalse(overlapped.get());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, (int) executed.get(i));
+        }
+    }
+
+    @Test
+    public void testTaskExceptionDoesNotBlockLane() throws InterruptedException {
+        this.executor = new SharedIoExecutor(1, 1);
+
+        CountDownLatch done = new CountDownLatch(1);
+        this.executor.execute("driver", () -> {
+            throw new IllegalStateException("test");
+        });
+        this.executor.execute("driver", done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRejectedAfterShutdown() throws InterruptedException {
+        this.executor = new SharedIoExecutor(1, 1);
+        this.executor.shutdown();
+
+        AtomicBoolean executed = new AtomicBoolean();
+        try {
+            this.executor.execute("driver", () -> executed.set(true));
+            fail("Task should have been rejected");
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+
+        // rejected tasks are not executed on the caller thread
+        assertFalse(executed.get());
+        assertTrue(this.executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testShutdownDrainsLanes() throws InterruptedException {
+        this.executor = new SharedIoExecutor(2, 1);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+
+        this.executor.execute("driver", () -> {
+            started.countDown();
+            await(release);
+            threads.add(Thread.currentThread());
+        });
+        for (int i = 0; i < 3; i++) {
+            this.executor.execute("driver", () -> threads.add(Thread.currentThread()));
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        this.executor.shutdown();
+        assertFalse(this.executor.awaitTermination(100, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+
+        // the queued tasks are handed off to the pool workers, not run on the caller thread
+        assertTrue(this.executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(4, threads.size());
+        for (Thread thread : threads) {
+            assertTrue(thread.getName().startsWith("AssetIO-"));
+        }
+    }
+
+    static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
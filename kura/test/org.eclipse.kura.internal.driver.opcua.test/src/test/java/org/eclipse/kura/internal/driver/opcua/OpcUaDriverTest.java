@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2019 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  *   All rights reserved. This program and the accompanying materials
  *   are made available under the terms of the Eclipse Public License v1.0
@@ -16,6 +16,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -44,6 +45,7 @@ import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
 import org.eclipse.milo.opcua.stack.core.types.enumerated.IdType;
 import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
 import org.eclipse.milo.opcua.stack.core.types.structured.ReadResponse;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
 import org.junit.Test;
 import org.mockito.Mockito;
 
@@ -300,4 +302,74 @@ public class OpcUaDriverTest {
         assertEquals(123, record.getValue().getValue());
     }
 
+    @Test
+    public void testPipelinedRead() throws Exception {
+        // test that chunks are sent without waiting for the previous responses, up to the pipeline depth
+
+        OpcUaDriver svc = new OpcUaDriver();
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("request.timeout", 1);
+        properties.put("max.request.items", 2);
+        properties.put("read.pipeline.depth", 3);
+        OpcUaOptions options = new OpcUaOptions(properties, mock(CryptoService.class));
+
+        TestUtil.setFieldValue(svc, "options", options);
+
+        OpcUaClient clientMock = mock(OpcUaClient.class);
+
+        ConnectionManager manager = new ConnectionManager(clientMock, options, (a, b) -> {
+        }, new ListenerRegistrationRegistry(), new ListenerRegistrationRegistry());
+
+        TestUtil.setFieldValue(svc, "connectionManager", Optional.of(manager));
+
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+        when(clientMock.read(Mockito.eq(0.0), Mockito.eq(TimestampsToReturn.Both), anyObject()))
+                .thenAnswer(invocation -> {
+                    List<?> readValueIds = invocation.getArgumentAt(2, List.class);
+                    DataValue[] values = new DataValue[readValueIds.size()];
+                    for (int i = 0; i < values.length; i++) {
+                        String nodeId = ((ReadValueId) readValueIds.get(i)).getNodeId().getIdentifier().toString();
+                        values[i] = new DataValue(new Variant(nodeId), StatusCode.GOOD);
+                    }
+
+                    ReadResponse response = mock(ReadResponse.class);
+                    when(response.getResults()).thenReturn(values);
+
+                    events.add("send");
+                    return new CompletableFuture<ReadResponse>() {
+
+                        @Override
+                        public ReadResponse get(long timeout, TimeUnit unit) {
+                            events.add("wait");
+                            return response;
+                        }
+                    };
+                });
+
+        List<ChannelRecord> records = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            ChannelRecord record = ChannelRecord.createReadRecord("ch" + i, DataType.INTEGER);
+            Map<String, Object> channelConfig = new HashMap<>();
+            channelConfig.put("node.namespace.index", "1");
+            channelConfig.put("node.id.type", "NUMERIC");
+            channelConfig.put("opcua.type", "DEFINED_BY_JAVA_TYPE");
+            channelConfig.put("node.id", Integer.toString(100 + i));
+            channelConfig.put("attribute", "Value");
+            record.setChannelConfig(channelConfig);
+            records.add(record);
+        }
+
+        svc.read(records);
+
+        assertEquals("[send, send, send, wait, send, wait, wait, wait]", events.toString());
+
+        for (int i = 0; i < 7; i++) {
+            ChannelRecord record = records.get(i);
+            assertEquals(ChannelFlag.SUCCESS, record.getChannelStatus().getChannelFlag());
+            assertEquals(100 + i, record.getValue().getValue());
+        }
+        assertEquals(4, manager.getReadStatistics().getCount());
+    }
 }
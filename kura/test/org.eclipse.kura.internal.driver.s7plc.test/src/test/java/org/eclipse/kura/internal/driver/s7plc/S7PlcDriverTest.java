@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  *   All rights reserved. This program and the accompanying materials
  *   are made available under the terms of the Eclipse Public License v1.0
@@ -11,6 +11,8 @@ package org.eclipse.kura.internal.driver.s7plc;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyObject;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -19,9 +21,16 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.kura.KuraErrorCode;
 import org.eclipse.kura.KuraException;
@@ -331,4 +340,105 @@ public class S7PlcDriverTest {
 
         verify(s7Mock, times(1)).WriteArea(S7.S7AreaDB, db, offset, data.length, data);
     }
+
+    @Test
+    public void testConcurrentReadWithConnectionPool() throws Exception {
+        // test that read tasks are distributed across the pooled connections
+
+        final int poolSize = 3;
+        final List<S7Client> clients = new ArrayList<>();
+        final AtomicInteger[] readCounts = new AtomicInteger[poolSize];
+        for (int i = 0; i < poolSize; i++) {
+            final AtomicInteger readCount = new AtomicInteger();
+            S7Client s7Mock = mock(S7Client.class);
+            doAnswer(invocation -> {
+                s7Mock.Connected = true;
+                return 0;
+            }).when(s7Mock).ConnectTo(anyObject(), anyInt(), anyInt());
+            doAnswer(invocation -> {
+                readCount.incrementAndGet();
+                return 0;
+            }).when(s7Mock).ReadArea(anyInt(), anyInt(), anyInt(), anyInt(), anyObject());
+            clients.add(s7Mock);
+            readCounts[i] = readCount;
+        }
+
+        final Iterator<S7Client> clientIterator = clients.iterator();
+        S7PlcDriver svc = new S7PlcDriver() {
+
+            @Override
+            protected S7ClientState createClientState(S7PlcOptions options) {
+                return new S7ClientState(options, clientIterator.hasNext() ? clientIterator.next() : clients.get(0));
+            }
+        };
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("connection.pool.size", poolSize);
+        svc.activate(properties);
+        svc.connect();
+
+        // each task waits for the others to be running, this only succeeds if the tasks are executed concurrently
+        final CountDownLatch running = new CountDownLatch(poolSize);
+        final List<BlockTask> tasks = new ArrayList<>();
+        for (int i = 0; i < poolSize; i++) {
+            final int db = i;
+            ToplevelBlockTask task = mock(ToplevelBlockTask.class);
+            when(task.getMode()).thenReturn(Mode.READ);
+            doAnswer(invocation -> {
+                running.countDown();
+                assertEquals(true, running.await(10, TimeUnit.SECONDS));
+                svc.read(db, 0, new byte[4]);
+                return null;
+            }).when(task).run();
+            tasks.add(task);
+        }
+
+        // runTasks() is called holding the driver monitor by AbstractBlockDriver
+        synchronized (svc) {
+            svc.runTasks(tasks);
+        }
+
+        assertEquals(0, running.getCount());
+        for (BlockTask task : tasks) {
+            verify(task, times(1)).run();
+        }
+        for (int i = 0; i < poolSize; i++) {
+            assertEquals(1, readCounts[i].get());
+            verify(clients.get(i), times(1)).ConnectTo(anyObject(), anyInt(), anyInt());
+        }
+
+        svc.deactivate();
+        for (S7Client client : clients) {
+            verify(client, times(1)).Disconnect();
+        }
+    }
+
+    @Test
+    public void testWriteTasksNotDistributed() throws Exception {
+        S7Client s7Mock = mock(S7Client.class);
+        S7PlcDriver svc = createTestDriver(s7Mock);
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("connection.pool.size", 2);
+        svc.activate(properties);
+        svc.connect();
+
+        final Thread caller = Thread.currentThread();
+        final List<BlockTask> tasks = new ArrayList<>();
+        for (Mode mode : Arrays.asList(Mode.READ, Mode.WRITE)) {
+            ToplevelBlockTask task = mock(ToplevelBlockTask.class);
+            when(task.getMode()).thenReturn(mode);
+            doAnswer(invocation -> {
+                assertEquals(caller, Thread.currentThread());
+                return null;
+            }).when(task).run();
+            tasks.add(task);
+        }
+
+        svc.runTasks(tasks);
+
+        for (BlockTask task : tasks) {
+            verify(task, times(1)).run();
+        }
+    }
 }
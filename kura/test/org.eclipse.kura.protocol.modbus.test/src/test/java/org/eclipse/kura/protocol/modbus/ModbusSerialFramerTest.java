@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+
+package org.eclipse.kura.protocol.modbus;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.kura.protocol.modbus.test.VirtualSerialLine;
+import org.eclipse.kura.protocol.modbus.test.VirtualSerialSlave;
+import org.junit.After;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ModbusSerialFramerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModbusSerialFramerTest.class);
+
+    private static final int BAUD_RATE = 115200;
+
+    private final VirtualSerialLine requestLine = new VirtualSerialLine(10);
+    private final VirtualSerialLine responseLine = new VirtualSerialLine(10);
+    private VirtualSerialSlave slave;
+
+    @After
+    public void stopSlave() {
+        this.requestLine.close();
+        this.responseLine.close();
+        if (this.slave != null) {
+            this.slave.shutdown();
+        }
+    }
+
+    @Test
+    public void testRtuReadHoldingRegisters() throws ModbusProtocolException {
+        ModbusSerialFramer framer = createBus(ModbusTransmissionMode.RTU_MODE, 1000, 5);
+
+        byte[] response = framer.transact(readHoldingRegisters(5, 10, 2));
+
+        assertArrayEquals(new byte[] { 5, 3, 4, 0x01, (byte) 0xFE, 0x01, (byte) 0xFF }, response);
+    }
+
+    @Test
+    public void testAsciiReadHoldingRegisters() throws ModbusProtocolException {
+        ModbusSerialFramer framer = createBus(ModbusTransmissionMode.ASCII_MODE, 1000, 5);
+
+        byte[] response = framer.transact(readHoldingRegisters(5, 10, 2));
+
+        assertArrayEquals(new byte[] { 5, 3, 4, 0x01, (byte) 0xFE, 0x01, (byte) 0xFF }, response);
+    }
+
+    @Test
+    public void testRtuNoiseBeforeResponseSkipped() throws ModbusProtocolException {
+        ModbusSerialFramer framer = createBus(ModbusTransmissionMode.RTU_MODE, 1000, 2);
+        this.slave.setNoise(new byte[] { 0, 2, 3, 2, 0 });
+
+        for (int i = 0; i < 3; i++) {
+            byte[] response = framer.transact(readHoldingRegisters(2, i, 1));
+            assertArrayEquals(new byte[] { 2, 3, 2, 0, (byte) (200 + i) }, response);
+        }
+    }
+
+    @Test
+    public void testExceptionResponse() throws ModbusProtocolException {
+        ModbusSerialFramer framer = createBus(ModbusTransmissionMode.RTU_MODE, 1000, 1);
+
+        try {
+            framer.transact(readHoldingRegisters(1, 1000, 1));
+            fail("Exception expected");
+        } catch (ModbusProtocolException e) {
+            assertEquals(ModbusProtocolErrorCode.TRANSACTION_FAILURE, e.getCode());
+        }
+
+        // the bus is still usable
+        assertEquals(100, framer.transact(readHoldingRegisters(1, 0, 1))[4]);
+    }
+
+    @Test
+    public void testMissingUnitTimeout() throws ModbusProtocolException {
+        ModbusSerialFramer framer = createBus(ModbusTransmissionMode.RTU_MODE, 50, 1);
+
+        try {
+            framer.transact(readHoldingRegisters(7, 0, 1));
+            fail("Exception expected");
+        } catch (ModbusProtocolException e) {
+            assertEquals(ModbusProtocolErrorCode.RESPONSE_TIMEOUT, e.getCode());
+        }
+    }
+
+    @Test
+    public void testInterFrameSilence() {
+        assertEquals(3208331, new ModbusSerialFramer(null, null, ModbusTransmissionMode.RTU_MODE, 12000, 0)
+                .getInterFrameSilenceNanos());
+        assertEquals(1750000, new ModbusSerialFramer(null, null, ModbusTransmissionMode.RTU_MODE, BAUD_RATE, 0)
+                .getInterFrameSilenceNanos());
+    }
+
+    @Test
+    public void testSchedulerRoundRobin() throws Exception {
+        ModbusBusScheduler scheduler = new ModbusBusScheduler();
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        scheduler.acquire(1);
+
+        List<Thread> threads = new ArrayList<>();
+        int[] units = { 1, 1, 2 };
+        for (int i = 0; i < units.length; i++) {
+            final int unit = units[i];
+            final String name = "t" + i;
+            Thread thread = new Thread(() -> {
+                try {
+                    scheduler.acquire(unit);
+                    order.add(name);
+                    scheduler.release();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+            while (scheduler.getWaitingCount() < i + 1) {
+                Thread.sleep(1);
+            }
+        }
+
+        scheduler.release();
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+
+        // unit 2 is served before the second request for unit 1
+        assertEquals(3, order.size());
+        assertEquals("t0", order.get(0));
+        assertEquals("t2", order.get(1));
+        assertEquals("t1", order.get(2));
+    }
+
+    @Test
+    public void testTransactionsPerSecond() throws Exception {
+        final int unitCount = 4;
+        final int transactionsPerUnit = 100;
+
+        ModbusSerialFramer framer = createBus(ModbusTransmissionMode.RTU_MODE, 1000, 1, 2, 3, 4);
+        ModbusBusScheduler scheduler = new ModbusBusScheduler();
+
+        ExecutorService executor = Executors.newFixedThreadPool(unitCount);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> results = new ArrayList<>();
+            for (int u = 1; u <= unitCount; u++) {
+                final int unit = u;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < transactionsPerUnit; i++) {
+                        scheduler.acquire(unit);
+                        try {
+                            byte[] response = framer.transact(readHoldingRegisters(unit, 0, 1));
+                            assertEquals(unit, response[0]);
+                            assertEquals(unit * 100, (response[3] & 0xff) << 8 | response[4] & 0xff);
+                        } finally {
+                            scheduler.release();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+            long elapsed = System.nanoTime() - start;
+
+            double transactionsPerSecond = unitCount * transactionsPerUnit * 1e9 / elapsed;
+            logger.info("{} transactions per second at {} baud, inter-frame silence {} us", transactionsPerSecond,
+                    BAUD_RATE, framer.getInterFrameSilenceNanos() / 1000);
+            assertTrue(transactionsPerSecond > 0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ModbusSerialFramer createBus(int txMode, int respTout, Integer... units) {
+        this.slave = new VirtualSerialSlave(this.requestLine, this.responseLine,
+                txMode == ModbusTransmissionMode.ASCII_MODE, units);
+        this.slave.start();
+        return new ModbusSerialFramer(this.responseLine.getInputStream(), this.requestLine.getOutputStream(), txMode,
+                BAUD_RATE, respTout);
+    }
+
+    private static byte[] readHoldingRegisters(int unit, int address, int count) {
+        return new byte[] { (byte) unit, ModbusFunctionCodes.READ_HOLDING_REGS, (byte) (address >> 8),
+                (byte) address, (byte) (count >> 8), (byte) count };
+    }
+}
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+
+package org.eclipse.kura.protocol.modbus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.kura.KuraConnectionStatus;
+import org.junit.Test;
+
+public class ModbusTcpPipelineTest {
+
+    @Test
+    public void testConcurrentTransactionsMatchedByTransactionId() throws Exception {
+        // the server answers only after receiving 4 requests, in reverse order
+        try (PipeliningServer server = new PipeliningServer(4)) {
+            ModbusProtocolDevice modbusDevice = createDevice(server.getPort(), "4");
+
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<int[]>> results = new ArrayList<>();
+                for (int i = 0; i < 4; i++) {
+                    final int unit = i + 1;
+                    final int address = i;
+                    results.add(executor.submit(() -> modbusDevice.readHoldingRegisters(unit, address, 1)));
+                }
+
+                for (int i = 0; i < 4; i++) {
+                    int[] registers = results.get(i).get(10, TimeUnit.SECONDS);
+                    assertEquals(1, registers.length);
+                    assertEquals((i + 1) * 100 + i, registers[0]);
+                }
+            } finally {
+                executor.shutdownNow();
+                modbusDevice.disconnect();
+            }
+        }
+    }
+
+    @Test
+    public void testSequentialTransactions() throws Exception {
+        try (PipeliningServer server = new PipeliningServer(1)) {
+            ModbusProtocolDevice modbusDevice = createDevice(server.getPort(), "2");
+            try {
+                assertEquals(KuraConnectionStatus.CONNECTED, modbusDevice.getConnectStatus());
+                for (int i = 0; i < 10; i++) {
+                    assertEquals(300 + i, modbusDevice.readHoldingRegisters(3, i, 1)[0]);
+                }
+            } finally {
+                modbusDevice.disconnect();
+            }
+            assertEquals(KuraConnectionStatus.NEVERCONNECTED, modbusDevice.getConnectStatus());
+        }
+    }
+
+    @Test
+    public void testConnectionClosedFailsTransaction() throws Exception {
+        // the server closes the connection as soon as a request is received
+        try (PipeliningServer server = new PipeliningServer(0)) {
+            ModbusProtocolDevice modbusDevice = createDevice(server.getPort(), "2");
+            try {
+                modbusDevice.readHoldingRegisters(1, 0, 1);
+                fail("Exception expected");
+            } catch (ModbusProtocolException e) {
+                assertEquals(ModbusProtocolErrorCode.TRANSACTION_FAILURE, e.getCode());
+            } finally {
+                modbusDevice.disconnect();
+            }
+        }
+    }
+
+    @Test(expected = ModbusProtocolException.class)
+    public void testInvalidMaxInFlight() throws Exception {
+        createDevice(502, "0");
+    }
+
+    private static ModbusProtocolDevice createDevice(int port, String maxInFlight) throws ModbusProtocolException {
+        ModbusProtocolDevice modbusDevice = new ModbusProtocolDevice();
+        Properties connectionConfig = new Properties();
+        connectionConfig.setProperty("connectionType", ModbusProtocolDevice.PROTOCOL_CONNECTION_TYPE_ETHER_TCP);
+        connectionConfig.setProperty("ipAddress", "127.0.0.1");
+        connectionConfig.setProperty("ethport", Integer.toString(port));
+        connectionConfig.setProperty("respTimeout", "5000");
+        connectionConfig.setProperty("transmissionMode", ModbusTransmissionMode.RTU);
+        connectionConfig.setProperty("maxInFlight", maxInFlight);
+        modbusDevice.configureConnection(connectionConfig);
+        modbusDevice.connect();
+        return modbusDevice;
+    }
+
+    /**
+     * Accepts a single connection and answers read holding registers requests with the value
+     * {@code unit * 100 + address}. The responses are sent in reverse order once {@code batchSize} requests have been
+     * received, if {@code batchSize} is 0 the connection is closed when the first request is received.
+     */
+    private static final class PipeliningServer implements AutoCloseable {
+
+        private final ServerSocket serverSocket;
+        private final int batchSize;
+
+        PipeliningServer(int batchSize) throws IOException {
+            this.serverSocket = new ServerSocket(0);
+            this.batchSize = batchSize;
+
+            Thread thread = new Thread(this::serve, "PipeliningServer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        int getPort() {
+            return this.serverSocket.getLocalPort();
+        }
+
+        private void serve() {
+            try (Socket socket = this.serverSocket.accept();
+                    DataInputStream in = new DataInputStream(socket.getInputStream());
+                    OutputStream out = socket.getOutputStream()) {
+                List<byte[]> responses = new ArrayList<>();
+                while (true) {
+                    byte[] header = new byte[6];
+                    in.readFully(header);
+                    byte[] pdu = new byte[(header[4] & 0xff) << 8 | header[5] & 0xff];
+                    in.readFully(pdu);
+
+                    if (this.batchSize == 0) {
+                        return;
+                    }
+
+                    int value = (pdu[0] & 0xff) * 100 + ((pdu[2] & 0xff) << 8 | pdu[3] & 0xff);
+                    responses.add(new byte[] { header[0], header[1], 0, 0, 0, 5, pdu[0], pdu[1], 2,
+                            (byte) (value >> 8), (byte) value });
+
+                    if (responses.size() == this.batchSize) {
+                        for (int i = responses.size() - 1; i >= 0; i--) {
+                            out.write(responses.get(i));
+                        }
+                        out.flush();
+                        responses.clear();
+                    }
+                }
+            } catch (IOException e) {
+                // connection closed
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.serverSocket.close();
+        }
+    }
+}
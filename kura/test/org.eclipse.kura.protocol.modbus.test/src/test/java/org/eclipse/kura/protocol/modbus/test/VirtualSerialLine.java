@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+
+package org.eclipse.kura.protocol.modbus.test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * One direction of a virtual serial line. Reads behave like the ones of a serial port with receive timeout enabled:
+ * they block until some data is available or the timeout expires, in which case 0 is returned.
+ */
+public class VirtualSerialLine {
+
+    private final byte[] data = new byte[4096];
+    private final long receiveTimeout;
+
+    private int head;
+    private int count;
+    private boolean closed;
+
+    private final InputStream inputStream = new InputStream() {
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            int read;
+            while ((read = read(b, 0, 1)) == 0) {
+                // wait
+            }
+            return read < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return VirtualSerialLine.this.read(b, off, len);
+        }
+
+        @Override
+        public int available() {
+            return VirtualSerialLine.this.available();
+        }
+    };
+
+    private final OutputStream outputStream = new OutputStream() {
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            VirtualSerialLine.this.write(b, off, len);
+        }
+    };
+
+    public VirtualSerialLine(long receiveTimeout) {
+        this.receiveTimeout = receiveTimeout;
+    }
+
+    public InputStream getInputStream() {
+        return this.inputStream;
+    }
+
+    public OutputStream getOutputStream() {
+        return this.outputStream;
+    }
+
+    public synchronized void close() {
+        this.closed = true;
+        notifyAll();
+    }
+
+    private synchronized int available() {
+        return this.count;
+    }
+
+    private synchronized int read(byte[] b, int off, int len) throws IOException {
+        long deadline = System.currentTimeMillis() + this.receiveTimeout;
+        long remaining;
+        while (this.count == 0 && !this.closed && (remaining = deadline - System.currentTimeMillis()) > 0) {
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted");
+            }
+        }
+        if (this.count == 0) {
+            return this.closed ? -1 : 0;
+        }
+
+        int result = Math.min(len, this.count);
+        for (int i = 0; i < result; i++) {
+            b[off + i] = this.data[(this.head + i) % this.data.length];
+        }
+        this.head = (this.head + result) % this.data.length;
+        this.count -= result;
+        notifyAll();
+        return result;
+    }
+
+    private synchronized void write(byte[] b, int off, int len) throws IOException {
+        for (int i = 0; i < len; i++) {
+            while (this.count == this.data.length) {
+                if (this.closed) {
+                    throw new IOException("Line closed");
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted");
+                }
+            }
+            this.data[(this.head + this.count) % this.data.length] = b[off + i];
+            this.count++;
+        }
+        notifyAll();
+    }
+}
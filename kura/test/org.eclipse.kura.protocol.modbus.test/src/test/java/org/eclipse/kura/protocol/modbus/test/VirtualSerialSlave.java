@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+
+package org.eclipse.kura.protocol.modbus.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.kura.protocol.modbus.Crc16;
+
+/**
+ * Emulates the slaves on a serial bus. Each slave answers read holding registers requests with the value
+ * {@code unit * 100 + address}, and requests with an address greater than or equal to 1000 with an exception
+ * response. Requests addressed to other units are ignored.
+ */
+public class VirtualSerialSlave extends Thread {
+
+    private final InputStream in;
+    private final OutputStream out;
+    private final boolean ascii;
+    private final Set<Integer> units;
+
+    private volatile byte[] noise = new byte[0];
+    private volatile boolean running = true;
+
+    public VirtualSerialSlave(VirtualSerialLine requestLine, VirtualSerialLine responseLine, boolean ascii,
+            Integer... units) {
+        super("VirtualSerialSlave");
+        setDaemon(true);
+        this.in = requestLine.getInputStream();
+        this.out = responseLine.getOutputStream();
+        this.ascii = ascii;
+        this.units = new HashSet<>(Arrays.asList(units));
+    }
+
+    /**
+     * Sets bytes that will be sent before each response.
+     */
+    public void setNoise(byte[] noise) {
+        this.noise = noise;
+    }
+
+    public void shutdown() {
+        this.running = false;
+        interrupt();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (this.running) {
+                byte[] request = this.ascii ? readAsciiRequest() : readRtuRequest();
+                if (request == null || !this.units.contains(request[0] & 0xff)) {
+                    continue;
+                }
+                byte[] response = handleRequest(request);
+                this.out.write(this.noise);
+                this.out.write(this.ascii ? toAscii(response) : toRtu(response));
+                this.out.flush();
+            }
+        } catch (IOException e) {
+            // line closed
+        }
+    }
+
+    private byte[] readRtuRequest() throws IOException {
+        // read holding registers and preset single register requests have a fixed length
+        byte[] request = new byte[8];
+        readFully(request);
+        if (Crc16.getCrc16(request, request.length, 0xffff) != 0) {
+            return null;
+        }
+        return Arrays.copyOf(request, 6);
+    }
+
+    private byte[] readAsciiRequest() throws IOException {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        int b;
+        while ((b = read()) != ':') {
+            // wait for start of frame
+        }
+        while ((b = read()) != 10) {
+            frame.write(b);
+        }
+        byte[] chars = frame.toByteArray();
+        byte[] request = new byte[(chars.length - 1) / 2];
+        for (int i = 0; i < request.length; i++) {
+            request[i] = (byte) Integer.parseInt(new String(chars, i * 2, 2, "US-ASCII"), 16);
+        }
+        return Arrays.copyOf(request, request.length - 1);
+    }
+
+    private void readFully(byte[] buffer) throws IOException {
+        for (int i = 0; i < buffer.length; i++) {
+            buffer[i] = (byte) read();
+        }
+    }
+
+    private int read() throws IOException {
+        int b = this.in.read();
+        if (b < 0) {
+            throw new IOException("Line closed");
+        }
+        return b;
+    }
+
+    private static byte[] handleRequest(byte[] request) {
+        int unit = request[0] & 0xff;
+        int function = request[1] & 0xff;
+        int address = (request[2] & 0xff) << 8 | request[3] & 0xff;
+        int count = (request[4] & 0xff) << 8 | request[5] & 0xff;
+
+        if (function == 6) {
+            return request;
+        }
+        if (function != 3 || address >= 1000) {
+            return new byte[] { (byte) unit, (byte) (function | 0x80), 2 };
+        }
+
+        byte[] response = new byte[3 + count * 2];
+        response[0] = (byte) unit;
+        response[1] = (byte) function;
+        response[2] = (byte) (count * 2);
+        for (int i = 0; i < count; i++) {
+            int value = unit * 100 + address + i;
+            response[3 + i * 2] = (byte) (value >> 8);
+            response[4 + i * 2] = (byte) value;
+        }
+        return response;
+    }
+
+    private static byte[] toRtu(byte[] msg) {
+        byte[] frame = Arrays.copyOf(msg, msg.length + 2);
+        int crc = Crc16.getCrc16(msg, msg.length, 0xffff);
+        frame[msg.length] = (byte) crc;
+        frame[msg.length + 1] = (byte) (crc >> 8);
+        return frame;
+    }
+
+    private static byte[] toAscii(byte[] msg) {
+        int lrc = 0;
+        StringBuilder frame = new StringBuilder(":");
+        for (byte b : msg) {
+            lrc += b & 0xff;
+            frame.append(String.format("%02X", b & 0xff));
+        }
+        frame.append(String.format("%02X", (lrc ^ 0xff) + 1 & 0xff)).append("\r\n");
+        return frame.toString().getBytes();
+    }
+}
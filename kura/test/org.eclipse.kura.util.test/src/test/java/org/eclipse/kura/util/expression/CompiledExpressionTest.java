@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ *******************************************************************************/
+package org.eclipse.kura.util.expression;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.kura.type.DataType;
+import org.eclipse.kura.type.TypedValue;
+import org.eclipse.kura.type.TypedValues;
+import org.eclipse.kura.wire.PrimitiveWireRecord;
+import org.eclipse.kura.wire.WireEnvelope;
+import org.eclipse.kura.wire.WireRecord;
+import org.eclipse.kura.wire.WireRecordSchema;
+import org.junit.Test;
+
+public class CompiledExpressionTest {
+
+    @Test
+    public void testArithmeticPromotion() {
+        assertEquals(7, eval("1 + 2 * 3"));
+        assertEquals(9, eval("(1 + 2) * 3"));
+        assertEquals(5000000000L, eval("2500000000 * 2"));
+        assertEquals(2.5, eval("5 / 2.0"));
+        assertEquals(1.5f, eval("3f / 2"));
+        assertEquals(1, eval("7 % 3"));
+        assertEquals(-4, eval("-(2 + 2)"));
+        assertEquals("a1", eval("'a' + 1"));
+    }
+
+    @Test
+    public void testComparisonAndLogic() {
+        assertEquals(true, eval("1 < 2 && 2 <= 2 && 3 > 2 && 3 >= 3"));
+        assertEquals(true, eval("1 == 1.0 && 1 === 1L && 'a' != 'b' && 'a' !== 'b'"));
+        assertEquals(false, eval("!(1 < 2) || false"));
+        assertEquals(false, eval("null < 1"));
+        assertEquals(true, eval("null == null"));
+    }
+
+    @Test
+    public void testShortCircuit() {
+        // the right operand would fail on a string, it must not be evaluated
+        assertEquals(false, eval("false && 'a'"));
+        assertEquals(true, eval("true || 'a'"));
+    }
+
+    @Test
+    public void testPropertyAccess() {
+        final WireRecord first = record("TIMER", TypedValues.newLongValue(20), "name", TypedValues.newStringValue("x"));
+        final WireRecord second = record("value", TypedValues.newDoubleValue(1.5));
+        final WireEnvelope envelope = new WireEnvelope("emitter", Arrays.asList(first, second));
+
+        assertEquals(true, CompiledExpression.compile("TIMER > 10 && TIMER < 30").evaluate(envelope));
+        assertEquals(true, CompiledExpression.compile(
+                "records[0].TIMER !== null && records[0].TIMER.getValue() > 10 && records[0]['TIMER'].getValue() < 30;")
+                .evaluate(envelope));
+        assertEquals(3.0, CompiledExpression.compile("records[1].value * 2").evaluate(envelope));
+        assertEquals("x-emitter", CompiledExpression.compile("record.name + '-' + emitterPid").evaluate(envelope));
+        assertNull(CompiledExpression.compile("records[5].value").evaluate(envelope));
+        assertNull(CompiledExpression.compile("missing + 1").evaluate(envelope));
+    }
+
+    @Test
+    public void testPrimitiveRecord() {
+        final Map<String, DataType> layout = new LinkedHashMap<>();
+        layout.put("a", DataType.INTEGER);
+        layout.put("b", DataType.STRING);
+        final PrimitiveWireRecord record = PrimitiveWireRecord.builder(WireRecordSchema.of(layout)).setInteger(0, 4)
+                .build();
+        final List<WireRecord> records = Collections.singletonList(record);
+
+        final CompiledExpression expression = CompiledExpression.compile("a * 2");
+        assertEquals(8, expression.evaluate(record, records, "emitter"));
+        assertEquals(8, expression.evaluate(record, records, "emitter"));
+        assertNull(CompiledExpression.compile("b").evaluate(record, records, "emitter"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSyntaxError() {
+        CompiledExpression.compile("1 + ");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTrailingTokens() {
+        CompiledExpression.compile("1 2");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTypeMismatch() {
+        eval("'a' < 1");
+    }
+
+    @Test
+    public void testDivisionByZero() {
+        // the failing constant operation is not folded, the error is reported on evaluation
+        final CompiledExpression expression = CompiledExpression.compile("1 / 0");
+        try {
+            expression.evaluate(null, Collections.emptyList(), "emitter");
+            fail("Division by zero must fail");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        assertEquals(false, eval("false && 1 / 0 > 0"));
+        assertTrue(Double.isInfinite((Double) eval("1.0 / 0")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRemainderByZero() {
+        final WireRecord record = record("value", TypedValues.newLongValue(5));
+        CompiledExpression.compile("value % 0").evaluate(new WireEnvelope("emitter", Arrays.asList(record)));
+    }
+
+    @Test
+    public void testProjection() {
+        final WireRecord first = record("TIMER", TypedValues.newLongValue(20), "other", TypedValues.newIntegerValue(1));
+        final WireRecord second = record("TIMER", TypedValues.newLongValue(-1));
+        final WireEnvelope envelope = new WireEnvelope("emitter", Arrays.asList(first, second));
+
+        final CompiledProjection projection = CompiledProjection
+                .compile("where TIMER > 0\n*\n-TIMER\ntimer = TIMER\ntimerHalf = TIMER / 2\nmissing = nothing");
+        final List<WireRecord> result = projection.apply(envelope);
+
+        assertEquals(1, result.size());
+        final Map<String, TypedValue<?>> properties = result.get(0).getProperties();
+        assertEquals(3, properties.size());
+        assertEquals(TypedValues.newLongValue(20), properties.get("timer"));
+        assertEquals(TypedValues.newLongValue(10), properties.get("timerHalf"));
+        assertEquals(TypedValues.newIntegerValue(1), properties.get("other"));
+    }
+
+    @Test
+    public void testProjectionOnlyAssignments() {
+        final WireRecord input = record("a", TypedValues.newIntegerValue(2), "b", TypedValues.newIntegerValue(3));
+        final List<WireRecord> result = CompiledProjection.compile("sum = a + b; flag = a < b")
+                .apply(new WireEnvelope("emitter", Collections.singletonList(input)));
+
+        final Map<String, TypedValue<?>> properties = result.get(0).getProperties();
+        assertEquals(2, properties.size());
+        assertEquals(TypedValues.newIntegerValue(5), properties.get("sum"));
+        assertEquals(TypedValues.newBooleanValue(true), properties.get("flag"));
+    }
+
+    @Test
+    public void testFilterOnlyReturnsInputRecords() {
+        final WireRecord input = record("a", TypedValues.newIntegerValue(2));
+        final List<WireRecord> result = CompiledProjection.compile("where a == 2")
+                .apply(new WireEnvelope("emitter", Collections.singletonList(input)));
+
+        assertEquals(1, result.size());
+        assertSame(input, result.get(0));
+        assertTrue(CompiledProjection.compile("where a == 3")
+                .apply(new WireEnvelope("emitter", Collections.singletonList(input))).isEmpty());
+    }
+
+    private static Object eval(final String source) {
+        return CompiledExpression.compile(source).evaluate(null, Collections.emptyList(), null);
+    }
+
+    private static WireRecord record(final Object... keyValues) {
+        final Map<String, TypedValue<?>> properties = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            properties.put((String) keyValues[i], (TypedValue<?>) keyValues[i + 1]);
+        }
+        return new WireRecord(properties);
+    }
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.kura.internal.wire.asset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.kura.channel.ChannelFlag;
+import org.eclipse.kura.channel.ChannelRecord;
+import org.eclipse.kura.channel.ChannelStatus;
+import org.eclipse.kura.type.DataType;
+import org.eclipse.kura.type.TypedValue;
+import org.eclipse.kura.type.TypedValues;
+import org.eclipse.kura.wire.PrimitiveWireRecord;
+import org.eclipse.kura.wire.WireRecord;
+import org.junit.Test;
+
+public class PrimitiveRecordBuilderTest {
+
+    @Test
+    public void testSameAsMapRecordPerChannel() {
+        assertSameProperties(TimestampMode.PER_CHANNEL, true);
+        assertSameProperties(TimestampMode.PER_CHANNEL, false);
+    }
+
+    @Test
+    public void testSameAsMapRecordSingleTimestamp() {
+        assertSameProperties(TimestampMode.SINGLE_DRIVER_GENERATED_MAX, true);
+        assertSameProperties(TimestampMode.SINGLE_DRIVER_GENERATED_MIN, false);
+        assertSameProperties(TimestampMode.NO_TIMESTAMPS, true);
+    }
+
+    @Test
+    public void testReadBySlot() {
+        final List<ChannelRecord> records = createRecords();
+        final PrimitiveRecordBuilder builder = PrimitiveRecordBuilder.create(records,
+                options(TimestampMode.NO_TIMESTAMPS, false));
+
+        final PrimitiveWireRecord first = (PrimitiveWireRecord) builder.build(records, "asset");
+        final PrimitiveWireRecord second = (PrimitiveWireRecord) builder.build(records, "asset");
+
+        assertSame(first.getSchema(), second.getSchema());
+        assertTrue(first.hasSameLayout(second));
+
+        final int slot = first.getSchema().indexOf("int");
+        assertEquals(DataType.INTEGER, first.getSchema().getType(slot));
+        assertEquals(42, first.getInteger(slot));
+        assertEquals(42L, first.getLong(slot));
+        assertEquals(1.5, first.getDouble(first.getSchema().indexOf("double")), 0);
+        assertFalse(first.isSet(first.getSchema().indexOf("failing")));
+        assertEquals("asset", first.getString(first.getSchema().indexOf("assetName")));
+    }
+
+    @Test
+    public void testValueTypeMismatch() {
+        final List<ChannelRecord> records = createRecords();
+        final PrimitiveRecordBuilder builder = PrimitiveRecordBuilder.create(records,
+                options(TimestampMode.PER_CHANNEL, true));
+
+        records.get(0).setValue(TypedValues.newStringValue("not an int"));
+        assertNull(builder.build(records, "asset"));
+
+        records.get(0).setValue(TypedValues.newIntegerValue(1));
+        assertEquals(TypedValues.newIntegerValue(1), builder.build(records, "asset").getProperties().get("int"));
+    }
+
+    @Test
+    public void testDuplicatePropertyName() {
+        final ChannelRecord value = ChannelRecord.createReadRecord("a", DataType.STRING);
+        final ChannelRecord clash = ChannelRecord.createReadRecord("a_error", DataType.STRING);
+
+        assertNull(PrimitiveRecordBuilder.create(Arrays.asList(value, clash), options(TimestampMode.PER_CHANNEL, true)));
+    }
+
+    private static void assertSameProperties(final TimestampMode mode, final boolean emitErrors) {
+        final List<ChannelRecord> records = createRecords();
+        final WireAssetOptions options = options(mode, emitErrors);
+
+        final Map<String, TypedValue<?>> expected = Utils.toWireRecordProperties(records, options);
+        expected.put("assetName", TypedValues.newStringValue("asset"));
+
+        final WireRecord record = PrimitiveRecordBuilder.create(records, options).build(records, "asset");
+
+        assertTrue(record instanceof PrimitiveWireRecord);
+        assertEquals(expected, new HashMap<>(record.getProperties()));
+        assertEquals(expected.size(), record.getProperties().size());
+    }
+
+    private static WireAssetOptions options(final TimestampMode mode, final boolean emitErrors) {
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put(WireAssetOptions.TIMESTAMP_MODE_PROP_NAME, mode.name());
+        properties.put(WireAssetOptions.EMIT_ERRORS_PROP_NAME, emitErrors);
+        return new WireAssetOptions(properties);
+    }
+
+    private static List<ChannelRecord> createRecords() {
+        final ChannelRecord intRecord = ChannelRecord.createReadRecord("int", DataType.INTEGER);
+        intRecord.setValue(TypedValues.newIntegerValue(42));
+        intRecord.setChannelStatus(new ChannelStatus(ChannelFlag.SUCCESS));
+        intRecord.setTimestamp(1000);
+
+        final ChannelRecord doubleRecord = ChannelRecord.createReadRecord("double", DataType.DOUBLE);
+        doubleRecord.setValue(TypedValues.newDoubleValue(1.5));
+        doubleRecord.setChannelStatus(new ChannelStatus(ChannelFlag.SUCCESS));
+        doubleRecord.setTimestamp(3000);
+
+        final ChannelRecord failingRecord = ChannelRecord.createReadRecord("failing", DataType.LONG);
+        failingRecord.setChannelStatus(new ChannelStatus(ChannelFlag.FAILURE, "read failed", null));
+        failingRecord.setTimestamp(2000);
+
+        return Arrays.asList(intRecord, doubleRecord, failingRecord);
+    }
+}
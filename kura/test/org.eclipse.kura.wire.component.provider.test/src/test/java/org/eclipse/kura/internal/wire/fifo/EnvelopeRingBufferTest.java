@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.internal.wire.fifo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import org.eclipse.kura.type.IntegerValue;
+import org.eclipse.kura.type.TypedValue;
+import org.eclipse.kura.wire.WireEnvelope;
+import org.eclipse.kura.wire.WireRecord;
+import org.junit.Test;
+
+public class EnvelopeRingBufferTest {
+
+    @Test
+    public void testOfferAndDrain() {
+        EnvelopeRingBuffer queue = new EnvelopeRingBuffer(3);
+        WireEnvelope first = createWireEnvelope("p", 0);
+        WireEnvelope second = createWireEnvelope("p", 1);
+
+        assertTrue(queue.isEmpty());
+        assertTrue(queue.offer(first));
+        assertTrue(queue.offer(second));
+        assertTrue(queue.offer(createWireEnvelope("p", 2)));
+        assertFalse(queue.offer(createWireEnvelope("p", 3)));
+        assertEquals(3, queue.size());
+
+        List<WireEnvelope> drained = new ArrayList<>();
+        assertEquals(2, queue.drainTo(drained, 2));
+        assertSame(first, drained.get(0));
+        assertSame(second, drained.get(1));
+        assertEquals(1, queue.size());
+
+        // wraps around
+        assertTrue(queue.offer(createWireEnvelope("p", 4)));
+        assertTrue(queue.offer(createWireEnvelope("p", 5)));
+        assertFalse(queue.offer(createWireEnvelope("p", 6)));
+
+        drained.clear();
+        assertEquals(3, queue.drainTo(drained, 10));
+        assertEquals(2, getValue(drained.get(0)));
+        assertEquals(4, getValue(drained.get(1)));
+        assertEquals(5, getValue(drained.get(2)));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+        final int producers = 4;
+        final int envelopesPerProducer = 10000;
+        EnvelopeRingBuffer queue = new EnvelopeRingBuffer(16);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final String pid = "p" + p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < envelopesPerProducer; i++) {
+                    WireEnvelope envelope = createWireEnvelope(pid, i);
+                    while (!queue.offer(envelope)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+
+        Map<String, Integer> lastValues = new HashMap<>();
+        List<WireEnvelope> drained = new ArrayList<>();
+        int received = 0;
+        while (received < producers * envelopesPerProducer) {
+            drained.clear();
+            received += queue.drainTo(drained, 8);
+            for (WireEnvelope envelope : drained) {
+                int value = getValue(envelope);
+                int last = lastValues.getOrDefault(envelope.getEmitterPid(), -1);
+                assertEquals("Envelopes of the same producer must be in order", last + 1, value);
+                lastValues.put(envelope.getEmitterPid(), value);
+            }
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    private static int getValue(WireEnvelope envelope) {
+        return (Integer) envelope.getRecords().get(0).getProperties().get("value").getValue();
+    }
+
+    private static WireEnvelope createWireEnvelope(String emitterPid, int value) {
+        Map<String, TypedValue<?>> recordProps = new HashMap<>();
+        recordProps.put("value", new IntegerValue(value));
+        return new WireEnvelope(emitterPid, Collections.singletonList(new WireRecord(recordProps)));
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  *   All rights reserved. This program and the accompanying materials
  *   are made available under the terms of the Eclipse Public License v1.0
@@ -181,6 +181,8 @@ public class FifoTest {
 
         assertFalse("Not all envelopes expected to be processed", wiresLatch.await(1000, TimeUnit.MILLISECONDS));
         assertEquals(1, wiresLatch.getCount());
+        assertEquals(4, fifo.getDroppedEnvelopeCount());
+        assertEquals(0, fifo.getQueueDepth());
     }
 
     private WireEnvelope createWireEnvelope() {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  *   All rights reserved. This program and the accompanying materials
  *   are made available under the terms of the Eclipse Public License v1.0
@@ -8,6 +8,7 @@
  ******************************************************************************/
 package org.eclipse.kura.internal.wire.publisher;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -36,9 +37,11 @@ import org.eclipse.kura.position.NmeaPosition;
 import org.eclipse.kura.position.PositionService;
 import org.eclipse.kura.type.StringValue;
 import org.eclipse.kura.type.TypedValue;
+import org.eclipse.kura.type.TypedValues;
 import org.eclipse.kura.wire.WireEnvelope;
 import org.eclipse.kura.wire.WireHelperService;
 import org.eclipse.kura.wire.WireRecord;
+import org.eclipse.kura.wire.WireRecordBatch;
 import org.junit.Test;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Filter;
@@ -367,6 +370,86 @@ public class CloudPublisherTest {
 
     }
 
+    @Test
+    public void testBatchOnWireReceive() throws InvalidSyntaxException, NoSuchFieldException, KuraException {
+        // test publishing all the records of an envelope in a single columnar message
+
+        CloudPublisher cp = new CloudPublisher();
+
+        WireHelperService wireHelperServiceMock = mock(WireHelperService.class);
+        cp.bindWireHelperService(wireHelperServiceMock);
+
+        BundleContext bundleCtxMock = mock(BundleContext.class);
+        Filter filter = mock(Filter.class);
+        when(bundleCtxMock.createFilter(anyString())).thenReturn(filter);
+
+        ComponentContext ctxMock = mock(ComponentContext.class);
+        when(ctxMock.getBundleContext()).thenReturn(bundleCtxMock);
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("CloudPublisher.target", "cspid");
+        properties.put("publish.position", "none");
+        properties.put("publish.batch.enabled", true);
+        properties.put("publish.batch.window", 0);
+
+        cp.activate(ctxMock, properties);
+
+        org.eclipse.kura.cloudconnection.publisher.CloudPublisher cloudPublisherMock = mock(
+                org.eclipse.kura.cloudconnection.publisher.CloudPublisher.class);
+
+        List<KuraMessage> messages = new ArrayList<>();
+        when(cloudPublisherMock.publish((KuraMessage) anyObject())).thenAnswer(invocation -> {
+            messages.add(invocation.getArgumentAt(0, KuraMessage.class));
+            return "1234";
+        });
+
+        TestUtil.setFieldValue(cp, "cloudConnectionPublisher", cloudPublisherMock);
+
+        List<WireRecord> wireRecords = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Map<String, TypedValue<?>> recordProps = new HashMap<>();
+            recordProps.put("assetName", new StringValue("testAsset"));
+            recordProps.put("counter", TypedValues.newLongValue(1000L + i));
+            recordProps.put("temperature", TypedValues.newDoubleValue(20.5 - i));
+            recordProps.put("alarm", TypedValues.newBooleanValue(i == 1));
+            if (i != 1) {
+                recordProps.put("raw", TypedValues.newByteArrayValue(new byte[] { (byte) i }));
+            }
+            wireRecords.add(new WireRecord(recordProps));
+        }
+
+        cp.onWireReceive(new WireEnvelope("emitter", wireRecords));
+
+        verify(cloudPublisherMock, times(1)).publish((KuraMessage) anyObject());
+        assertEquals(1, messages.size());
+
+        KuraMessage message = messages.get(0);
+        assertEquals(1, message.getProperties().size());
+        assertEquals("testAsset", message.getProperties().get("assetName"));
+
+        KuraPayload payload = message.getPayload();
+        assertNull(payload.getPosition());
+        assertNotNull(payload.getTimestamp());
+        assertEquals(WireRecordBatch.COLUMNAR_FORMAT, payload.getMetric(WireRecordBatch.FORMAT_METRIC_NAME));
+
+        WireRecordBatch batch = WireRecordBatch.fromKuraPayload(payload);
+        assertEquals(3, batch.size());
+        for (int i = 0; i < 3; i++) {
+            Map<String, TypedValue<?>> expected = wireRecords.get(i).getProperties();
+            Map<String, TypedValue<?>> actual = batch.getRecords().get(i).getProperties();
+
+            assertEquals(payload.getTimestamp().getTime(), batch.getTimestamp(i));
+            assertEquals(expected.size(), actual.size());
+            assertEquals(expected.get("assetName"), actual.get("assetName"));
+            assertEquals(expected.get("counter"), actual.get("counter"));
+            assertEquals(expected.get("temperature"), actual.get("temperature"));
+            assertEquals(expected.get("alarm"), actual.get("alarm"));
+            if (i != 1) {
+                assertArrayEquals((byte[]) expected.get("raw").getValue(), (byte[]) actual.get("raw").getValue());
+            }
+        }
+    }
+
     private String fillAppTopicPlaceholders(String appTopic, KuraMessage message) {
         String TOPIC_PATTERN_STRING = "\\$([^\\s/]+)";
         Pattern TOPIC_PATTERN = Pattern.compile(TOPIC_PATTERN_STRING);
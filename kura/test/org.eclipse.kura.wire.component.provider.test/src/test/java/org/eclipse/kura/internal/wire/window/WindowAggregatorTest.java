@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.internal.wire.window;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.kura.type.DoubleValue;
+import org.eclipse.kura.type.IntegerValue;
+import org.eclipse.kura.type.LongValue;
+import org.eclipse.kura.type.StringValue;
+import org.eclipse.kura.type.TypedValue;
+import org.eclipse.kura.wire.WireEnvelope;
+import org.eclipse.kura.wire.WireHelperService;
+import org.eclipse.kura.wire.WireRecord;
+import org.eclipse.kura.wire.WireSupport;
+import org.junit.Test;
+import org.osgi.service.component.ComponentContext;
+
+public class WindowAggregatorTest {
+
+    private static final AggregateFunction[] ALL_FUNCTIONS = AggregateFunction.values();
+
+    @Test
+    public void testPaneAggregates() {
+        final Pane pane = new Pane(0);
+        pane.add(record("value", new IntegerValue(2), "name", new StringValue("a")));
+        pane.add(record("value", new IntegerValue(4)));
+        pane.add(record("value", new IntegerValue(9)));
+
+        final Map<String, TypedValue<?>> properties = pane.toWireRecord(ALL_FUNCTIONS).getProperties();
+
+        assertEquals(2.0, properties.get("value_min").getValue());
+        assertEquals(9.0, properties.get("value_max").getValue());
+        assertEquals(5.0, properties.get("value_avg").getValue());
+        assertEquals(3L, properties.get("value_count").getValue());
+        assertEquals(15.0, properties.get("value_sum").getValue());
+        assertEquals(Math.sqrt(26.0 / 3), (Double) properties.get("value_stddev").getValue(), 1e-9);
+        assertEquals(2, properties.get("value_first").getValue());
+        assertEquals(9, properties.get("value_last").getValue());
+        assertNull(properties.get("name_count"));
+        assertEquals(0L, properties.get(Pane.WINDOW_START_PROPERTY).getValue());
+    }
+
+    @Test
+    public void testMergeEqualsSequentialAggregation() {
+        final Aggregate sequential = new Aggregate();
+        final Aggregate older = new Aggregate();
+        final Aggregate newer = new Aggregate();
+
+        for (int i = 0; i < 100; i++) {
+            final DoubleValue value = new DoubleValue(Math.sin(i) * i);
+            sequential.add(value);
+            (i < 37 ? older : newer).add(value);
+        }
+        older.merge(newer);
+
+        for (final AggregateFunction function : ALL_FUNCTIONS) {
+            assertSameValue(function.name(), sequential.getValue(function), older.getValue(function));
+        }
+    }
+
+    @Test
+    public void testSlidingWindowMatchesRecomputation() {
+        final SlidingWindow window = new SlidingWindow();
+        final List<Pane> panes = new ArrayList<>();
+        final int panesPerWindow = 4;
+
+        for (int i = 0; i < 20; i++) {
+            final Pane pane = new Pane(i);
+            for (int j = 0; j <= i % 3; j++) {
+                pane.add(record("value", new LongValue(i * 10L + j)));
+            }
+            panes.add(pane);
+            window.push(pane);
+            while (window.size() > panesPerWindow) {
+                window.evict();
+            }
+
+            final Pane expected = new Pane(Math.max(0, i - panesPerWindow + 1));
+            for (int k = Math.max(0, i - panesPerWindow + 1); k <= i; k++) {
+                expected.merge(panes.get(k));
+            }
+
+            assertSameValues(expected.toWireRecord(ALL_FUNCTIONS).getProperties(),
+                    window.query().toWireRecord(ALL_FUNCTIONS).getProperties());
+        }
+    }
+
+    @Test
+    public void testCountTumblingWindow() {
+        final List<WireRecord> emitted = new ArrayList<>();
+        final WindowAggregator aggregator = createAggregator(emitted);
+
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("window.type", "TUMBLING");
+        properties.put("window.basis", "COUNT");
+        properties.put("window.size", 3);
+        properties.put("aggregations", "sum,count,unknown");
+        aggregator.activate(properties, mock(ComponentContext.class));
+
+        for (int i = 1; i <= 7; i++) {
+            aggregator.onWireReceive(new WireEnvelope("emitter", Arrays.asList(record("v", new IntegerValue(i)))));
+        }
+
+        assertEquals(2, emitted.size());
+        assertEquals(6.0, emitted.get(0).getProperties().get("v_sum").getValue());
+        assertEquals(15.0, emitted.get(1).getProperties().get("v_sum").getValue());
+        assertEquals(3L, emitted.get(1).getProperties().get("v_count").getValue());
+        assertNull(emitted.get(1).getProperties().get("v_avg"));
+
+        aggregator.deactivate();
+    }
+
+    @Test
+    public void testCountSlidingWindow() {
+        final List<WireRecord> emitted = new ArrayList<>();
+        final WindowAggregator aggregator = createAggregator(emitted);
+
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("window.type", "SLIDING");
+        properties.put("window.basis", "COUNT");
+        properties.put("window.size", 4);
+        properties.put("window.slide", 2);
+        properties.put("aggregations", "max,first");
+        aggregator.activate(properties, mock(ComponentContext.class));
+
+        final List<WireRecord> input = new ArrayList<>();
+        for (int i = 1; i <= 8; i++) {
+            input.add(record("v", new IntegerValue(i)));
+        }
+        aggregator.onWireReceive(new WireEnvelope("emitter", input));
+
+        assertEquals(4, emitted.size());
+        assertEquals(2.0, emitted.get(0).getProperties().get("v_max").getValue());
+        assertEquals(4.0, emitted.get(1).getProperties().get("v_max").getValue());
+        assertEquals(1, emitted.get(1).getProperties().get("v_first").getValue());
+        assertEquals(8.0, emitted.get(3).getProperties().get("v_max").getValue());
+        assertEquals(5, emitted.get(3).getProperties().get("v_first").getValue());
+
+        aggregator.deactivate();
+    }
+
+    @Test
+    public void testTimeWindowNotEmittedWithoutRecords() throws InterruptedException {
+        final List<WireRecord> emitted = new ArrayList<>();
+        final WindowAggregator aggregator = createAggregator(emitted);
+
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("window.size", 50);
+        properties.put("time.unit", "MILLISECONDS");
+        aggregator.activate(properties, mock(ComponentContext.class));
+
+        Thread.sleep(200);
+
+        synchronized (emitted) {
+            assertTrue(emitted.isEmpty());
+        }
+
+        aggregator.deactivate();
+    }
+
+    private static WindowAggregator createAggregator(final List<WireRecord> emitted) {
+        final WindowAggregator aggregator = new WindowAggregator();
+
+        final WireHelperService wireHelperServiceMock = mock(WireHelperService.class);
+        final WireSupport wireSupportMock = mock(WireSupport.class);
+        when(wireHelperServiceMock.newWireSupport(aggregator, null)).thenReturn(wireSupportMock);
+        doAnswer(invocation -> {
+            synchronized (emitted) {
+                emitted.addAll(invocation.getArgumentAt(0, List.class));
+            }
+            return null;
+        }).when(wireSupportMock).emit(anyListOf(WireRecord.class));
+
+        aggregator.bindWireHelperService(wireHelperServiceMock);
+        return aggregator;
+    }
+
+    private static void assertSameValues(final Map<String, TypedValue<?>> expected,
+            final Map<String, TypedValue<?>> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (final String key : expected.keySet()) {
+            assertSameValue(key, expected.get(key), actual.get(key));
+        }
+    }
+
+    private static void assertSameValue(final String message, final TypedValue<?> expected,
+            final TypedValue<?> actual) {
+        if (expected.getValue() instanceof Double) {
+            assertEquals(message, (Double) expected.getValue(), (Double) actual.getValue(), 1e-9);
+        } else {
+            assertEquals(message, expected.getValue(), actual.getValue());
+        }
+    }
+
+    private static WireRecord record(final Object... keyValues) {
+        final Map<String, TypedValue<?>> properties = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            properties.put((String) keyValues[i], (TypedValue<?>) keyValues[i + 1]);
+        }
+        return new WireRecord(properties);
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017, 2018 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  *   All rights reserved. This program and the accompanying materials
  *   are made available under the terms of the Eclipse Public License v1.0
@@ -17,6 +17,7 @@ import static org.mockito.Mockito.when;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -26,6 +27,7 @@ import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.kura.db.H2DbService;
+import org.eclipse.kura.db.H2DbSession;
 import org.eclipse.kura.type.BooleanValue;
 import org.eclipse.kura.type.ByteArrayValue;
 import org.eclipse.kura.type.DoubleValue;
@@ -64,9 +66,44 @@ public class H2DbWireRecordStoreTest {
             return invocation.getArgumentAt(0, H2DbService.ConnectionCallable.class).call(connection);
         });
         when(dbServiceMock.getConnection()).thenReturn(connection);
+        when(dbServiceMock.openSession()).thenAnswer(invocation -> createSession(connection));
         return dbServiceMock;
     }
 
+    private H2DbSession createSession(final Connection connection) {
+        final Map<String, PreparedStatement> statements = new HashMap<>();
+        final H2DbSession.SessionContext context = new H2DbSession.SessionContext() {
+
+            @Override
+            public Connection getConnection() {
+                return connection;
+            }
+
+            @Override
+            public PreparedStatement prepareStatement(String sql) throws SQLException {
+                PreparedStatement statement = statements.get(sql);
+                if (statement == null) {
+                    statement = connection.prepareStatement(sql);
+                    statements.put(sql, statement);
+                }
+                return statement;
+            }
+        };
+
+        return new H2DbSession() {
+
+            @Override
+            public <T> T withConnection(SessionCallable<T> task) throws SQLException {
+                return task.call(context);
+            }
+
+            @Override
+            public void close() {
+                statements.clear();
+            }
+        };
+    }
+
     @Test
     public void testSequence() throws SQLException {
         // create DB, insert a few wire records, check they are actually in there, trigger column type update,
@@ -435,4 +472,159 @@ public class H2DbWireRecordStoreTest {
         connection.prepareStatement("SHUTDOWN").execute();
     }
 
+    @Test
+    public void testBatchInsertSequence() throws SQLException {
+        // store envelopes with records of different shapes using batch inserts, check the rows and the truncation
+
+        Connection connection = getConnection();
+
+        H2DbService dbServiceMock = createMockH2DbService(connection);
+
+        H2DbWireRecordStore store = new H2DbWireRecordStore() {
+
+            @Override
+            protected void restartDbServiceTracker() {
+                bindDbService(dbServiceMock);
+            }
+        };
+
+        WireHelperService whsMock = mock(WireHelperService.class);
+        WireSupport wireSupportMock = mock(WireSupport.class);
+        when(whsMock.newWireSupport(store, null)).thenReturn(wireSupportMock);
+
+        store.bindWireHelperService(whsMock);
+
+        ComponentContext ctx = mock(ComponentContext.class);
+        Map<String, Object> props = new HashMap<String, Object>();
+        String tableName = "H2_STORE_BATCH_TEST";
+        props.put("table.name", tableName);
+        props.put("cleanup.records.keep", 0);
+        props.put("maximum.table.size", 100);
+        props.put("batch.insert.enabled", true);
+
+        // init
+        store.activate(ctx, props);
+
+        String emitterPid = "emitter";
+        List<WireRecord> wireRecords = new ArrayList<WireRecord>();
+        for (int i = 0; i < 30; i++) {
+            Map<String, TypedValue<?>> recordProps = new HashMap<String, TypedValue<?>>();
+            recordProps.put("key", new StringValue("val" + i));
+            if (i % 10 == 0) {
+                recordProps.put("intkey", new IntegerValue(i));
+            }
+            wireRecords.add(new WireRecord(recordProps));
+        }
+        WireEnvelope wireEvelope = new WireEnvelope(emitterPid, wireRecords);
+
+        store.onWireReceive(wireEvelope);
+
+        ResultSet resultSet = connection.prepareStatement("SELECT count(*) FROM " + tableName).executeQuery();
+        resultSet.next();
+        assertEquals("Unexpected number of records", 30, resultSet.getInt(1));
+
+        resultSet = connection.prepareStatement("SELECT count(*) FROM " + tableName + " WHERE \"intkey\" IS NOT NULL")
+                .executeQuery();
+        resultSet.next();
+        assertEquals("Unexpected number of records with intkey", 3, resultSet.getInt(1));
+
+        // 4 envelopes fill the table, the 5th one triggers the truncation
+        for (int i = 0; i < 4; i++) {
+            store.onWireReceive(wireEvelope);
+        }
+
+        resultSet = connection.prepareStatement("SELECT count(*) FROM " + tableName).executeQuery();
+        resultSet.next();
+        assertEquals("Unexpected number of records", 30, resultSet.getInt(1));
+
+        // deinit
+        store.deactivate(null);
+        connection.prepareStatement("SHUTDOWN").execute();
+    }
+
+    @Test
+    public void testPartitionedSequence() throws SQLException {
+        // store records in hourly partitions, check the view, the retention and the propagation of new columns
+
+        Connection connection = getConnection();
+
+        H2DbService dbServiceMock = createMockH2DbService(connection);
+
+        String tableName = "H2_STORE_PARTITION_TEST";
+
+        // partitions left by a previous run, the oldest one exceeds the retention
+        connection.prepareStatement("CREATE TABLE \"" + tableName + "_P2000010100\" (ID BIGINT PRIMARY KEY, "
+                + "TIMESTAMP BIGINT, \"key\" VARCHAR(102400))").execute();
+        connection.prepareStatement("CREATE TABLE \"" + tableName + "_P2000010101\" (ID BIGINT PRIMARY KEY, "
+                + "TIMESTAMP BIGINT, \"key\" VARCHAR(102400))").execute();
+        connection.prepareStatement("INSERT INTO \"" + tableName + "_P2000010101\" VALUES (10, 0, 'old')").execute();
+
+        H2DbWireRecordStore store = new H2DbWireRecordStore() {
+
+            @Override
+            protected void restartDbServiceTracker() {
+                bindDbService(dbServiceMock);
+            }
+        };
+
+        WireHelperService whsMock = mock(WireHelperService.class);
+        WireSupport wireSupportMock = mock(WireSupport.class);
+        when(whsMock.newWireSupport(store, null)).thenReturn(wireSupportMock);
+
+        store.bindWireHelperService(whsMock);
+
+        ComponentContext ctx = mock(ComponentContext.class);
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put("table.name", tableName);
+        props.put("partition.interval", "HOURLY");
+        props.put("partition.retention", 2);
+        props.put("batch.insert.enabled", true);
+
+        // init
+        store.activate(ctx, props);
+
+        ResultSet tables = connection.getMetaData().getTables(null, null, tableName + "%", new String[] { "TABLE" });
+        List<String> partitions = new ArrayList<>();
+        while (tables.next()) {
+            partitions.add(tables.getString("TABLE_NAME"));
+        }
+        assertEquals("Unexpected partitions " + partitions, 2, partitions.size());
+        assertTrue(partitions.contains(tableName + "_P2000010101"));
+
+        List<WireRecord> wireRecords = new ArrayList<WireRecord>();
+        for (int i = 0; i < 3; i++) {
+            Map<String, TypedValue<?>> recordProps = new HashMap<String, TypedValue<?>>();
+            recordProps.put("key", new StringValue("val" + i));
+            wireRecords.add(new WireRecord(recordProps));
+        }
+        store.onWireReceive(new WireEnvelope("emitter", wireRecords));
+
+        ResultSet resultSet = connection.prepareStatement("SELECT count(*) FROM \"" + tableName + "\"")
+                .executeQuery();
+        resultSet.next();
+        assertEquals("Unexpected number of records", 4, resultSet.getInt(1));
+
+        // a new column is added to all the partitions and to the view
+        Map<String, TypedValue<?>> recordProps = new HashMap<String, TypedValue<?>>();
+        recordProps.put("key", new StringValue("new"));
+        recordProps.put("intkey", new IntegerValue(5));
+        wireRecords = new ArrayList<WireRecord>();
+        wireRecords.add(new WireRecord(recordProps));
+        store.onWireReceive(new WireEnvelope("emitter", wireRecords));
+
+        resultSet = connection
+                .prepareStatement("SELECT count(*) FROM \"" + tableName + "\" WHERE \"intkey\" IS NOT NULL")
+                .executeQuery();
+        resultSet.next();
+        assertEquals("Unexpected number of records with intkey", 1, resultSet.getInt(1));
+
+        resultSet = connection.prepareStatement("SELECT count(DISTINCT ID) FROM \"" + tableName + "\"")
+                .executeQuery();
+        resultSet.next();
+        assertEquals("IDs must be unique across partitions", 5, resultSet.getInt(1));
+
+        // deinit
+        store.deactivate(null);
+        connection.prepareStatement("SHUTDOWN").execute();
+    }
 }
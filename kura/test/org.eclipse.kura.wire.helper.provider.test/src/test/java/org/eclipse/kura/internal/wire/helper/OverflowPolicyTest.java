@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.internal.wire.helper;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class OverflowPolicyTest {
+
+    @Test
+    public void testFromValue() {
+        assertEquals(OverflowPolicy.DROP_OLDEST, OverflowPolicy.fromValue("DROP_OLDEST", OverflowPolicy.BLOCK));
+        assertEquals(OverflowPolicy.DROP_NEWEST, OverflowPolicy.fromValue("DROP_NEWEST", OverflowPolicy.BLOCK));
+        assertEquals(OverflowPolicy.BLOCK, OverflowPolicy.fromValue("BLOCK", OverflowPolicy.DROP_NEWEST));
+    }
+
+    @Test
+    public void testFromValueTrimmed() {
+        assertEquals(OverflowPolicy.DROP_NEWEST, OverflowPolicy.fromValue(" DROP_NEWEST ", OverflowPolicy.BLOCK));
+    }
+
+    @Test
+    public void testFromValueInvalid() {
+        assertEquals(OverflowPolicy.BLOCK, OverflowPolicy.fromValue("drop_newest", OverflowPolicy.BLOCK));
+        assertEquals(OverflowPolicy.BLOCK, OverflowPolicy.fromValue("", OverflowPolicy.BLOCK));
+        assertEquals(OverflowPolicy.DROP_OLDEST, OverflowPolicy.fromValue(null, OverflowPolicy.DROP_OLDEST));
+        assertEquals(OverflowPolicy.DROP_OLDEST, OverflowPolicy.fromValue(1, OverflowPolicy.DROP_OLDEST));
+    }
+}
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.internal.wire.helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+import java.util.function.Consumer;
+
+import org.eclipse.kura.wire.WireEnvelope;
+import org.junit.Test;
+import org.osgi.service.wireadmin.Wire;
+
+public class WireDispatchRegistryTest {
+
+    @Test
+    public void testBindResolve() {
+        WireDispatchRegistry registry = new WireDispatchRegistry();
+        Wire wire = mock(Wire.class);
+        Consumer<WireEnvelope> target = envelope -> {
+        };
+
+        assertNull(registry.resolve(wire));
+
+        registry.bind(wire, target);
+
+        assertSame(target, registry.resolve(wire));
+        assertEquals(1, registry.getGeneration());
+    }
+
+    @Test
+    public void testUnbind() {
+        WireDispatchRegistry registry = new WireDispatchRegistry();
+        Wire wire = mock(Wire.class);
+        Consumer<WireEnvelope> target = envelope -> {
+        };
+
+        registry.bind(wire, target);
+        registry.unbind(wire, target);
+
+        assertNull(registry.resolve(wire));
+        assertEquals(2, registry.getGeneration());
+    }
+
+    @Test
+    public void testUnbindOtherTarget() {
+        WireDispatchRegistry registry = new WireDispatchRegistry();
+        Wire wire = mock(Wire.class);
+        Consumer<WireEnvelope> oldTarget = envelope -> {
+        };
+        Consumer<WireEnvelope> newTarget = envelope -> {
+        };
+
+        registry.bind(wire, oldTarget);
+        registry.bind(wire, newTarget);
+
+        // a stale unbind must not remove the binding of the new consumer
+        registry.unbind(wire, oldTarget);
+
+        assertSame(newTarget, registry.resolve(wire));
+        assertEquals(2, registry.getGeneration());
+    }
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.internal.wire.helper;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class WireDispatcherTest {
+
+    @Test
+    public void testWorkerThreadName() throws InterruptedException {
+        WireDispatcher dispatcher = new WireDispatcher();
+        dispatcher.setWorkerThreads(1);
+
+        try {
+            AtomicReference<String> threadName = new AtomicReference<>();
+            CountDownLatch done = new CountDownLatch(1);
+            dispatcher.execute(() -> {
+                threadName.set(Thread.currentThread().getName());
+                done.countDown();
+            });
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertTrue(threadName.get().startsWith("WireDispatcher-"));
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testExecuteNotStarted() {
+        new WireDispatcher().execute(() -> {
+        });
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testExecuteAfterShutdown() {
+        WireDispatcher dispatcher = new WireDispatcher();
+        dispatcher.setWorkerThreads(1);
+        dispatcher.shutdown();
+
+        dispatcher.execute(() -> {
+        });
+    }
+
+    @Test
+    public void testResizeCompletesSubmittedTasks() throws InterruptedException {
+        WireDispatcher dispatcher = new WireDispatcher();
+        dispatcher.setWorkerThreads(1);
+
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch oldPoolDone = new CountDownLatch(2);
+            dispatcher.execute(() -> {
+                awaitQuietly(release);
+                oldPoolDone.countDown();
+            });
+            dispatcher.execute(oldPoolDone::countDown);
+
+            dispatcher.setWorkerThreads(2);
+
+            CountDownLatch newPoolDone = new CountDownLatch(1);
+            dispatcher.execute(newPoolDone::countDown);
+            assertTrue(newPoolDone.await(5, TimeUnit.SECONDS));
+
+            release.countDown();
+            assertTrue(oldPoolDone.await(5, TimeUnit.SECONDS));
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
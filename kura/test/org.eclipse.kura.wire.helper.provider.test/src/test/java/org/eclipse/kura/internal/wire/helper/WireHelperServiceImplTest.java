@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.internal.wire.helper;
+
+import static org.eclipse.kura.configuration.ConfigurationService.KURA_SERVICE_PID;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.osgi.framework.Constants.SERVICE_PID;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.kura.core.testutil.TestUtil;
+import org.eclipse.kura.wire.WireComponent;
+import org.eclipse.kura.wire.WireReceiver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.ServiceReference;
+
+public class WireHelperServiceImplTest {
+
+    private WireHelperServiceImpl service;
+
+    @Before
+    public void setUp() {
+        this.service = new WireHelperServiceImpl();
+    }
+
+    @After
+    public void tearDown() {
+        this.service.deactivate();
+    }
+
+    @Test
+    public void testSynchronousDispatchByDefault() throws NoSuchFieldException {
+        this.service.activate(new HashMap<>());
+
+        WireSupportImpl wireSupport = newWireSupport(mockReference(new HashMap<>()));
+
+        assertNull(TestUtil.getFieldValue(wireSupport, "mailbox"));
+        assertNull(TestUtil.getFieldValue(wireSupport, "dispatchRegistry"));
+    }
+
+    @Test
+    public void testAsyncDispatchConfiguration() throws NoSuchFieldException {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(WireHelperServiceImpl.DISPATCH_ASYNC_ENABLED_PROP_NAME, true);
+        properties.put(WireHelperServiceImpl.DISPATCH_MAILBOX_CAPACITY_PROP_NAME, 10);
+        properties.put(WireHelperServiceImpl.DISPATCH_OVERFLOW_POLICY_PROP_NAME, "DROP_OLDEST");
+        this.service.activate(properties);
+
+        WireSupportImpl wireSupport = newWireSupport(mockReference(new HashMap<>()));
+
+        WireMailbox mailbox = (WireMailbox) TestUtil.getFieldValue(wireSupport, "mailbox");
+        assertNotNull(mailbox);
+        assertEquals(10, TestUtil.getFieldValue(mailbox, "capacity"));
+        assertEquals(OverflowPolicy.DROP_OLDEST, TestUtil.getFieldValue(mailbox, "overflowPolicy"));
+    }
+
+    @Test
+    public void testAsyncDispatchInvalidConfiguration() throws NoSuchFieldException {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(WireHelperServiceImpl.DISPATCH_ASYNC_ENABLED_PROP_NAME, true);
+        properties.put(WireHelperServiceImpl.DISPATCH_MAILBOX_CAPACITY_PROP_NAME, "10");
+        properties.put(WireHelperServiceImpl.DISPATCH_OVERFLOW_POLICY_PROP_NAME, "UNKNOWN");
+        this.service.activate(properties);
+
+        WireSupportImpl wireSupport = newWireSupport(mockReference(new HashMap<>()));
+
+        WireMailbox mailbox = (WireMailbox) TestUtil.getFieldValue(wireSupport, "mailbox");
+        assertEquals(1000, TestUtil.getFieldValue(mailbox, "capacity"));
+        assertEquals(OverflowPolicy.BLOCK, TestUtil.getFieldValue(mailbox, "overflowPolicy"));
+    }
+
+    @Test
+    public void testAsyncDispatchComponentOverride() throws NoSuchFieldException {
+        this.service.activate(new HashMap<>());
+
+        Map<String, Object> componentProperties = new HashMap<>();
+        componentProperties.put(WireHelperServiceImpl.DISPATCH_ASYNC_ENABLED_PROP_NAME, true);
+        componentProperties.put(WireHelperServiceImpl.DISPATCH_MAILBOX_CAPACITY_PROP_NAME, 5);
+        componentProperties.put(WireHelperServiceImpl.DISPATCH_OVERFLOW_POLICY_PROP_NAME, "DROP_NEWEST");
+
+        WireSupportImpl wireSupport = newWireSupport(mockReference(componentProperties));
+
+        WireMailbox mailbox = (WireMailbox) TestUtil.getFieldValue(wireSupport, "mailbox");
+        assertNotNull(mailbox);
+        assertEquals(5, TestUtil.getFieldValue(mailbox, "capacity"));
+        assertEquals(OverflowPolicy.DROP_NEWEST, TestUtil.getFieldValue(mailbox, "overflowPolicy"));
+    }
+
+    @Test
+    public void testAsyncDispatchComponentOptOut() throws NoSuchFieldException {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(WireHelperServiceImpl.DISPATCH_ASYNC_ENABLED_PROP_NAME, true);
+        this.service.activate(properties);
+
+        Map<String, Object> componentProperties = new HashMap<>();
+        componentProperties.put(WireHelperServiceImpl.DISPATCH_ASYNC_ENABLED_PROP_NAME, false);
+
+        WireSupportImpl wireSupport = newWireSupport(mockReference(componentProperties));
+
+        assertNull(TestUtil.getFieldValue(wireSupport, "mailbox"));
+    }
+
+    @Test
+    public void testDirectDispatchConfiguration() throws NoSuchFieldException {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(WireHelperServiceImpl.DISPATCH_DIRECT_ENABLED_PROP_NAME, true);
+        this.service.activate(properties);
+
+        WireSupportImpl first = newWireSupport(mockReference(new HashMap<>()));
+        WireSupportImpl second = newWireSupport(mockReference(new HashMap<>()));
+
+        // all the wire supports share the same registry
+        Object registry = TestUtil.getFieldValue(first, "dispatchRegistry");
+        assertNotNull(registry);
+        assertSame(registry, TestUtil.getFieldValue(second, "dispatchRegistry"));
+
+        Map<String, Object> componentProperties = new HashMap<>();
+        componentProperties.put(WireHelperServiceImpl.DISPATCH_DIRECT_ENABLED_PROP_NAME, false);
+        WireSupportImpl optedOut = newWireSupport(mockReference(componentProperties));
+
+        assertNull(TestUtil.getFieldValue(optedOut, "dispatchRegistry"));
+    }
+
+    @Test
+    public void testUpdatedAppliesToNewWireSupports() throws NoSuchFieldException {
+        this.service.activate(new HashMap<>());
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(WireHelperServiceImpl.DISPATCH_ASYNC_ENABLED_PROP_NAME, true);
+        properties.put(WireHelperServiceImpl.DISPATCH_WORKER_THREADS_PROP_NAME, 4);
+        this.service.updated(properties);
+
+        WireSupportImpl wireSupport = newWireSupport(mockReference(new HashMap<>()));
+
+        assertNotNull(TestUtil.getFieldValue(wireSupport, "mailbox"));
+        WireDispatcher dispatcher = (WireDispatcher) TestUtil.getFieldValue(this.service, "dispatcher");
+        assertEquals(4, TestUtil.getFieldValue(dispatcher, "workerThreads"));
+    }
+
+    private WireSupportImpl newWireSupport(ServiceReference<WireComponent> reference) {
+        return (WireSupportImpl) this.service.newWireSupport(mock(WireReceiver.class), reference);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ServiceReference<WireComponent> mockReference(Map<String, Object> properties) {
+        ServiceReference<WireComponent> reference = mock(ServiceReference.class);
+        when(reference.getProperty(SERVICE_PID)).thenReturn("service.pid");
+        when(reference.getProperty(KURA_SERVICE_PID)).thenReturn("kura.service.pid");
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            when(reference.getProperty(property.getKey())).thenReturn(property.getValue());
+        }
+        return reference;
+    }
+}
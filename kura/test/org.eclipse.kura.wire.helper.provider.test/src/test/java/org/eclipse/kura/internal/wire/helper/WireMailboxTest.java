@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.internal.wire.helper;
+
+import static org.eclipse.kura.internal.wire.helper.WireDispatcherTest.awaitQuietly;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WireMailboxTest {
+
+    private WireDispatcher dispatcher;
+
+    @Before
+    public void setUp() {
+        this.dispatcher = new WireDispatcher();
+        this.dispatcher.setWorkerThreads(4);
+    }
+
+    @After
+    public void tearDown() {
+        this.dispatcher.shutdown();
+    }
+
+    @Test
+    public void testSequentialDelivery() throws InterruptedException {
+        WireMailbox mailbox = this.dispatcher.newMailbox("test", 1000, OverflowPolicy.BLOCK);
+
+        int count = 500;
+        List<Integer> delivered = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(count);
+
+        for (int i = 0; i < count; i++) {
+            final int value = i;
+            assertTrue(mailbox.submit(() -> {
+                if (running.incrementAndGet() > 1) {
+                    overlapped.set(true);
+                }
+                delivered.add(value);
+                running.decrementAndGet();
+                done.countDown();
+            }));
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertFalse(overlapped.get());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, (int) delivered.get(i));
+        }
+        assertEquals(0, mailbox.getDroppedCount());
+    }
+
+    @Test
+    public void testDropNewest() throws InterruptedException {
+        WireMailbox mailbox = this.dispatcher.newMailbox("test", 2, OverflowPolicy.DROP_NEWEST);
+        List<Integer> delivered = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        CountDownLatch release = blockMailbox(mailbox);
+
+        assertTrue(mailbox.submit(() -> delivered.add(1)));
+        assertTrue(mailbox.submit(() -> {
+            delivered.add(2);
+            done.countDown();
+        }));
+        assertFalse(mailbox.submit(() -> delivered.add(3)));
+        assertFalse(mailbox.submit(() -> delivered.add(4)));
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertEquals(Arrays.asList(1, 2), delivered);
+        assertEquals(2, mailbox.getDroppedCount());
+    }
+
+    @Test
+    public void testDropOldest() throws InterruptedException {
+        WireMailbox mailbox = this.dispatcher.newMailbox("test", 2, OverflowPolicy.DROP_OLDEST);
+        List<Integer> delivered = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        CountDownLatch release = blockMailbox(mailbox);
+
+        assertTrue(mailbox.submit(() -> delivered.add(1)));
+        assertTrue(mailbox.submit(() -> delivered.add(2)));
+        assertTrue(mailbox.submit(() -> delivered.add(3)));
+        assertTrue(mailbox.submit(() -> {
+            delivered.add(4);
+            done.countDown();
+        }));
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertEquals(Arrays.asList(3, 4), delivered);
+        assertEquals(2, mailbox.getDroppedCount());
+    }
+
+    @Test
+    public void testBlock() throws InterruptedException {
+        WireMailbox mailbox = this.dispatcher.newMailbox("test", 1, OverflowPolicy.BLOCK);
+        List<Integer> delivered = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = blockMailbox(mailbox);
+
+        assertTrue(mailbox.submit(() -> delivered.add(1)));
+
+        CountDownLatch submitted = new CountDownLatch(1);
+        Thread emitter = new Thread(() -> {
+            mailbox.submit(() -> delivered.add(2));
+            submitted.countDown();
+        });
+        emitter.start();
+
+        // the emitter waits until the mailbox has room
+        assertFalse(submitted.await(200, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        assertTrue(submitted.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch done = new CountDownLatch(1);
+        awaitDelivery(mailbox, done);
+
+        assertEquals(Arrays.asList(1, 2), delivered);
+        assertEquals(0, mailbox.getDroppedCount());
+    }
+
+    @Test
+    public void testDeliveryOnCallerThreadIfDispatcherNotRunning() {
+        WireDispatcher stoppedDispatcher = new WireDispatcher();
+        WireMailbox mailbox = stoppedDispatcher.newMailbox("test", 10, OverflowPolicy.BLOCK);
+        Thread caller = Thread.currentThread();
+        List<Thread> deliveryThreads = new ArrayList<>();
+
+        assertTrue(mailbox.submit(() -> deliveryThreads.add(Thread.currentThread())));
+        assertTrue(mailbox.submit(() -> deliveryThreads.add(Thread.currentThread())));
+
+        assertEquals(Arrays.asList(caller, caller), deliveryThreads);
+    }
+
+    @Test
+    public void testDeliveryExceptionDoesNotStopMailbox() throws InterruptedException {
+        WireMailbox mailbox = this.dispatcher.newMailbox("test", 10, OverflowPolicy.BLOCK);
+
+        assertTrue(mailbox.submit(() -> {
+            throw new IllegalStateException("test");
+        }));
+
+        CountDownLatch done = new CountDownLatch(1);
+        awaitDelivery(mailbox, done);
+    }
+
+    private static CountDownLatch blockMailbox(WireMailbox mailbox) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        assertTrue(mailbox.submit(() -> {
+            started.countDown();
+            awaitQuietly(release);
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        return release;
+    }
+
+    private static void awaitDelivery(WireMailbox mailbox, CountDownLatch done) throws InterruptedException {
+        mailbox.submit(done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eurotech and/or its affiliates and others
+ *
+ *   All rights reserved. This program and the accompanying materials
+ *   are made available under the terms of the Eclipse Public License v1.0
+ *   which accompanies this distribution, and is available at
+ *   http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.eclipse.kura.internal.wire.helper;
+
+import static org.eclipse.kura.wire.graph.Constants.WIRE_EMITTER_PORT_PROP_NAME;
+import static org.eclipse.kura.wire.graph.Constants.WIRE_RECEIVER_PORT_PROP_NAME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.List;
+
+import org.eclipse.kura.type.TypedValues;
+import org.eclipse.kura.wire.WireEnvelope;
+import org.eclipse.kura.wire.WireReceiver;
+import org.eclipse.kura.wire.WireRecord;
+import org.eclipse.kura.wire.WireSupport;
+import org.junit.Test;
+import org.osgi.service.wireadmin.Wire;
+import org.osgi.service.wireadmin.WireConstants;
+
+public class WireSupportImplTest {
+
+    private static final String EMITTER_PID = "emitter";
+
+    @Test
+    public void testDirectDispatchDeliversSameEnvelopesAsWireAdmin() {
+        List<WireRecord> records = Collections
+                .singletonList(new WireRecord(Collections.singletonMap("key", TypedValues.newIntegerValue(1))));
+
+        // WireAdmin path: the emitter updates the wire and WireAdmin calls back the consumer
+        List<WireEnvelope> wireAdminEnvelopes = new ArrayList<>();
+        Wire wireAdminWire = mockWire();
+        WireSupport wireAdminConsumer = newConsumer(wireAdminEnvelopes, null);
+        doAnswer(invocation -> {
+            wireAdminConsumer.updated(wireAdminWire, invocation.getArguments()[0]);
+            return null;
+        }).when(wireAdminWire).update(anyObject());
+        wireAdminConsumer.producersConnected(new Wire[] { wireAdminWire });
+        WireSupport wireAdminEmitter = newEmitter(null);
+        wireAdminEmitter.consumersConnected(new Wire[] { wireAdminWire });
+
+        wireAdminEmitter.emit(records);
+
+        // direct path
+        WireDispatchRegistry registry = new WireDispatchRegistry();
+        List<WireEnvelope> directEnvelopes = new ArrayList<>();
+        Wire directWire = mockWire();
+        WireSupport directConsumer = newConsumer(directEnvelopes, registry);
+        directConsumer.producersConnected(new Wire[] { directWire });
+        WireSupport directEmitter = newEmitter(registry);
+        directEmitter.consumersConnected(new Wire[] { directWire });
+
+        directEmitter.emit(records);
+
+        verify(wireAdminWire, times(1)).update(anyObject());
+        verify(directWire, never()).update(anyObject());
+
+        assertEquals(1, wireAdminEnvelopes.size());
+        assertEquals(1, directEnvelopes.size());
+        assertEquals(wireAdminEnvelopes.get(0).getEmitterPid(), directEnvelopes.get(0).getEmitterPid());
+        assertEquals(wireAdminEnvelopes.get(0).getRecords(), directEnvelopes.get(0).getRecords());
+        assertSame(records, directEnvelopes.get(0).getRecords());
+    }
+
+    @Test
+    public void testDirectDispatchUnbindOnDisconnect() {
+        WireDispatchRegistry registry = new WireDispatchRegistry();
+        List<WireEnvelope> envelopes = new ArrayList<>();
+        Wire wire = mockWire();
+        WireSupport consumer = newConsumer(envelopes, registry);
+        consumer.producersConnected(new Wire[] { wire });
+        WireSupport emitter = newEmitter(registry);
+        emitter.consumersConnected(new Wire[] { wire });
+
+        emitter.emit(Collections.emptyList());
+        assertEquals(1, envelopes.size());
+
+        consumer.producersConnected(new Wire[0]);
+
+        assertNull(registry.resolve(wire));
+
+        // the emitter falls back to WireAdmin once the consumer is no longer registered
+        emitter.emit(Collections.emptyList());
+
+        assertEquals(1, envelopes.size());
+        verify(wire, times(1)).update(anyObject());
+    }
+
+    @Test
+    public void testDirectDispatchUnbindOnNullWires() {
+        WireDispatchRegistry registry = new WireDispatchRegistry();
+        Wire wire = mockWire();
+        WireSupport consumer = newConsumer(new ArrayList<>(), registry);
+        consumer.producersConnected(new Wire[] { wire });
+
+        consumer.producersConnected(null);
+
+        assertNull(registry.resolve(wire));
+    }
+
+    @Test
+    public void testDirectDispatchDisconnectedWire() {
+        WireDispatchRegistry registry = new WireDispatchRegistry();
+        List<WireEnvelope> envelopes = new ArrayList<>();
+        Wire wire = mockWire();
+        WireSupport consumer = newConsumer(envelopes, registry);
+        consumer.producersConnected(new Wire[] { wire });
+        WireSupport emitter = newEmitter(registry);
+        emitter.consumersConnected(new Wire[] { wire });
+
+        when(wire.isConnected()).thenReturn(false);
+        emitter.emit(Collections.emptyList());
+
+        assertEquals(0, envelopes.size());
+        verify(wire, times(1)).update(anyObject());
+    }
+
+    @Test
+    public void testFilteredWireUsesWireAdmin() {
+        WireDispatchRegistry registry = new WireDispatchRegistry();
+        List<WireEnvelope> envelopes = new ArrayList<>();
+        Wire wire = mockWire();
+        wire.getProperties().put(WireConstants.WIREADMIN_FILTER, "(wirevalue.delta>=1)");
+        WireSupport consumer = newConsumer(envelopes, registry);
+        consumer.producersConnected(new Wire[] { wire });
+        WireSupport emitter = newEmitter(registry);
+        emitter.consumersConnected(new Wire[] { wire });
+
+        emitter.emit(Collections.emptyList());
+
+        // the filter is evaluated by WireAdmin
+        assertEquals(0, envelopes.size());
+        verify(wire, times(1)).update(anyObject());
+    }
+
+    @Test
+    public void testWireWithIncompatibleFlavorsUsesWireAdmin() {
+        WireDispatchRegistry registry = new WireDispatchRegistry();
+        List<WireEnvelope> envelopes = new ArrayList<>();
+        Wire wire = mockWire();
+        when(wire.getFlavors()).thenReturn(new Class<?>[] { String.class });
+        WireSupport consumer = newConsumer(envelopes, registry);
+        consumer.producersConnected(new Wire[] { wire });
+        WireSupport emitter = newEmitter(registry);
+        emitter.consumersConnected(new Wire[] { wire });
+
+        emitter.emit(Collections.emptyList());
+
+        assertEquals(0, envelopes.size());
+        verify(wire, times(1)).update(anyObject());
+    }
+
+    @Test
+    public void testPolledReturnsLastDirectEnvelope() {
+        WireDispatchRegistry registry = new WireDispatchRegistry();
+        List<WireEnvelope> envelopes = new ArrayList<>();
+        Wire wire = mockWire();
+        when(wire.getFlavors()).thenReturn(new Class<?>[] { WireEnvelope.class });
+        WireSupport consumer = newConsumer(envelopes, registry);
+        consumer.producersConnected(new Wire[] { wire });
+        WireSupport emitter = newEmitter(registry);
+        emitter.consumersConnected(new Wire[] { wire });
+
+        emitter.emit(Collections.emptyList());
+
+        assertEquals(1, envelopes.size());
+        assertSame(envelopes.get(0), emitter.polled(wire));
+
+        // once the route falls back to WireAdmin the last value of the wire is returned
+        WireEnvelope lastValue = new WireEnvelope(EMITTER_PID, Collections.emptyList());
+        when(wire.getLastValue()).thenReturn(lastValue);
+        when(wire.isConnected()).thenReturn(false);
+        emitter.emit(Collections.emptyList());
+
+        assertSame(lastValue, emitter.polled(wire));
+    }
+
+    private static Wire mockWire() {
+        Dictionary<String, Object> properties = new Hashtable<>();
+        properties.put(WIRE_EMITTER_PORT_PROP_NAME.value(), 0);
+        properties.put(WIRE_RECEIVER_PORT_PROP_NAME.value(), 0);
+
+        Wire wire = mock(Wire.class);
+        when(wire.getProperties()).thenReturn(properties);
+        when(wire.isConnected()).thenReturn(true);
+        return wire;
+    }
+
+    private static WireSupport newEmitter(WireDispatchRegistry registry) {
+        WireReceiver component = mock(WireReceiver.class);
+        return new WireSupportImpl(component, EMITTER_PID, EMITTER_PID, 0, 1, null, registry);
+    }
+
+    private static WireSupport newConsumer(List<WireEnvelope> envelopes, WireDispatchRegistry registry) {
+        WireReceiver component = mock(WireReceiver.class);
+        doAnswer(invocation -> envelopes.add((WireEnvelope) invocation.getArguments()[0])).when(component)
+                .onWireReceive(anyObject());
+        return new WireSupportImpl(component, "consumer", "consumer", 1, 0, null, registry);
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  *   All rights reserved. This program and the accompanying materials
  *   are made available under the terms of the Eclipse Public License v1.0
@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.eclipse.kura.core.testutil.TestUtil;
+import org.eclipse.kura.type.LongValue;
 import org.eclipse.kura.type.StringValue;
 import org.eclipse.kura.type.TypedValue;
 import org.eclipse.kura.wire.WireEnvelope;
@@ -119,4 +120,53 @@ public class ScriptFilterTest {
         svc.onWireReceive(null);
     }
 
+    @Test
+    public void testExpressionLanguage() throws NoSuchFieldException {
+        // test that the expression language is used without creating a script engine
+
+        ScriptFilter svc = new ScriptFilter();
+
+        WireHelperService whsMock = mock(WireHelperService.class);
+        svc.bindWireHelperService(whsMock);
+
+        WireSupport wsMock = mock(WireSupport.class);
+        when(whsMock.newWireSupport(svc, null)).thenReturn(wsMock);
+
+        doAnswer(invocation -> {
+            List<WireRecord> records = invocation.getArgumentAt(0, List.class);
+
+            assertEquals(1, records.size());
+
+            Map<String, TypedValue<?>> outputProps = records.get(0).getProperties();
+            assertEquals(2, outputProps.size());
+            assertEquals("emitter", outputProps.get("source").getValue());
+            assertEquals(10L, outputProps.get("timerHalf").getValue());
+
+            return null;
+        }).when(wsMock).emit(anyObject());
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("script", "where TIMER > 10\n*\n-TIMER\nsource = emitterPid\ntimerHalf = TIMER / 2");
+        properties.put("script.language", "EXPRESSION");
+        svc.activate(mock(ComponentContext.class), properties);
+
+        assertNull(TestUtil.getFieldValue(svc, "scriptEngine"));
+        assertNotNull(TestUtil.getFieldValue(svc, "projection"));
+
+        List<WireRecord> wireRecords = new ArrayList<>();
+
+        Map<String, TypedValue<?>> recordProps = new HashMap<>();
+        recordProps.put("TIMER", new LongValue(20));
+        wireRecords.add(new WireRecord(recordProps));
+
+        recordProps = new HashMap<>();
+        recordProps.put("TIMER", new LongValue(5));
+        wireRecords.add(new WireRecord(recordProps));
+
+        svc.onWireReceive(new WireEnvelope("emitter", wireRecords));
+
+        verify(wsMock, times(1)).emit(anyObject());
+
+        svc.deactivate();
+    }
 }
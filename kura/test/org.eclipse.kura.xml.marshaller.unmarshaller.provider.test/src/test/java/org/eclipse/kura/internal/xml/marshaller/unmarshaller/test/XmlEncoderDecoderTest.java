@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Eurotech and/or its affiliates and others
+ * Copyright (c) 2017, 2020 Eurotech and/or its affiliates and others
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -8,12 +8,14 @@
  *******************************************************************************/
 package org.eclipse.kura.internal.xml.marshaller.unmarshaller.test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -421,4 +423,123 @@ public class XmlEncoderDecoderTest {
         Map<String, Object> properties1 = config1.getConfigurations().get(0).getConfigurationProperties();
         assertEquals(properties, properties1);
     }
+
+    @Test
+    public void testXmlComponentConfigurationsMarshallingFormat() throws Exception {
+        XmlMarshallUnmarshallImpl xmlMarshallerImpl = new XmlMarshallUnmarshallImpl();
+
+        Tad tad = new Tad();
+        tad.setId("int");
+        tad.setName("int");
+        tad.setType(Tscalar.INTEGER);
+        tad.setCardinality(0);
+        tad.setRequired(true);
+        tad.setDefault("1");
+
+        Tocd tocd = new Tocd();
+        tocd.setId("ocd");
+        tocd.setName("N");
+        tocd.addAD(tad);
+
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("int", 1);
+        properties.put("text", "<x> & \"y\"\nz");
+        properties.put("array", new String[] { "a", "" });
+
+        XmlComponentConfigurations xcc = new XmlComponentConfigurations();
+        List<ComponentConfiguration> ccis = new ArrayList<>();
+        ccis.add(new ComponentConfigurationImpl("a&b", tocd, properties));
+        ccis.add(new ComponentConfigurationImpl("empty", null, null));
+        xcc.setConfigurations(ccis);
+
+        // same output of the previous DOM based marshaller
+        String expected = String.join(System.lineSeparator(),
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                        + "<esf:configurations xmlns:esf=\"http://eurotech.com/esf/2.0\" "
+                        + "xmlns:ocd=\"http://www.osgi.org/xmlns/metatype/v1.2.0\">",
+                "    <esf:configuration pid=\"a&amp;b\">", //
+                "        <ocd:OCD id=\"ocd\" name=\"N\">",
+                "            <ocd:AD cardinality=\"0\" default=\"1\" id=\"int\" name=\"int\" required=\"true\" "
+                        + "type=\"Integer\"/>",
+                "        </ocd:OCD>", //
+                "        <esf:properties>",
+                "            <esf:property array=\"false\" encrypted=\"false\" name=\"int\" type=\"Integer\">",
+                "                <esf:value>1</esf:value>", //
+                "            </esf:property>",
+                "            <esf:property array=\"false\" encrypted=\"false\" name=\"text\" type=\"String\">",
+                "                <esf:value>&lt;x&gt; &amp; \"y\"\nz</esf:value>", //
+                "            </esf:property>",
+                "            <esf:property array=\"true\" encrypted=\"false\" name=\"array\" type=\"String\">",
+                "                <esf:value>a</esf:value>", //
+                "                <esf:value/>", //
+                "            </esf:property>",
+                "        </esf:properties>", //
+                "    </esf:configuration>", //
+                "    <esf:configuration pid=\"empty\"/>", //
+                "</esf:configurations>", //
+                "");
+
+        assertEquals(expected, xmlMarshallerImpl.marshal(xcc));
+    }
+
+    @Test
+    public void testXmlComponentConfigurationsEscaping() throws Exception {
+        XmlMarshallUnmarshallImpl xmlMarshallerImpl = new XmlMarshallUnmarshallImpl();
+
+        String special = " <a href=\"x\">&amp;</a>\t\r\n'\u00e9\ud83d\ude00 ";
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(special, special);
+        properties.put("array", new String[] { special, "", "  " });
+
+        XmlComponentConfigurations xcc = new XmlComponentConfigurations();
+        List<ComponentConfiguration> ccis = new ArrayList<>();
+        ccis.add(new ComponentConfigurationImpl(special, null, properties));
+        xcc.setConfigurations(ccis);
+
+        String s = xmlMarshallerImpl.marshal(xcc);
+        XmlComponentConfigurations config1 = xmlMarshallerImpl.unmarshal(s, XmlComponentConfigurations.class);
+
+        ComponentConfiguration result = config1.getConfigurations().get(0);
+        assertEquals(special, result.getPid());
+        assertEquals(special, result.getConfigurationProperties().get(special));
+        assertArrayEquals(new String[] { special, "", "  " },
+                (String[]) result.getConfigurationProperties().get("array"));
+    }
+
+    @Test
+    public void testLargeXmlComponentConfigurationsMarshallUnmarshall() throws Exception {
+        XmlMarshallUnmarshallImpl xmlMarshallerImpl = new XmlMarshallUnmarshallImpl();
+
+        XmlComponentConfigurations xcc = new XmlComponentConfigurations();
+        List<ComponentConfiguration> ccis = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Map<String, Object> properties = new HashMap<>();
+            properties.put("prop.string", "value " + i);
+            properties.put("prop.long", (long) i);
+            properties.put("prop.double", i / 3.0);
+            properties.put("prop.integer", i);
+            properties.put("prop.boolean", i % 2 == 0);
+            properties.put("prop.array", new Integer[] { i, i + 1 });
+            ccis.add(new ComponentConfigurationImpl("org.eclipse.kura.Component" + i,
+                    i % 10 == 0 ? getSampleTocdObject() : null, properties));
+        }
+        xcc.setConfigurations(ccis);
+
+        String s = xmlMarshallerImpl.marshal(xcc);
+        XmlComponentConfigurations config1 = xmlMarshallerImpl.unmarshal(s, XmlComponentConfigurations.class);
+
+        assertEquals(ccis.size(), config1.getConfigurations().size());
+        for (int i = 0; i < ccis.size(); i++) {
+            ComponentConfiguration expected = ccis.get(i);
+            ComponentConfiguration actual = config1.getConfigurations().get(i);
+            assertEquals(expected.getPid(), actual.getPid());
+
+            Map<String, Object> expectedProperties = new HashMap<>(expected.getConfigurationProperties());
+            Map<String, Object> actualProperties = new HashMap<>(actual.getConfigurationProperties());
+            assertArrayEquals((Integer[]) expectedProperties.remove("prop.array"),
+                    (Integer[]) actualProperties.remove("prop.array"));
+            assertEquals(expectedProperties, actualProperties);
+        }
+    }
 }